@@ -0,0 +1,269 @@
+package com.streamflix.api.busca;
+
+import com.streamflix.api.util.LongIntHashMap;
+import com.streamflix.api.util.Textos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido em memória do catálogo (título, diretor e gênero).
+ *
+ * Cada filme vira um documento com número fixo; cada termo de um campo aponta para a lista ordenada
+ * (int[]) dos documentos que o contêm. Título e diretor usam os termos do Tokenizador e casam por
+ * prefixo (o dicionário de cada campo é um TreeMap, então "incep" cobre "inception"); o gênero é um
+ * termo só, o valor inteiro normalizado, e casa por igualdade. Consultas com vários termos exigem
+ * todos (interseção das listas, da menor para a maior).
+ */
+public class IndiceCatalogo {
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    public enum Campo {
+        TITULO, DIRETOR, GENERO
+    }
+
+    private static final class Postagens {
+        int[] documentos = new int[2];
+        int tamanho;
+
+        void adicionar(int documento) {
+            int posicao = Arrays.binarySearch(documentos, 0, tamanho, documento);
+            if (posicao >= 0) {
+                return;
+            }
+            posicao = -posicao - 1;
+            if (tamanho == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamanho * 2);
+            }
+            System.arraycopy(documentos, posicao, documentos, posicao + 1, tamanho - posicao);
+            documentos[posicao] = documento;
+            tamanho++;
+        }
+
+        void remover(int documento) {
+            int posicao = Arrays.binarySearch(documentos, 0, tamanho, documento);
+            if (posicao >= 0) {
+                System.arraycopy(documentos, posicao + 1, documentos, posicao, tamanho - posicao - 1);
+                tamanho--;
+            }
+        }
+
+        int[] copia() {
+            return Arrays.copyOf(documentos, tamanho);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Campo, TreeMap<String, Postagens>> dicionarios = new EnumMap<>(Campo.class);
+    private final LongIntHashMap documentoPorFilme = new LongIntHashMap(CAPACIDADE_INICIAL, -1);
+
+    // Dados de cada documento (posição = número do documento): filme e termos indexados por campo
+    private long[] filmes = new long[CAPACIDADE_INICIAL];
+    private String[][][] termosPorDocumento = new String[CAPACIDADE_INICIAL][][];
+    private int totalDocumentos;
+
+    public IndiceCatalogo() {
+        for (Campo campo : Campo.values()) {
+            dicionarios.put(campo, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Termos de um texto no campo: termos de busca (título, diretor) ou o valor normalizado (gênero)
+     */
+    public static List<String> termos(Campo campo, String texto) {
+        if (campo == Campo.GENERO) {
+            String genero = Textos.normalizar(texto);
+            return genero != null ? List.of(genero) : List.of();
+        }
+        return Tokenizador.termos(texto);
+    }
+
+    /**
+     * Indexar (ou reindexar) o filme
+     */
+    public void indexar(long filmeId, String titulo, String diretor, String genero) {
+        String[][] termos = new String[Campo.values().length][];
+        termos[Campo.TITULO.ordinal()] = distintos(termos(Campo.TITULO, titulo));
+        termos[Campo.DIRETOR.ordinal()] = distintos(termos(Campo.DIRETOR, diretor));
+        termos[Campo.GENERO.ordinal()] = distintos(termos(Campo.GENERO, genero));
+
+        lock.writeLock().lock();
+        try {
+            int documento = documentoPorFilme.get(filmeId);
+            if (documento >= 0) {
+                desindexar(documento);
+            } else {
+                documento = totalDocumentos++;
+                if (documento == filmes.length) {
+                    filmes = Arrays.copyOf(filmes, documento * 2);
+                    termosPorDocumento = Arrays.copyOf(termosPorDocumento, documento * 2);
+                }
+                filmes[documento] = filmeId;
+                documentoPorFilme.put(filmeId, documento);
+            }
+
+            termosPorDocumento[documento] = termos;
+            for (Campo campo : Campo.values()) {
+                TreeMap<String, Postagens> dicionario = dicionarios.get(campo);
+                for (String termo : termos[campo.ordinal()]) {
+                    dicionario.computeIfAbsent(termo, t -> new Postagens()).adicionar(documento);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retirar o filme do índice (o número do documento não é reaproveitado)
+     */
+    public void remover(long filmeId) {
+        lock.writeLock().lock();
+        try {
+            int documento = documentoPorFilme.get(filmeId);
+            if (documento >= 0) {
+                desindexar(documento);
+                termosPorDocumento[documento] = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * IDs dos filmes (em ordem crescente) cujo campo tem todos os termos da consulta
+     */
+    public long[] buscar(Campo campo, List<String> termosConsulta) {
+        if (termosConsulta.isEmpty()) {
+            return new long[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            TreeMap<String, Postagens> dicionario = dicionarios.get(campo);
+            List<int[]> listas = new ArrayList<>(termosConsulta.size());
+            for (String termo : distintos(termosConsulta)) {
+                int[] lista = campo == Campo.GENERO ? exato(dicionario, termo) : prefixo(dicionario, termo);
+                if (lista.length == 0) {
+                    return new long[0];
+                }
+                listas.add(lista);
+            }
+            listas.sort(Comparator.comparingInt(lista -> lista.length));
+
+            int[] documentos = listas.get(0);
+            for (int j = 1; j < listas.size() && documentos.length > 0; j++) {
+                documentos = intersecao(documentos, listas.get(j));
+            }
+
+            long[] resultado = new long[documentos.length];
+            for (int i = 0; i < documentos.length; i++) {
+                resultado[i] = filmes[documentos[i]];
+            }
+            Arrays.sort(resultado);
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            int tamanho = 0;
+            for (int documento = 0; documento < totalDocumentos; documento++) {
+                if (termosPorDocumento[documento] != null) {
+                    tamanho++;
+                }
+            }
+            return tamanho;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void desindexar(int documento) {
+        String[][] termos = termosPorDocumento[documento];
+        if (termos == null) {
+            return;
+        }
+        for (Campo campo : Campo.values()) {
+            TreeMap<String, Postagens> dicionario = dicionarios.get(campo);
+            for (String termo : termos[campo.ordinal()]) {
+                Postagens lista = dicionario.get(termo);
+                if (lista != null) {
+                    lista.remover(documento);
+                    if (lista.tamanho == 0) {
+                        dicionario.remove(termo);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[] exato(TreeMap<String, Postagens> dicionario, String termo) {
+        Postagens lista = dicionario.get(termo);
+        return lista != null ? lista.copia() : new int[0];
+    }
+
+    /**
+     * União das listas de todos os termos que começam com o prefixo
+     */
+    private static int[] prefixo(TreeMap<String, Postagens> dicionario, String prefixo) {
+        Map<String, Postagens> faixa = dicionario.subMap(prefixo, true, prefixo + Character.MAX_VALUE, false);
+        if (faixa.size() == 1) {
+            return faixa.values().iterator().next().copia();
+        }
+
+        int total = 0;
+        for (Postagens lista : faixa.values()) {
+            total += lista.tamanho;
+        }
+        int[] documentos = new int[total];
+        int n = 0;
+        for (Postagens lista : faixa.values()) {
+            System.arraycopy(lista.documentos, 0, documentos, n, lista.tamanho);
+            n += lista.tamanho;
+        }
+        Arrays.sort(documentos);
+
+        int distintos = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || documentos[i] != documentos[i - 1]) {
+                documentos[distintos++] = documentos[i];
+            }
+        }
+        return Arrays.copyOf(documentos, distintos);
+    }
+
+    private static int[] intersecao(int[] menor, int[] maior) {
+        int[] resultado = new int[menor.length];
+        int n = 0;
+        int j = 0;
+        for (int documento : menor) {
+            while (j < maior.length && maior[j] < documento) {
+                j++;
+            }
+            if (j == maior.length) {
+                break;
+            }
+            if (maior[j] == documento) {
+                resultado[n++] = documento;
+            }
+        }
+        return Arrays.copyOf(resultado, n);
+    }
+
+    private static String[] distintos(List<String> termos) {
+        return termos.stream().distinct().toArray(String[]::new);
+    }
+}
@@ -0,0 +1,354 @@
+package com.streamflix.api.busca;
+
+import com.streamflix.api.util.BitmapCompactado;
+import com.streamflix.api.util.LongIntHashMap;
+import com.streamflix.api.util.Textos;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice colunar em memória dos atributos filtráveis do catálogo: um BitmapCompactado de documentos
+ * por valor de gênero (normalizado), ano, década, duração (minutos), faixa de duração e ativo.
+ *
+ * Um filtro é um E entre atributos de OUs entre os valores pedidos de cada atributo (faixas de ano e
+ * duração viram o OU dos valores no intervalo). As facetas contam, para cada gênero, ano, década e
+ * faixa de duração, o tamanho da interseção do seu bitmap com o resultado, sem montá-la.
+ * Título, diretor e data de criação ficam por documento só como chaves de ordenação do resultado.
+ */
+public class IndiceFacetas {
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    /**
+     * Faixas de duração: curta (até 89 min), média (90 a 120) e longa (acima de 120)
+     */
+    public enum FaixaDuracao {
+        CURTA, MEDIA, LONGA;
+
+        public static FaixaDuracao de(Integer duracao) {
+            if (duracao == null) {
+                return null;
+            }
+            return duracao < 90 ? CURTA : duracao <= 120 ? MEDIA : LONGA;
+        }
+    }
+
+    /**
+     * Atributos pelos quais o resultado pode ser ordenado em memória
+     */
+    public enum ChaveOrdenacao {
+        TITULO, GENERO, DIRETOR, ANO, DURACAO, DATA_CRIACAO
+    }
+
+    /**
+     * Filtros (nulos ou vazios = sem filtro no atributo); gêneros sem diferenciar acentos e maiúsculas
+     */
+    public record Filtro(Collection<String> generos, Integer anoMinimo, Integer anoMaximo, Collection<Integer> decadas,
+                         Integer duracaoMinima, Integer duracaoMaxima, Collection<FaixaDuracao> faixasDuracao,
+                         Boolean ativo) {
+    }
+
+    /**
+     * Quantidade de filmes do resultado com o valor
+     */
+    public record Contagem(String valor, long total) {
+    }
+
+    /**
+     * Contagens por valor dos filmes do resultado (gêneros do maior para o menor; os demais em ordem de valor)
+     */
+    public record Facetas(List<Contagem> generos, List<Contagem> anos, List<Contagem> decadas,
+                          List<Contagem> faixasDuracao) {
+    }
+
+    /**
+     * IDs dos filmes encontrados (ordem crescente) e as facetas (null se não pedidas)
+     */
+    public record Resultado(long[] filmeIds, Facetas facetas) {
+    }
+
+    // Valores indexados de um documento (para desfazer ao reindexar ou remover) e chaves de ordenação
+    private record Valores(String genero, Integer ano, Integer duracao, boolean ativo,
+                           String titulo, String diretor, LocalDateTime dataCriacao) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, BitmapCompactado> porGenero = new HashMap<>();
+    // Grafia exibida de cada gênero normalizado (a do primeiro filme indexado com ele)
+    private final Map<String, String> nomesGenero = new HashMap<>();
+    private final NavigableMap<Integer, BitmapCompactado> porAno = new TreeMap<>();
+    private final NavigableMap<Integer, BitmapCompactado> porDecada = new TreeMap<>();
+    private final NavigableMap<Integer, BitmapCompactado> porDuracao = new TreeMap<>();
+    private final Map<FaixaDuracao, BitmapCompactado> porFaixaDuracao = new EnumMap<>(FaixaDuracao.class);
+    private final Map<Boolean, BitmapCompactado> porAtivo = new HashMap<>();
+    private final BitmapCompactado todos = new BitmapCompactado();
+
+    private final LongIntHashMap documentoPorFilme = new LongIntHashMap(CAPACIDADE_INICIAL, -1);
+
+    // Dados de cada documento (posição = número do documento): filme e valores indexados (null = removido)
+    private long[] filmes = new long[CAPACIDADE_INICIAL];
+    private Valores[] valoresPorDocumento = new Valores[CAPACIDADE_INICIAL];
+    private int totalDocumentos;
+
+    /**
+     * Indexar (ou reindexar) os atributos do filme
+     */
+    public void indexar(long filmeId, String titulo, String diretor, String genero, Integer ano, Integer duracao,
+                        LocalDateTime dataCriacao, boolean ativo) {
+        String generoNormalizado = Textos.normalizar(genero);
+        Valores valores = new Valores(generoNormalizado, ano, duracao, ativo,
+                Textos.normalizar(titulo), Textos.normalizar(diretor), dataCriacao);
+
+        lock.writeLock().lock();
+        try {
+            int documento = documentoPorFilme.get(filmeId);
+            if (documento >= 0) {
+                desindexar(documento);
+            } else {
+                documento = totalDocumentos++;
+                if (documento == filmes.length) {
+                    filmes = Arrays.copyOf(filmes, documento * 2);
+                    valoresPorDocumento = Arrays.copyOf(valoresPorDocumento, documento * 2);
+                }
+                filmes[documento] = filmeId;
+                documentoPorFilme.put(filmeId, documento);
+            }
+
+            valoresPorDocumento[documento] = valores;
+            todos.adicionar(documento);
+            porAtivo.computeIfAbsent(ativo, a -> new BitmapCompactado()).adicionar(documento);
+            if (generoNormalizado != null) {
+                porGenero.computeIfAbsent(generoNormalizado, g -> new BitmapCompactado()).adicionar(documento);
+                nomesGenero.putIfAbsent(generoNormalizado, genero.trim());
+            }
+            if (ano != null) {
+                porAno.computeIfAbsent(ano, a -> new BitmapCompactado()).adicionar(documento);
+                porDecada.computeIfAbsent(decada(ano), d -> new BitmapCompactado()).adicionar(documento);
+            }
+            if (duracao != null) {
+                porDuracao.computeIfAbsent(duracao, d -> new BitmapCompactado()).adicionar(documento);
+                porFaixaDuracao.computeIfAbsent(FaixaDuracao.de(duracao), f -> new BitmapCompactado()).adicionar(documento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retirar o filme do índice (o número do documento não é reaproveitado)
+     */
+    public void remover(long filmeId) {
+        lock.writeLock().lock();
+        try {
+            int documento = documentoPorFilme.get(filmeId);
+            if (documento >= 0) {
+                desindexar(documento);
+                valoresPorDocumento[documento] = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Filmes que passam no filtro, opcionalmente só entre os filmeIds informados (ex: encontrados por texto),
+     * e as facetas do resultado se pedidas
+     */
+    public Resultado filtrar(Filtro filtro, Collection<Long> restricaoFilmes, boolean comFacetas) {
+        lock.readLock().lock();
+        try {
+            BitmapCompactado resultado = todos;
+            if (restricaoFilmes != null) {
+                BitmapCompactado documentos = new BitmapCompactado();
+                for (Long filmeId : restricaoFilmes) {
+                    int documento = documentoPorFilme.get(filmeId);
+                    if (documento >= 0 && valoresPorDocumento[documento] != null) {
+                        documentos.adicionar(documento);
+                    }
+                }
+                resultado = documentos;
+            }
+
+            if (filtro.ativo() != null) {
+                resultado = e(resultado, porAtivo.get(filtro.ativo()));
+            }
+            if (filtro.generos() != null && !filtro.generos().isEmpty()) {
+                List<BitmapCompactado> bitmaps = new ArrayList<>();
+                for (String genero : filtro.generos()) {
+                    String normalizado = Textos.normalizar(genero);
+                    if (normalizado != null) {
+                        bitmaps.add(porGenero.get(normalizado));
+                    }
+                }
+                resultado = e(resultado, ou(bitmaps));
+            }
+            if (filtro.anoMinimo() != null || filtro.anoMaximo() != null) {
+                resultado = e(resultado, ou(faixa(porAno, filtro.anoMinimo(), filtro.anoMaximo()).values()));
+            }
+            if (filtro.decadas() != null && !filtro.decadas().isEmpty()) {
+                resultado = e(resultado, ou(filtro.decadas().stream().map(d -> porDecada.get(decada(d))).toList()));
+            }
+            if (filtro.duracaoMinima() != null || filtro.duracaoMaxima() != null) {
+                resultado = e(resultado, ou(faixa(porDuracao, filtro.duracaoMinima(), filtro.duracaoMaxima()).values()));
+            }
+            if (filtro.faixasDuracao() != null && !filtro.faixasDuracao().isEmpty()) {
+                resultado = e(resultado, ou(filtro.faixasDuracao().stream().map(porFaixaDuracao::get).toList()));
+            }
+
+            int[] documentos = resultado.valores();
+            long[] filmeIds = new long[documentos.length];
+            for (int i = 0; i < documentos.length; i++) {
+                filmeIds[i] = filmes[documentos[i]];
+            }
+            Arrays.sort(filmeIds);
+            return new Resultado(filmeIds, comFacetas ? facetas(resultado) : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Chave de ordenação de cada filme informado, na mesma posição (null = sem valor ou fora do índice).
+     * Textos vêm normalizados: a ordem não diferencia acentos e maiúsculas.
+     */
+    public Comparable<?>[] chavesOrdenacao(long[] filmeIds, ChaveOrdenacao chave) {
+        Comparable<?>[] chaves = new Comparable<?>[filmeIds.length];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < filmeIds.length; i++) {
+                int documento = documentoPorFilme.get(filmeIds[i]);
+                Valores valores = documento >= 0 ? valoresPorDocumento[documento] : null;
+                if (valores != null) {
+                    chaves[i] = switch (chave) {
+                        case TITULO -> valores.titulo();
+                        case GENERO -> valores.genero();
+                        case DIRETOR -> valores.diretor();
+                        case ANO -> valores.ano();
+                        case DURACAO -> valores.duracao();
+                        case DATA_CRIACAO -> valores.dataCriacao();
+                    };
+                }
+            }
+            return chaves;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quantidade de filmes por gênero (com a grafia exibida), entre os ativos ou inativos
+     */
+    public List<Contagem> contarPorGenero(boolean ativo) {
+        lock.readLock().lock();
+        try {
+            BitmapCompactado base = porAtivo.get(ativo);
+            return base != null ? contagensGenero(base) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return (int) todos.cardinalidade();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static int decada(int ano) {
+        return Math.floorDiv(ano, 10) * 10;
+    }
+
+    private Facetas facetas(BitmapCompactado resultado) {
+        List<Contagem> anos = new ArrayList<>();
+        porAno.forEach((ano, bitmap) -> adicionarContagem(anos, String.valueOf(ano), bitmap, resultado));
+        List<Contagem> decadas = new ArrayList<>();
+        porDecada.forEach((decada, bitmap) -> adicionarContagem(decadas, String.valueOf(decada), bitmap, resultado));
+        List<Contagem> faixas = new ArrayList<>();
+        porFaixaDuracao.forEach((faixa, bitmap) -> adicionarContagem(faixas, faixa.name(), bitmap, resultado));
+        return new Facetas(contagensGenero(resultado), anos, decadas, faixas);
+    }
+
+    private List<Contagem> contagensGenero(BitmapCompactado base) {
+        List<Contagem> generos = new ArrayList<>();
+        porGenero.forEach((genero, bitmap) -> adicionarContagem(generos, nomesGenero.get(genero), bitmap, base));
+        generos.sort(Comparator.comparingLong(Contagem::total).reversed().thenComparing(Contagem::valor));
+        return generos;
+    }
+
+    private static void adicionarContagem(List<Contagem> contagens, String valor, BitmapCompactado bitmap,
+                                          BitmapCompactado resultado) {
+        long total = BitmapCompactado.cardinalidadeE(bitmap, resultado);
+        if (total > 0) {
+            contagens.add(new Contagem(valor, total));
+        }
+    }
+
+    private void desindexar(int documento) {
+        Valores valores = valoresPorDocumento[documento];
+        if (valores == null) {
+            return;
+        }
+        todos.remover(documento);
+        retirar(porAtivo, valores.ativo(), documento);
+        if (valores.genero() != null && retirar(porGenero, valores.genero(), documento)) {
+            nomesGenero.remove(valores.genero());
+        }
+        if (valores.ano() != null) {
+            retirar(porAno, valores.ano(), documento);
+            retirar(porDecada, decada(valores.ano()), documento);
+        }
+        if (valores.duracao() != null) {
+            retirar(porDuracao, valores.duracao(), documento);
+            retirar(porFaixaDuracao, FaixaDuracao.de(valores.duracao()), documento);
+        }
+    }
+
+    // Retira o documento do bitmap do valor; retorna true se o valor ficou sem documentos (e saiu do mapa)
+    private static <K> boolean retirar(Map<K, BitmapCompactado> mapa, K valor, int documento) {
+        BitmapCompactado bitmap = mapa.get(valor);
+        if (bitmap == null) {
+            return false;
+        }
+        bitmap.remover(documento);
+        if (bitmap.vazio()) {
+            mapa.remove(valor);
+            return true;
+        }
+        return false;
+    }
+
+    private static NavigableMap<Integer, BitmapCompactado> faixa(NavigableMap<Integer, BitmapCompactado> mapa,
+                                                                  Integer minimo, Integer maximo) {
+        return mapa.subMap(minimo != null ? minimo : Integer.MIN_VALUE, true,
+                maximo != null ? maximo : Integer.MAX_VALUE, true);
+    }
+
+    private static BitmapCompactado e(BitmapCompactado a, BitmapCompactado b) {
+        return b != null ? BitmapCompactado.e(a, b) : new BitmapCompactado();
+    }
+
+    private static BitmapCompactado ou(Collection<BitmapCompactado> bitmaps) {
+        BitmapCompactado resultado = new BitmapCompactado();
+        for (BitmapCompactado bitmap : bitmaps) {
+            if (bitmap != null) {
+                resultado = BitmapCompactado.ou(resultado, bitmap);
+            }
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,233 @@
+package com.streamflix.api.busca;
+
+import com.streamflix.api.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido em memória dos comentários das avaliações.
+ *
+ * Cada comentário indexado vira um documento com número sequencial; cada termo aponta para a lista
+ * (int[] ordenado, só acréscimos) dos documentos que o contêm, com a frequência em um array paralelo.
+ * Remover ou reindexar marca o documento antigo como removido: as listas não são reescritas e
+ * ficam limpas na próxima reconstrução do índice.
+ * A busca exige todos os termos (interseção das listas, da menor para a maior) e ordena por BM25.
+ */
+public class IndiceInvertido {
+
+    // Parâmetros usuais do BM25: saturação da frequência do termo e peso do tamanho do documento
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    /**
+     * Documento encontrado e a sua relevância (BM25)
+     */
+    public record Resultado(long avaliacaoId, long filmeId, double relevancia) {
+    }
+
+    private static final class Postagens {
+        int[] documentos = new int[2];
+        int[] frequencias = new int[2];
+        int tamanho;
+
+        void adicionar(int documento, int frequencia) {
+            if (tamanho == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamanho * 2);
+                frequencias = Arrays.copyOf(frequencias, tamanho * 2);
+            }
+            documentos[tamanho] = documento;
+            frequencias[tamanho] = frequencia;
+            tamanho++;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postagens> postagens = new HashMap<>();
+    private final LongIntHashMap documentoPorAvaliacao = new LongIntHashMap(CAPACIDADE_INICIAL, -1);
+    private final BitSet removidos = new BitSet();
+
+    // Dados de cada documento (posição = número do documento)
+    private long[] avaliacoes = new long[CAPACIDADE_INICIAL];
+    private long[] filmes = new long[CAPACIDADE_INICIAL];
+    private int[] tamanhos = new int[CAPACIDADE_INICIAL];
+
+    private int totalDocumentos;
+    private int documentosAtivos;
+    private long somaTamanhosAtivos;
+
+    /**
+     * Indexar (ou reindexar) o comentário da avaliação. Comentário sem termos só remove o anterior.
+     */
+    public void indexar(long avaliacaoId, long filmeId, String comentario) {
+        List<String> termos = Tokenizador.termos(comentario);
+
+        Map<String, int[]> frequencias = new HashMap<>();
+        for (String termo : termos) {
+            frequencias.computeIfAbsent(termo, t -> new int[1])[0]++;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removerDocumento(avaliacaoId);
+            if (termos.isEmpty()) {
+                return;
+            }
+
+            int documento = totalDocumentos++;
+            if (documento == avaliacoes.length) {
+                int capacidade = avaliacoes.length * 2;
+                avaliacoes = Arrays.copyOf(avaliacoes, capacidade);
+                filmes = Arrays.copyOf(filmes, capacidade);
+                tamanhos = Arrays.copyOf(tamanhos, capacidade);
+            }
+            avaliacoes[documento] = avaliacaoId;
+            filmes[documento] = filmeId;
+            tamanhos[documento] = termos.size();
+            documentoPorAvaliacao.put(avaliacaoId, documento);
+            documentosAtivos++;
+            somaTamanhosAtivos += termos.size();
+
+            frequencias.forEach((termo, frequencia) ->
+                    postagens.computeIfAbsent(termo, t -> new Postagens()).adicionar(documento, frequencia[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(long avaliacaoId) {
+        lock.writeLock().lock();
+        try {
+            removerDocumento(avaliacaoId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return documentosAtivos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documentos com todos os termos da consulta (e do filme, se informado), do mais ao menos relevante
+     */
+    public List<Resultado> buscar(List<String> termosConsulta, Long filmeId) {
+        if (termosConsulta.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postagens> listas = new ArrayList<>();
+            for (String termo : new LinkedHashSet<>(termosConsulta)) {
+                Postagens lista = postagens.get(termo);
+                if (lista == null) {
+                    return List.of();
+                }
+                listas.add(lista);
+            }
+            listas.sort(Comparator.comparingInt(lista -> lista.tamanho));
+
+            double tamanhoMedio = documentosAtivos > 0 ? (double) somaTamanhosAtivos / documentosAtivos : 1.0;
+
+            // Candidatos = menor lista (sem removidos e fora do filme); cada lista seguinte filtra e soma o seu peso
+            Postagens menor = listas.get(0);
+            int[] documentos = new int[menor.tamanho];
+            double[] pontuacoes = new double[menor.tamanho];
+            double idfMenor = idf(menor);
+            int n = 0;
+            for (int i = 0; i < menor.tamanho; i++) {
+                int documento = menor.documentos[i];
+                if (removidos.get(documento) || (filmeId != null && filmes[documento] != filmeId)) {
+                    continue;
+                }
+                documentos[n] = documento;
+                pontuacoes[n] = peso(idfMenor, menor.frequencias[i], tamanhos[documento], tamanhoMedio);
+                n++;
+            }
+
+            for (int j = 1; j < listas.size() && n > 0; j++) {
+                Postagens lista = listas.get(j);
+                double idf = idf(lista);
+                int posicao = 0;
+                int mantidos = 0;
+                for (int k = 0; k < n; k++) {
+                    int documento = documentos[k];
+                    posicao = avancar(lista, posicao, documento);
+                    if (posicao == lista.tamanho) {
+                        break;
+                    }
+                    if (lista.documentos[posicao] == documento) {
+                        documentos[mantidos] = documento;
+                        pontuacoes[mantidos] = pontuacoes[k]
+                                + peso(idf, lista.frequencias[posicao], tamanhos[documento], tamanhoMedio);
+                        mantidos++;
+                    }
+                }
+                n = mantidos;
+            }
+
+            List<Resultado> resultados = new ArrayList<>(n);
+            for (int k = 0; k < n; k++) {
+                int documento = documentos[k];
+                resultados.add(new Resultado(avaliacoes[documento], filmes[documento], pontuacoes[k]));
+            }
+            resultados.sort(Comparator.comparingDouble(Resultado::relevancia).reversed()
+                    .thenComparing(Comparator.comparingLong(Resultado::avaliacaoId).reversed()));
+            return resultados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removerDocumento(long avaliacaoId) {
+        int documento = documentoPorAvaliacao.remove(avaliacaoId);
+        if (documento < 0) {
+            return;
+        }
+        removidos.set(documento);
+        documentosAtivos--;
+        somaTamanhosAtivos -= tamanhos[documento];
+    }
+
+    // Frequência de documentos aproximada: a lista ainda conta os documentos removidos até a reconstrução
+    private double idf(Postagens lista) {
+        double total = Math.max(documentosAtivos, lista.tamanho);
+        return Math.log(1 + (total - lista.tamanho + 0.5) / (lista.tamanho + 0.5));
+    }
+
+    private static double peso(double idf, int frequencia, int tamanho, double tamanhoMedio) {
+        return idf * frequencia * (K1 + 1) / (frequencia + K1 * (1 - B + B * tamanho / tamanhoMedio));
+    }
+
+    /**
+     * Primeira posição a partir de "de" com documento >= o pedido (busca exponencial e depois binária)
+     */
+    private static int avancar(Postagens lista, int de, int documento) {
+        int inicio = de;
+        int fim = de;
+        int salto = 1;
+        while (fim < lista.tamanho && lista.documentos[fim] < documento) {
+            inicio = fim + 1;
+            fim += salto;
+            salto <<= 1;
+        }
+        int posicao = Arrays.binarySearch(lista.documentos, inicio, Math.min(fim, lista.tamanho), documento);
+        return posicao >= 0 ? posicao : -posicao - 1;
+    }
+}
@@ -0,0 +1,226 @@
+package com.streamflix.api.busca;
+
+import com.streamflix.api.util.LongIntHashMap;
+import com.streamflix.api.util.Textos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de trigramas em memória para busca aproximada de títulos (erros de digitação).
+ *
+ * Os trigramas seguem o pg_trgm: texto normalizado (minúsculas, sem acentos), cada palavra com dois
+ * espaços antes e um depois ("  god", "odf", "er "...). Cada trigrama aponta para a lista ordenada (int[])
+ * dos documentos que o contêm. A busca conta, só nas listas dos trigramas da consulta, quantos trigramas
+ * cada documento compartilha e calcula a similaridade do pg_trgm: compartilhados / (consulta + documento
+ * - compartilhados). Os K mais similares saem de um heap de tamanho K.
+ */
+public class IndiceTrigramas {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    /**
+     * Filme encontrado e a similaridade do título com a consulta (0 a 1)
+     */
+    public record Resultado(long filmeId, double similaridade) {
+    }
+
+    private static final class Postagens {
+        int[] documentos = new int[2];
+        int tamanho;
+
+        void adicionar(int documento) {
+            int posicao = Arrays.binarySearch(documentos, 0, tamanho, documento);
+            if (posicao >= 0) {
+                return;
+            }
+            posicao = -posicao - 1;
+            if (tamanho == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamanho * 2);
+            }
+            System.arraycopy(documentos, posicao, documentos, posicao + 1, tamanho - posicao);
+            documentos[posicao] = documento;
+            tamanho++;
+        }
+
+        void remover(int documento) {
+            int posicao = Arrays.binarySearch(documentos, 0, tamanho, documento);
+            if (posicao >= 0) {
+                System.arraycopy(documentos, posicao + 1, documentos, posicao, tamanho - posicao - 1);
+                tamanho--;
+            }
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postagens> postagens = new HashMap<>();
+    private final LongIntHashMap documentoPorFilme = new LongIntHashMap(CAPACIDADE_INICIAL, -1);
+
+    // Dados de cada documento (posição = número do documento): filme e trigramas do título (null = removido)
+    private long[] filmes = new long[CAPACIDADE_INICIAL];
+    private String[][] trigramasPorDocumento = new String[CAPACIDADE_INICIAL][];
+    private int totalDocumentos;
+
+    /**
+     * Trigramas distintos do texto, no formato do pg_trgm
+     */
+    public static Set<String> trigramas(String texto) {
+        Set<String> trigramas = new LinkedHashSet<>();
+        String normalizado = Textos.normalizar(texto);
+        if (normalizado == null) {
+            return trigramas;
+        }
+        for (String palavra : SEPARADORES.split(normalizado)) {
+            if (palavra.isEmpty()) {
+                continue;
+            }
+            String comEspacos = "  " + palavra + " ";
+            for (int i = 0; i + 3 <= comEspacos.length(); i++) {
+                trigramas.add(comEspacos.substring(i, i + 3));
+            }
+        }
+        return trigramas;
+    }
+
+    /**
+     * Indexar (ou reindexar) o título do filme
+     */
+    public void indexar(long filmeId, String titulo) {
+        String[] trigramas = trigramas(titulo).toArray(String[]::new);
+
+        lock.writeLock().lock();
+        try {
+            int documento = documentoPorFilme.get(filmeId);
+            if (documento >= 0) {
+                desindexar(documento);
+            } else {
+                documento = totalDocumentos++;
+                if (documento == filmes.length) {
+                    filmes = Arrays.copyOf(filmes, documento * 2);
+                    trigramasPorDocumento = Arrays.copyOf(trigramasPorDocumento, documento * 2);
+                }
+                filmes[documento] = filmeId;
+                documentoPorFilme.put(filmeId, documento);
+            }
+
+            trigramasPorDocumento[documento] = trigramas;
+            for (String trigrama : trigramas) {
+                postagens.computeIfAbsent(trigrama, t -> new Postagens()).adicionar(documento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retirar o filme do índice (o número do documento não é reaproveitado)
+     */
+    public void remover(long filmeId) {
+        lock.writeLock().lock();
+        try {
+            int documento = documentoPorFilme.remove(filmeId);
+            if (documento >= 0) {
+                desindexar(documento);
+                trigramasPorDocumento[documento] = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Até "limite" filmes com similaridade >= similaridadeMinima, da maior para a menor (empate: menor ID)
+     */
+    public List<Resultado> buscar(String consulta, double similaridadeMinima, int limite) {
+        Set<String> trigramasConsulta = trigramas(consulta);
+        if (trigramasConsulta.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        Comparator<Resultado> ordem = Comparator.comparingDouble(Resultado::similaridade)
+                .thenComparing(Comparator.comparingLong(Resultado::filmeId).reversed());
+        PriorityQueue<Resultado> melhores = new PriorityQueue<>(limite + 1, ordem);
+
+        lock.readLock().lock();
+        try {
+            // Trigramas compartilhados por documento candidato (só os que aparecem nas listas da consulta)
+            LongIntHashMap compartilhados = new LongIntHashMap(64, 0);
+            int[] candidatos = new int[64];
+            int totalCandidatos = 0;
+            for (String trigrama : trigramasConsulta) {
+                Postagens lista = postagens.get(trigrama);
+                if (lista == null) {
+                    continue;
+                }
+                for (int i = 0; i < lista.tamanho; i++) {
+                    int documento = lista.documentos[i];
+                    int contagem = compartilhados.get(documento);
+                    if (contagem == 0) {
+                        if (totalCandidatos == candidatos.length) {
+                            candidatos = Arrays.copyOf(candidatos, totalCandidatos * 2);
+                        }
+                        candidatos[totalCandidatos++] = documento;
+                    }
+                    compartilhados.put(documento, contagem + 1);
+                }
+            }
+
+            for (int i = 0; i < totalCandidatos; i++) {
+                int documento = candidatos[i];
+                int comuns = compartilhados.get(documento);
+                int uniao = trigramasConsulta.size() + trigramasPorDocumento[documento].length - comuns;
+                double similaridade = (double) comuns / uniao;
+                if (similaridade < similaridadeMinima) {
+                    continue;
+                }
+                melhores.add(new Resultado(filmes[documento], similaridade));
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Resultado> resultados = new ArrayList<>(melhores);
+        resultados.sort(ordem.reversed());
+        return resultados;
+    }
+
+    public int tamanho() {
+        lock.readLock().lock();
+        try {
+            return documentoPorFilme.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void desindexar(int documento) {
+        String[] trigramas = trigramasPorDocumento[documento];
+        if (trigramas == null) {
+            return;
+        }
+        for (String trigrama : trigramas) {
+            Postagens lista = postagens.get(trigrama);
+            if (lista != null) {
+                lista.remover(documento);
+                if (lista.tamanho == 0) {
+                    postagens.remove(trigrama);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.streamflix.api.busca;
+
+import com.streamflix.api.util.Textos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Quebra textos em termos de busca: normalizados (minúsculas, sem acentos), só letras e dígitos,
+ * com pelo menos 2 caracteres e sem as palavras mais comuns do português.
+ */
+public final class Tokenizador {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    // Já normalizadas (sem acentos)
+    private static final Set<String> PALAVRAS_VAZIAS = Set.of(
+            "a", "o", "as", "os", "um", "uma", "uns", "umas", "de", "do", "da", "dos", "das", "em", "no", "na",
+            "nos", "nas", "por", "pelo", "pela", "para", "pra", "com", "sem", "e", "ou", "que", "se", "ao", "aos",
+            "me", "te", "lhe", "eu", "ele", "ela", "mas", "mais", "muito", "ja", "tao", "foi", "ser", "sao", "esta",
+            "isso", "esse", "essa", "este", "nao", "sim", "como", "seu", "sua");
+
+    private static final int TAMANHO_MINIMO = 2;
+
+    private Tokenizador() {}
+
+    /**
+     * Termos do texto na ordem em que aparecem (com repetições)
+     */
+    public static List<String> termos(String texto) {
+        String normalizado = Textos.normalizar(texto);
+        if (normalizado == null) {
+            return List.of();
+        }
+        List<String> termos = new ArrayList<>();
+        for (String termo : SEPARADORES.split(normalizado)) {
+            if (termo.length() >= TAMANHO_MINIMO && !PALAVRAS_VAZIAS.contains(termo)) {
+                termos.add(termo);
+            }
+        }
+        return termos;
+    }
+}
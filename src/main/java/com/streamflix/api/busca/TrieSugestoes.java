@@ -0,0 +1,250 @@
+package com.streamflix.api.busca;
+
+import com.streamflix.api.util.Textos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Trie radix imutável para o autocompletar: chaves normalizadas apontando para sugestões com peso.
+ *
+ * Os nós ficam em arrays paralelos (filhos de um nó são contíguos e ordenados pelo primeiro caractere)
+ * e o rótulo de cada aresta é um trecho de um único char[] com todas as chaves. Cada nó guarda, já
+ * ordenadas por peso, as até K melhores sugestões da sua subárvore: completar um prefixo é descer a
+ * trie (O(tamanho do prefixo)) e copiar a lista do nó onde o prefixo termina.
+ * Uma sugestão pode ter várias chaves (ex: título inteiro e a partir de cada palavra); aparece uma vez.
+ */
+public final class TrieSugestoes {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private static final int RAIZ = 0;
+
+    /**
+     * Sugestão montada pelo chamador; "valor" volta nas buscas (ex: índice na lista de origem)
+     */
+    public record Entrada(String chave, int valor, long peso) {
+    }
+
+    private final char[] caracteres;
+    private final int[] rotuloInicio;
+    private final int[] rotuloTamanho;
+    private final int[] primeiroFilho;
+    private final int[] totalFilhos;
+    private final int[] melhoresInicio;
+    private final int[] melhoresTamanho;
+    private final int[] melhores;
+    private final int totalNos;
+
+    private TrieSugestoes(char[] caracteres, int[] rotuloInicio, int[] rotuloTamanho, int[] primeiroFilho,
+                          int[] totalFilhos, int[] melhoresInicio, int[] melhoresTamanho, int[] melhores, int totalNos) {
+        this.caracteres = caracteres;
+        this.rotuloInicio = rotuloInicio;
+        this.rotuloTamanho = rotuloTamanho;
+        this.primeiroFilho = primeiroFilho;
+        this.totalFilhos = totalFilhos;
+        this.melhoresInicio = melhoresInicio;
+        this.melhoresTamanho = melhoresTamanho;
+        this.melhores = melhores;
+        this.totalNos = totalNos;
+    }
+
+    /**
+     * Chave normalizada: minúsculas, sem acentos, só letras e dígitos separados por um espaço
+     */
+    public static String normalizar(String texto) {
+        String normalizado = Textos.normalizar(texto);
+        if (normalizado == null) {
+            return null;
+        }
+        String chave = SEPARADORES.matcher(normalizado).replaceAll(" ").trim();
+        return chave.isEmpty() ? null : chave;
+    }
+
+    /**
+     * Chaves do texto: o texto inteiro e o trecho a partir de cada palavra ("the godfather", "godfather")
+     */
+    public static List<String> chaves(String texto) {
+        String chave = normalizar(texto);
+        if (chave == null) {
+            return List.of();
+        }
+        List<String> chaves = new ArrayList<>();
+        chaves.add(chave);
+        for (int i = chave.indexOf(' '); i >= 0; i = chave.indexOf(' ', i + 1)) {
+            chaves.add(chave.substring(i + 1));
+        }
+        return chaves;
+    }
+
+    /**
+     * Montar a trie guardando em cada nó as até "melhoresPorNo" sugestões de maior peso
+     * (empate: menor valor). As chaves devem estar normalizadas.
+     */
+    public static TrieSugestoes construir(List<Entrada> entradas, int melhoresPorNo) {
+        List<Entrada> ordenadas = new ArrayList<>(entradas);
+        ordenadas.sort(Comparator.comparing(Entrada::chave));
+        int n = ordenadas.size();
+
+        StringBuilder todas = new StringBuilder();
+        int[] inicioChave = new int[n];
+        for (int i = 0; i < n; i++) {
+            inicioChave[i] = todas.length();
+            todas.append(ordenadas.get(i).chave());
+        }
+        char[] caracteres = todas.toString().toCharArray();
+
+        // No máximo 2 nós por chave (uma folha e uma bifurcação) mais a raiz
+        int capacidade = 2 * n + 1;
+        int[] rotuloInicio = new int[capacidade];
+        int[] rotuloTamanho = new int[capacidade];
+        int[] primeiroFilho = new int[capacidade];
+        int[] totalFilhos = new int[capacidade];
+        int[] faixaInicio = new int[capacidade];
+        int[] faixaFim = new int[capacidade];
+        int[] profundidade = new int[capacidade];
+
+        // Em largura: os filhos de cada nó recebem números consecutivos
+        faixaFim[RAIZ] = n;
+        int totalNos = 1;
+        for (int no = 0; no < totalNos; no++) {
+            int inicio = faixaInicio[no];
+            int fim = faixaFim[no];
+            int base = profundidade[no] + rotuloTamanho[no];
+            primeiroFilho[no] = totalNos;
+
+            int i = inicio;
+            // Chaves que terminam neste nó vêm primeiro na faixa (ordenação lexicográfica)
+            while (i < fim && ordenadas.get(i).chave().length() == base) {
+                i++;
+            }
+            while (i < fim) {
+                String chave = ordenadas.get(i).chave();
+                char letra = chave.charAt(base);
+                int j = i + 1;
+                while (j < fim && ordenadas.get(j).chave().charAt(base) == letra) {
+                    j++;
+                }
+                // Faixa ordenada: o prefixo comum de todas é o da primeira com a última
+                String ultima = ordenadas.get(j - 1).chave();
+                int comum = base + 1;
+                while (comum < chave.length() && comum < ultima.length() && chave.charAt(comum) == ultima.charAt(comum)) {
+                    comum++;
+                }
+                int filho = totalNos++;
+                rotuloInicio[filho] = inicioChave[i] + base;
+                rotuloTamanho[filho] = comum - base;
+                profundidade[filho] = base;
+                faixaInicio[filho] = i;
+                faixaFim[filho] = j;
+                i = j;
+            }
+            totalFilhos[no] = totalNos - primeiroFilho[no];
+        }
+
+        // De baixo para cima: melhores do nó = chaves que terminam nele + melhores dos filhos
+        Comparator<Integer> porPeso = Comparator.<Integer>comparingLong(i -> -ordenadas.get(i).peso())
+                .thenComparingInt(i -> ordenadas.get(i).valor());
+        int[][] melhoresDoNo = new int[totalNos][];
+        for (int no = totalNos - 1; no >= 0; no--) {
+            int base = profundidade[no] + rotuloTamanho[no];
+            List<Integer> candidatas = new ArrayList<>();
+            for (int i = faixaInicio[no]; i < faixaFim[no] && ordenadas.get(i).chave().length() == base; i++) {
+                candidatas.add(i);
+            }
+            for (int filho = primeiroFilho[no]; filho < primeiroFilho[no] + totalFilhos[no]; filho++) {
+                for (int i : melhoresDoNo[filho]) {
+                    candidatas.add(i);
+                }
+            }
+            candidatas.sort(porPeso);
+
+            int[] escolhidas = new int[Math.min(melhoresPorNo, candidatas.size())];
+            int total = 0;
+            for (int i = 0; i < candidatas.size() && total < escolhidas.length; i++) {
+                int valor = ordenadas.get(candidatas.get(i)).valor();
+                if (!contem(escolhidas, total, ordenadas, valor)) {
+                    escolhidas[total++] = candidatas.get(i);
+                }
+            }
+            melhoresDoNo[no] = Arrays.copyOf(escolhidas, total);
+        }
+
+        int[] melhoresInicio = new int[totalNos];
+        int[] melhoresTamanho = new int[totalNos];
+        int totalMelhores = 0;
+        for (int[] lista : melhoresDoNo) {
+            totalMelhores += lista.length;
+        }
+        int[] melhores = new int[totalMelhores];
+        int posicao = 0;
+        for (int no = 0; no < totalNos; no++) {
+            melhoresInicio[no] = posicao;
+            melhoresTamanho[no] = melhoresDoNo[no].length;
+            for (int i : melhoresDoNo[no]) {
+                melhores[posicao++] = ordenadas.get(i).valor();
+            }
+        }
+
+        return new TrieSugestoes(caracteres,
+                Arrays.copyOf(rotuloInicio, totalNos), Arrays.copyOf(rotuloTamanho, totalNos),
+                Arrays.copyOf(primeiroFilho, totalNos), Arrays.copyOf(totalFilhos, totalNos),
+                melhoresInicio, melhoresTamanho, melhores, totalNos);
+    }
+
+    /**
+     * Valores das até "limite" sugestões de maior peso com alguma chave começando pelo prefixo normalizado
+     */
+    public int[] completar(String prefixo, int limite) {
+        int no = RAIZ;
+        int p = 0;
+        while (p < prefixo.length()) {
+            int filho = filho(no, prefixo.charAt(p));
+            if (filho < 0) {
+                return new int[0];
+            }
+            int inicio = rotuloInicio[filho];
+            for (int i = 0; i < rotuloTamanho[filho] && p < prefixo.length(); i++, p++) {
+                if (caracteres[inicio + i] != prefixo.charAt(p)) {
+                    return new int[0];
+                }
+            }
+            no = filho;
+        }
+        return Arrays.copyOfRange(melhores, melhoresInicio[no], melhoresInicio[no] + Math.min(limite, melhoresTamanho[no]));
+    }
+
+    public int totalNos() {
+        return totalNos;
+    }
+
+    // Busca binária entre os filhos (ordenados pelo primeiro caractere do rótulo)
+    private int filho(int no, char letra) {
+        int baixo = primeiroFilho[no];
+        int alto = baixo + totalFilhos[no] - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            char primeira = caracteres[rotuloInicio[meio]];
+            if (primeira < letra) {
+                baixo = meio + 1;
+            } else if (primeira > letra) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean contem(int[] escolhidas, int total, List<Entrada> ordenadas, int valor) {
+        for (int i = 0; i < total; i++) {
+            if (ordenadas.get(escolhidas[i]).valor() == valor) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
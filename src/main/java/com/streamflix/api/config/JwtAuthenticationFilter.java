@@ -20,6 +20,9 @@ import java.util.List;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    // Atributo da requisição com o ID do usuário autenticado
+    public static final String ATRIBUTO_USUARIO_ID = "streamflix.usuarioId";
+
     @Autowired
     private JwtService jwtService;
 
@@ -78,6 +81,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                         // Definir authentication no SecurityContext
                         SecurityContextHolder.getContext().setAuthentication(authToken);
+
+                        // ID do usuário para os controllers, sem nova consulta ao banco
+                        request.setAttribute(ATRIBUTO_USUARIO_ID, usuario.get().getId());
                     }
                 }
             }
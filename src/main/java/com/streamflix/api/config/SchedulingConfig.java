@@ -0,0 +1,10 @@
+package com.streamflix.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Habilita os jobs em background (@Scheduled), ex: flush do contador de acessos
+}
@@ -1,5 +1,6 @@
 package com.streamflix.api.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,21 +43,28 @@ public class SecurityConfig {
                         .requestMatchers("/").permitAll()
                         .requestMatchers("/error").permitAll()
 
+                        // Continuação assíncrona de respostas em streaming: a requisição original já foi autorizada
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // Rotas que usuários comuns podem acessar
                         .requestMatchers("/api/filmes/ativos/**").hasAnyRole("USUARIO", "ADMINISTRADOR")
                         .requestMatchers("/api/filmes/{id}/detalhes").hasAnyRole("USUARIO", "ADMINISTRADOR")
+                        .requestMatchers("/api/filmes/{id}/ranking").hasAnyRole("USUARIO", "ADMINISTRADOR")
                         .requestMatchers("/api/filmes/ranking/**").hasAnyRole("USUARIO", "ADMINISTRADOR")
-                        .requestMatchers("/api/filmes/buscar").hasAnyRole("USUARIO", "ADMINISTRADOR")
+                        .requestMatchers("/api/filmes/buscar/**").hasAnyRole("USUARIO", "ADMINISTRADOR")
+                        .requestMatchers("/api/filmes/sugestoes").hasAnyRole("USUARIO", "ADMINISTRADOR")
                         .requestMatchers("/api/avaliacoes/**").hasAnyRole("USUARIO", "ADMINISTRADOR")
                         .requestMatchers("/api/listas-favoritos/**").hasAnyRole("USUARIO", "ADMINISTRADOR")
                         .requestMatchers("/api/dashboard/publico").permitAll()
                         .requestMatchers("/api/dashboard/filmes/populares").permitAll()
+                        .requestMatchers("/api/dashboard/filmes/em-alta").permitAll()
                         .requestMatchers("/api/dashboard/estatisticas").permitAll()
 
                         // Rotas exclusivas para administradores
                         .requestMatchers("/api/filmes/admin/**").hasRole("ADMINISTRADOR")
                         .requestMatchers("/api/usuarios/admin/**").hasRole("ADMINISTRADOR")
                         .requestMatchers("/api/dashboard/admin").hasRole("ADMINISTRADOR")
+                        .requestMatchers("/actuator/metrics/**").hasRole("ADMINISTRADOR")
 
                         // Endpoints de gerenciamento de filmes (CRUD completo)
                         .requestMatchers("POST", "/api/filmes").hasRole("ADMINISTRADOR")
@@ -1,5 +1,6 @@
 package com.streamflix.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.streamflix.api.dto.*;
 import com.streamflix.api.entity.Avaliacao;
 import com.streamflix.api.entity.Filme;
@@ -11,12 +12,20 @@ import com.streamflix.api.service.FilmeService;
 import com.streamflix.api.service.UsuarioService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -24,9 +33,15 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class AvaliacaoController {
 
+    // Limite de filmes em /minhas/notas (uma página de catálogo)
+    private static final int MAX_FILMES_NOTAS = 500;
+
     @Autowired
     private AvaliacaoService avaliacaoService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
     private UsuarioService usuarioService;
 
@@ -127,11 +142,14 @@ public class AvaliacaoController {
         }
 
         try {
-            // Aplicar mudanças do DTO na entidade existente
-            avaliacaoMapper.updateEntity(avaliacaoExistente, avaliacaoUpdateDto);
+            // Aplicar mudanças do DTO em uma cópia: a entidade gerenciada só é alterada pelo service,
+            // que precisa da nota anterior para atualizar o agregado do filme
+            Avaliacao alteracoes = new Avaliacao(avaliacaoExistente.getNota(), avaliacaoExistente.getComentario(),
+                    avaliacaoExistente.getUsuario(), avaliacaoExistente.getFilme());
+            avaliacaoMapper.updateEntity(alteracoes, avaliacaoUpdateDto);
 
             // Salvar as mudanças
-            Avaliacao avaliacaoAtualizada = avaliacaoService.update(id, avaliacaoExistente);
+            Avaliacao avaliacaoAtualizada = avaliacaoService.update(id, alteracoes);
             AvaliacaoResponseDto avaliacaoDto = avaliacaoMapper.toResponseDto(avaliacaoAtualizada);
 
             return ResponseEntity.ok(commonMapper.toSuccessResponse("Avaliação atualizada com sucesso", avaliacaoDto));
@@ -175,20 +193,48 @@ public class AvaliacaoController {
     // ========== ENDPOINTS ESPECÍFICOS ==========
 
     /**
-     * Listar avaliações de um filme específico
+     * Listar avaliações de um filme específico (mais recentes primeiro), paginadas por cursor
      */
     @GetMapping("/filme/{filmeId}")
-    public ResponseEntity<ApiResponseDto<List<AvaliacaoResumoDto>>> listarAvaliacoesPorFilme(@PathVariable Long filmeId) {
-        Optional<Filme> filmeOpt = filmeService.getOne(filmeId);
-        if (filmeOpt.isEmpty()) {
+    public ResponseEntity<ApiResponseDto<CursorPageResponseDto<AvaliacaoResumoDto>>> listarAvaliacoesPorFilme(
+            @PathVariable Long filmeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        // Uma consulta por página, sem contar acesso ao filme; a existência só é conferida se a página vier vazia
+        AvaliacaoService.PaginaAvaliacoes pagina = avaliacaoService.getPaginaAvaliacoesByFilme(filmeId, cursor, size);
+        if (pagina.avaliacoes().isEmpty() && !filmeService.existe(filmeId)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(commonMapper.toErrorResponse("Filme não encontrado"));
         }
 
-        List<Avaliacao> avaliacoes = avaliacaoService.getAvaliacoesByFilmeOrdenadas(filmeOpt.get());
-        List<AvaliacaoResumoDto> avaliacoesDto = avaliacaoMapper.toResumoDtoList(avaliacoes);
+        CursorPageResponseDto<AvaliacaoResumoDto> paginaDto = commonMapper.toCursorPageResponseDto(
+                avaliacaoMapper.toResumoDtoList(pagina.avaliacoes()), pagina.tamanho(), pagina.proximoCursor());
 
-        return ResponseEntity.ok(commonMapper.toSuccessResponse(avaliacoesDto));
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(paginaDto));
+    }
+
+    /**
+     * Minhas notas em vários filmes de uma vez (ex: marcar os cards de uma página do catálogo).
+     * Retorna filmeId -> nota só dos filmes que o usuário avaliou.
+     */
+    @GetMapping("/minhas/notas")
+    public ResponseEntity<ApiResponseDto<Map<Long, Integer>>> obterMinhasNotas(
+            @RequestParam List<Long> filmeIds,
+            Authentication authentication) {
+
+        if (filmeIds.size() > MAX_FILMES_NOTAS) {
+            throw new IllegalArgumentException("Informe no máximo " + MAX_FILMES_NOTAS + " filmes por consulta");
+        }
+
+        Optional<Usuario> usuarioOpt = usuarioService.getByLoginAndAtivo(authentication.getName());
+        if (usuarioOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(commonMapper.toErrorResponse("Usuário não autenticado"));
+        }
+
+        Map<Long, Integer> notas = avaliacaoService.getNotasDoUsuario(usuarioOpt.get(), filmeIds);
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(notas));
     }
 
     /**
@@ -224,7 +270,8 @@ public class AvaliacaoController {
                     .body(commonMapper.toErrorResponse("Usuário não autenticado"));
         }
 
-        Optional<Filme> filmeOpt = filmeService.getOne(filmeId);
+        // Consulta de apoio (marcação do card): não conta como acesso ao filme
+        Optional<Filme> filmeOpt = filmeService.getOneSemAcesso(filmeId);
         if (filmeOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(commonMapper.toErrorResponse("Filme não encontrado"));
@@ -283,39 +330,111 @@ public class AvaliacaoController {
         }
     }
 
+    /**
+     * Importar avaliações do usuário autenticado em lote (cria ou atualiza cada uma), com o resultado por item
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<ApiResponseDto<AvaliacaoLoteResultadoDto>> importarLote(
+            @Valid @RequestBody AvaliacaoLoteDto loteDto,
+            Authentication authentication) {
+
+        Optional<Usuario> usuarioOpt = usuarioService.getByLoginAndAtivo(authentication.getName());
+        if (usuarioOpt.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(commonMapper.toErrorResponse("Usuário não autenticado"));
+        }
+
+        List<AvaliacaoService.ResultadoItemLote> resultados = avaliacaoService.importarLote(
+                usuarioOpt.get(), avaliacaoMapper.toItensLote(loteDto));
+        AvaliacaoLoteResultadoDto resultadoDto = avaliacaoMapper.toLoteResultadoDto(resultados);
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(
+                "Lote processado: " + (resultadoDto.criadas() + resultadoDto.atualizadas()) + " avaliações salvas",
+                resultadoDto
+        ));
+    }
+
     /**
      * Obter estatísticas de avaliações de um filme
      */
     @GetMapping("/filme/{filmeId}/estatisticas")
     public ResponseEntity<ApiResponseDto<AvaliacaoEstatisticasDto>> obterEstatisticasFilme(@PathVariable Long filmeId) {
-        Optional<Filme> filmeOpt = filmeService.getOne(filmeId);
+        Optional<Filme> filmeOpt = filmeService.getOneSemAcesso(filmeId);
         if (filmeOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(commonMapper.toErrorResponse("Filme não encontrado"));
         }
 
         Filme filme = filmeOpt.get();
-        Double mediaNotas = avaliacaoService.calcularMediaNotasFilme(filme);
-        Long totalAvaliacoes = avaliacaoService.contarAvaliacoesFilme(filme);
-        List<Object[]> distribuicaoNotas = avaliacaoService.getEstatisticasNotasByFilme(filme);
-
-        AvaliacaoEstatisticasDto estatisticas = avaliacaoMapper.processarEstatisticasRepository(
-                filme, mediaNotas, totalAvaliacoes, distribuicaoNotas);
+        AvaliacaoEstatisticasDto estatisticas = avaliacaoMapper.toEstatisticasDto(
+                filme, avaliacaoService.getAgregado(filme));
 
         return ResponseEntity.ok(commonMapper.toSuccessResponse(estatisticas));
     }
 
     /**
-     * Listar avaliações com comentários
+     * Listar avaliações com comentários, das mais recentes para as mais antigas, uma página por vez
+     * (tamanho limitado). Para ler todas, use a exportação em NDJSON (/com-comentarios/exportar).
      */
     @GetMapping("/com-comentarios")
-    public ResponseEntity<ApiResponseDto<List<AvaliacaoResumoDto>>> listarAvaliacoesComComentarios() {
-        List<Avaliacao> avaliacoes = avaliacaoService.getAvaliacoesComComentarios();
+    public ResponseEntity<ApiResponseDto<List<AvaliacaoResumoDto>>> listarAvaliacoesComComentarios(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        List<Avaliacao> avaliacoes = avaliacaoService.getAvaliacoesComComentarios(page, size);
         List<AvaliacaoResumoDto> avaliacoesDto = avaliacaoMapper.toResumoDtoList(avaliacoes);
 
         return ResponseEntity.ok(commonMapper.toSuccessResponse(avaliacoesDto));
     }
 
+    /**
+     * Buscar avaliações pelo texto do comentário (todos os termos, sem diferenciar acentos), em ordem de relevância
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<ApiResponseDto<PageResponseDto<AvaliacaoBuscaDto>>> buscarPorComentario(
+            @RequestParam String q,
+            @RequestParam(required = false) Long filmeId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        Page<AvaliacaoBuscaDto> resultados = avaliacaoService.buscarPorComentario(q, filmeId, page, size)
+                .map(avaliacaoMapper::toBuscaDto);
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(commonMapper.toPageResponseDto(resultados)));
+    }
+
+    /**
+     * Exportar avaliações com comentários em NDJSON (um JSON por linha), escritas na resposta à medida
+     * que são lidas do banco. Período opcional pela data de criação: desde (inclusive) e ate (exclusive).
+     */
+    @GetMapping(value = "/com-comentarios/exportar", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarAvaliacoesComComentarios(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+
+        if (desde != null && ate != null && !desde.isBefore(ate)) {
+            throw new IllegalArgumentException("Período inválido: 'desde' deve ser anterior a 'ate'");
+        }
+
+        StreamingResponseBody corpo = saida -> {
+            try {
+                avaliacaoService.exportarAvaliacoesComComentarios(desde, ate, avaliacao -> {
+                    try {
+                        saida.write(objectMapper.writeValueAsBytes(avaliacaoMapper.toResumoDto(avaliacao)));
+                        saida.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
+    }
+
     /**
      * Listar avaliações de um filme que possuem comentários
      */
@@ -323,7 +442,7 @@ public class AvaliacaoController {
     public ResponseEntity<ApiResponseDto<List<AvaliacaoResumoDto>>> listarAvaliacoesComComentariosPorFilme(
             @PathVariable Long filmeId) {
 
-        Optional<Filme> filmeOpt = filmeService.getOne(filmeId);
+        Optional<Filme> filmeOpt = filmeService.getOneSemAcesso(filmeId);
         if (filmeOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(commonMapper.toErrorResponse("Filme não encontrado"));
@@ -0,0 +1,24 @@
+package com.streamflix.api.controller;
+
+import com.streamflix.api.ranking.SnapshotRanking;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Cabeçalhos com a versão e a idade do snapshot de ranking usado na resposta
+ */
+final class CabecalhosRanking {
+
+    static final String VERSAO = "X-Ranking-Versao";
+    static final String IDADE_MS = "X-Ranking-Idade-Ms";
+
+    private CabecalhosRanking() {}
+
+    /**
+     * ResponseEntity.ok() com os cabeçalhos do snapshot
+     */
+    static ResponseEntity.BodyBuilder ok(SnapshotRanking snapshot) {
+        return ResponseEntity.ok()
+                .header(VERSAO, String.valueOf(snapshot.versao()))
+                .header(IDADE_MS, String.valueOf(snapshot.idadeMs()));
+    }
+}
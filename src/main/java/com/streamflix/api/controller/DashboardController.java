@@ -6,17 +6,23 @@ import com.streamflix.api.entity.Usuario;
 import com.streamflix.api.mapper.CommonMapper;
 import com.streamflix.api.mapper.FilmeMapper;
 import com.streamflix.api.mapper.UsuarioMapper;
+import com.streamflix.api.ranking.CriterioRanking;
+import com.streamflix.api.ranking.FilmeResumoRanking;
+import com.streamflix.api.ranking.PosicaoRanking;
+import com.streamflix.api.ranking.SnapshotRanking;
 import com.streamflix.api.service.*;
+import com.streamflix.api.sketch.HeavyHittersJanela;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/dashboard")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {CabecalhosRanking.VERSAO, CabecalhosRanking.IDADE_MS})
 public class DashboardController {
 
     @Autowired
@@ -34,6 +40,12 @@ public class DashboardController {
     @Autowired
     private ListaFavoritosFilmesService listaFavoritosFilmesService;
 
+    @Autowired
+    private EmAltaService emAltaService;
+
+    @Autowired
+    private EstatisticasGlobaisService estatisticasGlobaisService;
+
     @Autowired
     private FilmeMapper filmeMapper;
 
@@ -49,16 +61,16 @@ public class DashboardController {
     @GetMapping("/publico")
     public ResponseEntity<ApiResponseDto<Object>> dashboardPublico() {
         // Estatísticas básicas que podem ser públicas
-        List<Filme> filmesAtivos = filmeService.getAllAtivos();
-        List<Filme> topFilmesPopulares = filmeService.getTopFilmesByPopularidade(5);
+        SnapshotRanking ranking = filmeService.getSnapshotRanking();
+        List<PosicaoRanking> topFilmesPopulares = ranking.top(5);
         List<Object[]> estatisticasGeneros = filmeService.getEstatisticasPorGenero();
 
         var dashboard = new java.util.HashMap<String, Object>();
-        dashboard.put("totalFilmesAtivos", filmesAtivos.size());
+        dashboard.put("totalFilmesAtivos", filmeService.contarFilmesAtivos());
         dashboard.put("topFilmesPopulares", filmeMapper.toRankingDtoList(topFilmesPopulares));
         dashboard.put("generos", commonMapper.toGeneroRankingDtoList(estatisticasGeneros));
 
-        return ResponseEntity.ok(commonMapper.toSuccessResponse(dashboard));
+        return CabecalhosRanking.ok(ranking).body(commonMapper.toSuccessResponse(dashboard));
     }
 
     /**
@@ -70,24 +82,23 @@ public class DashboardController {
         // Estatísticas gerais
         List<Usuario> todosUsuarios = usuarioService.getAll();
         List<Filme> todosFilmes = filmeService.getAll();
-        List<Filme> filmesAtivos = filmeService.getAllAtivos();
 
         Long totalUsuarios = (long) todosUsuarios.size();
         Long totalFilmes = (long) todosFilmes.size();
-        Long totalFilmesAtivos = (long) filmesAtivos.size();
 
-        // Para simplificar, vamos criar estatísticas básicas
-        // Em um cenário real, você criaria queries específicas no repository
+        // Avaliações e listas: totais globais mantidos em memória (sem consulta)
+        EstatisticasGlobaisService.EstatisticasGlobais globais = estatisticasGlobaisService.getEstatisticas();
         EstatisticasDto estatisticas = commonMapper.toEstatisticasDto(
                 totalFilmes,
                 totalUsuarios,
-                0L, // totalAvaliacoes - seria calculado com query específica
-                0L, // totalListasFavoritos - seria calculado com query específica
-                0.0 // mediaGeralAvaliacoes - seria calculada com query específica
+                globais.avaliacoes().totalAvaliacoes(),
+                globais.totalListas(),
+                globais.avaliacoes().media()
         );
 
         // Top filmes populares
-        List<Filme> topFilmesPopulares = filmeService.getTopFilmesByPopularidade(10);
+        SnapshotRanking ranking = filmeService.getSnapshotRanking();
+        List<PosicaoRanking> topFilmesPopulares = ranking.top(10);
         List<FilmeRankingDto> rankingFilmes = filmeMapper.toRankingDtoList(topFilmesPopulares);
 
         // Ranking de gêneros
@@ -107,7 +118,7 @@ public class DashboardController {
                 usuariosRecentes
         );
 
-        return ResponseEntity.ok(commonMapper.toSuccessResponse(dashboard));
+        return CabecalhosRanking.ok(ranking).body(commonMapper.toSuccessResponse(dashboard));
     }
 
     /**
@@ -115,12 +126,31 @@ public class DashboardController {
      */
     @GetMapping("/filmes/populares")
     public ResponseEntity<ApiResponseDto<List<FilmeRankingDto>>> filmesPopulares(
+            @RequestParam(required = false) String ordenarPor,
             @RequestParam(defaultValue = "10") int limit) {
 
-        List<Filme> filmesPopulares = filmeService.getTopFilmesByPopularidade(limit);
+        SnapshotRanking ranking = filmeService.getSnapshotRanking();
+        List<PosicaoRanking> filmesPopulares = ranking.top(null, null, CriterioRanking.de(ordenarPor), limit);
         List<FilmeRankingDto> rankingDto = filmeMapper.toRankingDtoList(filmesPopulares);
 
-        return ResponseEntity.ok(commonMapper.toSuccessResponse(rankingDto));
+        return CabecalhosRanking.ok(ranking).body(commonMapper.toSuccessResponse(rankingDto));
+    }
+
+    /**
+     * Filmes em alta agora: mais abertos na janela recente (estimativa com margem de erro)
+     */
+    @GetMapping("/filmes/em-alta")
+    public ResponseEntity<ApiResponseDto<List<FilmeEmAltaDto>>> filmesEmAlta(
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<HeavyHittersJanela.ItemFrequente> emAlta = emAltaService.getEmAlta(limit);
+        Map<Long, FilmeResumoRanking> filmes = filmeService.getResumosAtivos(
+                emAlta.stream().map(HeavyHittersJanela.ItemFrequente::item).toList());
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(
+                "Filmes em alta nos últimos " + emAltaService.getJanelaMinutos() + " minutos",
+                filmeMapper.toEmAltaDtoList(emAlta, filmes)
+        ));
     }
 
     /**
@@ -167,14 +197,14 @@ public class DashboardController {
         var estatisticas = new java.util.HashMap<String, Object>();
 
         // Contadores básicos
-        estatisticas.put("totalFilmesAtivos", filmeService.getAllAtivos().size());
+        estatisticas.put("totalFilmesAtivos", filmeService.contarFilmesAtivos());
         estatisticas.put("totalUsuariosAtivos", usuarioService.getUsuariosAtivos().size());
 
         // Filmes mais populares (top 3)
-        List<Filme> topFilmes = filmeService.getTopFilmesByPopularidade(3);
-        estatisticas.put("topFilmesPopulares", filmeMapper.toResumoDtoList(topFilmes));
+        SnapshotRanking ranking = filmeService.getSnapshotRanking();
+        estatisticas.put("topFilmesPopulares", filmeMapper.toRankingResumoDtoList(ranking.top(3)));
 
-        return ResponseEntity.ok(commonMapper.toSuccessResponse(estatisticas));
+        return CabecalhosRanking.ok(ranking).body(commonMapper.toSuccessResponse(estatisticas));
     }
 
     /**
@@ -1,27 +1,45 @@
 package com.streamflix.api.controller;
 
+import com.streamflix.api.busca.IndiceTrigramas;
+import com.streamflix.api.config.JwtAuthenticationFilter;
 import com.streamflix.api.dto.*;
 import com.streamflix.api.entity.Filme;
 import com.streamflix.api.entity.Usuario;
 import com.streamflix.api.mapper.FilmeMapper;
 import com.streamflix.api.mapper.CommonMapper;
+import com.streamflix.api.ranking.CriterioRanking;
+import com.streamflix.api.ranking.FilmeResumoRanking;
+import com.streamflix.api.ranking.PosicaoRanking;
+import com.streamflix.api.ranking.SnapshotRanking;
 import com.streamflix.api.service.FilmeService;
+import com.streamflix.api.service.LogAcessosService;
+import com.streamflix.api.service.RankingPopularidadeService;
+import com.streamflix.api.service.AvaliacoesAgregadoService;
+import com.streamflix.api.service.AvaliacoesRecentesService;
+import com.streamflix.api.service.BuscaAproximadaService;
+import com.streamflix.api.service.RankingAvaliacoesService;
+import com.streamflix.api.service.SugestoesService;
+import com.streamflix.api.service.TendenciasService;
 import com.streamflix.api.service.UsuarioService;
 import com.streamflix.api.service.AvaliacaoService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/filmes")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = {CabecalhosRanking.VERSAO, CabecalhosRanking.IDADE_MS})
 public class FilmeController {
 
     @Autowired
@@ -33,6 +51,24 @@ public class FilmeController {
     @Autowired
     private AvaliacaoService avaliacaoService;
 
+    @Autowired
+    private TendenciasService tendenciasService;
+
+    @Autowired
+    private RankingAvaliacoesService rankingAvaliacoesService;
+
+    @Autowired
+    private AvaliacoesRecentesService avaliacoesRecentesService;
+
+    @Autowired
+    private LogAcessosService logAcessosService;
+
+    @Autowired
+    private BuscaAproximadaService buscaAproximadaService;
+
+    @Autowired
+    private SugestoesService sugestoesService;
+
     @Autowired
     private FilmeMapper filmeMapper;
 
@@ -50,7 +86,8 @@ public class FilmeController {
             @RequestParam(defaultValue = "false") boolean orderByPopularidade) {
 
         List<Filme> filmes = filmeService.getAll(orderByPopularidade);
-        List<FilmeResumoDto> filmesDto = filmeMapper.toResumoDtoList(filmes);
+        List<FilmeResumoDto> filmesDto = filmeMapper.toResumoDtoList(filmes,
+                avaliacaoService.estatisticasPorFilmes(filmes.stream().map(Filme::getId).toList()));
 
         String message = orderByPopularidade ?
                 "Filmes listados por popularidade" :
@@ -64,8 +101,11 @@ public class FilmeController {
      * Buscar detalhes de filme específico (incrementa popularidade)
      */
     @GetMapping("/{id}/detalhes")
-    public ResponseEntity<ApiResponseDto<FilmeDetalhesDto>> obterDetalhesFilme(@PathVariable Long id) {
-        Optional<Filme> filmeOpt = filmeService.getOneAtivo(id); // INCREMENTA CONTADOR AUTOMATICAMENTE
+    public ResponseEntity<ApiResponseDto<FilmeDetalhesDto>> obterDetalhesFilme(
+            @PathVariable Long id,
+            @RequestAttribute(name = JwtAuthenticationFilter.ATRIBUTO_USUARIO_ID, required = false) Long usuarioId) {
+        // INCREMENTA CONTADOR AUTOMATICAMENTE e registra o usuário como visualizador
+        Optional<Filme> filmeOpt = filmeService.getOneAtivo(id, usuarioId);
 
         if (filmeOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -74,61 +114,190 @@ public class FilmeController {
 
         Filme filme = filmeOpt.get();
 
-        // Buscar estatísticas de avaliações
-        Double mediaAvaliacoes = avaliacaoService.calcularMediaNotasFilme(filme);
-        Long totalAvaliacoes = avaliacaoService.contarAvaliacoesFilme(filme);
+        // Estatísticas de avaliações (agregado em memória)
+        AvaliacoesAgregadoService.AgregadoAvaliacoes avaliacoes = avaliacaoService.getAgregado(filme);
+        Double mediaAvaliacoes = Math.round(avaliacoes.media() * 100.0) / 100.0;
+        Long totalAvaliacoes = avaliacoes.totalAvaliacoes();
+
+        // Contador "ao vivo": valor persistido + acessos ainda no buffer
+        Long contadorAcessos = filmeService.getContadorAcessosAtual(filme);
+        Long visualizadoresUnicos = filmeService.getVisualizadoresUnicos(filme.getId());
 
-        FilmeDetalhesDto filmeDto = filmeMapper.toDetalhesDto(filme, mediaAvaliacoes, totalAvaliacoes);
+        FilmeDetalhesDto filmeDto = filmeMapper.toDetalhesDto(filme, contadorAcessos, visualizadoresUnicos,
+                mediaAvaliacoes, totalAvaliacoes);
 
         return ResponseEntity.ok(commonMapper.toSuccessResponse(filmeDto));
     }
 
     /**
      * REQUISITO OBRIGATÓRIO: Ranking de popularidade (Top N filmes mais populares)
+     * Com gênero e/ou ano, o ranking (e a posição) é o da partição correspondente.
+     * ordenarPor: acessos (padrão) ou visualizadores (usuários únicos)
+     * Lido do snapshot em memória: versão e idade nos cabeçalhos X-Ranking-Versao / X-Ranking-Idade-Ms.
      */
     @GetMapping("/ranking/popularidade")
     public ResponseEntity<ApiResponseDto<List<FilmeRankingDto>>> rankingPopularidade(
+            @RequestParam(required = false) String genero,
+            @RequestParam(required = false) Integer ano,
+            @RequestParam(required = false) String ordenarPor,
             @RequestParam(defaultValue = "10") int limit) {
 
-        List<Filme> filmesPopulares = filmeService.getTopFilmesByPopularidade(limit);
+        SnapshotRanking ranking = filmeService.getSnapshotRanking();
+        List<PosicaoRanking> filmesPopulares = ranking.top(genero, ano, CriterioRanking.de(ordenarPor), limit);
         List<FilmeRankingDto> rankingDto = filmeMapper.toRankingDtoList(filmesPopulares);
 
-        return ResponseEntity.ok(commonMapper.toSuccessResponse(
+        return CabecalhosRanking.ok(ranking).body(commonMapper.toSuccessResponse(
                 "Top " + limit + " filmes mais populares",
                 rankingDto
         ));
     }
 
     /**
-     * Buscar filmes com filtros (com opção de ordenar por popularidade)
+     * Posição do filme no ranking geral e nos rankings do seu gênero e ano
+     */
+    @GetMapping("/{id}/ranking")
+    public ResponseEntity<ApiResponseDto<FilmePosicoesRankingDto>> posicoesRanking(
+            @PathVariable Long id,
+            @RequestParam(required = false) String ordenarPor) {
+        Optional<RankingPopularidadeService.PosicoesFilme> posicoes =
+                filmeService.getPosicoesRanking(id, CriterioRanking.de(ordenarPor));
+
+        if (posicoes.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(commonMapper.toErrorResponse("Filme não encontrado"));
+        }
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(filmeMapper.toPosicoesRankingDto(posicoes.get())));
+    }
+
+    /**
+     * Ranking de tendências: acessos recentes com decaimento exponencial (janela em horas)
+     */
+    @GetMapping("/ranking/tendencias")
+    public ResponseEntity<ApiResponseDto<List<FilmeTendenciaDto>>> rankingTendencias(
+            @RequestParam(defaultValue = "24") int janela,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        int janelaUtilizada = tendenciasService.resolverJanela(janela);
+        List<TendenciasService.Tendencia> tendencias = tendenciasService.getTendencias(janelaUtilizada, limit);
+
+        // Dados dos filmes vêm da memória (ranking de popularidade), sem consulta ao banco
+        Map<Long, FilmeResumoRanking> filmes = filmeService.getResumosAtivos(
+                tendencias.stream().map(TendenciasService.Tendencia::filmeId).toList());
+        List<FilmeTendenciaDto> rankingDto = filmeMapper.toTendenciaDtoList(tendencias, filmes);
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(
+                "Filmes em alta nas últimas " + janelaUtilizada + " horas",
+                rankingDto
+        ));
+    }
+
+    /**
+     * Ranking dos mais bem avaliados por média bayesiana (filmes com poucas avaliações puxados para a média geral)
+     */
+    @GetMapping("/ranking/avaliacoes")
+    public ResponseEntity<ApiResponseDto<List<FilmeAvaliacaoRankingDto>>> rankingAvaliacoes(
+            @RequestParam(required = false) String genero,
+            @RequestParam(defaultValue = "1") int minVotos,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<RankingAvaliacoesService.PosicaoAvaliacoes> ranking =
+                rankingAvaliacoesService.getTop(genero, minVotos, limit);
+        List<FilmeAvaliacaoRankingDto> rankingDto = filmeMapper.toAvaliacaoRankingDtoList(ranking);
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(
+                "Top " + limit + " filmes mais bem avaliados",
+                rankingDto
+        ));
+    }
+
+    /**
+     * Ranking das notas dadas nos últimos dias (média bayesiana do período, calculada em memória)
+     */
+    @GetMapping("/ranking/avaliacoes/recentes")
+    public ResponseEntity<ApiResponseDto<List<FilmeAvaliacaoRankingDto>>> rankingAvaliacoesRecentes(
+            @RequestParam(defaultValue = "7") int dias,
+            @RequestParam(required = false) String genero,
+            @RequestParam(defaultValue = "1") int minVotos,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<RankingAvaliacoesService.PosicaoAvaliacoes> ranking =
+                avaliacoesRecentesService.getTop(dias, genero, minVotos, limit);
+        List<FilmeAvaliacaoRankingDto> rankingDto = filmeMapper.toAvaliacaoRankingDtoList(ranking);
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(
+                "Top " + limit + " filmes mais bem avaliados nos últimos " + dias + " dias",
+                rankingDto
+        ));
+    }
+
+    /**
+     * Buscar filmes ativos com filtros combinados (título, diretor, gêneros, faixas de ano e duração, décadas,
+     * faixas de duração CURTA/MEDIA/LONGA), paginado e ordenado por qualquer chave aceita
+     * (sort + direcao; orderByPopularidade = sort=popularidade). facetas=true traz as contagens do resultado.
      */
     @GetMapping("/buscar")
-    public ResponseEntity<ApiResponseDto<List<FilmeResumoDto>>> buscarFilmes(
+    public ResponseEntity<ApiResponseDto<FilmeBuscaDto>> buscarFilmes(
             @RequestParam(required = false) String titulo,
-            @RequestParam(required = false) String genero,
+            @RequestParam(required = false) List<String> genero,
             @RequestParam(required = false) Integer anoLancamento,
             @RequestParam(required = false) String diretor,
-            @RequestParam(defaultValue = "false") boolean orderByPopularidade) {
+            @RequestParam(required = false) Integer anoMin,
+            @RequestParam(required = false) Integer anoMax,
+            @RequestParam(required = false) Integer duracaoMin,
+            @RequestParam(required = false) Integer duracaoMax,
+            @RequestParam(required = false) List<Integer> decada,
+            @RequestParam(required = false) List<String> faixaDuracao,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direcao,
+            @RequestParam(defaultValue = "false") boolean orderByPopularidade,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean facetas) {
+
+        FilmeFiltroDto filtro = commonMapper.toFilmeFiltroDto(titulo, genero, anoLancamento, diretor, anoMin, anoMax,
+                duracaoMin, duracaoMax, decada, faixaDuracao, sort, direcao, orderByPopularidade, page, size, facetas);
+        FilmeService.ResultadoBusca resultado = filmeService.buscar(filmeMapper.toFiltroBusca(filtro));
+        Page<Filme> filmes = resultado.pagina();
+
+        AvaliacoesAgregadoService.EstatisticasFilmes avaliacoes =
+                avaliacaoService.estatisticasPorFilmes(filmes.getContent().stream().map(Filme::getId).toList());
+        Page<FilmeResumoDto> filmesDto = filmes.map(filme -> filmeMapper.toResumoDto(filme, avaliacoes));
 
-        List<Filme> filmes;
-
-        if (titulo != null) {
-            filmes = filmeService.getByTitulo(titulo);
-        } else if (genero != null) {
-            filmes = filmeService.getByGenero(genero);
-        } else if (anoLancamento != null) {
-            filmes = filmeService.getByAno(anoLancamento);
-        } else if (diretor != null) {
-            filmes = filmeService.getByDiretor(diretor);
-        } else if (orderByPopularidade) {
-            filmes = filmeService.getAllAtivosByPopularidade();
-        } else {
-            filmes = filmeService.getAllAtivos();
-        }
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(
+                filmeMapper.toBuscaDto(commonMapper.toPageResponseDto(filmesDto), resultado.facetas())));
+    }
 
-        List<FilmeResumoDto> filmesDto = filmeMapper.toResumoDtoList(filmes);
+    /**
+     * Busca aproximada por título, tolerante a erros de digitação ("Interestelar", "Godfater"),
+     * em ordem de similaridade de trigramas
+     */
+    @GetMapping("/buscar/aproximada")
+    public ResponseEntity<ApiResponseDto<List<FilmeBuscaAproximadaDto>>> buscarFilmesAproximado(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
 
-        return ResponseEntity.ok(commonMapper.toSuccessResponse(filmesDto));
+        List<IndiceTrigramas.Resultado> resultados = buscaAproximadaService.buscar(q, limit);
+
+        // Dados dos filmes vêm da memória (ranking de popularidade), sem consulta ao banco
+        Map<Long, FilmeResumoRanking> filmes = filmeService.getResumosAtivos(
+                resultados.stream().map(IndiceTrigramas.Resultado::filmeId).toList());
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(filmeMapper.toBuscaAproximadaDtoList(resultados, filmes)));
+    }
+
+    /**
+     * Autocompletar: títulos e diretores com alguma palavra começando pelo prefixo, dos mais acessados
+     * para os menos (servido da memória, sem consulta ao banco)
+     */
+    @GetMapping("/sugestoes")
+    public ResponseEntity<ApiResponseDto<List<SugestaoBuscaDto>>> sugestoes(
+            @RequestParam String prefixo,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        List<SugestoesService.Sugestao> sugestoes = sugestoesService.getSugestoes(prefixo, limit);
+
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(filmeMapper.toSugestaoDtoList(sugestoes)));
     }
 
     // ========== ENDPOINTS PARA ADMINISTRADORES ==========
@@ -151,7 +320,8 @@ public class FilmeController {
     @GetMapping("/admin/{id}")
     @PreAuthorize("hasRole('ADMINISTRADOR')")
     public ResponseEntity<ApiResponseDto<FilmeResponseDto>> obterFilmeAdmin(@PathVariable Long id) {
-        Optional<Filme> filmeOpt = filmeService.getOne(id); // INCREMENTA CONTADOR MESMO PARA ADMIN
+        // Leitura administrativa: não conta como acesso
+        Optional<Filme> filmeOpt = filmeService.getOneSemAcesso(id);
 
         if (filmeOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -197,7 +367,7 @@ public class FilmeController {
 
         try {
             // Buscar filme existente
-            Filme filmeExistente = filmeService.getOne(id)
+            Filme filmeExistente = filmeService.getOneSemAcesso(id)
                     .orElseThrow(() -> new RuntimeException("Filme não encontrado com ID: " + id));
 
             // Aplicar mudanças do DTO na entidade
@@ -263,6 +433,36 @@ public class FilmeController {
         }
     }
 
+    /**
+     * Recalcular acessos por filme e por dia a partir do log de eventos (admin)
+     * Período em dias, com as duas datas incluídas
+     */
+    @GetMapping("/admin/acessos/reproducao")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<ApiResponseDto<AcessosReproduzidosDto>> reproduzirAcessos(
+            @RequestParam LocalDate desde,
+            @RequestParam LocalDate ate) {
+
+        if (ate.isBefore(desde)) {
+            return ResponseEntity.badRequest()
+                    .body(commonMapper.toErrorResponse("Data final anterior à data inicial"));
+        }
+
+        ZoneId fuso = ZoneId.systemDefault();
+        LogAcessosService.AgregadoAcessos agregado = logAcessosService.agregar(
+                desde.atStartOfDay(fuso).toInstant(), ate.plusDays(1).atStartOfDay(fuso).toInstant(), fuso);
+
+        AcessosReproduzidosDto dto = new AcessosReproduzidosDto(
+                desde,
+                ate,
+                agregado.totalEventos(),
+                agregado.acessosPorFilme(),
+                agregado.acessosPorDia(),
+                logAcessosService.getEventosDescartados()
+        );
+        return ResponseEntity.ok(commonMapper.toSuccessResponse(dto));
+    }
+
     /**
      * Estatísticas por gênero (admin)
      */
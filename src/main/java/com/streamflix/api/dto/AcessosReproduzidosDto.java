@@ -0,0 +1,17 @@
+package com.streamflix.api.dto;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * DTO com os acessos recalculados a partir do log de eventos (auditoria/reagregação)
+ */
+public record AcessosReproduzidosDto(
+        LocalDate desde,
+        LocalDate ate,
+        Long totalEventos,
+        Map<Long, Long> acessosPorFilme,
+        Map<LocalDate, Long> acessosPorDia,
+        Long eventosDescartados
+) {
+}
@@ -0,0 +1,17 @@
+package com.streamflix.api.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO para resultado da busca por comentário (relevância: maior = mais relevante)
+ */
+public record AvaliacaoBuscaDto(
+        Long id,
+        Long filmeId,
+        Integer nota,
+        String comentario,
+        LocalDateTime dataCriacao,
+        UsuarioResumoDto usuario,
+        Double relevancia
+) {
+}
@@ -0,0 +1,16 @@
+package com.streamflix.api.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * DTO para importar avaliações em lote
+ */
+public record AvaliacaoLoteDto(
+        @NotNull(message = "Itens são obrigatórios")
+        @Size(min = 1, max = 5000, message = "O lote deve ter entre 1 e 5000 avaliações")
+        List<AvaliacaoLoteItemDto> itens
+) {
+}
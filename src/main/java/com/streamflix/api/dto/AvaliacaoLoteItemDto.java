@@ -0,0 +1,11 @@
+package com.streamflix.api.dto;
+
+/**
+ * DTO de um item da importação em lote (validado item a item: inválidos são rejeitados sem afetar os demais)
+ */
+public record AvaliacaoLoteItemDto(
+        Long filmeId,
+        Integer nota,
+        String comentario
+) {
+}
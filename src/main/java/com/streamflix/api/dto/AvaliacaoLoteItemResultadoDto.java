@@ -0,0 +1,12 @@
+package com.streamflix.api.dto;
+
+/**
+ * DTO com o resultado de um item do lote (status: CRIADA, ATUALIZADA, REJEITADA ou SUBSTITUIDA)
+ */
+public record AvaliacaoLoteItemResultadoDto(
+        int indice,
+        Long filmeId,
+        String status,
+        String mensagem
+) {
+}
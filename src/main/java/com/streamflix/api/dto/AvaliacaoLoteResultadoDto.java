@@ -0,0 +1,16 @@
+package com.streamflix.api.dto;
+
+import java.util.List;
+
+/**
+ * DTO para resposta da importação em lote: totais por status e resultado de cada item
+ */
+public record AvaliacaoLoteResultadoDto(
+        int total,
+        int criadas,
+        int atualizadas,
+        int rejeitadas,
+        int substituidas,
+        List<AvaliacaoLoteItemResultadoDto> itens
+) {
+}
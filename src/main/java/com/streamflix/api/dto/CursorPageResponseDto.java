@@ -0,0 +1,13 @@
+package com.streamflix.api.dto;
+
+import java.util.List;
+
+/**
+ * DTO para paginação por cursor (nextCursor nulo na última página)
+ */
+public record CursorPageResponseDto<T>(
+        List<T> content,
+        int size,
+        String nextCursor,
+        boolean last
+) {}
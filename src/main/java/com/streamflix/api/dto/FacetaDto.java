@@ -0,0 +1,10 @@
+package com.streamflix.api.dto;
+
+/**
+ * DTO para contagem de uma faceta da busca (valor do atributo e quantos filmes do resultado o têm)
+ */
+public record FacetaDto(
+        String valor,
+        Long total
+) {
+}
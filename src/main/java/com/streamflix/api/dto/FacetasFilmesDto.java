@@ -0,0 +1,14 @@
+package com.streamflix.api.dto;
+
+import java.util.List;
+
+/**
+ * DTO para as facetas da busca de filmes: contagens por valor entre todos os filmes do resultado (não só da página)
+ */
+public record FacetasFilmesDto(
+        List<FacetaDto> generos,
+        List<FacetaDto> anos,
+        List<FacetaDto> decadas,
+        List<FacetaDto> faixasDuracao
+) {
+}
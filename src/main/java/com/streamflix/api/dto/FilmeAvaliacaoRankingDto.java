@@ -0,0 +1,15 @@
+package com.streamflix.api.dto;
+
+/**
+ * DTO para ranking de avaliações (média bayesiana)
+ */
+public record FilmeAvaliacaoRankingDto(
+        Long id,
+        String titulo,
+        String genero,
+        Double mediaNotas,
+        Long totalAvaliacoes,
+        Double notaPonderada,
+        Integer posicaoRanking
+) {
+}
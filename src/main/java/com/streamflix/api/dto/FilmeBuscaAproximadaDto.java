@@ -0,0 +1,15 @@
+package com.streamflix.api.dto;
+
+/**
+ * DTO para resultado da busca aproximada por título (similaridade de 0 a 1: maior = mais parecido)
+ */
+public record FilmeBuscaAproximadaDto(
+        Long id,
+        String titulo,
+        String genero,
+        Integer anoLancamento,
+        String diretor,
+        String urlPoster,
+        Double similaridade
+) {
+}
@@ -0,0 +1,14 @@
+package com.streamflix.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * DTO para a página da busca de filmes: a página (campos no mesmo nível) e as facetas (só quando pedidas)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record FilmeBuscaDto(
+        @JsonUnwrapped PageResponseDto<FilmeResumoDto> pagina,
+        FacetasFilmesDto facetas
+) {
+}
@@ -15,6 +15,7 @@ public record FilmeDetalhesDto(
         String diretor,
         String urlPoster,
         Long contadorAcessos,
+        Long visualizadoresUnicos,
         Double mediaAvaliacoes,
         Long totalAvaliacoes,
         LocalDateTime dataCriacao,
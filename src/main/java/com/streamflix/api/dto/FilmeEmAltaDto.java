@@ -0,0 +1,14 @@
+package com.streamflix.api.dto;
+
+/**
+ * DTO para o ranking "em alta agora" (acessos estimados na janela recente)
+ */
+public record FilmeEmAltaDto(
+        Long id,
+        String titulo,
+        String genero,
+        Long acessosEstimados,
+        Long margemErro,
+        Integer posicaoRanking
+) {
+}
@@ -1,15 +1,26 @@
 package com.streamflix.api.dto;
 
+import java.util.List;
+
 /**
- * DTO para filtros de busca de filmes
+ * DTO para filtros de busca de filmes (todos combinados; listas aceitam qualquer dos valores; faixas com limites inclusivos)
  */
 public record FilmeFiltroDto(
         String titulo,
-        String genero,
+        List<String> genero,
         Integer anoLancamento,
         String diretor,
+        Integer anoMin,
+        Integer anoMax,
+        Integer duracaoMin,
+        Integer duracaoMax,
+        List<Integer> decada,
+        List<String> faixaDuracao,
+        String sort,
+        String direcao,
         Boolean orderByPopularidade,
         Integer page,
-        Integer size
+        Integer size,
+        Boolean facetas
 ) {
 }
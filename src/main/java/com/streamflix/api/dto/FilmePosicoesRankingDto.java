@@ -0,0 +1,18 @@
+package com.streamflix.api.dto;
+
+/**
+ * DTO com a posição do filme no ranking geral e nos rankings do seu gênero e ano
+ */
+public record FilmePosicoesRankingDto(
+        Long id,
+        String titulo,
+        String genero,
+        Integer anoLancamento,
+        Long contadorAcessos,
+        Long visualizadoresUnicos,
+        Integer posicaoGeral,
+        Integer posicaoNoGenero,
+        Integer posicaoNoAno,
+        Integer posicaoNoGeneroAno
+) {
+}
@@ -8,6 +8,7 @@ public record FilmeRankingDto(
         String titulo,
         String genero,
         Long contadorAcessos,
+        Long visualizadoresUnicos,
         Integer posicaoRanking
 ) {
 }
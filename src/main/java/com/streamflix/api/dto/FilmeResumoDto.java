@@ -1,7 +1,8 @@
 package com.streamflix.api.dto;
 
 /**
- * DTO para resposta resumida do filme (para listagens)
+ * DTO para resposta resumida do filme (para listagens).
+ * mediaNotas e totalAvaliacoes vêm nulos nas listagens que não trazem as avaliações.
  */
 public record FilmeResumoDto(
         Long id,
@@ -10,6 +11,8 @@ public record FilmeResumoDto(
         Integer anoLancamento,
         String diretor,
         String urlPoster,
-        Long contadorAcessos
+        Long contadorAcessos,
+        Double mediaNotas,
+        Long totalAvaliacoes
 ) {
 }
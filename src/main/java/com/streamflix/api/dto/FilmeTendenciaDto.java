@@ -0,0 +1,14 @@
+package com.streamflix.api.dto;
+
+/**
+ * DTO para ranking de tendências (popularidade recente com decaimento)
+ */
+public record FilmeTendenciaDto(
+        Long id,
+        String titulo,
+        String genero,
+        Double pontuacao,
+        Long acessosNaJanela,
+        Integer posicaoRanking
+) {
+}
@@ -0,0 +1,12 @@
+package com.streamflix.api.dto;
+
+/**
+ * DTO para sugestão do autocompletar (tipo TITULO traz o filme; DIRETOR soma os acessos dos seus filmes)
+ */
+public record SugestaoBuscaDto(
+        String texto,
+        String tipo,
+        Long filmeId,
+        Long contadorAcessos
+) {
+}
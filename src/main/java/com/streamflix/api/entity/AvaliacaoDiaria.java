@@ -0,0 +1,77 @@
+package com.streamflix.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Soma e quantidade das notas dadas a um filme em um dia (ranking de avaliações recentes).
+ * O dia é gravado como número de dias desde a epoch. Gravado pelo AvaliacoesDiariasRepository (JDBC).
+ */
+@Entity
+@Table(name = "avaliacoes_diarias",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"filme_id", "dia"}))
+public class AvaliacaoDiaria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "filme_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Filme filme;
+
+    @Column(nullable = false)
+    private Long dia;
+
+    @Column(name = "soma_notas", nullable = false)
+    private Long somaNotas = 0L;
+
+    @Column(name = "total_avaliacoes", nullable = false)
+    private Long totalAvaliacoes = 0L;
+
+    // Construtores
+    public AvaliacaoDiaria() {}
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Filme getFilme() {
+        return filme;
+    }
+
+    public void setFilme(Filme filme) {
+        this.filme = filme;
+    }
+
+    public Long getDia() {
+        return dia;
+    }
+
+    public void setDia(Long dia) {
+        this.dia = dia;
+    }
+
+    public Long getSomaNotas() {
+        return somaNotas;
+    }
+
+    public void setSomaNotas(Long somaNotas) {
+        this.somaNotas = somaNotas;
+    }
+
+    public Long getTotalAvaliacoes() {
+        return totalAvaliacoes;
+    }
+
+    public void setTotalAvaliacoes(Long totalAvaliacoes) {
+        this.totalAvaliacoes = totalAvaliacoes;
+    }
+}
@@ -47,7 +47,8 @@ public class Filme {
     private Boolean ativo = true;
 
     // CAMPO OBRIGATÓRIO PARA O RANKING DE POPULARIDADE
-    @Column(name = "contador_acessos", nullable = false)
+    // Não é atualizável pela entidade: só muda por incremento atômico (ContadorAcessosRepository)
+    @Column(name = "contador_acessos", nullable = false, updatable = false)
     private Long contadorAcessos = 0L;
 
     @CreationTimestamp
@@ -0,0 +1,72 @@
+package com.streamflix.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Fatia (shard) do contador de acessos de um filme.
+ * Os incrementos caem em uma fatia aleatória e são consolidados
+ * periodicamente em filmes.contador_acessos.
+ */
+@Entity
+@Table(name = "filme_acessos_shard",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"filme_id", "shard"}))
+public class FilmeAcessoShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "filme_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Filme filme;
+
+    @Column(nullable = false)
+    private Integer shard;
+
+    @Column(nullable = false)
+    private Long acessos = 0L;
+
+    // Construtores
+    public FilmeAcessoShard() {}
+
+    public FilmeAcessoShard(Filme filme, Integer shard) {
+        this.filme = filme;
+        this.shard = shard;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Filme getFilme() {
+        return filme;
+    }
+
+    public void setFilme(Filme filme) {
+        this.filme = filme;
+    }
+
+    public Integer getShard() {
+        return shard;
+    }
+
+    public void setShard(Integer shard) {
+        this.shard = shard;
+    }
+
+    public Long getAcessos() {
+        return acessos;
+    }
+
+    public void setAcessos(Long acessos) {
+        this.acessos = acessos;
+    }
+}
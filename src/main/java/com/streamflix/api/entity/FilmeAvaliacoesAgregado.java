@@ -0,0 +1,135 @@
+package com.streamflix.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Soma, total e distribuição (1 a 5) das notas de cada filme, atualizados pelo despacho do outbox de avaliações.
+ * Gravado pelo AvaliacoesAgregadoRepository (JDBC); a entidade só descreve a tabela.
+ */
+@Entity
+@Table(name = "filme_avaliacoes_agregado")
+public class FilmeAvaliacoesAgregado {
+
+    @Id
+    @Column(name = "filme_id")
+    private Long filmeId;
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId
+    @JoinColumn(name = "filme_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Filme filme;
+
+    @Column(name = "soma_notas", nullable = false)
+    private Long somaNotas = 0L;
+
+    @Column(name = "total_avaliacoes", nullable = false)
+    private Long totalAvaliacoes = 0L;
+
+    // Quantidade de avaliações com cada nota
+    @Column(name = "notas_1", nullable = false)
+    private Long notas1 = 0L;
+
+    @Column(name = "notas_2", nullable = false)
+    private Long notas2 = 0L;
+
+    @Column(name = "notas_3", nullable = false)
+    private Long notas3 = 0L;
+
+    @Column(name = "notas_4", nullable = false)
+    private Long notas4 = 0L;
+
+    @Column(name = "notas_5", nullable = false)
+    private Long notas5 = 0L;
+
+    @Column(name = "data_atualizacao", nullable = false)
+    private LocalDateTime dataAtualizacao;
+
+    // Construtores
+    public FilmeAvaliacoesAgregado() {}
+
+    // Getters e Setters
+    public Long getFilmeId() {
+        return filmeId;
+    }
+
+    public void setFilmeId(Long filmeId) {
+        this.filmeId = filmeId;
+    }
+
+    public Filme getFilme() {
+        return filme;
+    }
+
+    public void setFilme(Filme filme) {
+        this.filme = filme;
+    }
+
+    public Long getSomaNotas() {
+        return somaNotas;
+    }
+
+    public void setSomaNotas(Long somaNotas) {
+        this.somaNotas = somaNotas;
+    }
+
+    public Long getTotalAvaliacoes() {
+        return totalAvaliacoes;
+    }
+
+    public void setTotalAvaliacoes(Long totalAvaliacoes) {
+        this.totalAvaliacoes = totalAvaliacoes;
+    }
+
+    public Long getNotas1() {
+        return notas1;
+    }
+
+    public void setNotas1(Long notas1) {
+        this.notas1 = notas1;
+    }
+
+    public Long getNotas2() {
+        return notas2;
+    }
+
+    public void setNotas2(Long notas2) {
+        this.notas2 = notas2;
+    }
+
+    public Long getNotas3() {
+        return notas3;
+    }
+
+    public void setNotas3(Long notas3) {
+        this.notas3 = notas3;
+    }
+
+    public Long getNotas4() {
+        return notas4;
+    }
+
+    public void setNotas4(Long notas4) {
+        this.notas4 = notas4;
+    }
+
+    public Long getNotas5() {
+        return notas5;
+    }
+
+    public void setNotas5(Long notas5) {
+        this.notas5 = notas5;
+    }
+
+    public LocalDateTime getDataAtualizacao() {
+        return dataAtualizacao;
+    }
+
+    public void setDataAtualizacao(LocalDateTime dataAtualizacao) {
+        this.dataAtualizacao = dataAtualizacao;
+    }
+}
@@ -0,0 +1,72 @@
+package com.streamflix.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Checkpoint dos acessos por filme e hora, usado pelo ranking de tendências.
+ * A hora é gravada como número de horas desde a epoch (UTC).
+ */
+@Entity
+@Table(name = "filme_tendencias_horarias",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"filme_id", "hora"}))
+public class FilmeTendenciaHoraria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "filme_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Filme filme;
+
+    @Column(nullable = false)
+    private Long hora;
+
+    @Column(nullable = false)
+    private Long acessos = 0L;
+
+    // Construtores
+    public FilmeTendenciaHoraria() {}
+
+    public FilmeTendenciaHoraria(Filme filme, Long hora, Long acessos) {
+        this.filme = filme;
+        this.hora = hora;
+        this.acessos = acessos;
+    }
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Filme getFilme() {
+        return filme;
+    }
+
+    public void setFilme(Filme filme) {
+        this.filme = filme;
+    }
+
+    public Long getHora() {
+        return hora;
+    }
+
+    public void setHora(Long hora) {
+        this.hora = hora;
+    }
+
+    public Long getAcessos() {
+        return acessos;
+    }
+
+    public void setAcessos(Long acessos) {
+        this.acessos = acessos;
+    }
+}
@@ -0,0 +1,69 @@
+package com.streamflix.api.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sketch HyperLogLog dos usuários distintos que abriram os detalhes do filme.
+ * Gravado e mesclado pelo VisualizadoresRepository (JDBC); a entidade só descreve a tabela.
+ */
+@Entity
+@Table(name = "filme_visualizadores")
+public class FilmeVisualizadores {
+
+    @Id
+    @Column(name = "filme_id")
+    private Long filmeId;
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @MapsId
+    @JoinColumn(name = "filme_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Filme filme;
+
+    // 1 byte de precisão + 1 byte por registrador
+    @Column(nullable = false, length = 65537)
+    private byte[] registros;
+
+    @Column(name = "data_atualizacao", nullable = false)
+    private LocalDateTime dataAtualizacao;
+
+    // Construtores
+    public FilmeVisualizadores() {}
+
+    // Getters e Setters
+    public Long getFilmeId() {
+        return filmeId;
+    }
+
+    public void setFilmeId(Long filmeId) {
+        this.filmeId = filmeId;
+    }
+
+    public Filme getFilme() {
+        return filme;
+    }
+
+    public void setFilme(Filme filme) {
+        this.filme = filme;
+    }
+
+    public byte[] getRegistros() {
+        return registros;
+    }
+
+    public void setRegistros(byte[] registros) {
+        this.registros = registros;
+    }
+
+    public LocalDateTime getDataAtualizacao() {
+        return dataAtualizacao;
+    }
+
+    public void setDataAtualizacao(LocalDateTime dataAtualizacao) {
+        this.dataAtualizacao = dataAtualizacao;
+    }
+}
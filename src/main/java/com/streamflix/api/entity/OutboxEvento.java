@@ -0,0 +1,133 @@
+package com.streamflix.api.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de avaliação (outbox transacional), gravado na mesma transação da mudança e removido
+ * quando despachado aos projetores. Gravado e lido pelo OutboxRepository (JDBC); a entidade só
+ * descreve a tabela. Sem chaves estrangeiras: o evento sobrevive à remoção da avaliação ou do filme.
+ */
+@Entity
+@Table(name = "outbox_eventos")
+public class OutboxEvento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private TipoEventoAvaliacao tipo;
+
+    @Column(name = "avaliacao_id", nullable = false)
+    private Long avaliacaoId;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "filme_id", nullable = false)
+    private Long filmeId;
+
+    // 0 = sem nota (avaliação criada / removida)
+    @Column(name = "nota_anterior", nullable = false)
+    private Integer notaAnterior;
+
+    // Quando a nota anterior foi dada (null = sem nota anterior)
+    @Column(name = "data_nota_anterior")
+    private LocalDateTime dataNotaAnterior;
+
+    @Column(name = "nota_nova", nullable = false)
+    private Integer notaNova;
+
+    @Column(columnDefinition = "TEXT")
+    private String comentario;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+
+    // Construtores
+    public OutboxEvento() {}
+
+    // Getters e Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public TipoEventoAvaliacao getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(TipoEventoAvaliacao tipo) {
+        this.tipo = tipo;
+    }
+
+    public Long getAvaliacaoId() {
+        return avaliacaoId;
+    }
+
+    public void setAvaliacaoId(Long avaliacaoId) {
+        this.avaliacaoId = avaliacaoId;
+    }
+
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public Long getFilmeId() {
+        return filmeId;
+    }
+
+    public void setFilmeId(Long filmeId) {
+        this.filmeId = filmeId;
+    }
+
+    public Integer getNotaAnterior() {
+        return notaAnterior;
+    }
+
+    public void setNotaAnterior(Integer notaAnterior) {
+        this.notaAnterior = notaAnterior;
+    }
+
+    public LocalDateTime getDataNotaAnterior() {
+        return dataNotaAnterior;
+    }
+
+    public void setDataNotaAnterior(LocalDateTime dataNotaAnterior) {
+        this.dataNotaAnterior = dataNotaAnterior;
+    }
+
+    public Integer getNotaNova() {
+        return notaNova;
+    }
+
+    public void setNotaNova(Integer notaNova) {
+        this.notaNova = notaNova;
+    }
+
+    public String getComentario() {
+        return comentario;
+    }
+
+    public void setComentario(String comentario) {
+        this.comentario = comentario;
+    }
+
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+
+    public void setDataCriacao(LocalDateTime dataCriacao) {
+        this.dataCriacao = dataCriacao;
+    }
+}
@@ -0,0 +1,7 @@
+package com.streamflix.api.entity;
+
+public enum TipoEventoAvaliacao {
+    CRIADA,
+    ALTERADA,
+    REMOVIDA
+}
@@ -0,0 +1,11 @@
+package com.streamflix.api.eventlog;
+
+/**
+ * Acesso a um filme gravado no log de eventos (usuarioId 0 = acesso sem usuário, ex: leitura administrativa)
+ */
+public record EventoAcesso(
+        long filmeId,
+        long usuarioId,
+        long timestampMs
+) {
+}
@@ -0,0 +1,102 @@
+package com.streamflix.api.eventlog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fila circular sem locks com vários produtores (threads de requisição) e um único consumidor
+ * (thread de escrita do log). Os eventos ficam em arrays primitivos paralelos.
+ *
+ * O produtor reserva uma sequência com CAS, grava o slot e publica a sequência no slot;
+ * o consumidor lê em ordem enquanto o slot seguinte estiver publicado. Fila cheia não
+ * bloqueia a requisição: o evento é descartado e contado.
+ */
+public class RingBufferEventos {
+
+    private final int mascara;
+    private final long[] filmes;
+    private final long[] usuarios;
+    private final long[] timestamps;
+
+    // Sequência publicada em cada slot (-1 = nunca publicado)
+    private final AtomicLongArray publicados;
+
+    // Próxima sequência a reservar (produtores) e próxima a consumir (consumidor)
+    private final AtomicLong cabeca = new AtomicLong();
+    private final AtomicLong cauda = new AtomicLong();
+
+    private final AtomicLong descartados = new AtomicLong();
+
+    public RingBufferEventos(int capacidade) {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade) - 1) << 1;
+        this.mascara = tamanho - 1;
+        this.filmes = new long[tamanho];
+        this.usuarios = new long[tamanho];
+        this.timestamps = new long[tamanho];
+        this.publicados = new AtomicLongArray(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            publicados.set(i, -1);
+        }
+    }
+
+    /**
+     * Enfileirar um evento. Retorna false (e conta o descarte) se a fila estiver cheia.
+     */
+    public boolean publicar(long filmeId, long usuarioId, long timestampMs) {
+        long sequencia;
+        do {
+            sequencia = cabeca.get();
+            if (sequencia - cauda.get() > mascara) {
+                descartados.incrementAndGet();
+                return false;
+            }
+        } while (!cabeca.compareAndSet(sequencia, sequencia + 1));
+
+        int slot = (int) (sequencia & mascara);
+        filmes[slot] = filmeId;
+        usuarios[slot] = usuarioId;
+        timestamps[slot] = timestampMs;
+        // Escrita volátil: publica os campos acima para o consumidor
+        publicados.set(slot, sequencia);
+        return true;
+    }
+
+    /**
+     * Consumir até {@code maximo} eventos publicados, em ordem. Só pode ser chamado pelo consumidor.
+     * Retorna quantos foram consumidos.
+     */
+    public int consumir(ConsumidorEventos consumidor, int maximo) {
+        long proxima = cauda.get();
+        int consumidos = 0;
+        while (consumidos < maximo) {
+            int slot = (int) (proxima & mascara);
+            if (publicados.get(slot) != proxima) {
+                break;
+            }
+            consumidor.consumir(filmes[slot], usuarios[slot], timestamps[slot]);
+            proxima++;
+            consumidos++;
+        }
+        if (consumidos > 0) {
+            // Libera os slots para os produtores
+            cauda.set(proxima);
+        }
+        return consumidos;
+    }
+
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Eventos reservados e ainda não consumidos (aproximado)
+     */
+    public long getPendentes() {
+        return cabeca.get() - cauda.get();
+    }
+
+    @FunctionalInterface
+    public interface ConsumidorEventos {
+        void consumir(long filmeId, long usuarioId, long timestampMs);
+    }
+}
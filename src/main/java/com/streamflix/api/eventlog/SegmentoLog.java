@@ -0,0 +1,149 @@
+package com.streamflix.api.eventlog;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Arquivo de segmento do log de acessos, mapeado em memória.
+ *
+ * Formato: cabeçalho de 16 bytes (magic + versão + tamanho do registro) seguido de registros
+ * de 24 bytes (filmeId, usuarioId, timestampMs). O arquivo é criado com o tamanho final e
+ * preenchido com zeros; o primeiro registro com timestamp 0 marca o fim dos dados.
+ * O nome carrega a sequência e o instante de criação: acessos-{sequencia}-{criadoEmMs}.log
+ */
+public class SegmentoLog implements AutoCloseable {
+
+    public static final int TAMANHO_CABECALHO = 16;
+    public static final int TAMANHO_REGISTRO = 24;
+
+    private static final int MAGIC = 0x53464C41; // "SFLA"
+    private static final int VERSAO = 1;
+    private static final Pattern NOME = Pattern.compile("acessos-(\\d{20})-(\\d+)\\.log");
+
+    private final Path arquivo;
+    private final long sequencia;
+    private final long criadoEmMs;
+    private final FileChannel canal;
+    private final MappedByteBuffer buffer;
+    private final int capacidade;
+    private int registros;
+
+    private SegmentoLog(Path arquivo, long sequencia, long criadoEmMs, FileChannel canal,
+                        MappedByteBuffer buffer, int registros) {
+        this.arquivo = arquivo;
+        this.sequencia = sequencia;
+        this.criadoEmMs = criadoEmMs;
+        this.canal = canal;
+        this.buffer = buffer;
+        this.capacidade = (buffer.capacity() - TAMANHO_CABECALHO) / TAMANHO_REGISTRO;
+        this.registros = registros;
+    }
+
+    /**
+     * Criar um segmento novo (vazio) para escrita
+     */
+    public static SegmentoLog criar(Path diretorio, long sequencia, long criadoEmMs, int tamanhoBytes)
+            throws IOException {
+        Path arquivo = diretorio.resolve(String.format("acessos-%020d-%d.log", sequencia, criadoEmMs));
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanhoBytes);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSAO);
+            buffer.putInt(8, TAMANHO_REGISTRO);
+            return new SegmentoLog(arquivo, sequencia, criadoEmMs, canal, buffer, 0);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ler todos os registros de um segmento (fechado ou ainda em escrita) até o primeiro vazio
+     */
+    public static void ler(Path arquivo, Consumer<EventoAcesso> consumidor) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.capacity() < TAMANHO_CABECALHO || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Arquivo não é um segmento do log de acessos: " + arquivo);
+            }
+            int tamanhoRegistro = buffer.getInt(8);
+            for (int posicao = TAMANHO_CABECALHO; posicao + tamanhoRegistro <= buffer.capacity();
+                 posicao += tamanhoRegistro) {
+                long timestamp = buffer.getLong(posicao + 16);
+                if (timestamp == 0) {
+                    break;
+                }
+                consumidor.accept(new EventoAcesso(buffer.getLong(posicao), buffer.getLong(posicao + 8), timestamp));
+            }
+        }
+    }
+
+    /**
+     * Sequência do segmento pelo nome do arquivo, ou -1 se o nome não é de segmento
+     */
+    public static long sequenciaDoNome(Path arquivo) {
+        Matcher matcher = NOME.matcher(arquivo.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Instante de criação pelo nome do arquivo, ou -1 se o nome não é de segmento
+     */
+    public static long criadoEmDoNome(Path arquivo) {
+        Matcher matcher = NOME.matcher(arquivo.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(2)) : -1;
+    }
+
+    /**
+     * Acrescentar um registro. Retorna false se o segmento está cheio.
+     */
+    public boolean acrescentar(long filmeId, long usuarioId, long timestampMs) {
+        if (registros >= capacidade) {
+            return false;
+        }
+        int posicao = TAMANHO_CABECALHO + registros * TAMANHO_REGISTRO;
+        buffer.putLong(posicao, filmeId);
+        buffer.putLong(posicao + 8, usuarioId);
+        // Timestamp por último: é ele que marca o registro como completo para os leitores
+        buffer.putLong(posicao + 16, Math.max(1L, timestampMs));
+        registros++;
+        return true;
+    }
+
+    /**
+     * Forçar a gravação das páginas alteradas no disco
+     */
+    public void sincronizar() {
+        buffer.force();
+    }
+
+    public boolean isVazio() {
+        return registros == 0;
+    }
+
+    public long getSequencia() {
+        return sequencia;
+    }
+
+    public long getCriadoEmMs() {
+        return criadoEmMs;
+    }
+
+    public Path getArquivo() {
+        return arquivo;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        canal.close();
+    }
+}
@@ -4,11 +4,13 @@ import com.streamflix.api.dto.*;
 import com.streamflix.api.entity.Avaliacao;
 import com.streamflix.api.entity.Filme;
 import com.streamflix.api.entity.Usuario;
+import com.streamflix.api.service.AvaliacaoService;
+import com.streamflix.api.service.AvaliacoesAgregadoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 @Component
 public class AvaliacaoMapper {
@@ -73,45 +75,36 @@ public class AvaliacaoMapper {
     }
 
     /**
-     * Criar AvaliacaoEstatisticasDto a partir de dados estatísticos
+     * Converter avaliação encontrada na busca por comentário para AvaliacaoBuscaDto
      */
-    public AvaliacaoEstatisticasDto toEstatisticasDto(
-            Filme filme,
-            Double mediaNotas,
-            Long totalAvaliacoes,
-            Map<Integer, Long> distribuicaoNotas) {
-
-        return new AvaliacaoEstatisticasDto(
-                filme.getId(),
-                filme.getTitulo(),
-                mediaNotas != null ? Math.round(mediaNotas * 100.0) / 100.0 : 0.0,
-                totalAvaliacoes != null ? totalAvaliacoes : 0L,
-                distribuicaoNotas.getOrDefault(1, 0L),
-                distribuicaoNotas.getOrDefault(2, 0L),
-                distribuicaoNotas.getOrDefault(3, 0L),
-                distribuicaoNotas.getOrDefault(4, 0L),
-                distribuicaoNotas.getOrDefault(5, 0L)
+    public AvaliacaoBuscaDto toBuscaDto(AvaliacaoService.AvaliacaoEncontrada encontrada) {
+        Avaliacao avaliacao = encontrada.avaliacao();
+        return new AvaliacaoBuscaDto(
+                avaliacao.getId(),
+                avaliacao.getFilme().getId(),
+                avaliacao.getNota(),
+                avaliacao.getComentario(),
+                avaliacao.getDataCriacao(),
+                usuarioMapper.toResumoDto(avaliacao.getUsuario()),
+                Math.round(encontrada.relevancia() * 10000.0) / 10000.0
         );
     }
 
     /**
-     * Processar estatísticas de avaliações vindas do repository
+     * Criar AvaliacaoEstatisticasDto a partir do agregado de avaliações do filme
      */
-    public AvaliacaoEstatisticasDto processarEstatisticasRepository(
-            Filme filme,
-            Double mediaNotas,
-            Long totalAvaliacoes,
-            List<Object[]> distribuicaoNotas) {
-
-        // Converter List<Object[]> para Map<Integer, Long>
-        Map<Integer, Long> distribuicaoMap = new java.util.HashMap<>();
-        distribuicaoNotas.forEach(row -> {
-            Integer nota = (Integer) row[0];
-            Long count = (Long) row[1];
-            distribuicaoMap.put(nota, count);
-        });
-
-        return toEstatisticasDto(filme, mediaNotas, totalAvaliacoes, distribuicaoMap);
+    public AvaliacaoEstatisticasDto toEstatisticasDto(Filme filme, AvaliacoesAgregadoService.AgregadoAvaliacoes agregado) {
+        return new AvaliacaoEstatisticasDto(
+                filme.getId(),
+                filme.getTitulo(),
+                Math.round(agregado.media() * 100.0) / 100.0,
+                agregado.totalAvaliacoes(),
+                agregado.comNota(1),
+                agregado.comNota(2),
+                agregado.comNota(3),
+                agregado.comNota(4),
+                agregado.comNota(5)
+        );
     }
 
     /**
@@ -131,4 +124,39 @@ public class AvaliacaoMapper {
                 .map(this::toResumoDto)
                 .toList();
     }
-}
\ No newline at end of file
+
+    /**
+     * Converter itens do lote para o formato do service
+     */
+    public List<AvaliacaoService.ItemLote> toItensLote(AvaliacaoLoteDto dto) {
+        return dto.itens().stream()
+                .map(item -> item == null ? null
+                        : new AvaliacaoService.ItemLote(item.filmeId(), item.nota(), item.comentario()))
+                .toList();
+    }
+
+    /**
+     * Converter resultados da importação em lote para AvaliacaoLoteResultadoDto (com os totais por status)
+     */
+    public AvaliacaoLoteResultadoDto toLoteResultadoDto(List<AvaliacaoService.ResultadoItemLote> resultados) {
+        int[] porStatus = new int[AvaliacaoService.StatusItemLote.values().length];
+        List<AvaliacaoLoteItemResultadoDto> itens = new ArrayList<>(resultados.size());
+        for (AvaliacaoService.ResultadoItemLote resultado : resultados) {
+            porStatus[resultado.status().ordinal()]++;
+            itens.add(new AvaliacaoLoteItemResultadoDto(
+                    resultado.indice(),
+                    resultado.filmeId(),
+                    resultado.status().name(),
+                    resultado.mensagem()
+            ));
+        }
+        return new AvaliacaoLoteResultadoDto(
+                resultados.size(),
+                porStatus[AvaliacaoService.StatusItemLote.CRIADA.ordinal()],
+                porStatus[AvaliacaoService.StatusItemLote.ATUALIZADA.ordinal()],
+                porStatus[AvaliacaoService.StatusItemLote.REJEITADA.ordinal()],
+                porStatus[AvaliacaoService.StatusItemLote.SUBSTITUIDA.ordinal()],
+                itens
+        );
+    }
+}
@@ -24,6 +24,13 @@ public class CommonMapper {
         );
     }
 
+    /**
+     * Criar CursorPageResponseDto (última página quando não há próximo cursor)
+     */
+    public <T> CursorPageResponseDto<T> toCursorPageResponseDto(List<T> content, int size, String nextCursor) {
+        return new CursorPageResponseDto<>(content, size, nextCursor, nextCursor == null);
+    }
+
     /**
      * Criar EstatisticasDto
      */
@@ -126,21 +133,39 @@ public class CommonMapper {
      */
     public FilmeFiltroDto toFilmeFiltroDto(
             String titulo,
-            String genero,
+            List<String> genero,
             Integer anoLancamento,
             String diretor,
+            Integer anoMin,
+            Integer anoMax,
+            Integer duracaoMin,
+            Integer duracaoMax,
+            List<Integer> decada,
+            List<String> faixaDuracao,
+            String sort,
+            String direcao,
             Boolean orderByPopularidade,
             Integer page,
-            Integer size) {
+            Integer size,
+            Boolean facetas) {
 
         return new FilmeFiltroDto(
                 titulo,
                 genero,
                 anoLancamento,
                 diretor,
+                anoMin,
+                anoMax,
+                duracaoMin,
+                duracaoMax,
+                decada,
+                faixaDuracao,
+                sort,
+                direcao,
                 orderByPopularidade != null ? orderByPopularidade : false,
                 page != null ? page : 0,
-                size != null ? size : 20
+                size != null ? size : 20,
+                facetas != null ? facetas : false
         );
     }
 }
\ No newline at end of file
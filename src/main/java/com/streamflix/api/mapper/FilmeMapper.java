@@ -1,13 +1,26 @@
 package com.streamflix.api.mapper;
 
+import com.streamflix.api.busca.IndiceFacetas;
+import com.streamflix.api.busca.IndiceTrigramas;
 import com.streamflix.api.dto.*;
 import com.streamflix.api.entity.Filme;
 import com.streamflix.api.entity.Usuario;
+import com.streamflix.api.ranking.FilmeResumoRanking;
+import com.streamflix.api.ranking.PosicaoRanking;
+import com.streamflix.api.service.AvaliacoesAgregadoService;
+import com.streamflix.api.service.FilmeService;
+import com.streamflix.api.service.RankingAvaliacoesService;
+import com.streamflix.api.service.RankingPopularidadeService;
+import com.streamflix.api.service.SugestoesService;
+import com.streamflix.api.sketch.HeavyHittersJanela;
+import com.streamflix.api.service.TendenciasService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
 
 @Component
 public class FilmeMapper {
@@ -15,6 +28,74 @@ public class FilmeMapper {
     @Autowired
     private UsuarioMapper usuarioMapper;
 
+    /**
+     * Converter filtros da busca para o FilmeService. anoLancamento vale como faixa de um ano só
+     * (quando a faixa não foi informada) e orderByPopularidade como sort=popularidade (quando sort não foi informado).
+     */
+    public FilmeService.FiltroBusca toFiltroBusca(FilmeFiltroDto dto) {
+        boolean semFaixaAno = dto.anoMin() == null && dto.anoMax() == null;
+        String ordenarPor = dto.sort() == null && Boolean.TRUE.equals(dto.orderByPopularidade())
+                ? "popularidade"
+                : dto.sort();
+        return new FilmeService.FiltroBusca(
+                dto.titulo(),
+                dto.diretor(),
+                dto.genero(),
+                semFaixaAno ? dto.anoLancamento() : dto.anoMin(),
+                semFaixaAno ? dto.anoLancamento() : dto.anoMax(),
+                dto.decada(),
+                dto.duracaoMin(),
+                dto.duracaoMax(),
+                toFaixasDuracao(dto.faixaDuracao()),
+                ordenarPor,
+                dto.direcao(),
+                Boolean.TRUE.equals(dto.facetas()),
+                dto.page(),
+                dto.size()
+        );
+    }
+
+    /**
+     * Converter a página da busca e as facetas (null se não pedidas)
+     */
+    public FilmeBuscaDto toBuscaDto(PageResponseDto<FilmeResumoDto> pagina, IndiceFacetas.Facetas facetas) {
+        return new FilmeBuscaDto(pagina, facetas != null ? toFacetasDto(facetas) : null);
+    }
+
+    /**
+     * Converter facetas do índice para FacetasFilmesDto
+     */
+    public FacetasFilmesDto toFacetasDto(IndiceFacetas.Facetas facetas) {
+        return new FacetasFilmesDto(
+                toFacetaDtoList(facetas.generos()),
+                toFacetaDtoList(facetas.anos()),
+                toFacetaDtoList(facetas.decadas()),
+                toFacetaDtoList(facetas.faixasDuracao())
+        );
+    }
+
+    private List<FacetaDto> toFacetaDtoList(List<IndiceFacetas.Contagem> contagens) {
+        return contagens.stream()
+                .map(contagem -> new FacetaDto(contagem.valor(), contagem.total()))
+                .toList();
+    }
+
+    private List<IndiceFacetas.FaixaDuracao> toFaixasDuracao(List<String> faixas) {
+        if (faixas == null) {
+            return null;
+        }
+        List<IndiceFacetas.FaixaDuracao> convertidas = new ArrayList<>(faixas.size());
+        for (String faixa : faixas) {
+            try {
+                convertidas.add(IndiceFacetas.FaixaDuracao.valueOf(faixa.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Faixa de duração inválida: " + faixa
+                        + ". Use " + Arrays.toString(IndiceFacetas.FaixaDuracao.values()));
+            }
+        }
+        return convertidas;
+    }
+
     /**
      * Converter FilmeCreateDto para Filme entity
      */
@@ -95,14 +176,34 @@ public class FilmeMapper {
                 filme.getAnoLancamento(),
                 filme.getDiretor(),
                 filme.getUrlPoster(),
-                filme.getContadorAcessos()
+                filme.getContadorAcessos(),
+                null,
+                null
+        );
+    }
+
+    /**
+     * Converter Filme entity para FilmeResumoDto com média e total de avaliações
+     */
+    public FilmeResumoDto toResumoDto(Filme filme, AvaliacoesAgregadoService.EstatisticasFilmes avaliacoes) {
+        return new FilmeResumoDto(
+                filme.getId(),
+                filme.getTitulo(),
+                filme.getGenero(),
+                filme.getAnoLancamento(),
+                filme.getDiretor(),
+                filme.getUrlPoster(),
+                filme.getContadorAcessos(),
+                Math.round(avaliacoes.media(filme.getId()) * 100.0) / 100.0,
+                avaliacoes.total(filme.getId())
         );
     }
 
     /**
      * Converter Filme entity para FilmeDetalhesDto (com estatísticas)
      */
-    public FilmeDetalhesDto toDetalhesDto(Filme filme, Double mediaAvaliacoes, Long totalAvaliacoes) {
+    public FilmeDetalhesDto toDetalhesDto(Filme filme, Long contadorAcessos, Long visualizadoresUnicos,
+                                          Double mediaAvaliacoes, Long totalAvaliacoes) {
         return new FilmeDetalhesDto(
                 filme.getId(),
                 filme.getTitulo(),
@@ -112,7 +213,8 @@ public class FilmeMapper {
                 filme.getDuracao(),
                 filme.getDiretor(),
                 filme.getUrlPoster(),
-                filme.getContadorAcessos(),
+                contadorAcessos != null ? contadorAcessos : filme.getContadorAcessos(),
+                visualizadoresUnicos != null ? visualizadoresUnicos : 0L,
                 mediaAvaliacoes != null ? mediaAvaliacoes : 0.0,
                 totalAvaliacoes != null ? totalAvaliacoes : 0L,
                 filme.getDataCriacao(),
@@ -123,23 +225,168 @@ public class FilmeMapper {
     /**
      * Converter Filme entity para FilmeRankingDto (com posição no ranking)
      */
-    public FilmeRankingDto toRankingDto(Filme filme, Integer posicao) {
+    public FilmeRankingDto toRankingDto(Filme filme, Long visualizadoresUnicos, Integer posicao) {
         return new FilmeRankingDto(
                 filme.getId(),
                 filme.getTitulo(),
                 filme.getGenero(),
                 filme.getContadorAcessos(),
+                visualizadoresUnicos,
                 posicao
         );
     }
 
     /**
-     * Converter lista de filmes para ranking com posições
+     * Converter posições do ranking em memória para FilmeRankingDto
      */
-    public List<FilmeRankingDto> toRankingDtoList(List<Filme> filmes) {
-        AtomicInteger posicao = new AtomicInteger(1);
-        return filmes.stream()
-                .map(filme -> toRankingDto(filme, posicao.getAndIncrement()))
+    public List<FilmeRankingDto> toRankingDtoList(List<PosicaoRanking> ranking) {
+        return ranking.stream()
+                .map(item -> new FilmeRankingDto(
+                        item.filme().id(),
+                        item.filme().titulo(),
+                        item.filme().genero(),
+                        item.acessos(),
+                        item.visualizadoresUnicos(),
+                        item.posicao()
+                ))
+                .toList();
+    }
+
+    /**
+     * Converter posições do filme nos rankings para FilmePosicoesRankingDto (0 vira null: fora da partição)
+     */
+    public FilmePosicoesRankingDto toPosicoesRankingDto(RankingPopularidadeService.PosicoesFilme posicoes) {
+        return new FilmePosicoesRankingDto(
+                posicoes.filme().id(),
+                posicoes.filme().titulo(),
+                posicoes.filme().genero(),
+                posicoes.filme().anoLancamento(),
+                posicoes.acessos(),
+                posicoes.visualizadoresUnicos(),
+                posicoes.posicaoGeral(),
+                posicoes.posicaoNoGenero() > 0 ? posicoes.posicaoNoGenero() : null,
+                posicoes.posicaoNoAno() > 0 ? posicoes.posicaoNoAno() : null,
+                posicoes.posicaoNoGeneroAno() > 0 ? posicoes.posicaoNoGeneroAno() : null
+        );
+    }
+
+    /**
+     * Converter posições do ranking em memória para FilmeResumoDto
+     */
+    public List<FilmeResumoDto> toRankingResumoDtoList(List<PosicaoRanking> ranking) {
+        return ranking.stream()
+                .map(item -> new FilmeResumoDto(
+                        item.filme().id(),
+                        item.filme().titulo(),
+                        item.filme().genero(),
+                        item.filme().anoLancamento(),
+                        item.filme().diretor(),
+                        item.filme().urlPoster(),
+                        item.acessos(),
+                        null,
+                        null
+                ))
+                .toList();
+    }
+
+    /**
+     * Converter ranking de tendências para DTO (ignora filmes que não estão no mapa, ex: inativos)
+     */
+    public List<FilmeTendenciaDto> toTendenciaDtoList(List<TendenciasService.Tendencia> tendencias,
+                                                      Map<Long, FilmeResumoRanking> filmesPorId) {
+        List<FilmeTendenciaDto> resultado = new ArrayList<>(tendencias.size());
+        for (TendenciasService.Tendencia tendencia : tendencias) {
+            FilmeResumoRanking filme = filmesPorId.get(tendencia.filmeId());
+            if (filme == null) {
+                continue;
+            }
+            resultado.add(new FilmeTendenciaDto(
+                    filme.id(),
+                    filme.titulo(),
+                    filme.genero(),
+                    Math.round(tendencia.pontuacao() * 100.0) / 100.0,
+                    tendencia.acessos(),
+                    resultado.size() + 1
+            ));
+        }
+        return resultado;
+    }
+
+    /**
+     * Converter ranking de avaliações (média bayesiana) para DTO, notas com 2 casas decimais
+     */
+    public List<FilmeAvaliacaoRankingDto> toAvaliacaoRankingDtoList(List<RankingAvaliacoesService.PosicaoAvaliacoes> ranking) {
+        return ranking.stream()
+                .map(item -> new FilmeAvaliacaoRankingDto(
+                        item.classificacao().filme().id(),
+                        item.classificacao().filme().titulo(),
+                        item.classificacao().filme().genero(),
+                        Math.round(item.classificacao().mediaNotas() * 100.0) / 100.0,
+                        item.classificacao().totalAvaliacoes(),
+                        Math.round(item.classificacao().notaPonderada() * 100.0) / 100.0,
+                        item.posicao()
+                ))
+                .toList();
+    }
+
+    /**
+     * Converter ranking "em alta agora" para DTO (ignora filmes que não estão no mapa, ex: inativos)
+     */
+    public List<FilmeEmAltaDto> toEmAltaDtoList(List<HeavyHittersJanela.ItemFrequente> itens,
+                                                Map<Long, FilmeResumoRanking> filmesPorId) {
+        List<FilmeEmAltaDto> resultado = new ArrayList<>(itens.size());
+        for (HeavyHittersJanela.ItemFrequente item : itens) {
+            FilmeResumoRanking filme = filmesPorId.get(item.item());
+            if (filme == null) {
+                continue;
+            }
+            resultado.add(new FilmeEmAltaDto(
+                    filme.id(),
+                    filme.titulo(),
+                    filme.genero(),
+                    item.estimativa(),
+                    item.margemErro(),
+                    resultado.size() + 1
+            ));
+        }
+        return resultado;
+    }
+
+    /**
+     * Converter resultado da busca aproximada para DTO, na ordem de similaridade (ignora filmes que não estão no mapa)
+     */
+    public List<FilmeBuscaAproximadaDto> toBuscaAproximadaDtoList(List<IndiceTrigramas.Resultado> resultados,
+                                                                  Map<Long, FilmeResumoRanking> filmesPorId) {
+        List<FilmeBuscaAproximadaDto> dtos = new ArrayList<>(resultados.size());
+        for (IndiceTrigramas.Resultado resultado : resultados) {
+            FilmeResumoRanking filme = filmesPorId.get(resultado.filmeId());
+            if (filme == null) {
+                continue;
+            }
+            dtos.add(new FilmeBuscaAproximadaDto(
+                    filme.id(),
+                    filme.titulo(),
+                    filme.genero(),
+                    filme.anoLancamento(),
+                    filme.diretor(),
+                    filme.urlPoster(),
+                    Math.round(resultado.similaridade() * 1000.0) / 1000.0
+            ));
+        }
+        return dtos;
+    }
+
+    /**
+     * Converter sugestões do autocompletar para DTO
+     */
+    public List<SugestaoBuscaDto> toSugestaoDtoList(List<SugestoesService.Sugestao> sugestoes) {
+        return sugestoes.stream()
+                .map(sugestao -> new SugestaoBuscaDto(
+                        sugestao.texto(),
+                        sugestao.tipo().name(),
+                        sugestao.filmeId(),
+                        sugestao.acessos()
+                ))
                 .toList();
     }
 
@@ -174,4 +421,14 @@ public class FilmeMapper {
                 .map(this::toResumoDto)
                 .toList();
     }
+
+    /**
+     * Converter lista de Filme entities para FilmeResumoDto com as avaliações (estatísticas já carregadas em lote)
+     */
+    public List<FilmeResumoDto> toResumoDtoList(List<Filme> filmes,
+                                                AvaliacoesAgregadoService.EstatisticasFilmes avaliacoes) {
+        return filmes.stream()
+                .map(filme -> toResumoDto(filme, avaliacoes))
+                .toList();
+    }
 }
\ No newline at end of file
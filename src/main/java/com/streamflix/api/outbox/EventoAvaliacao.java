@@ -0,0 +1,31 @@
+package com.streamflix.api.outbox;
+
+import com.streamflix.api.entity.TipoEventoAvaliacao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avaliação criada, alterada ou removida, como gravada no outbox (id null = ainda não gravado).
+ * Notas 0 = sem nota (notaAnterior de uma criação, notaNova de uma remoção); o comentário é o novo.
+ * dataNotaAnterior é quando a nota anterior foi dada (última gravação da avaliação; null sem nota anterior).
+ */
+public record EventoAvaliacao(
+        Long id,
+        TipoEventoAvaliacao tipo,
+        long avaliacaoId,
+        long usuarioId,
+        long filmeId,
+        int notaAnterior,
+        LocalDateTime dataNotaAnterior,
+        int notaNova,
+        String comentario,
+        LocalDateTime dataCriacao
+) {
+
+    public static EventoAvaliacao novo(TipoEventoAvaliacao tipo, long avaliacaoId, long usuarioId, long filmeId,
+                                       int notaAnterior, LocalDateTime dataNotaAnterior, int notaNova,
+                                       String comentario) {
+        return new EventoAvaliacao(null, tipo, avaliacaoId, usuarioId, filmeId, notaAnterior, dataNotaAnterior,
+                notaNova, comentario, LocalDateTime.now());
+    }
+}
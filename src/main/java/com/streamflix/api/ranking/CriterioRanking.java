@@ -0,0 +1,30 @@
+package com.streamflix.api.ranking;
+
+import java.util.Locale;
+
+/**
+ * Critério de ordenação dos rankings de popularidade
+ */
+public enum CriterioRanking {
+
+    // Total de acessos (contador de acessos)
+    ACESSOS,
+
+    // Usuários distintos que abriram os detalhes (estimativa HyperLogLog)
+    VISUALIZADORES;
+
+    /**
+     * Converter o parâmetro ordenarPor ("acessos" / "visualizadores"); nulo ou vazio = ACESSOS
+     */
+    public static CriterioRanking de(String ordenarPor) {
+        if (ordenarPor == null || ordenarPor.isBlank()) {
+            return ACESSOS;
+        }
+        try {
+            return valueOf(ordenarPor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Critério de ordenação inválido: " + ordenarPor
+                    + " (use acessos ou visualizadores)");
+        }
+    }
+}
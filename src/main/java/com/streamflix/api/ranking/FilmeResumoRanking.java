@@ -0,0 +1,14 @@
+package com.streamflix.api.ranking;
+
+/**
+ * Dados do filme mantidos em memória para montar os rankings sem ir ao banco
+ */
+public record FilmeResumoRanking(
+        Long id,
+        String titulo,
+        String genero,
+        Integer anoLancamento,
+        String diretor,
+        String urlPoster
+) {
+}
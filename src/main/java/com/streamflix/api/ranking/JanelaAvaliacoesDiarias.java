@@ -0,0 +1,147 @@
+package com.streamflix.api.ranking;
+
+import com.streamflix.api.util.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Soma e quantidade das notas dadas a cada filme por dia, nos últimos N dias.
+ *
+ * Anel de N baldes diários (posição = dia % N); cada balde guarda os filmes do dia em arrays
+ * paralelos (filmes, somas, totais) indexados por um LongIntHashMap. Um dia que sai da janela
+ * não é limpo: o primeiro registro de um dia novo na mesma posição troca o balde inteiro (O(1)),
+ * e a leitura ignora baldes de dias fora da janela pedida.
+ */
+public class JanelaAvaliacoesDiarias {
+
+    private static final int CAPACIDADE_INICIAL = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Balde[] anel;
+
+    /**
+     * Soma das notas e quantidade de avaliações de cada filme na janela (arrays paralelos, tamanho válido = tamanho)
+     */
+    public record Totais(long[] filmes, long[] somas, long[] totais, int tamanho) {
+    }
+
+    private static final class Balde {
+        final long dia;
+        final LongIntHashMap posicoes = new LongIntHashMap(CAPACIDADE_INICIAL, -1);
+        long[] filmes = new long[CAPACIDADE_INICIAL];
+        long[] somas = new long[CAPACIDADE_INICIAL];
+        long[] totais = new long[CAPACIDADE_INICIAL];
+        int tamanho;
+
+        Balde(long dia) {
+            this.dia = dia;
+        }
+
+        void somar(long filmeId, long soma, long total) {
+            int i = posicoes.get(filmeId);
+            if (i < 0) {
+                i = tamanho++;
+                if (i == filmes.length) {
+                    filmes = Arrays.copyOf(filmes, i * 2);
+                    somas = Arrays.copyOf(somas, i * 2);
+                    totais = Arrays.copyOf(totais, i * 2);
+                }
+                filmes[i] = filmeId;
+                posicoes.put(filmeId, i);
+            }
+            somas[i] += soma;
+            totais[i] += total;
+        }
+    }
+
+    public JanelaAvaliacoesDiarias(int dias) {
+        anel = new Balde[Math.max(1, dias)];
+    }
+
+    public int getDias() {
+        return anel.length;
+    }
+
+    /**
+     * Somar notas ao filme no dia (dias desde a epoch). Dia mais antigo que o balde da posição é descartado.
+     */
+    public void somar(long dia, long filmeId, long soma, long total) {
+        lock.writeLock().lock();
+        try {
+            int posicao = (int) Math.floorMod(dia, (long) anel.length);
+            Balde balde = anel[posicao];
+            if (balde == null || balde.dia < dia) {
+                balde = new Balde(dia);
+                anel[posicao] = balde;
+            } else if (balde.dia > dia) {
+                return;
+            }
+            balde.somar(filmeId, soma, total);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Zerar o filme em todos os baldes (filme removido)
+     */
+    public void remover(long filmeId) {
+        lock.writeLock().lock();
+        try {
+            for (Balde balde : anel) {
+                int i = balde != null ? balde.posicoes.get(filmeId) : -1;
+                if (i >= 0) {
+                    balde.somas[i] = 0;
+                    balde.totais[i] = 0;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Totais por filme dos "dias" dias terminados em "hoje" (inclusive), só filmes com avaliações
+     */
+    public Totais totais(long hoje, int dias) {
+        long inicio = hoje - Math.min(dias, anel.length) + 1;
+
+        lock.readLock().lock();
+        try {
+            LongIntHashMap posicoes = new LongIntHashMap(CAPACIDADE_INICIAL, -1);
+            long[] filmes = new long[CAPACIDADE_INICIAL];
+            long[] somas = new long[CAPACIDADE_INICIAL];
+            long[] totais = new long[CAPACIDADE_INICIAL];
+            int tamanho = 0;
+
+            for (Balde balde : anel) {
+                if (balde == null || balde.dia < inicio || balde.dia > hoje) {
+                    continue;
+                }
+                for (int j = 0; j < balde.tamanho; j++) {
+                    if (balde.totais[j] == 0) {
+                        continue;
+                    }
+                    int i = posicoes.get(balde.filmes[j]);
+                    if (i < 0) {
+                        i = tamanho++;
+                        if (i == filmes.length) {
+                            filmes = Arrays.copyOf(filmes, i * 2);
+                            somas = Arrays.copyOf(somas, i * 2);
+                            totais = Arrays.copyOf(totais, i * 2);
+                        }
+                        filmes[i] = balde.filmes[j];
+                        posicoes.put(filmes[i], i);
+                    }
+                    somas[i] += balde.somas[j];
+                    totais[i] += balde.totais[j];
+                }
+            }
+            return new Totais(filmes, somas, totais, tamanho);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
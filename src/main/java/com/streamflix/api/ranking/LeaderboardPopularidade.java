@@ -0,0 +1,224 @@
+package com.streamflix.api.ranking;
+
+import com.streamflix.api.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ranking em memória de (filmeId, pontuação), sempre ordenado da maior para a menor pontuação.
+ *
+ * Os IDs e pontuações ficam em arrays primitivos e um índice guarda a posição de cada filme,
+ * então a posição no ranking sai em O(1) e o top N em O(N). Ao mudar a pontuação, o filme
+ * troca de lugar com o primeiro (ou último) de cada bloco de empate que precisa atravessar:
+ * um incremento de +1 custa uma busca binária e uma troca.
+ */
+public class LeaderboardPopularidade {
+
+    private long[] ids;
+    private long[] pontuacoes;
+    private int tamanho;
+    private final LongIntHashMap posicoes;
+
+    public LeaderboardPopularidade() {
+        this(64);
+    }
+
+    public LeaderboardPopularidade(int capacidadeInicial) {
+        int capacidade = Math.max(8, capacidadeInicial);
+        ids = new long[capacidade];
+        pontuacoes = new long[capacidade];
+        posicoes = new LongIntHashMap(capacidade, -1);
+    }
+
+    /**
+     * Montar o ranking de uma vez a partir de pares (id, pontuação) em qualquer ordem: O(n log n)
+     */
+    public static LeaderboardPopularidade construir(List<long[]> entradas) {
+        List<long[]> ordenadas = new ArrayList<>(entradas);
+        ordenadas.sort((a, b) -> Long.compare(b[1], a[1]));
+
+        LeaderboardPopularidade leaderboard = new LeaderboardPopularidade(ordenadas.size());
+        for (long[] entrada : ordenadas) {
+            if (leaderboard.posicoes.containsKey(entrada[0])) {
+                continue;
+            }
+            int posicao = leaderboard.tamanho++;
+            leaderboard.ids[posicao] = entrada[0];
+            leaderboard.pontuacoes[posicao] = entrada[1];
+            leaderboard.posicoes.put(entrada[0], posicao);
+        }
+        return leaderboard;
+    }
+
+    /**
+     * Somar delta à pontuação de um filme já presente no ranking. Retorna false se o filme não está no ranking.
+     */
+    public synchronized boolean incrementar(long id, long delta) {
+        int posicao = posicoes.get(id);
+        if (posicao < 0) {
+            return false;
+        }
+        mover(posicao, pontuacoes[posicao] + delta);
+        return true;
+    }
+
+    /**
+     * Substituir a pontuação de um filme já presente no ranking. Retorna false se o filme não está no ranking.
+     */
+    public synchronized boolean atualizar(long id, long pontuacao) {
+        int posicao = posicoes.get(id);
+        if (posicao < 0) {
+            return false;
+        }
+        mover(posicao, pontuacao);
+        return true;
+    }
+
+    /**
+     * Inserir o filme ou substituir a sua pontuação
+     */
+    public synchronized void definir(long id, long pontuacao) {
+        int posicao = posicoes.get(id);
+        if (posicao < 0) {
+            garantirCapacidade();
+            posicao = tamanho++;
+            ids[posicao] = id;
+            // Entra no fim com a menor pontuação possível e sobe até o lugar certo
+            pontuacoes[posicao] = Long.MIN_VALUE;
+            posicoes.put(id, posicao);
+        }
+        mover(posicao, pontuacao);
+    }
+
+    /**
+     * Remover o filme do ranking (O(n), usado só em mudanças de catálogo)
+     */
+    public synchronized boolean remover(long id) {
+        int posicao = posicoes.remove(id);
+        if (posicao < 0) {
+            return false;
+        }
+        int deslocados = tamanho - posicao - 1;
+        System.arraycopy(ids, posicao + 1, ids, posicao, deslocados);
+        System.arraycopy(pontuacoes, posicao + 1, pontuacoes, posicao, deslocados);
+        tamanho--;
+        for (int i = posicao; i < tamanho; i++) {
+            posicoes.put(ids[i], i);
+        }
+        return true;
+    }
+
+    /**
+     * Posição no ranking (começando em 1), ou 0 se o filme não está no ranking
+     */
+    public synchronized int posicao(long id) {
+        return posicoes.get(id) + 1;
+    }
+
+    /**
+     * Pontuação do filme, ou -1 se não está no ranking
+     */
+    public synchronized long pontuacao(long id) {
+        int posicao = posicoes.get(id);
+        return posicao < 0 ? -1 : pontuacoes[posicao];
+    }
+
+    public synchronized boolean contem(long id) {
+        return posicoes.containsKey(id);
+    }
+
+    public synchronized int tamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Copiar os N primeiros: [0] = IDs, [1] = pontuações
+     */
+    public synchronized long[][] top(int limite) {
+        int n = Math.max(0, Math.min(limite, tamanho));
+        return new long[][]{Arrays.copyOf(ids, n), Arrays.copyOf(pontuacoes, n)};
+    }
+
+    /**
+     * Copiar os IDs de todo o ranking, em ordem
+     */
+    public synchronized long[] ids() {
+        return Arrays.copyOf(ids, tamanho);
+    }
+
+    private void mover(int posicao, long novaPontuacao) {
+        long id = ids[posicao];
+        int atual = posicao;
+
+        // Subir: troca com o primeiro elemento de cada bloco de empate com pontuação menor
+        while (atual > 0 && pontuacoes[atual - 1] < novaPontuacao) {
+            int inicioBloco = primeiroComPontuacao(pontuacoes[atual - 1], atual - 1);
+            trocar(atual, inicioBloco);
+            atual = inicioBloco;
+        }
+
+        // Descer: troca com o último elemento de cada bloco de empate com pontuação maior
+        while (atual < tamanho - 1 && pontuacoes[atual + 1] > novaPontuacao) {
+            int fimBloco = ultimoComPontuacao(pontuacoes[atual + 1], atual + 1);
+            trocar(atual, fimBloco);
+            atual = fimBloco;
+        }
+
+        ids[atual] = id;
+        pontuacoes[atual] = novaPontuacao;
+        posicoes.put(id, atual);
+    }
+
+    // Menor índice em [0, ate] com a pontuação informada (array em ordem decrescente)
+    private int primeiroComPontuacao(long pontuacao, int ate) {
+        int baixo = 0;
+        int alto = ate;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (pontuacoes[meio] > pontuacao) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    // Maior índice em [de, tamanho - 1] com a pontuação informada
+    private int ultimoComPontuacao(long pontuacao, int de) {
+        int baixo = de;
+        int alto = tamanho - 1;
+        while (baixo < alto) {
+            int meio = (baixo + alto + 1) >>> 1;
+            if (pontuacoes[meio] < pontuacao) {
+                alto = meio - 1;
+            } else {
+                baixo = meio;
+            }
+        }
+        return baixo;
+    }
+
+    private void trocar(int a, int b) {
+        if (a == b) {
+            return;
+        }
+        long id = ids[a];
+        long pontuacao = pontuacoes[a];
+        ids[a] = ids[b];
+        pontuacoes[a] = pontuacoes[b];
+        ids[b] = id;
+        pontuacoes[b] = pontuacao;
+        posicoes.put(ids[a], a);
+        posicoes.put(ids[b], b);
+    }
+
+    private void garantirCapacidade() {
+        if (tamanho == ids.length) {
+            ids = Arrays.copyOf(ids, tamanho << 1);
+            pontuacoes = Arrays.copyOf(pontuacoes, tamanho << 1);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.streamflix.api.ranking;
+
+/**
+ * Filme, acessos, visualizadores únicos e posição (começando em 1) em um ranking em memória
+ */
+public record PosicaoRanking(
+        FilmeResumoRanking filme,
+        long acessos,
+        long visualizadoresUnicos,
+        int posicao
+) {
+}
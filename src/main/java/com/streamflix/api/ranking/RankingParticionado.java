@@ -0,0 +1,209 @@
+package com.streamflix.api.ranking;
+
+import com.streamflix.api.util.Textos;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Leaderboard geral + partições por gênero (normalizado), por ano e por gênero + ano,
+ * todos com a mesma pontuação por filme.
+ * Mudanças estruturais (definir, remover, mover) devem ser serializadas por quem usa;
+ * incrementar e atualizar podem rodar em paralelo com elas.
+ */
+public class RankingParticionado {
+
+    private final LeaderboardPopularidade geral;
+    private final ConcurrentHashMap<String, LeaderboardPopularidade> particoes;
+
+    private RankingParticionado(LeaderboardPopularidade geral, ConcurrentHashMap<String, LeaderboardPopularidade> particoes) {
+        this.geral = geral;
+        this.particoes = particoes;
+    }
+
+    public RankingParticionado() {
+        this(new LeaderboardPopularidade(), new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Montar geral e partições de uma vez: pontuacoes[i] é a pontuação de filmes.get(i)
+     */
+    public static RankingParticionado construir(List<FilmeResumoRanking> filmes, long[] pontuacoes) {
+        List<long[]> gerais = new ArrayList<>(filmes.size());
+        Map<String, List<long[]>> porParticao = new HashMap<>();
+        for (int i = 0; i < filmes.size(); i++) {
+            FilmeResumoRanking filme = filmes.get(i);
+            long[] entrada = {filme.id(), pontuacoes[i]};
+            gerais.add(entrada);
+            for (String chave : chavesParticoes(filme)) {
+                porParticao.computeIfAbsent(chave, c -> new ArrayList<>()).add(entrada);
+            }
+        }
+
+        ConcurrentHashMap<String, LeaderboardPopularidade> particoes = new ConcurrentHashMap<>();
+        porParticao.forEach((chave, entradas) -> particoes.put(chave, LeaderboardPopularidade.construir(entradas)));
+        return new RankingParticionado(LeaderboardPopularidade.construir(gerais), particoes);
+    }
+
+    /**
+     * Somar delta ao filme no geral e nas suas partições
+     */
+    public void incrementar(FilmeResumoRanking filme, long delta) {
+        if (!geral.incrementar(filme.id(), delta)) {
+            return;
+        }
+        for (String chave : chavesParticoes(filme)) {
+            LeaderboardPopularidade particao = particoes.get(chave);
+            if (particao != null) {
+                particao.incrementar(filme.id(), delta);
+            }
+        }
+    }
+
+    /**
+     * Substituir a pontuação de um filme já ranqueado no geral e nas suas partições
+     */
+    public void atualizar(FilmeResumoRanking filme, long pontuacao) {
+        if (!geral.atualizar(filme.id(), pontuacao)) {
+            return;
+        }
+        for (String chave : chavesParticoes(filme)) {
+            LeaderboardPopularidade particao = particoes.get(chave);
+            if (particao != null) {
+                particao.atualizar(filme.id(), pontuacao);
+            }
+        }
+    }
+
+    /**
+     * Inserir o filme ou substituir a sua pontuação no geral e nas suas partições
+     */
+    public void definir(FilmeResumoRanking filme, long pontuacao) {
+        geral.definir(filme.id(), pontuacao);
+        for (String chave : chavesParticoes(filme)) {
+            particoes.computeIfAbsent(chave, c -> new LeaderboardPopularidade()).definir(filme.id(), pontuacao);
+        }
+    }
+
+    /**
+     * Trocar os dados do filme (gênero/ano podem ter mudado), mantendo a pontuação
+     */
+    public void mover(FilmeResumoRanking anterior, FilmeResumoRanking novo) {
+        List<String> chavesNovas = chavesParticoes(novo);
+        for (String chave : chavesParticoes(anterior)) {
+            if (!chavesNovas.contains(chave)) {
+                removerDaParticao(chave, anterior.id());
+            }
+        }
+        long pontuacao = geral.pontuacao(novo.id());
+        if (pontuacao >= 0) {
+            definir(novo, pontuacao);
+        }
+    }
+
+    public void remover(FilmeResumoRanking filme) {
+        geral.remover(filme.id());
+        for (String chave : chavesParticoes(filme)) {
+            removerDaParticao(chave, filme.id());
+        }
+    }
+
+    public boolean contem(long filmeId) {
+        return geral.contem(filmeId);
+    }
+
+    /**
+     * Pontuação do filme, ou -1 se não está no ranking
+     */
+    public long pontuacao(long filmeId) {
+        return geral.pontuacao(filmeId);
+    }
+
+    public int tamanho() {
+        return geral.tamanho();
+    }
+
+    /**
+     * Leaderboard do filtro (gênero e/ou ano, sem filtro = geral), ou null se a partição não existe
+     */
+    public LeaderboardPopularidade leaderboard(String genero, Integer ano) {
+        String chave = chaveParticao(Textos.normalizar(genero), ano);
+        return chave == null ? geral : particoes.get(chave);
+    }
+
+    /**
+     * Posições do filme: [geral, gênero, ano, gênero + ano] (0 = fora do ranking/partição)
+     */
+    public int[] posicoes(FilmeResumoRanking filme) {
+        String genero = Textos.normalizar(filme.genero());
+        Integer ano = filme.anoLancamento();
+        return new int[]{
+                geral.posicao(filme.id()),
+                posicaoNaParticao(chaveParticao(genero, null), filme.id()),
+                posicaoNaParticao(chaveParticao(null, ano), filme.id()),
+                genero != null && ano != null ? posicaoNaParticao(chaveParticao(genero, ano), filme.id()) : 0
+        };
+    }
+
+    /**
+     * Cópia da ordem de cada partição: chave da partição -> IDs em ordem (o geral fica de fora)
+     */
+    public Map<String, long[]> ordensParticoes() {
+        Map<String, long[]> ordens = new HashMap<>(particoes.size() * 2);
+        particoes.forEach((chave, particao) -> ordens.put(chave, particao.ids()));
+        return ordens;
+    }
+
+    public int totalParticoes() {
+        return particoes.size();
+    }
+
+    private void removerDaParticao(String chave, long filmeId) {
+        LeaderboardPopularidade particao = particoes.get(chave);
+        if (particao != null && particao.remover(filmeId) && particao.tamanho() == 0) {
+            particoes.remove(chave);
+        }
+    }
+
+    private int posicaoNaParticao(String chave, long filmeId) {
+        LeaderboardPopularidade particao = chave != null ? particoes.get(chave) : null;
+        return particao != null ? particao.posicao(filmeId) : 0;
+    }
+
+    /**
+     * Partições do filme: gênero, ano e gênero + ano (as que o filme tiver dados para)
+     */
+    static List<String> chavesParticoes(FilmeResumoRanking filme) {
+        String genero = Textos.normalizar(filme.genero());
+        Integer ano = filme.anoLancamento();
+
+        List<String> chaves = new ArrayList<>(3);
+        if (genero != null) {
+            chaves.add(chaveParticao(genero, null));
+        }
+        if (ano != null) {
+            chaves.add(chaveParticao(null, ano));
+        }
+        if (genero != null && ano != null) {
+            chaves.add(chaveParticao(genero, ano));
+        }
+        return chaves;
+    }
+
+    // Gênero já normalizado; null se não há filtro
+    static String chaveParticao(String genero, Integer ano) {
+        if (genero != null && ano != null) {
+            return "ga:" + genero + "|" + ano;
+        }
+        if (genero != null) {
+            return "g:" + genero;
+        }
+        if (ano != null) {
+            return "a:" + ano;
+        }
+        return null;
+    }
+}
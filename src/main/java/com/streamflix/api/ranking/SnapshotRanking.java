@@ -0,0 +1,149 @@
+package com.streamflix.api.ranking;
+
+import com.streamflix.api.util.LongIntHashMap;
+import com.streamflix.api.util.Textos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cópia imutável e versionada dos rankings de popularidade, lida sem locks.
+ *
+ * Os filmes ficam em arrays paralelos (dados, acessos, visualizadores) e cada ranking (geral ou
+ * partição, por critério) é um int[] com os índices dos filmes já em ordem, copiado do leaderboard
+ * correspondente do RankingParticionado.
+ */
+public final class SnapshotRanking {
+
+    private static final int[] VAZIO = new int[0];
+
+    private final long versao;
+    private final long criadoEmMs;
+
+    private final FilmeResumoRanking[] filmes;
+    private final long[] acessos;
+    private final long[] visualizadores;
+
+    // Chave da partição (null = geral) -> índices dos filmes em ordem
+    private final Map<String, int[]> ordemAcessos;
+    private final Map<String, int[]> ordemVisualizadores;
+
+    private SnapshotRanking(long versao, long criadoEmMs, FilmeResumoRanking[] filmes, long[] acessos,
+                            long[] visualizadores, Map<String, int[]> ordemAcessos,
+                            Map<String, int[]> ordemVisualizadores) {
+        this.versao = versao;
+        this.criadoEmMs = criadoEmMs;
+        this.filmes = filmes;
+        this.acessos = acessos;
+        this.visualizadores = visualizadores;
+        this.ordemAcessos = ordemAcessos;
+        this.ordemVisualizadores = ordemVisualizadores;
+    }
+
+    public static SnapshotRanking vazio() {
+        return new SnapshotRanking(0, System.currentTimeMillis(), new FilmeResumoRanking[0], new long[0],
+                new long[0], new HashMap<>(), new HashMap<>());
+    }
+
+    /**
+     * Montar a partir dos rankings em memória: a ordem geral e a de cada partição são copiadas dos
+     * leaderboards já mantidos pelo RankingParticionado (sem recalcular as partições de cada filme).
+     * Filmes sem dados ou ausentes de um dos rankings gerais (mudança concorrente) ficam de fora.
+     */
+    public static SnapshotRanking construir(long versao, Map<Long, FilmeResumoRanking> dados,
+                                            RankingParticionado rankingAcessos,
+                                            RankingParticionado rankingVisualizadores) {
+        long[][] topAcessos = rankingAcessos.leaderboard(null, null).top(Integer.MAX_VALUE);
+        long[][] topVisualizadores = rankingVisualizadores.leaderboard(null, null).top(Integer.MAX_VALUE);
+        LongIntHashMap visualizadoresPorId = new LongIntHashMap(topVisualizadores[0].length, -1);
+        for (int i = 0; i < topVisualizadores[0].length; i++) {
+            visualizadoresPorId.put(topVisualizadores[0][i], i);
+        }
+
+        // Índice do filme = posição no ranking geral por acessos
+        List<FilmeResumoRanking> filmes = new ArrayList<>(topAcessos[0].length);
+        long[] acessos = new long[topAcessos[0].length];
+        long[] visualizadores = new long[topAcessos[0].length];
+        LongIntHashMap indicePorId = new LongIntHashMap(topAcessos[0].length, -1);
+        for (int i = 0; i < topAcessos[0].length; i++) {
+            long id = topAcessos[0][i];
+            FilmeResumoRanking filme = dados.get(id);
+            int posicaoVisualizadores = visualizadoresPorId.get(id);
+            if (filme == null || posicaoVisualizadores < 0) {
+                continue;
+            }
+            int indice = filmes.size();
+            indicePorId.put(id, indice);
+            acessos[indice] = Math.max(0, topAcessos[1][i]);
+            visualizadores[indice] = Math.max(0, topVisualizadores[1][posicaoVisualizadores]);
+            filmes.add(filme);
+        }
+
+        return new SnapshotRanking(versao, System.currentTimeMillis(), filmes.toArray(new FilmeResumoRanking[0]),
+                acessos, visualizadores,
+                ordens(topAcessos[0], rankingAcessos.ordensParticoes(), indicePorId),
+                ordens(topVisualizadores[0], rankingVisualizadores.ordensParticoes(), indicePorId));
+    }
+
+    public long versao() {
+        return versao;
+    }
+
+    public long criadoEmMs() {
+        return criadoEmMs;
+    }
+
+    public long idadeMs() {
+        return Math.max(0, System.currentTimeMillis() - criadoEmMs);
+    }
+
+    public int tamanho() {
+        return filmes.length;
+    }
+
+    /**
+     * Top N do ranking geral por acessos
+     */
+    public List<PosicaoRanking> top(int limite) {
+        return top(null, null, CriterioRanking.ACESSOS, limite);
+    }
+
+    /**
+     * Top N pelo critério, na partição de gênero e/ou ano (sem filtros = geral). Posições relativas à partição.
+     */
+    public List<PosicaoRanking> top(String genero, Integer ano, CriterioRanking criterio, int limite) {
+        Map<String, int[]> ordens = criterio == CriterioRanking.VISUALIZADORES ? ordemVisualizadores : ordemAcessos;
+        int[] ordem = ordens.getOrDefault(RankingParticionado.chaveParticao(Textos.normalizar(genero), ano), VAZIO);
+
+        int n = Math.max(0, Math.min(limite, ordem.length));
+        List<PosicaoRanking> resultado = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int indice = ordem[i];
+            resultado.add(new PosicaoRanking(filmes[indice], acessos[indice], visualizadores[indice], i + 1));
+        }
+        return resultado;
+    }
+
+    // IDs em ordem -> índices dos filmes do snapshot (os que ficaram de fora são pulados)
+    private static Map<String, int[]> ordens(long[] geral, Map<String, long[]> particoes, LongIntHashMap indicePorId) {
+        Map<String, int[]> ordens = new HashMap<>(particoes.size() * 2 + 2);
+        ordens.put(null, indices(geral, indicePorId));
+        particoes.forEach((chave, ids) -> ordens.put(chave, indices(ids, indicePorId)));
+        return ordens;
+    }
+
+    private static int[] indices(long[] ids, LongIntHashMap indicePorId) {
+        int[] indices = new int[ids.length];
+        int n = 0;
+        for (long id : ids) {
+            int indice = indicePorId.get(id);
+            if (indice >= 0) {
+                indices[n++] = indice;
+            }
+        }
+        return n == indices.length ? indices : Arrays.copyOf(indices, n);
+    }
+}
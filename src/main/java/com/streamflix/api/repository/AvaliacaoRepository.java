@@ -3,13 +3,21 @@ package com.streamflix.api.repository;
 import com.streamflix.api.entity.Avaliacao;
 import com.streamflix.api.entity.Filme;
 import com.streamflix.api.entity.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AvaliacaoRepository extends JpaRepository<Avaliacao, Long> {
@@ -29,25 +37,45 @@ public interface AvaliacaoRepository extends JpaRepository<Avaliacao, Long> {
     // Buscar avaliações por nota
     List<Avaliacao> findByNota(Integer nota);
 
-    // Buscar avaliações de um filme ordenadas por data (mais recentes primeiro)
-    List<Avaliacao> findByFilmeOrderByDataCriacaoDesc(Filme filme);
+    // Primeira página das avaliações de um filme (mais recentes primeiro), com o usuário no mesmo SELECT
+    @Query("SELECT a FROM Avaliacao a JOIN FETCH a.usuario WHERE a.filme.id = :filmeId " +
+            "ORDER BY a.dataCriacao DESC, a.id DESC")
+    List<Avaliacao> findPaginaByFilme(@Param("filmeId") Long filmeId, Limit limite);
 
-    // Calcular média de notas de um filme
-    @Query("SELECT AVG(a.nota) FROM Avaliacao a WHERE a.filme = :filme")
-    Double calcularMediaNotasFilme(@Param("filme") Filme filme);
+    // Página seguinte: avaliações depois de (data, id) na mesma ordem (keyset, usa idx_avaliacoes_filme_data_id).
+    // "dataCriacao <= :data" é redundante com o OU, mas é ele que vira limite da varredura no índice: sem ele o
+    // banco lê o filme desde a avaliação mais recente e descarta as já vistas, como um OFFSET
+    @Query("SELECT a FROM Avaliacao a JOIN FETCH a.usuario WHERE a.filme.id = :filmeId " +
+            "AND a.dataCriacao <= :data " +
+            "AND (a.dataCriacao < :data OR (a.dataCriacao = :data AND a.id < :id)) " +
+            "ORDER BY a.dataCriacao DESC, a.id DESC")
+    List<Avaliacao> findPaginaByFilmeApos(@Param("filmeId") Long filmeId, @Param("data") LocalDateTime data,
+                                          @Param("id") Long id, Limit limite);
 
-    // Contar total de avaliações de um filme
-    Long countByFilme(Filme filme);
-
-    // Buscar avaliações com comentários não nulos
-    @Query("SELECT a FROM Avaliacao a WHERE a.comentario IS NOT NULL AND a.comentario != ''")
-    List<Avaliacao> findAvaliacoesComComentarios();
+    // Página das avaliações com comentários, mais recentes primeiro, com o usuário no mesmo SELECT
+    @Query("SELECT a FROM Avaliacao a JOIN FETCH a.usuario WHERE a.comentario IS NOT NULL AND a.comentario != '' " +
+            "ORDER BY a.dataCriacao DESC, a.id DESC")
+    List<Avaliacao> findPaginaComComentarios(Pageable pagina);
 
     // Buscar avaliações de um filme com comentários
     @Query("SELECT a FROM Avaliacao a WHERE a.filme = :filme AND a.comentario IS NOT NULL AND a.comentario != ''")
     List<Avaliacao> findAvaliacoesComComentariosByFilme(@Param("filme") Filme filme);
 
-    // Estatísticas de notas por filme
-    @Query("SELECT a.nota, COUNT(a) FROM Avaliacao a WHERE a.filme = :filme GROUP BY a.nota ORDER BY a.nota")
-    List<Object[]> getEstatisticasNotasByFilme(@Param("filme") Filme filme);
-}
\ No newline at end of file
+    // Notas de um usuário: [filmeId, nota] (cache de notas por usuário)
+    @Query("SELECT a.filme.id, a.nota FROM Avaliacao a WHERE a.usuario.id = :usuarioId")
+    List<Object[]> findNotasByUsuarioId(@Param("usuarioId") Long usuarioId);
+
+    // Buscar avaliações pelos IDs com o usuário no mesmo SELECT (resultados da busca por comentário)
+    @Query("SELECT a FROM Avaliacao a JOIN FETCH a.usuario WHERE a.id IN :ids")
+    List<Avaliacao> findComUsuarioByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Avaliações com comentários criadas em [desde, ate), em ordem de criação, lidas sob demanda (exportação).
+    // O fetch size faz o driver trazer as linhas em blocos em vez de carregar o resultado inteiro.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT a FROM Avaliacao a JOIN FETCH a.usuario " +
+            "WHERE a.dataCriacao >= :desde AND a.dataCriacao < :ate " +
+            "AND a.comentario IS NOT NULL AND a.comentario != '' " +
+            "ORDER BY a.dataCriacao, a.id")
+    Stream<Avaliacao> streamAvaliacoesComComentarios(@Param("desde") LocalDateTime desde,
+                                                     @Param("ate") LocalDateTime ate);
+}
@@ -0,0 +1,225 @@
+package com.streamflix.api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Soma, total e distribuição das notas por filme (filme_avaliacoes_agregado) via JDBC.
+ * Os deltas são aplicados pelo despacho do outbox na transação que retira os eventos, então o
+ * agregado mais os eventos pendentes é sempre igual à tabela avaliacoes. Linhas: [filmeId, soma, total, notas 1..5].
+ */
+@Repository
+public class AvaliacoesAgregadoRepository {
+
+    private static final String COLUNAS =
+            "soma_notas, total_avaliacoes, notas_1, notas_2, notas_3, notas_4, notas_5";
+
+    // Uma linha por avaliação mais uma por evento ainda no outbox, com o delta invertido: o evento pendente
+    // já está em avaliacoes mas ainda vai ser acumulado pelo despacho, então quem calcula do zero o desconta
+    private static final String FONTE =
+            "(SELECT a.filme_id, a.nota AS soma, 1 AS total, " + indicadoresNota("a.nota = %d", null) +
+            " FROM avaliacoes a UNION ALL " +
+            "SELECT o.filme_id, o.nota_anterior - o.nota_nova, " +
+            "CASE WHEN o.nota_anterior > 0 THEN 1 ELSE 0 END - CASE WHEN o.nota_nova > 0 THEN 1 ELSE 0 END, " +
+            indicadoresNota("o.nota_anterior = %d", "o.nota_nova = %d") + " FROM outbox_eventos o) x";
+
+    // Agregado calculado a partir da FONTE (0 para filme sem linhas)
+    private static final String CALCULO =
+            "COALESCE(SUM(x.soma), 0), COALESCE(SUM(x.total), 0), COALESCE(SUM(x.n1), 0), COALESCE(SUM(x.n2), 0), " +
+            "COALESCE(SUM(x.n3), 0), COALESCE(SUM(x.n4), 0), COALESCE(SUM(x.n5), 0)";
+
+    private static final String SQL_ACUMULAR =
+            "UPDATE filme_avaliacoes_agregado SET soma_notas = soma_notas + ?, total_avaliacoes = total_avaliacoes + ?, " +
+            "notas_1 = notas_1 + ?, notas_2 = notas_2 + ?, notas_3 = notas_3 + ?, notas_4 = notas_4 + ?, " +
+            "notas_5 = notas_5 + ?, data_atualizacao = CURRENT_TIMESTAMP WHERE filme_id = ?";
+
+    // Linha ainda não existe: calcula a partir das avaliações (que já incluem as mudanças sendo acumuladas).
+    // Se outro despacho criou a linha depois do UPDATE, o INSERT não falha (nem desfaz o lote): a linha dele
+    // desconta os eventos deste lote, ainda no outbox para ele, e o delta é acumulado sobre ela em seguida
+    private static final String SQL_CRIAR =
+            "INSERT INTO filme_avaliacoes_agregado (filme_id, " + COLUNAS + ", data_atualizacao) " +
+            "SELECT f.id, " + CALCULO + ", CURRENT_TIMESTAMP " +
+            "FROM filmes f LEFT JOIN " + FONTE + " ON x.filme_id = f.id WHERE f.id = ? GROUP BY f.id " +
+            "ON CONFLICT (filme_id) DO NOTHING";
+
+    private static final String SQL_PREENCHER_FALTANTES =
+            "INSERT INTO filme_avaliacoes_agregado (filme_id, " + COLUNAS + ", data_atualizacao) " +
+            "SELECT f.id, " + CALCULO + ", CURRENT_TIMESTAMP " +
+            "FROM filmes f LEFT JOIN " + FONTE + " ON x.filme_id = f.id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM filme_avaliacoes_agregado g WHERE g.filme_id = f.id) " +
+            "GROUP BY f.id";
+
+    private static final String SQL_CARREGAR =
+            "SELECT filme_id, " + COLUNAS + " FROM filme_avaliacoes_agregado WHERE total_avaliacoes > 0";
+
+    private static final String SQL_FAIXA_IDS =
+            "SELECT MIN(filme_id), MAX(filme_id) FROM filme_avaliacoes_agregado";
+
+    private static final String SQL_TRAVAR_FAIXA =
+            "SELECT filme_id, " + COLUNAS + " FROM filme_avaliacoes_agregado " +
+            "WHERE filme_id BETWEEN ? AND ? ORDER BY filme_id FOR UPDATE";
+
+    private static final String SQL_CALCULAR_FAIXA =
+            "SELECT x.filme_id, " + CALCULO + " FROM " + FONTE + " WHERE x.filme_id BETWEEN ? AND ? GROUP BY x.filme_id";
+
+    private static final String SQL_CORRIGIR =
+            "UPDATE filme_avaliacoes_agregado SET soma_notas = ?, total_avaliacoes = ?, notas_1 = ?, notas_2 = ?, " +
+            "notas_3 = ?, notas_4 = ?, notas_5 = ?, data_atualizacao = CURRENT_TIMESTAMP WHERE filme_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aplicar em batch os deltas já somados por filme ([soma, total, notas 1..5], ver deltas()).
+     * Roda na transação do despacho do outbox, depois de os eventos do lote serem removidos.
+     */
+    public void acumularLote(Map<Long, long[]> deltasPorFilme) {
+        if (deltasPorFilme.isEmpty()) {
+            return;
+        }
+        // Ordem de ID: lotes concorrentes travam as linhas do agregado na mesma ordem
+        List<Long> filmeIds = new ArrayList<>(deltasPorFilme.keySet());
+        Collections.sort(filmeIds);
+
+        List<Object[]> parametros = new ArrayList<>(filmeIds.size());
+        for (Long filmeId : filmeIds) {
+            long[] d = deltasPorFilme.get(filmeId);
+            parametros.add(new Object[]{d[0], d[1], d[2], d[3], d[4], d[5], d[6], filmeId});
+        }
+        int[] atualizados = jdbcTemplate.batchUpdate(SQL_ACUMULAR, parametros);
+
+        List<Object[]> novos = new ArrayList<>();
+        List<Object[]> parametrosNovos = new ArrayList<>();
+        for (int i = 0; i < atualizados.length; i++) {
+            if (atualizados[i] == 0) {
+                novos.add(new Object[]{filmeIds.get(i)});
+                parametrosNovos.add(parametros.get(i));
+            }
+        }
+        if (novos.isEmpty()) {
+            return;
+        }
+        int[] criados = jdbcTemplate.batchUpdate(SQL_CRIAR, novos);
+
+        // Linhas criadas por outro despacho no intervalo: agora existem e recebem o delta deste lote
+        // (filme removido também não cria linha; o UPDATE não encontra nada)
+        List<Object[]> acumularNovamente = new ArrayList<>();
+        for (int i = 0; i < criados.length; i++) {
+            if (criados[i] == 0) {
+                acumularNovamente.add(parametrosNovos.get(i));
+            }
+        }
+        if (!acumularNovamente.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ACUMULAR, acumularNovamente);
+        }
+    }
+
+    /**
+     * Deltas [soma, total, notas 1..5] de uma avaliação criada (notaAnterior = 0), alterada ou removida (notaNova = 0)
+     */
+    public static long[] deltas(int notaAnterior, int notaNova) {
+        long[] deltas = new long[7];
+        if (notaAnterior > 0) {
+            deltas[0] -= notaAnterior;
+            deltas[1]--;
+            deltas[1 + notaAnterior]--;
+        }
+        if (notaNova > 0) {
+            deltas[0] += notaNova;
+            deltas[1]++;
+            deltas[1 + notaNova]++;
+        }
+        return deltas;
+    }
+
+    /**
+     * Criar o agregado dos filmes que ainda não têm (filmes novos, base anterior à tabela).
+     * Retorna quantos foram criados.
+     */
+    public int preencherFaltantes() {
+        return jdbcTemplate.update(SQL_PREENCHER_FALTANTES);
+    }
+
+    /**
+     * Agregados dos filmes com pelo menos uma avaliação
+     */
+    public List<long[]> carregarTodos() {
+        return jdbcTemplate.query(SQL_CARREGAR, (rs, rowNum) -> lerLinha(rs));
+    }
+
+    /**
+     * Menor e maior filme_id com agregado, ou null se a tabela está vazia
+     */
+    public long[] faixaIds() {
+        return jdbcTemplate.queryForObject(SQL_FAIXA_IDS,
+                (rs, rowNum) -> rs.getObject(1) == null ? null : new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    /**
+     * Recalcular do zero os agregados dos filmes com ID em [inicio, fim] e corrigir os divergentes.
+     * As linhas do agregado ficam travadas durante o cálculo, que desconta os eventos ainda no outbox:
+     * um lote despachado em paralelo espera e aplica o seu delta sobre o valor corrigido.
+     * Retorna quantas linhas foram corrigidas.
+     */
+    @Transactional
+    public int repararFaixa(long inicio, long fim) {
+        List<long[]> gravados = jdbcTemplate.query(SQL_TRAVAR_FAIXA, (rs, rowNum) -> lerLinha(rs), inicio, fim);
+        if (gravados.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, long[]> calculados = new HashMap<>();
+        jdbcTemplate.query(SQL_CALCULAR_FAIXA, rs -> {
+            long[] linha = lerLinha(rs);
+            calculados.put(linha[0], linha);
+        }, inicio, fim);
+
+        List<Object[]> correcoes = new ArrayList<>();
+        for (long[] gravado : gravados) {
+            long[] calculado = calculados.getOrDefault(gravado[0], new long[]{gravado[0], 0, 0, 0, 0, 0, 0, 0});
+            if (!Arrays.equals(gravado, calculado)) {
+                correcoes.add(new Object[]{calculado[1], calculado[2], calculado[3], calculado[4],
+                        calculado[5], calculado[6], calculado[7], gravado[0]});
+            }
+        }
+        if (!correcoes.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_CORRIGIR, correcoes);
+        }
+        return correcoes.size();
+    }
+
+    // Colunas n1..n5 da FONTE: 1 se a condição da nota vale (menos 1 se a condição negativa vale)
+    private static String indicadoresNota(String positivo, String negativo) {
+        StringBuilder colunas = new StringBuilder();
+        for (int nota = 1; nota <= 5; nota++) {
+            if (nota > 1) {
+                colunas.append(", ");
+            }
+            colunas.append("CASE WHEN ").append(String.format(positivo, nota)).append(" THEN 1 ELSE 0 END");
+            if (negativo != null) {
+                colunas.append(" - CASE WHEN ").append(String.format(negativo, nota)).append(" THEN 1 ELSE 0 END");
+            }
+            colunas.append(" AS n").append(nota);
+        }
+        return colunas.toString();
+    }
+
+    private long[] lerLinha(ResultSet rs) throws SQLException {
+        long[] linha = new long[8];
+        for (int i = 0; i < linha.length; i++) {
+            linha[i] = rs.getLong(i + 1);
+        }
+        return linha;
+    }
+}
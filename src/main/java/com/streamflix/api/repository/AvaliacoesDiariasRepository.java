@@ -0,0 +1,68 @@
+package com.streamflix.api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Rollup diário das notas por filme (avaliacoes_diarias) via JDBC.
+ * Os deltas são somados pelo despacho do outbox de avaliações, então a tabela guarda o total do cluster.
+ */
+@Repository
+public class AvaliacoesDiariasRepository {
+
+    // Filme removido antes do despacho: nada a criar. Dois despachos criando o mesmo dia somam na mesma linha
+    private static final String SQL_ACUMULAR =
+            "INSERT INTO avaliacoes_diarias (filme_id, dia, soma_notas, total_avaliacoes) " +
+            "SELECT id, ?, ?, ? FROM filmes WHERE id = ? " +
+            "ON CONFLICT (filme_id, dia) DO UPDATE SET " +
+            "soma_notas = avaliacoes_diarias.soma_notas + EXCLUDED.soma_notas, " +
+            "total_avaliacoes = avaliacoes_diarias.total_avaliacoes + EXCLUDED.total_avaliacoes";
+
+    private static final String SQL_CARREGAR =
+            "SELECT filme_id, dia, soma_notas, total_avaliacoes FROM avaliacoes_diarias WHERE dia >= ?";
+
+    private static final String SQL_REMOVER_ANTERIORES =
+            "DELETE FROM avaliacoes_diarias WHERE dia < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Somar deltas no rollup, na transação do despacho. Cada item é {filmeId, dia, soma, total}.
+     * As linhas são gravadas em ordem de (filme, dia), para que despachos concorrentes travem na mesma ordem.
+     */
+    public void acumular(List<long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<long[]> ordenados = new ArrayList<>(deltas);
+        ordenados.sort(Comparator.<long[]>comparingLong(d -> d[0]).thenComparingLong(d -> d[1]));
+
+        List<Object[]> parametros = new ArrayList<>(ordenados.size());
+        for (long[] d : ordenados) {
+            parametros.add(new Object[]{d[1], d[2], d[3], d[0]});
+        }
+        jdbcTemplate.batchUpdate(SQL_ACUMULAR, parametros);
+    }
+
+    /**
+     * Carregar os dias a partir de um dia. Cada item é {filmeId, dia, soma, total}.
+     */
+    public List<long[]> carregarDesde(long dia) {
+        return jdbcTemplate.query(SQL_CARREGAR,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)},
+                dia);
+    }
+
+    /**
+     * Remover dias que já saíram da maior janela (pelo índice de dia)
+     */
+    public int removerAnteriores(long dia) {
+        return jdbcTemplate.update(SQL_REMOVER_ANTERIORES, dia);
+    }
+}
@@ -0,0 +1,152 @@
+package com.streamflix.api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Gravação em lote das avaliações de um usuário via JDBC (importação).
+ * Cada avaliação é um único INSERT ... ON CONFLICT (PostgreSQL) e os comandos vão ao banco em batches,
+ * sem a sequência SELECT / exists / INSERT ou UPDATE do fluxo unitário.
+ */
+@Repository
+public class AvaliacoesLoteRepository {
+
+    // Limite de IDs por IN (...) e de comandos por batch
+    private static final int TAMANHO_BLOCO = 500;
+
+    private static final String SQL_FILMES_EXISTENTES =
+            "SELECT id FROM filmes WHERE id IN (%s)";
+
+    // Lock de transação por usuário: importações e escritas unitárias do mesmo usuário passam uma por vez
+    private static final String SQL_TRAVAR_USUARIO =
+            "SELECT pg_advisory_xact_lock(?)";
+
+    private static final String SQL_TRAVAR_NOTAS =
+            "SELECT filme_id, nota, COALESCE(data_atualizacao, data_criacao) FROM avaliacoes " +
+            "WHERE usuario_id = ? AND filme_id IN (%s) " +
+            "ORDER BY filme_id FOR UPDATE";
+
+    private static final String SQL_IDS =
+            "SELECT filme_id, id FROM avaliacoes WHERE usuario_id = ? AND filme_id IN (%s)";
+
+    private static final String SQL_UPSERT =
+            "INSERT INTO avaliacoes (nota, comentario, usuario_id, filme_id, data_criacao, data_atualizacao) " +
+            "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (usuario_id, filme_id) DO UPDATE SET nota = EXCLUDED.nota, " +
+            "comentario = EXCLUDED.comentario, data_atualizacao = CURRENT_TIMESTAMP";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Nota atual de uma avaliação e quando foi dada (última gravação)
+     */
+    public record NotaAtual(int nota, LocalDateTime dataNota) {
+    }
+
+    /**
+     * IDs da lista que existem na tabela filmes
+     */
+    public Set<Long> filmesExistentes(List<Long> filmeIds) {
+        Set<Long> existentes = new HashSet<>();
+        for (List<Long> bloco : blocos(filmeIds)) {
+            jdbcTemplate.query(String.format(SQL_FILMES_EXISTENTES, marcadores(bloco.size())),
+                    rs -> {
+                        existentes.add(rs.getLong(1));
+                    },
+                    bloco.toArray());
+        }
+        return existentes;
+    }
+
+    /**
+     * Serializar as escritas de avaliações do usuário até o fim da transação.
+     * O FOR UPDATE de travarNotas só alcança avaliações que já existem: sem este lock, dois lotes (ou um lote
+     * e um /avaliar) para um filme ainda não avaliado leriam "não existe" e ambos reportariam CRIADA.
+     */
+    public void travarUsuario(Long usuarioId) {
+        jdbcTemplate.query(SQL_TRAVAR_USUARIO, rs -> {
+        }, usuarioId);
+    }
+
+    /**
+     * Notas atuais do usuário nos filmes (só os já avaliados) e quando foram dadas, com as linhas travadas
+     * até o fim da transação.
+     * Os IDs devem vir ordenados, para que lotes concorrentes travem na mesma ordem.
+     */
+    public Map<Long, NotaAtual> travarNotas(Long usuarioId, List<Long> filmeIds) {
+        Map<Long, NotaAtual> notas = new HashMap<>();
+        for (List<Long> bloco : blocos(filmeIds)) {
+            jdbcTemplate.query(String.format(SQL_TRAVAR_NOTAS, marcadores(bloco.size())),
+                    rs -> {
+                        Timestamp dataNota = rs.getTimestamp(3);
+                        notas.put(rs.getLong(1), new NotaAtual(rs.getInt(2),
+                                dataNota != null ? dataNota.toLocalDateTime() : null));
+                    },
+                    parametrosUsuario(usuarioId, bloco));
+        }
+        return notas;
+    }
+
+    /**
+     * IDs das avaliações do usuário nos filmes (filmeId -> avaliacaoId)
+     */
+    public Map<Long, Long> idsAvaliacoes(Long usuarioId, List<Long> filmeIds) {
+        Map<Long, Long> ids = new HashMap<>();
+        for (List<Long> bloco : blocos(filmeIds)) {
+            jdbcTemplate.query(String.format(SQL_IDS, marcadores(bloco.size())),
+                    rs -> {
+                        ids.put(rs.getLong(1), rs.getLong(2));
+                    },
+                    parametrosUsuario(usuarioId, bloco));
+        }
+        return ids;
+    }
+
+    /**
+     * Criar ou substituir as avaliações do usuário. Cada item é {filmeId, nota, comentario}.
+     */
+    public void gravar(Long usuarioId, List<Object[]> avaliacoes) {
+        jdbcTemplate.batchUpdate(SQL_UPSERT, avaliacoes, TAMANHO_BLOCO, (ps, avaliacao) -> {
+            ps.setInt(1, (Integer) avaliacao[1]);
+            ps.setString(2, (String) avaliacao[2]);
+            ps.setLong(3, usuarioId);
+            ps.setLong(4, (Long) avaliacao[0]);
+        });
+    }
+
+    private static List<List<Long>> blocos(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<List<Long>> blocos = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += TAMANHO_BLOCO) {
+            blocos.add(ids.subList(i, Math.min(ids.size(), i + TAMANHO_BLOCO)));
+        }
+        return blocos;
+    }
+
+    private static Object[] parametrosUsuario(Long usuarioId, List<Long> filmeIds) {
+        Object[] parametros = new Object[filmeIds.size() + 1];
+        parametros[0] = usuarioId;
+        for (int i = 0; i < filmeIds.size(); i++) {
+            parametros[i + 1] = filmeIds.get(i);
+        }
+        return parametros;
+    }
+
+    private static String marcadores(int quantidade) {
+        return String.join(", ", Collections.nCopies(quantidade, "?"));
+    }
+}
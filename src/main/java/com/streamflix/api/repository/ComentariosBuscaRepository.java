@@ -0,0 +1,66 @@
+package com.streamflix.api.repository;
+
+import com.streamflix.api.busca.IndiceInvertido;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Consultas da busca nos comentários das avaliações via JDBC: leitura de todos os comentários
+ * para montar o índice em memória e a busca full-text do PostgreSQL (tsvector + índice GIN
+ * idx_avaliacoes_comentario_fts, que usa a mesma expressão).
+ */
+@Repository
+public class ComentariosBuscaRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SQL_COMENTARIOS =
+            "SELECT id, filme_id, comentario FROM avaliacoes WHERE comentario IS NOT NULL AND comentario <> ''";
+
+    private static final String DOCUMENTO = "to_tsvector('portuguese', COALESCE(a.comentario, ''))";
+
+    private static final String SQL_BUSCAR_POSTGRES =
+            "SELECT a.id, a.filme_id, ts_rank(" + DOCUMENTO + ", consulta) AS relevancia " +
+            "FROM avaliacoes a, plainto_tsquery('portuguese', ?) consulta " +
+            "WHERE " + DOCUMENTO + " @@ consulta AND (CAST(? AS BIGINT) IS NULL OR a.filme_id = ?) " +
+            "ORDER BY relevancia DESC, a.id DESC LIMIT ? OFFSET ?";
+
+    private static final String SQL_CONTAR_POSTGRES =
+            "SELECT COUNT(*) FROM avaliacoes a, plainto_tsquery('portuguese', ?) consulta " +
+            "WHERE " + DOCUMENTO + " @@ consulta AND (CAST(? AS BIGINT) IS NULL OR a.filme_id = ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Percorrer todas as avaliações com comentário (id, filme_id, comentario), lidas em blocos
+     */
+    @Transactional(readOnly = true)
+    public void percorrerComentarios(RowCallbackHandler destino) {
+        jdbcTemplate.query(conexao -> {
+            PreparedStatement ps = conexao.prepareStatement(SQL_COMENTARIOS);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, destino);
+    }
+
+    /**
+     * Página da busca full-text do PostgreSQL (relevância = ts_rank)
+     */
+    public List<IndiceInvertido.Resultado> buscarPostgres(String consulta, Long filmeId, int limite, long deslocamento) {
+        return jdbcTemplate.query(SQL_BUSCAR_POSTGRES,
+                (rs, rowNum) -> new IndiceInvertido.Resultado(rs.getLong(1), rs.getLong(2), rs.getDouble(3)),
+                consulta, filmeId, filmeId, limite, deslocamento);
+    }
+
+    public long contarPostgres(String consulta, Long filmeId) {
+        Long total = jdbcTemplate.queryForObject(SQL_CONTAR_POSTGRES, Long.class, consulta, filmeId, filmeId);
+        return total != null ? total : 0;
+    }
+}
@@ -0,0 +1,113 @@
+package com.streamflix.api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Escritas do contador de acessos feitas direto via JDBC.
+ * O contador nunca é gravado pela entidade: os incrementos vão para
+ * filme_acessos_shard e são consolidados em filmes.contador_acessos pela compactação.
+ */
+@Repository
+public class ContadorAcessosRepository {
+
+    // Cria a fatia ou soma nela em um único comando (PostgreSQL): dois nós criando a mesma fatia não
+    // disputam a UNIQUE (filme_id, shard). Só grava se o filme ainda existir (pode ter sido removido
+    // entre o acesso e o flush)
+    private static final String SQL_INCREMENTAR_SHARD =
+            "INSERT INTO filme_acessos_shard (filme_id, shard, acessos) " +
+            "SELECT id, ?, ? FROM filmes WHERE id = ? " +
+            "ON CONFLICT (filme_id, shard) DO UPDATE SET acessos = filme_acessos_shard.acessos + EXCLUDED.acessos";
+
+    private static final String SQL_SOMAR_SHARDS =
+            "SELECT COALESCE(SUM(acessos), 0) FROM filme_acessos_shard WHERE filme_id = ?";
+
+    private static final String SQL_SHARDS_PENDENTES =
+            "SELECT id, filme_id, acessos FROM filme_acessos_shard WHERE acessos <> 0 " +
+            "ORDER BY filme_id, shard FETCH FIRST ? ROWS ONLY FOR UPDATE";
+
+    private static final String SQL_CONSOLIDAR_FILME =
+            "UPDATE filmes SET contador_acessos = contador_acessos + ? WHERE id = ?";
+
+    // Subtrai o valor lido (em vez de zerar) para não perder incrementos feitos depois da leitura
+    private static final String SQL_DESCONTAR_SHARD =
+            "UPDATE filme_acessos_shard SET acessos = acessos - ? WHERE id = ?";
+
+    private static final String SQL_RESETAR_SHARDS =
+            "UPDATE filme_acessos_shard SET acessos = 0 WHERE filme_id = ?";
+
+    private static final String SQL_RESETAR =
+            "UPDATE filmes SET contador_acessos = 0 WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Aplicar deltas de acessos em lote, cada filme em uma fatia sorteada
+     */
+    @Transactional
+    public void incrementarAcessos(Map<Long, Long> deltasPorFilme, int numeroShards) {
+        // Ordenar por ID para que todos os nós travem as linhas na mesma ordem (evita deadlock)
+        List<Object[]> parametros = new ArrayList<>(deltasPorFilme.size());
+        new TreeMap<>(deltasPorFilme).forEach((filmeId, delta) -> parametros.add(
+                new Object[]{ThreadLocalRandom.current().nextInt(numeroShards), delta, filmeId}));
+
+        jdbcTemplate.batchUpdate(SQL_INCREMENTAR_SHARD, parametros);
+    }
+
+    /**
+     * Acessos do filme nas fatias ainda não consolidadas em filmes.contador_acessos
+     */
+    public long somarShards(Long filmeId) {
+        Long total = jdbcTemplate.queryForObject(SQL_SOMAR_SHARDS, Long.class, filmeId);
+        return total != null ? total : 0L;
+    }
+
+    /**
+     * Consolidar até {@code limite} fatias em filmes.contador_acessos.
+     * Retorna quantas fatias foram consolidadas.
+     */
+    @Transactional
+    public int compactarShards(int limite) {
+        List<long[]> fatias = jdbcTemplate.query(SQL_SHARDS_PENDENTES,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)},
+                limite);
+
+        if (fatias.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Long> totalPorFilme = new TreeMap<>();
+        List<Object[]> descontos = new ArrayList<>(fatias.size());
+        for (long[] fatia : fatias) {
+            totalPorFilme.merge(fatia[1], fatia[2], Long::sum);
+            descontos.add(new Object[]{fatia[2], fatia[0]});
+        }
+
+        List<Object[]> consolidacoes = new ArrayList<>(totalPorFilme.size());
+        totalPorFilme.forEach((filmeId, total) -> consolidacoes.add(new Object[]{total, filmeId}));
+
+        jdbcTemplate.batchUpdate(SQL_CONSOLIDAR_FILME, consolidacoes);
+        jdbcTemplate.batchUpdate(SQL_DESCONTAR_SHARD, descontos);
+
+        return fatias.size();
+    }
+
+    /**
+     * Zerar contador de acessos de um filme (fatias + valor consolidado)
+     */
+    @Transactional
+    public void resetarAcessos(Long filmeId) {
+        // Mesma ordem de travas da compactação: fatias primeiro, depois o filme
+        jdbcTemplate.update(SQL_RESETAR_SHARDS, filmeId);
+        jdbcTemplate.update(SQL_RESETAR, filmeId);
+    }
+}
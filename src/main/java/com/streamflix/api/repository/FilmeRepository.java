@@ -5,6 +5,7 @@ import com.streamflix.api.entity.Usuario;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -13,7 +14,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FilmeRepository extends JpaRepository<Filme, Long> {
+public interface FilmeRepository extends JpaRepository<Filme, Long>, JpaSpecificationExecutor<Filme> {
 
     // Buscar apenas filmes ativos (para usuários comuns)
     List<Filme> findByAtivoTrue();
@@ -35,32 +36,34 @@ public interface FilmeRepository extends JpaRepository<Filme, Long> {
     // Buscar filmes criados por um usuário específico
     List<Filme> findByCriadoPor(Usuario criadoPor);
 
-    // REQUISITO OBRIGATÓRIO: Ranking de Popularidade
-    // Ordenar por contador de acessos (mais acessados primeiro)
-    @Query("SELECT f FROM Filme f WHERE f.ativo = true ORDER BY f.contadorAcessos DESC")
-    List<Filme> findByAtivoTrueOrderByContadorAcessosDesc();
-
-    @Query("SELECT f FROM Filme f WHERE f.ativo = true ORDER BY f.contadorAcessos DESC")
-    Page<Filme> findByAtivoTrueOrderByContadorAcessosDesc(Pageable pageable);
-
-    // Top N filmes mais populares
-    @Query("SELECT f FROM Filme f WHERE f.ativo = true ORDER BY f.contadorAcessos DESC")
-    List<Filme> findTopFilmesByPopularidade(Pageable pageable);
-
-    // Buscar filmes com filtros e ordenação por popularidade
-    @Query("SELECT f FROM Filme f WHERE f.ativo = true " +
-            "AND (:genero IS NULL OR UPPER(f.genero) = UPPER(:genero)) " +
-            "AND (:ano IS NULL OR f.anoLancamento = :ano) " +
-            "ORDER BY f.contadorAcessos DESC")
-    List<Filme> findFilmesComFiltrosOrderByPopularidade(
-            @Param("genero") String genero,
-            @Param("ano") Integer ano
-    );
+    // Dados dos filmes ativos para montar o ranking em memória: id, título, gênero, ano, diretor, poster,
+    // acessos (consolidado + fatias)
+    @Query("SELECT f.id, f.titulo, f.genero, f.anoLancamento, f.diretor, f.urlPoster, " +
+            "f.contadorAcessos + COALESCE(SUM(s.acessos), 0) " +
+            "FROM Filme f LEFT JOIN FilmeAcessoShard s ON s.filme = f WHERE f.ativo = true " +
+            "GROUP BY f.id, f.titulo, f.genero, f.anoLancamento, f.diretor, f.urlPoster, f.contadorAcessos")
+    List<Object[]> findResumoRankingAtivos();
+
+    // Campos indexados na busca do catálogo (todos os filmes, ativos ou não): id, título, diretor, gênero
+    @Query("SELECT f.id, f.titulo, f.diretor, f.genero FROM Filme f")
+    List<Object[]> findDadosBuscaCatalogo();
+
+    // Atributos do índice de facetas (todos os filmes): id, título, diretor, gênero, ano, duração, data de criação, ativo
+    @Query("SELECT f.id, f.titulo, f.diretor, f.genero, f.anoLancamento, f.duracao, f.dataCriacao, f.ativo FROM Filme f")
+    List<Object[]> findAtributosFacetas();
+
+    // Títulos dos filmes ativos para o índice de trigramas da busca aproximada: id, título
+    @Query("SELECT f.id, f.titulo FROM Filme f WHERE f.ativo = true")
+    List<Object[]> findTitulosAtivos();
+
+    // Busca aproximada no PostgreSQL (pg_trgm): o operador % usa o índice GIN idx_filmes_titulo_trgm
+    // (limiar pg_trgm.similarity_threshold, padrão 0.3) e o resultado é ordenado pela similaridade: id, similaridade
+    @Query(value = "SELECT f.id, similarity(f.titulo, :consulta) AS similaridade FROM filmes f " +
+            "WHERE f.ativo = true AND f.titulo % :consulta AND similarity(f.titulo, :consulta) >= :minima " +
+            "ORDER BY similaridade DESC, f.id LIMIT :limite", nativeQuery = true)
+    List<Object[]> buscarTitulosSimilares(@Param("consulta") String consulta, @Param("minima") double similaridadeMinima,
+                                          @Param("limite") int limite);
 
     // Buscar por ID apenas se ativo (para usuários comuns)
     Optional<Filme> findByIdAndAtivoTrue(Long id);
-
-    // Contar filmes por gênero
-    @Query("SELECT f.genero, COUNT(f) FROM Filme f WHERE f.ativo = true GROUP BY f.genero")
-    List<Object[]> countFilmesByGenero();
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.streamflix.api.repository;
+
+import com.streamflix.api.entity.Filme;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Predicados da busca de filmes, combináveis entre si. Todos comparam a coluna crua com o valor
+ * (sem funções sobre a coluna), para o banco poder usar os índices de filmes.
+ */
+public final class FilmeSpecifications {
+
+    private FilmeSpecifications() {}
+
+    /**
+     * Só filmes ativos (índices parciais WHERE ativo = true)
+     */
+    public static Specification<Filme> ativos() {
+        return (root, query, cb) -> cb.isTrue(root.get("ativo"));
+    }
+}
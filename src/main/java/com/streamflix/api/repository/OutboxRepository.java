@@ -0,0 +1,108 @@
+package com.streamflix.api.repository;
+
+import com.streamflix.api.entity.TipoEventoAvaliacao;
+import com.streamflix.api.outbox.EventoAvaliacao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outbox dos eventos de avaliação (outbox_eventos) via JDBC.
+ * Os eventos são gravados na transação da escrita da avaliação; o despacho trava um lote dos mais
+ * antigos com SKIP LOCKED (instâncias em paralelo pegam lotes diferentes) e os remove na mesma
+ * transação em que os projetores rodam.
+ */
+@Repository
+public class OutboxRepository {
+
+    private static final String COLUNAS =
+            "tipo, avaliacao_id, usuario_id, filme_id, nota_anterior, data_nota_anterior, nota_nova, comentario, data_criacao";
+
+    private static final String SQL_INSERIR =
+            "INSERT INTO outbox_eventos (" + COLUNAS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_TRAVAR_PENDENTES =
+            "SELECT id, " + COLUNAS + " FROM outbox_eventos ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SQL_REMOVER =
+            "DELETE FROM outbox_eventos WHERE id = ?";
+
+    private static final String SQL_PENDENTES =
+            "SELECT COUNT(*), MIN(data_criacao) FROM outbox_eventos";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Gravar eventos (em batch). Deve rodar na transação que alterou as avaliações.
+     */
+    public void registrar(List<EventoAvaliacao> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        List<Object[]> parametros = new ArrayList<>(eventos.size());
+        for (EventoAvaliacao evento : eventos) {
+            parametros.add(new Object[]{evento.tipo().name(), evento.avaliacaoId(), evento.usuarioId(),
+                    evento.filmeId(), evento.notaAnterior(), timestamp(evento.dataNotaAnterior()), evento.notaNova(),
+                    evento.comentario(), timestamp(evento.dataCriacao())});
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERIR, parametros);
+    }
+
+    /**
+     * Até "limite" eventos mais antigos, em ordem de ID, travados até o fim da transação.
+     * Eventos travados por outra instância são pulados.
+     */
+    public List<EventoAvaliacao> travarPendentes(int limite) {
+        return jdbcTemplate.query(SQL_TRAVAR_PENDENTES, (rs, rowNum) -> new EventoAvaliacao(
+                rs.getLong(1),
+                TipoEventoAvaliacao.valueOf(rs.getString(2)),
+                rs.getLong(3),
+                rs.getLong(4),
+                rs.getLong(5),
+                rs.getInt(6),
+                dataHora(rs.getTimestamp(7)),
+                rs.getInt(8),
+                rs.getString(9),
+                rs.getTimestamp(10).toLocalDateTime()), limite);
+    }
+
+    /**
+     * Retirar eventos despachados (na transação do despacho)
+     */
+    public void remover(List<EventoAvaliacao> eventos) {
+        List<Object[]> ids = new ArrayList<>(eventos.size());
+        for (EventoAvaliacao evento : eventos) {
+            ids.add(new Object[]{evento.id()});
+        }
+        jdbcTemplate.batchUpdate(SQL_REMOVER, ids);
+    }
+
+    /**
+     * Quantidade de eventos pendentes e a data do mais antigo (null se não há pendentes)
+     */
+    public Pendentes pendentes() {
+        return jdbcTemplate.queryForObject(SQL_PENDENTES, (rs, rowNum) -> {
+            return new Pendentes(rs.getLong(1), dataHora(rs.getTimestamp(2)));
+        });
+    }
+
+    private static Timestamp timestamp(LocalDateTime dataHora) {
+        return dataHora != null ? Timestamp.valueOf(dataHora) : null;
+    }
+
+    private static LocalDateTime dataHora(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    /**
+     * Eventos pendentes e a data de criação do mais antigo
+     */
+    public record Pendentes(long total, LocalDateTime maisAntigo) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.streamflix.api.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Checkpoint dos acessos horários (filme_tendencias_horarias) via JDBC.
+ * Cada nó soma os seus próprios deltas, então a tabela guarda o total do cluster.
+ */
+@Repository
+public class TendenciasRepository {
+
+    // Filme removido antes do checkpoint: nada a criar. Nós gravando a mesma hora somam na mesma linha
+    private static final String SQL_ACUMULAR =
+            "INSERT INTO filme_tendencias_horarias (filme_id, hora, acessos) " +
+            "SELECT id, ?, ? FROM filmes WHERE id = ? " +
+            "ON CONFLICT (filme_id, hora) DO UPDATE SET " +
+            "acessos = filme_tendencias_horarias.acessos + EXCLUDED.acessos";
+
+    private static final String SQL_CARREGAR =
+            "SELECT filme_id, hora, acessos FROM filme_tendencias_horarias WHERE hora >= ?";
+
+    private static final String SQL_REMOVER_ANTIGAS =
+            "DELETE FROM filme_tendencias_horarias WHERE hora < ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Somar deltas no checkpoint. Cada item é {filmeId, hora, delta}.
+     * As linhas são gravadas em ordem de (filme, hora), para que checkpoints concorrentes travem na mesma ordem.
+     */
+    @Transactional
+    public void acumular(List<long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<long[]> ordenados = new ArrayList<>(deltas);
+        ordenados.sort(Comparator.<long[]>comparingLong(d -> d[0]).thenComparingLong(d -> d[1]));
+
+        List<Object[]> parametros = new ArrayList<>(ordenados.size());
+        for (long[] d : ordenados) {
+            parametros.add(new Object[]{d[1], d[2], d[0]});
+        }
+        jdbcTemplate.batchUpdate(SQL_ACUMULAR, parametros);
+    }
+
+    /**
+     * Carregar os acessos a partir de uma hora. Cada item é {filmeId, hora, acessos}.
+     */
+    public List<long[]> carregarDesde(long hora) {
+        return jdbcTemplate.query(SQL_CARREGAR,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)},
+                hora);
+    }
+
+    /**
+     * Remover horas que já saíram da maior janela
+     */
+    public int removerAnteriores(long hora) {
+        return jdbcTemplate.update(SQL_REMOVER_ANTIGAS, hora);
+    }
+}
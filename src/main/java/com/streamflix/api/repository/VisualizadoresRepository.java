@@ -0,0 +1,117 @@
+package com.streamflix.api.repository;
+
+import com.streamflix.api.sketch.HyperLogLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Sketches de visualizadores únicos (filme_visualizadores) via JDBC.
+ * A gravação é ler-mesclar-escrever com a linha travada: como a união de HyperLogLog é
+ * idempotente, cada nó grava o seu sketch inteiro e o banco fica com a união do cluster.
+ * A linha de um filme novo é criada com INSERT ... ON CONFLICT: nós criando a mesma linha não colidem.
+ */
+@Repository
+public class VisualizadoresRepository {
+
+    private static final String SQL_CARREGAR =
+            "SELECT filme_id, registros FROM filme_visualizadores";
+
+    private static final String SQL_ATUALIZAR =
+            "UPDATE filme_visualizadores SET registros = ?, data_atualizacao = CURRENT_TIMESTAMP WHERE filme_id = ?";
+
+    // Só cria a linha se o filme ainda existir. Se outro nó criou a linha depois da leitura, o INSERT não
+    // falha (nem desfaz o lote): a linha dele é mesclada em seguida, já travada
+    private static final String SQL_CRIAR =
+            "INSERT INTO filme_visualizadores (filme_id, registros, data_atualizacao) " +
+            "SELECT id, ?, CURRENT_TIMESTAMP FROM filmes WHERE id = ? " +
+            "ON CONFLICT (filme_id) DO NOTHING";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Percorrer todos os sketches gravados, um por vez (sem juntar todos os bytes em memória)
+     */
+    public void carregarTodos(BiConsumer<Long, byte[]> consumidor) {
+        jdbcTemplate.query(SQL_CARREGAR, rs -> {
+            consumidor.accept(rs.getLong(1), rs.getBytes(2));
+        });
+    }
+
+    /**
+     * Mesclar os sketches locais com os gravados e gravar a união.
+     * Retorna a união de cada filme (o que o cluster já viu), para atualizar a memória.
+     * Se a precisão gravada for diferente da local, o sketch gravado prevalece.
+     */
+    @Transactional
+    public Map<Long, HyperLogLog> mesclar(Map<Long, HyperLogLog> locais) {
+        if (locais.isEmpty()) {
+            return Map.of();
+        }
+
+        // Ordenar por ID para que todos os nós travem as linhas na mesma ordem (evita deadlock)
+        List<Long> ids = new ArrayList<>(new TreeMap<>(locais).keySet());
+        Map<Long, HyperLogLog> unioes = new HashMap<>();
+        List<Long> semLinha = mesclarGravados(ids, locais, unioes);
+        if (!semLinha.isEmpty()) {
+            List<Object[]> novos = new ArrayList<>(semLinha.size());
+            for (Long filmeId : semLinha) {
+                novos.add(new Object[]{locais.get(filmeId).toBytes(), filmeId});
+            }
+            jdbcTemplate.batchUpdate(SQL_CRIAR, novos);
+            // Linhas criadas por outro nó no intervalo: agora existem e são mescladas com a linha travada
+            // (nas criadas por este nó a mescla não muda nada)
+            mesclarGravados(semLinha, locais, unioes);
+        }
+        return unioes;
+    }
+
+    /**
+     * Mesclar os sketches locais com as linhas gravadas, travadas até o fim da transação, e gravar as que mudaram.
+     * Guarda a união de cada filme em unioes e retorna os IDs (em ordem) que ainda não têm linha.
+     */
+    private List<Long> mesclarGravados(List<Long> ids, Map<Long, HyperLogLog> locais, Map<Long, HyperLogLog> unioes) {
+        String marcadores = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        Map<Long, byte[]> gravados = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT filme_id, registros FROM filme_visualizadores WHERE filme_id IN (" + marcadores + ") " +
+                "ORDER BY filme_id FOR UPDATE",
+                rs -> {
+                    gravados.put(rs.getLong(1), rs.getBytes(2));
+                },
+                ids.toArray());
+
+        List<Object[]> atualizacoes = new ArrayList<>();
+        List<Long> semLinha = new ArrayList<>();
+        for (Long filmeId : ids) {
+            HyperLogLog local = locais.get(filmeId);
+            byte[] dados = gravados.get(filmeId);
+            if (dados == null) {
+                unioes.put(filmeId, local);
+                semLinha.add(filmeId);
+                continue;
+            }
+
+            HyperLogLog uniao = HyperLogLog.deBytes(dados);
+            if (uniao.getPrecisao() == local.getPrecisao() && uniao.mesclar(local)) {
+                atualizacoes.add(new Object[]{uniao.toBytes(), filmeId});
+            }
+            unioes.put(filmeId, uniao);
+        }
+
+        if (!atualizacoes.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ATUALIZAR, atualizacoes);
+        }
+        return semLinha;
+    }
+}
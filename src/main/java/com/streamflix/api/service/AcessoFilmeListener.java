@@ -0,0 +1,14 @@
+package com.streamflix.api.service;
+
+/**
+ * Consumidor dos acessos registrados pelo FilmeService (GET ONE de filme).
+ * As implementações rodam no caminho da requisição: devem apenas atualizar memória.
+ */
+public interface AcessoFilmeListener {
+
+    /**
+     * Registrar um acesso ao filme. usuarioId é null quando o acesso não vem do caminho
+     * de detalhes de um usuário autenticado (ex: leitura administrativa).
+     */
+    void registrarAcesso(Long filmeId, Long usuarioId);
+}
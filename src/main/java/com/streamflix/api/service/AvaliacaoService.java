@@ -1,21 +1,105 @@
 package com.streamflix.api.service;
 
+import com.streamflix.api.busca.IndiceInvertido;
 import com.streamflix.api.entity.Avaliacao;
 import com.streamflix.api.entity.Filme;
+import com.streamflix.api.entity.TipoEventoAvaliacao;
 import com.streamflix.api.entity.Usuario;
+import com.streamflix.api.outbox.EventoAvaliacao;
 import com.streamflix.api.repository.AvaliacaoRepository;
+import com.streamflix.api.repository.AvaliacoesLoteRepository;
+import com.streamflix.api.util.CursorKeyset;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class AvaliacaoService {
 
+    // Limites usados quando o período da exportação não é informado (mantém a consulta pelo índice de data)
+    private static final LocalDateTime INICIO_EXPORTACAO = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime FIM_EXPORTACAO = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    // Avaliações exportadas entre cada limpeza do contexto de persistência
+    private static final int LOTE_EXPORTACAO = 500;
+
     @Autowired
     private AvaliacaoRepository avaliacaoRepository;
 
+    @Autowired
+    private AvaliacoesLoteRepository avaliacoesLoteRepository;
+
+    @Autowired
+    private BuscaComentariosService buscaComentariosService;
+
+    @Autowired
+    private NotasUsuarioService notasUsuarioService;
+
+    // Mudanças nas avaliações, gravadas na mesma transação e projetadas (agregados, busca, notas) em background
+    @Autowired
+    private OutboxAvaliacoesService outboxAvaliacoesService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Soma, total e distribuição das notas por filme
+    @Autowired
+    private AvaliacoesAgregadoService avaliacoesAgregadoService;
+
+    @Value("${app.avaliacoes.pagina-tamanho-max:100}")
+    private int tamanhoMaximoPagina;
+
+    /**
+     * Item de uma importação em lote (sem validação prévia: cada item inválido é rejeitado sozinho)
+     */
+    public record ItemLote(Long filmeId, Integer nota, String comentario) {
+    }
+
+    /**
+     * Resultado de um item do lote, na posição em que foi enviado
+     */
+    public record ResultadoItemLote(int indice, Long filmeId, StatusItemLote status, String mensagem) {
+    }
+
+    public enum StatusItemLote {
+        CRIADA, ATUALIZADA, REJEITADA,
+        // Outro item posterior do mesmo lote avaliou o mesmo filme
+        SUBSTITUIDA
+    }
+
+    /**
+     * Avaliação encontrada na busca por comentário e a sua relevância
+     */
+    public record AvaliacaoEncontrada(Avaliacao avaliacao, double relevancia) {
+    }
+
+    /**
+     * Página de avaliações e o cursor da próxima (null na última)
+     */
+    public record PaginaAvaliacoes(List<Avaliacao> avaliacoes, int tamanho, String proximoCursor) {
+    }
+
     // MÉTODOS CRUD OBRIGATÓRIOS
 
     /**
@@ -35,7 +119,10 @@ public class AvaliacaoService {
     /**
      * CREATE - Criar nova avaliação
      */
+    @Transactional
     public Avaliacao create(Avaliacao avaliacao) {
+        avaliacoesLoteRepository.travarUsuario(avaliacao.getUsuario().getId());
+
         // Verificar se usuário já avaliou este filme
         if (avaliacaoRepository.existsByUsuarioAndFilme(avaliacao.getUsuario(), avaliacao.getFilme())) {
             throw new RuntimeException("Usuário já avaliou este filme. Use o método update para alterar a avaliação.");
@@ -46,23 +133,31 @@ public class AvaliacaoService {
             throw new RuntimeException("A nota deve ser entre 1 e 5");
         }
 
-        return avaliacaoRepository.save(avaliacao);
+        Avaliacao criada = avaliacaoRepository.saveAndFlush(avaliacao);
+        registrarEventos(EventoAvaliacao.novo(TipoEventoAvaliacao.CRIADA, criada.getId(),
+                criada.getUsuario().getId(), criada.getFilme().getId(), 0, null, criada.getNota(),
+                criada.getComentario()));
+        return criada;
     }
 
     /**
      * CREATE - Criar avaliação com parâmetros separados
      */
+    @Transactional
     public Avaliacao create(Integer nota, String comentario, Usuario usuario, Filme filme) {
         Avaliacao avaliacao = new Avaliacao(nota, comentario, usuario, filme);
         return create(avaliacao);
     }
 
     /**
-     * UPDATE - Atualizar avaliação existente
+     * UPDATE - Atualizar avaliação existente.
+     * avaliacaoAtualizada deve ser uma cópia com os novos valores, não a entidade gerenciada.
      */
+    @Transactional
     public Avaliacao update(Long id, Avaliacao avaliacaoAtualizada) {
         Avaliacao avaliacaoExistente = avaliacaoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Avaliação não encontrada com ID: " + id));
+        travarERecarregar(avaliacaoExistente);
 
         // Validar nota (entre 1 e 5)
         if (avaliacaoAtualizada.getNota() < 1 || avaliacaoAtualizada.getNota() > 5) {
@@ -70,20 +165,59 @@ public class AvaliacaoService {
         }
 
         // Atualizar campos (não permite alterar usuário ou filme)
+        int notaAnterior = avaliacaoExistente.getNota();
+        LocalDateTime dataNotaAnterior = dataNota(avaliacaoExistente);
         avaliacaoExistente.setNota(avaliacaoAtualizada.getNota());
         avaliacaoExistente.setComentario(avaliacaoAtualizada.getComentario());
 
-        return avaliacaoRepository.save(avaliacaoExistente);
+        Avaliacao atualizada = avaliacaoRepository.saveAndFlush(avaliacaoExistente);
+        registrarEventos(EventoAvaliacao.novo(TipoEventoAvaliacao.ALTERADA, atualizada.getId(),
+                atualizada.getUsuario().getId(), atualizada.getFilme().getId(), notaAnterior, dataNotaAnterior,
+                atualizada.getNota(), atualizada.getComentario()));
+        return atualizada;
     }
 
     /**
      * DELETE - Deletar avaliação
      */
+    @Transactional
     public void delete(Long id) {
-        if (!avaliacaoRepository.existsById(id)) {
-            throw new RuntimeException("Avaliação não encontrada com ID: " + id);
-        }
-        avaliacaoRepository.deleteById(id);
+        Avaliacao avaliacao = avaliacaoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Avaliação não encontrada com ID: " + id));
+        travarERecarregar(avaliacao);
+        avaliacaoRepository.delete(avaliacao);
+        avaliacaoRepository.flush();
+        registrarEventos(EventoAvaliacao.novo(TipoEventoAvaliacao.REMOVIDA, avaliacao.getId(),
+                avaliacao.getUsuario().getId(), avaliacao.getFilme().getId(), avaliacao.getNota(), dataNota(avaliacao),
+                0, null));
+    }
+
+    /**
+     * Travar as escritas do usuário da avaliação e reler a nota, que uma importação pode ter trocado
+     * entre o findById e o lock (a nota anterior do evento tem que ser a que estava gravada)
+     */
+    private void travarERecarregar(Avaliacao avaliacao) {
+        avaliacoesLoteRepository.travarUsuario(avaliacao.getUsuario().getId());
+        entityManager.refresh(avaliacao);
+    }
+
+    /**
+     * Gravar os eventos no outbox (transação atual) e atualizar as notas em cache do usuário nesta instância
+     */
+    private void registrarEventos(EventoAvaliacao evento) {
+        registrarEventos(List.of(evento));
+    }
+
+    private void registrarEventos(List<EventoAvaliacao> eventos) {
+        outboxAvaliacoesService.registrar(eventos);
+        notasUsuarioService.registrarEscrita(eventos);
+    }
+
+    /**
+     * Quando a nota atual da avaliação foi dada: a última gravação (a criação, se nunca foi alterada)
+     */
+    private static LocalDateTime dataNota(Avaliacao avaliacao) {
+        return avaliacao.getDataAtualizacao() != null ? avaliacao.getDataAtualizacao() : avaliacao.getDataCriacao();
     }
 
     // MÉTODOS AUXILIARES
@@ -96,10 +230,28 @@ public class AvaliacaoService {
     }
 
     /**
-     * Buscar avaliações de um filme ordenadas por data (mais recentes primeiro)
+     * Página das avaliações de um filme, mais recentes primeiro, continuando do cursor (null = início).
+     * Paginação keyset: cada página é uma consulta pelo índice, independente da profundidade.
      */
-    public List<Avaliacao> getAvaliacoesByFilmeOrdenadas(Filme filme) {
-        return avaliacaoRepository.findByFilmeOrderByDataCriacaoDesc(filme);
+    public PaginaAvaliacoes getPaginaAvaliacoesByFilme(Long filmeId, String cursor, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, tamanhoMaximoPagina));
+        Limit limite = Limit.of(tamanhoPagina + 1);
+
+        List<Avaliacao> avaliacoes;
+        if (cursor == null || cursor.isBlank()) {
+            avaliacoes = avaliacaoRepository.findPaginaByFilme(filmeId, limite);
+        } else {
+            CursorKeyset.Posicao posicao = CursorKeyset.decodificar(cursor);
+            avaliacoes = avaliacaoRepository.findPaginaByFilmeApos(filmeId, posicao.data(), posicao.id(), limite);
+        }
+
+        // Uma linha a mais que o tamanho indica que há próxima página
+        if (avaliacoes.size() <= tamanhoPagina) {
+            return new PaginaAvaliacoes(avaliacoes, tamanhoPagina, null);
+        }
+        List<Avaliacao> pagina = avaliacoes.subList(0, tamanhoPagina);
+        Avaliacao ultima = pagina.get(tamanhoPagina - 1);
+        return new PaginaAvaliacoes(pagina, tamanhoPagina, CursorKeyset.codificar(ultima.getDataCriacao(), ultima.getId()));
     }
 
     /**
@@ -131,10 +283,60 @@ public class AvaliacaoService {
     }
 
     /**
-     * Buscar avaliações que possuem comentários
+     * Página das avaliações que possuem comentários, das mais recentes para as mais antigas (começa em 0),
+     * com o usuário. O tamanho é limitado por app.avaliacoes.pagina-tamanho-max.
+     */
+    public List<Avaliacao> getAvaliacoesComComentarios(int pagina, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, tamanhoMaximoPagina));
+        return avaliacaoRepository.findPaginaComComentarios(PageRequest.of(Math.max(0, pagina), tamanhoPagina));
+    }
+
+    /**
+     * Percorrer as avaliações com comentários criadas no período (limites opcionais, fim exclusivo),
+     * entregando uma por vez ao destino. Lê do banco em blocos e limpa o contexto de persistência
+     * a cada bloco, então a memória não cresce com o tamanho da tabela. Retorna quantas foram entregues.
+     */
+    @Transactional(readOnly = true)
+    public long exportarAvaliacoesComComentarios(LocalDateTime desde, LocalDateTime ate, Consumer<Avaliacao> destino) {
+        long exportadas = 0;
+        try (Stream<Avaliacao> avaliacoes = avaliacaoRepository.streamAvaliacoesComComentarios(
+                desde != null ? desde : INICIO_EXPORTACAO, ate != null ? ate : FIM_EXPORTACAO)) {
+            Iterator<Avaliacao> iterator = avaliacoes.iterator();
+            while (iterator.hasNext()) {
+                destino.accept(iterator.next());
+                if (++exportadas % LOTE_EXPORTACAO == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return exportadas;
+    }
+
+    /**
+     * Buscar avaliações pelo texto do comentário (todos os termos), opcionalmente de um filme,
+     * em ordem de relevância. Carrega só as avaliações da página, com o usuário.
      */
-    public List<Avaliacao> getAvaliacoesComComentarios() {
-        return avaliacaoRepository.findAvaliacoesComComentarios();
+    public Page<AvaliacaoEncontrada> buscarPorComentario(String consulta, Long filmeId, int pagina, int tamanho) {
+        int tamanhoPagina = Math.max(1, Math.min(tamanho, tamanhoMaximoPagina));
+        int numeroPagina = Math.max(0, pagina);
+        BuscaComentariosService.PaginaBusca busca =
+                buscaComentariosService.buscar(consulta, filmeId, numeroPagina, tamanhoPagina);
+
+        List<Long> ids = busca.resultados().stream().map(IndiceInvertido.Resultado::avaliacaoId).toList();
+        Map<Long, Avaliacao> porId = new HashMap<>();
+        for (Avaliacao avaliacao : avaliacaoRepository.findComUsuarioByIdIn(ids)) {
+            porId.put(avaliacao.getId(), avaliacao);
+        }
+
+        // Mantém a ordem de relevância; avaliações removidas depois da indexação ficam de fora
+        List<AvaliacaoEncontrada> encontradas = new ArrayList<>(ids.size());
+        for (IndiceInvertido.Resultado resultado : busca.resultados()) {
+            Avaliacao avaliacao = porId.get(resultado.avaliacaoId());
+            if (avaliacao != null) {
+                encontradas.add(new AvaliacaoEncontrada(avaliacao, resultado.relevancia()));
+            }
+        }
+        return new PageImpl<>(encontradas, PageRequest.of(numeroPagina, tamanhoPagina), busca.total());
     }
 
     /**
@@ -145,39 +347,107 @@ public class AvaliacaoService {
     }
 
     /**
-     * Calcular média de notas de um filme
+     * Soma, total, média e distribuição das notas de um filme (agregado em memória, sem consulta às avaliações)
+     */
+    public AvaliacoesAgregadoService.AgregadoAvaliacoes getAgregado(Filme filme) {
+        return avaliacoesAgregadoService.getAgregado(filme.getId());
+    }
+
+    /**
+     * Notas do usuário nos filmes informados (só os que ele avaliou), do cache por usuário
      */
-    public Double calcularMediaNotasFilme(Filme filme) {
-        Double media = avaliacaoRepository.calcularMediaNotasFilme(filme);
-        return media != null ? Math.round(media * 100.0) / 100.0 : 0.0; // Arredondar para 2 casas decimais
+    public Map<Long, Integer> getNotasDoUsuario(Usuario usuario, Collection<Long> filmeIds) {
+        return notasUsuarioService.getNotas(usuario.getId(), filmeIds);
     }
 
     /**
-     * Contar total de avaliações de um filme
+     * Média e total de avaliações de vários filmes em uma chamada (para enriquecer listagens sem N+1)
      */
-    public Long contarAvaliacoesFilme(Filme filme) {
-        return avaliacaoRepository.countByFilme(filme);
+    public AvaliacoesAgregadoService.EstatisticasFilmes estatisticasPorFilmes(Collection<Long> filmeIds) {
+        return avaliacoesAgregadoService.estatisticasPorFilmes(filmeIds);
     }
 
     /**
-     * Obter estatísticas de notas de um filme
+     * Criar ou atualizar em lote as avaliações do usuário (importação). Os itens válidos são gravados
+     * com um upsert por avaliação em batches JDBC, e os eventos do outbox em um batch.
+     * Se o mesmo filme aparece mais de uma vez, vale o último item. Retorna o resultado de cada item.
      */
-    public List<Object[]> getEstatisticasNotasByFilme(Filme filme) {
-        return avaliacaoRepository.getEstatisticasNotasByFilme(filme);
+    @Transactional
+    public List<ResultadoItemLote> importarLote(Usuario usuario, List<ItemLote> itens) {
+        ResultadoItemLote[] resultados = new ResultadoItemLote[itens.size()];
+
+        // Último item válido de cada filme
+        Map<Long, Integer> ultimoPorFilme = new HashMap<>();
+        for (int i = 0; i < itens.size(); i++) {
+            ItemLote item = itens.get(i);
+            if (item == null || item.filmeId() == null) {
+                resultados[i] = new ResultadoItemLote(i, null, StatusItemLote.REJEITADA, "ID do filme é obrigatório");
+            } else if (item.nota() == null || item.nota() < 1 || item.nota() > 5) {
+                resultados[i] = new ResultadoItemLote(i, item.filmeId(), StatusItemLote.REJEITADA,
+                        "Nota deve ser entre 1 e 5");
+            } else {
+                Integer anterior = ultimoPorFilme.put(item.filmeId(), i);
+                if (anterior != null) {
+                    resultados[anterior] = new ResultadoItemLote(anterior, item.filmeId(),
+                            StatusItemLote.SUBSTITUIDA, "Filme avaliado novamente no item " + i);
+                }
+            }
+        }
+
+        List<Long> filmeIds = new ArrayList<>(ultimoPorFilme.keySet());
+        Collections.sort(filmeIds);
+        Set<Long> existentes = avaliacoesLoteRepository.filmesExistentes(filmeIds);
+        filmeIds.removeIf(filmeId -> {
+            if (existentes.contains(filmeId)) {
+                return false;
+            }
+            int i = ultimoPorFilme.get(filmeId);
+            resultados[i] = new ResultadoItemLote(i, filmeId, StatusItemLote.REJEITADA, "Filme não encontrado");
+            return true;
+        });
+
+        // Lock por usuário antes de ler as notas: um filme ainda não avaliado não tem linha para o FOR UPDATE
+        avaliacoesLoteRepository.travarUsuario(usuario.getId());
+        Map<Long, AvaliacoesLoteRepository.NotaAtual> notasAnteriores =
+                avaliacoesLoteRepository.travarNotas(usuario.getId(), filmeIds);
+
+        List<Object[]> avaliacoes = new ArrayList<>(filmeIds.size());
+        for (Long filmeId : filmeIds) {
+            int i = ultimoPorFilme.get(filmeId);
+            ItemLote item = itens.get(i);
+            avaliacoes.add(new Object[]{filmeId, item.nota(), item.comentario()});
+            resultados[i] = new ResultadoItemLote(i, filmeId,
+                    notasAnteriores.containsKey(filmeId) ? StatusItemLote.ATUALIZADA : StatusItemLote.CRIADA, null);
+        }
+
+        avaliacoesLoteRepository.gravar(usuario.getId(), avaliacoes);
+
+        Map<Long, Long> avaliacaoIds = avaliacoesLoteRepository.idsAvaliacoes(usuario.getId(), filmeIds);
+        List<EventoAvaliacao> eventos = new ArrayList<>(filmeIds.size());
+        for (Long filmeId : filmeIds) {
+            ItemLote item = itens.get(ultimoPorFilme.get(filmeId));
+            AvaliacoesLoteRepository.NotaAtual anterior = notasAnteriores.get(filmeId);
+            eventos.add(EventoAvaliacao.novo(
+                    anterior == null ? TipoEventoAvaliacao.CRIADA : TipoEventoAvaliacao.ALTERADA,
+                    avaliacaoIds.get(filmeId), usuario.getId(), filmeId,
+                    anterior == null ? 0 : anterior.nota(), anterior == null ? null : anterior.dataNota(),
+                    item.nota(), item.comentario()));
+        }
+        registrarEventos(eventos);
+
+        return Arrays.asList(resultados);
     }
 
     /**
      * Atualizar ou criar avaliação (upsert)
      */
+    @Transactional
     public Avaliacao criarOuAtualizarAvaliacao(Integer nota, String comentario, Usuario usuario, Filme filme) {
         Optional<Avaliacao> avaliacaoExistente = getAvaliacaoByUsuarioAndFilme(usuario, filme);
 
         if (avaliacaoExistente.isPresent()) {
-            // Atualizar avaliação existente
-            Avaliacao avaliacao = avaliacaoExistente.get();
-            avaliacao.setNota(nota);
-            avaliacao.setComentario(comentario);
-            return update(avaliacao.getId(), avaliacao);
+            // Atualizar avaliação existente (os novos valores vão em uma cópia: o update compara com a nota atual)
+            return update(avaliacaoExistente.get().getId(), new Avaliacao(nota, comentario, usuario, filme));
         } else {
             // Criar nova avaliação
             return create(nota, comentario, usuario, filme);
@@ -187,6 +457,7 @@ public class AvaliacaoService {
     /**
      * Deletar avaliação de um usuário para um filme específico
      */
+    @Transactional
     public void deletarAvaliacaoByUsuarioAndFilme(Usuario usuario, Filme filme) {
         Optional<Avaliacao> avaliacao = getAvaliacaoByUsuarioAndFilme(usuario, filme);
         if (avaliacao.isPresent()) {
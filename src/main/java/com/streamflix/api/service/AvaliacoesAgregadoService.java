@@ -0,0 +1,313 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.outbox.EventoAvaliacao;
+import com.streamflix.api.repository.AvaliacoesAgregadoRepository;
+import com.streamflix.api.util.LongIntHashMap;
+import com.streamflix.api.util.Transacoes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agregado das avaliações por filme (soma, total e quantidade de cada nota), lido sem consulta
+ * às avaliações. Projetor do outbox: o banco (filme_avaliacoes_agregado) é atualizado na transação
+ * do despacho e a cópia em memória depois do commit; a recarga periódica traz o que as outras instâncias despacharam.
+ * Um job de reparo recalcula a tabela do zero, em faixas de filmes processadas em paralelo.
+ */
+@Service
+public class AvaliacoesAgregadoService implements CatalogoFilmeListener, ProjetorAvaliacoes {
+
+    private static final Logger log = LoggerFactory.getLogger(AvaliacoesAgregadoService.class);
+
+    @Autowired
+    private AvaliacoesAgregadoRepository avaliacoesAgregadoRepository;
+
+    @Value("${app.avaliacoes.reparo-paralelismo:4}")
+    private int paralelismoReparo;
+
+    @Value("${app.avaliacoes.reparo-faixa:1000}")
+    private int tamanhoFaixaReparo;
+
+    private volatile ConcurrentHashMap<Long, AgregadoAvaliacoes> agregados = new ConcurrentHashMap<>();
+
+    // Soma de todos os agregados (estatísticas globais), atualizada junto com cada mudança
+    private volatile AgregadoAvaliacoes global = AgregadoAvaliacoes.VAZIO;
+
+    // Incrementada a cada mudança, para quem deriva dados dos agregados (ranking) saber se precisa recalcular
+    private final AtomicLong versao = new AtomicLong();
+
+    /**
+     * Soma, total e quantidade de avaliações com cada nota (porNota[0] = nota 1)
+     */
+    public record AgregadoAvaliacoes(long somaNotas, long totalAvaliacoes, long[] porNota) {
+
+        public static final AgregadoAvaliacoes VAZIO = new AgregadoAvaliacoes(0, 0, new long[5]);
+
+        public double media() {
+            return totalAvaliacoes > 0 ? (double) somaNotas / totalAvaliacoes : 0.0;
+        }
+
+        public long comNota(int nota) {
+            return porNota[nota - 1];
+        }
+
+        // Novo agregado sem a nota anterior e com a nova (0 = nenhuma)
+        AgregadoAvaliacoes alterar(int notaAnterior, int notaNova) {
+            long[] notas = porNota.clone();
+            long soma = somaNotas;
+            long total = totalAvaliacoes;
+            if (notaAnterior > 0) {
+                soma -= notaAnterior;
+                total--;
+                notas[notaAnterior - 1]--;
+            }
+            if (notaNova > 0) {
+                soma += notaNova;
+                total++;
+                notas[notaNova - 1]++;
+            }
+            return new AgregadoAvaliacoes(soma, total, notas);
+        }
+
+        // Novo agregado com outro somado (sinal 1) ou subtraído (sinal -1)
+        AgregadoAvaliacoes combinar(AgregadoAvaliacoes outro, int sinal) {
+            long[] notas = porNota.clone();
+            for (int i = 0; i < notas.length; i++) {
+                notas[i] += sinal * outro.porNota[i];
+            }
+            return new AgregadoAvaliacoes(somaNotas + sinal * outro.somaNotas,
+                    totalAvaliacoes + sinal * outro.totalAvaliacoes, notas);
+        }
+    }
+
+    /**
+     * Média e total de avaliações de um conjunto de filmes, indexados pelo ID sem boxing
+     * (filme fora do conjunto ou sem avaliações = média 0 e total 0)
+     */
+    public static final class EstatisticasFilmes {
+
+        private final LongIntHashMap indices;
+        private final double[] medias;
+        private final long[] totais;
+
+        private EstatisticasFilmes(int capacidade) {
+            indices = new LongIntHashMap(capacidade, -1);
+            medias = new double[capacidade];
+            totais = new long[capacidade];
+        }
+
+        public double media(long filmeId) {
+            int i = indices.get(filmeId);
+            return i >= 0 ? medias[i] : 0.0;
+        }
+
+        public long total(long filmeId) {
+            int i = indices.get(filmeId);
+            return i >= 0 ? totais[i] : 0;
+        }
+    }
+
+    /**
+     * Criar os agregados que faltam e carregar todos na subida
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(15)
+    public void inicializar() {
+        try {
+            int criados = avaliacoesAgregadoRepository.preencherFaltantes();
+            if (criados > 0) {
+                log.info("Agregado de avaliações criado para {} filmes", criados);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível preencher os agregados de avaliações", e);
+        }
+        recarregar();
+    }
+
+    /**
+     * Job de recarga: incorpora as avaliações gravadas pelas outras instâncias
+     */
+    @Scheduled(fixedDelayString = "${app.avaliacoes.recarga-interval-ms:300000}",
+            initialDelayString = "${app.avaliacoes.recarga-interval-ms:300000}")
+    public void recarregar() {
+        try {
+            ConcurrentHashMap<Long, AgregadoAvaliacoes> novos = new ConcurrentHashMap<>();
+            AgregadoAvaliacoes soma = AgregadoAvaliacoes.VAZIO;
+            for (long[] linha : avaliacoesAgregadoRepository.carregarTodos()) {
+                AgregadoAvaliacoes agregado = new AgregadoAvaliacoes(linha[1], linha[2],
+                        new long[]{linha[3], linha[4], linha[5], linha[6], linha[7]});
+                novos.put(linha[0], agregado);
+                soma = soma.combinar(agregado, 1);
+            }
+            synchronized (this) {
+                agregados = novos;
+                global = soma;
+            }
+            versao.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao recarregar os agregados de avaliações, mantendo os atuais", e);
+        }
+    }
+
+    /**
+     * Job de reparo: recalcula todos os agregados a partir das avaliações e corrige os divergentes
+     */
+    @Scheduled(fixedDelayString = "${app.avaliacoes.reparo-interval-ms:86400000}",
+            initialDelayString = "${app.avaliacoes.reparo-interval-ms:86400000}")
+    public void reparar() {
+        try {
+            avaliacoesAgregadoRepository.preencherFaltantes();
+            long[] faixa = avaliacoesAgregadoRepository.faixaIds();
+            if (faixa == null) {
+                return;
+            }
+
+            int corrigidos = repararEmParalelo(faixa[0], faixa[1]);
+            if (corrigidos > 0) {
+                log.warn("Reparo corrigiu o agregado de avaliações de {} filmes", corrigidos);
+                recarregar();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha no reparo dos agregados de avaliações", e);
+        }
+    }
+
+    /**
+     * Somar os deltas do lote por filme, gravar em batch (transação do despacho) e aplicar em memória depois do commit
+     */
+    @Override
+    public void projetar(List<EventoAvaliacao> eventos) {
+        Map<Long, long[]> deltasPorFilme = new HashMap<>();
+        List<EventoAvaliacao> mudancas = new ArrayList<>(eventos.size());
+        for (EventoAvaliacao evento : eventos) {
+            if (evento.notaAnterior() == evento.notaNova()) {
+                continue;
+            }
+            long[] deltas = AvaliacoesAgregadoRepository.deltas(evento.notaAnterior(), evento.notaNova());
+            long[] acumulados = deltasPorFilme.computeIfAbsent(evento.filmeId(), id -> new long[deltas.length]);
+            for (int i = 0; i < deltas.length; i++) {
+                acumulados[i] += deltas[i];
+            }
+            mudancas.add(evento);
+        }
+        avaliacoesAgregadoRepository.acumularLote(deltasPorFilme);
+        Transacoes.depoisDoCommit(() -> mudancas.forEach(m -> aplicar(m.filmeId(), m.notaAnterior(), m.notaNova())));
+    }
+
+    /**
+     * Agregado do filme (vazio se o filme não tem avaliações)
+     */
+    public AgregadoAvaliacoes getAgregado(Long filmeId) {
+        return agregados.getOrDefault(filmeId, AgregadoAvaliacoes.VAZIO);
+    }
+
+    /**
+     * Média e total de vários filmes de uma vez (listagens), lidos da memória sem consulta
+     */
+    public EstatisticasFilmes estatisticasPorFilmes(Collection<Long> filmeIds) {
+        Map<Long, AgregadoAvaliacoes> atuais = agregados;
+        EstatisticasFilmes estatisticas = new EstatisticasFilmes(filmeIds.size());
+        int n = 0;
+        for (Long filmeId : filmeIds) {
+            AgregadoAvaliacoes agregado = atuais.get(filmeId);
+            if (agregado == null || agregado.totalAvaliacoes() <= 0 || estatisticas.indices.containsKey(filmeId)) {
+                continue;
+            }
+            estatisticas.indices.put(filmeId, n);
+            estatisticas.medias[n] = agregado.media();
+            estatisticas.totais[n] = agregado.totalAvaliacoes();
+            n++;
+        }
+        return estatisticas;
+    }
+
+    /**
+     * Todos os agregados em memória (visão somente leitura)
+     */
+    public Map<Long, AgregadoAvaliacoes> getAgregados() {
+        return Collections.unmodifiableMap(agregados);
+    }
+
+    /**
+     * Soma dos agregados de todos os filmes (total, soma e distribuição global das notas), O(1)
+     */
+    public AgregadoAvaliacoes getGlobal() {
+        return global;
+    }
+
+    public long getVersao() {
+        return versao.get();
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        // O agregado não depende dos dados do filme: a linha é criada na primeira avaliação
+    }
+
+    @Override
+    public void filmeRemovido(Long filmeId) {
+        // As avaliações do filme são removidas em cascata
+        synchronized (this) {
+            AgregadoAvaliacoes removido = agregados.remove(filmeId);
+            if (removido == null) {
+                return;
+            }
+            global = global.combinar(removido, -1);
+        }
+        versao.incrementAndGet();
+    }
+
+    private void aplicar(Long filmeId, int notaAnterior, int notaNova) {
+        synchronized (this) {
+            agregados.compute(filmeId, (id, atual) ->
+                    (atual != null ? atual : AgregadoAvaliacoes.VAZIO).alterar(notaAnterior, notaNova));
+            global = global.alterar(notaAnterior, notaNova);
+        }
+        versao.incrementAndGet();
+    }
+
+    private int repararEmParalelo(long primeiroId, long ultimoId) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, paralelismoReparo));
+        try {
+            List<Future<Integer>> faixas = new ArrayList<>();
+            for (long inicio = primeiroId; inicio <= ultimoId; inicio += tamanhoFaixaReparo) {
+                long fim = Math.min(ultimoId, inicio + tamanhoFaixaReparo - 1);
+                long inicioFaixa = inicio;
+                faixas.add(executor.submit(() -> avaliacoesAgregadoRepository.repararFaixa(inicioFaixa, fim)));
+            }
+
+            int corrigidos = 0;
+            for (Future<Integer> faixa : faixas) {
+                corrigidos += faixa.get();
+            }
+            return corrigidos;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Reparo dos agregados de avaliações interrompido", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Falha ao reparar uma faixa dos agregados de avaliações", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
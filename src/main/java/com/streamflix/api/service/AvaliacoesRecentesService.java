@@ -0,0 +1,205 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.outbox.EventoAvaliacao;
+import com.streamflix.api.ranking.FilmeResumoRanking;
+import com.streamflix.api.ranking.JanelaAvaliacoesDiarias;
+import com.streamflix.api.repository.AvaliacoesDiariasRepository;
+import com.streamflix.api.service.RankingAvaliacoesService.Classificacao;
+import com.streamflix.api.service.RankingAvaliacoesService.PosicaoAvaliacoes;
+import com.streamflix.api.util.Textos;
+import com.streamflix.api.util.Transacoes;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Avaliações recentes: soma e quantidade das notas dadas a cada filme por dia, nos últimos
+ * app.avaliacoes-recentes.max-dias dias, em um anel de baldes diários em memória (JanelaAvaliacoesDiarias).
+ * Projetor do outbox: cada nota conta no dia em que foi dada e sai desse dia quando é alterada ou removida;
+ * o rollup avaliacoes_diarias é atualizado na transação do despacho e o anel depois do commit. A recarga periódica traz o que
+ * as outras instâncias despacharam e apaga do banco os dias que saíram da janela.
+ */
+@Service
+public class AvaliacoesRecentesService implements ProjetorAvaliacoes, CatalogoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AvaliacoesRecentesService.class);
+
+    @Autowired
+    private AvaliacoesDiariasRepository avaliacoesDiariasRepository;
+
+    @Autowired
+    private RankingPopularidadeService rankingPopularidadeService;
+
+    @Value("${app.avaliacoes-recentes.max-dias:30}")
+    private int maxDias;
+
+    @Value("${app.avaliacoes.peso-prior:10}")
+    private double pesoPrior;
+
+    private volatile JanelaAvaliacoesDiarias janela;
+
+    @PostConstruct
+    void configurar() {
+        maxDias = Math.max(1, maxDias);
+        janela = new JanelaAvaliacoesDiarias(maxDias);
+    }
+
+    /**
+     * Montar o anel a partir do rollup na subida
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        recarregar();
+    }
+
+    /**
+     * Job de recarga: remove os dias antigos do rollup e remonta o anel com o total do cluster
+     */
+    @Scheduled(fixedDelayString = "${app.avaliacoes-recentes.recarga-interval-ms:300000}",
+            initialDelayString = "${app.avaliacoes-recentes.recarga-interval-ms:300000}")
+    public void recarregar() {
+        long inicio = hoje() - maxDias + 1;
+        try {
+            avaliacoesDiariasRepository.removerAnteriores(inicio);
+
+            JanelaAvaliacoesDiarias nova = new JanelaAvaliacoesDiarias(maxDias);
+            for (long[] linha : avaliacoesDiariasRepository.carregarDesde(inicio)) {
+                nova.somar(linha[1], linha[0], linha[2], linha[3]);
+            }
+            janela = nova;
+        } catch (RuntimeException e) {
+            log.warn("Falha ao recarregar as avaliações diárias, mantendo as atuais", e);
+        }
+    }
+
+    /**
+     * Aplicar o lote por filme e dia (transação do despacho) e no anel depois do commit: a nota nova conta
+     * no dia do evento e a nota anterior sai do dia em que foi dada, se esse dia ainda está na janela
+     * (alterar a nota troca o voto em vez de somar outro; remover a avaliação tira o voto)
+     */
+    @Override
+    public void projetar(List<EventoAvaliacao> eventos) {
+        long inicioJanela = hoje() - maxDias + 1;
+        Map<Long, Map<Long, long[]>> porDia = new HashMap<>();
+        for (EventoAvaliacao evento : eventos) {
+            if (evento.notaAnterior() != 0 && evento.dataNotaAnterior() != null) {
+                long diaAnterior = evento.dataNotaAnterior().toLocalDate().toEpochDay();
+                if (diaAnterior >= inicioJanela) {
+                    somarNoDia(porDia, diaAnterior, evento.filmeId(), -evento.notaAnterior(), -1);
+                }
+            }
+            if (evento.notaNova() != 0) {
+                somarNoDia(porDia, evento.dataCriacao().toLocalDate().toEpochDay(), evento.filmeId(),
+                        evento.notaNova(), 1);
+            }
+        }
+
+        List<long[]> deltas = new ArrayList<>();
+        porDia.forEach((dia, porFilme) -> porFilme.forEach((filmeId, delta) -> {
+            // Voto trocado no mesmo dia com a mesma nota: nada muda
+            if (delta[0] != 0 || delta[1] != 0) {
+                deltas.add(new long[]{filmeId, dia, delta[0], delta[1]});
+            }
+        }));
+        if (deltas.isEmpty()) {
+            return;
+        }
+        avaliacoesDiariasRepository.acumular(deltas);
+
+        Transacoes.depoisDoCommit(() -> {
+            JanelaAvaliacoesDiarias atual = janela;
+            for (long[] d : deltas) {
+                atual.somar(d[1], d[0], d[2], d[3]);
+            }
+        });
+    }
+
+    /**
+     * Top N por nota ponderada das notas dadas nos últimos "dias" dias (hoje incluso), opcionalmente no
+     * gênero e só com filmes com pelo menos minVotos notas no período. Prior = média do período.
+     */
+    public List<PosicaoAvaliacoes> getTop(int dias, String genero, int minVotos, int limite) {
+        if (dias < 1 || dias > maxDias) {
+            throw new IllegalArgumentException("O período deve ser entre 1 e " + maxDias + " dias");
+        }
+
+        JanelaAvaliacoesDiarias.Totais totais = janela.totais(hoje(), dias);
+        List<Long> filmeIds = new ArrayList<>(totais.tamanho());
+        for (int i = 0; i < totais.tamanho(); i++) {
+            filmeIds.add(totais.filmes()[i]);
+        }
+        Map<Long, FilmeResumoRanking> filmes = rankingPopularidadeService.getResumos(filmeIds);
+
+        long somaGeral = 0;
+        long totalGeral = 0;
+        for (int i = 0; i < totais.tamanho(); i++) {
+            if (filmes.containsKey(totais.filmes()[i])) {
+                somaGeral += totais.somas()[i];
+                totalGeral += totais.totais()[i];
+            }
+        }
+        double mediaGeral = totalGeral > 0 ? (double) somaGeral / totalGeral : 0.0;
+
+        String generoNormalizado = Textos.normalizar(genero);
+        List<Classificacao> classificacoes = new ArrayList<>();
+        for (int i = 0; i < totais.tamanho(); i++) {
+            FilmeResumoRanking filme = filmes.get(totais.filmes()[i]);
+            long soma = totais.somas()[i];
+            long total = totais.totais()[i];
+            if (filme == null || total < Math.max(1, minVotos)
+                    || (generoNormalizado != null && !generoNormalizado.equals(Textos.normalizar(filme.genero())))) {
+                continue;
+            }
+            double notaPonderada = (soma + pesoPrior * mediaGeral) / (total + pesoPrior);
+            classificacoes.add(new Classificacao(filme, (double) soma / total, total, notaPonderada));
+        }
+        classificacoes.sort(Comparator.comparingDouble(Classificacao::notaPonderada).reversed()
+                .thenComparing(Comparator.comparingLong(Classificacao::totalAvaliacoes).reversed())
+                .thenComparing(c -> c.filme().id()));
+
+        List<PosicaoAvaliacoes> resultado = new ArrayList<>(Math.max(0, Math.min(limite, classificacoes.size())));
+        for (Classificacao classificacao : classificacoes) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            resultado.add(new PosicaoAvaliacoes(classificacao, resultado.size() + 1));
+        }
+        return resultado;
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        // Título, gênero e ativo vêm do RankingPopularidadeService na leitura
+    }
+
+    @Override
+    public void filmeRemovido(Long filmeId) {
+        // As linhas do rollup são removidas em cascata
+        janela.remover(filmeId);
+    }
+
+    private static void somarNoDia(Map<Long, Map<Long, long[]>> porDia, long dia, long filmeId, long soma,
+                                   long total) {
+        long[] delta = porDia.computeIfAbsent(dia, d -> new HashMap<>()).computeIfAbsent(filmeId, id -> new long[2]);
+        delta[0] += soma;
+        delta[1] += total;
+    }
+
+    private long hoje() {
+        return LocalDate.now().toEpochDay();
+    }
+}
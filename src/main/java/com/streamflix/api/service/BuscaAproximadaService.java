@@ -0,0 +1,122 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.busca.IndiceTrigramas;
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.repository.FilmeRepository;
+import com.streamflix.api.util.IndiceRecarregavel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Busca aproximada por título (tolerante a erros de digitação), por similaridade de trigramas,
+ * em um de dois modos (app.busca-aproximada.modo):
+ * "memoria" (padrão) usa um índice de trigramas em memória dos filmes ativos, atualizado pelo
+ * FilmeService e reconstruído periodicamente a partir do banco;
+ * "postgres" usa o pg_trgm (índice GIN idx_filmes_titulo_trgm) e não mantém nada em memória.
+ */
+@Service
+public class BuscaAproximadaService implements CatalogoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BuscaAproximadaService.class);
+
+    private static final String MODO_POSTGRES = "postgres";
+
+    @Autowired
+    private FilmeRepository filmeRepository;
+
+    @Value("${app.busca-aproximada.modo:memoria}")
+    private String modo;
+
+    @Value("${app.busca-aproximada.similaridade-minima:0.3}")
+    private double similaridadeMinima;
+
+    @Value("${app.busca-aproximada.limite-max:50}")
+    private int limiteMaximo;
+
+    private final IndiceRecarregavel<IndiceTrigramas> indice = new IndiceRecarregavel<>(new IndiceTrigramas());
+
+    /**
+     * Montar o índice na subida (modo memória)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        recarregar();
+    }
+
+    /**
+     * Job de reconstrução a partir dos filmes ativos
+     */
+    @Scheduled(fixedDelayString = "${app.busca-aproximada.recarga-interval-ms:600000}",
+            initialDelayString = "${app.busca-aproximada.recarga-interval-ms:600000}")
+    public void recarregar() {
+        if (usaPostgres()) {
+            return;
+        }
+        IndiceTrigramas novo;
+        try {
+            novo = indice.recarregar(() -> {
+                IndiceTrigramas montado = new IndiceTrigramas();
+                for (Object[] linha : filmeRepository.findTitulosAtivos()) {
+                    montado.indexar(((Number) linha[0]).longValue(), (String) linha[1]);
+                }
+                return montado;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Falha ao reconstruir o índice de trigramas, mantendo o atual", e);
+            return;
+        }
+        log.info("Índice de trigramas reconstruído com {} filmes", novo.tamanho());
+    }
+
+    /**
+     * Filmes ativos com título parecido com a consulta, do mais para o menos similar (até "limite")
+     */
+    public List<IndiceTrigramas.Resultado> buscar(String consulta, int limite) {
+        if (IndiceTrigramas.trigramas(consulta).isEmpty()) {
+            throw new IllegalArgumentException("Informe um texto de busca com letras ou números");
+        }
+        if (limite < 1 || limite > limiteMaximo) {
+            throw new IllegalArgumentException("O limite deve ser entre 1 e " + limiteMaximo);
+        }
+
+        if (usaPostgres()) {
+            return filmeRepository.buscarTitulosSimilares(consulta.trim(), similaridadeMinima, limite).stream()
+                    .map(linha -> new IndiceTrigramas.Resultado(((Number) linha[0]).longValue(),
+                            ((Number) linha[1]).doubleValue()))
+                    .toList();
+        }
+        return indice.get().buscar(consulta, similaridadeMinima, limite);
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        if (usaPostgres()) {
+            return;
+        }
+        if (Boolean.TRUE.equals(filme.getAtivo())) {
+            indice.aplicar(alvo -> alvo.indexar(filme.getId(), filme.getTitulo()));
+        } else {
+            indice.aplicar(alvo -> alvo.remover(filme.getId()));
+        }
+    }
+
+    @Override
+    public void filmeRemovido(Long filmeId) {
+        if (usaPostgres()) {
+            return;
+        }
+        indice.aplicar(alvo -> alvo.remover(filmeId));
+    }
+
+    private boolean usaPostgres() {
+        return MODO_POSTGRES.equalsIgnoreCase(modo);
+    }
+}
@@ -0,0 +1,91 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.busca.IndiceCatalogo.Campo;
+import com.streamflix.api.busca.IndiceCatalogo;
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.repository.FilmeRepository;
+import com.streamflix.api.util.IndiceRecarregavel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Busca no catálogo por título, diretor e gênero em um índice invertido em memória (IndiceCatalogo),
+ * montado na subida, atualizado pelo FilmeService a cada filme salvo ou removido e reconstruído
+ * periodicamente para incorporar as alterações feitas pelas outras instâncias.
+ */
+@Service
+public class BuscaCatalogoService implements CatalogoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(BuscaCatalogoService.class);
+
+    @Autowired
+    private FilmeRepository filmeRepository;
+
+    private final IndiceRecarregavel<IndiceCatalogo> indice = new IndiceRecarregavel<>(new IndiceCatalogo());
+
+    /**
+     * Montar o índice na subida
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        recarregar();
+    }
+
+    /**
+     * Job de reconstrução a partir da tabela de filmes
+     */
+    @Scheduled(fixedDelayString = "${app.busca-catalogo.recarga-interval-ms:600000}",
+            initialDelayString = "${app.busca-catalogo.recarga-interval-ms:600000}")
+    public void recarregar() {
+        IndiceCatalogo novo;
+        try {
+            novo = indice.recarregar(() -> {
+                IndiceCatalogo montado = new IndiceCatalogo();
+                for (Object[] linha : filmeRepository.findDadosBuscaCatalogo()) {
+                    montado.indexar(((Number) linha[0]).longValue(), (String) linha[1], (String) linha[2], (String) linha[3]);
+                }
+                return montado;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Falha ao reconstruir o índice do catálogo, mantendo o atual", e);
+            return;
+        }
+        log.info("Índice do catálogo reconstruído com {} filmes", novo.tamanho());
+    }
+
+    /**
+     * IDs (em ordem crescente) dos filmes cujo campo contém todos os termos da consulta, cada termo
+     * como prefixo de uma palavra (no gênero, o valor inteiro sem acentos e maiúsculas).
+     * Retorna null se a consulta não tem nenhum termo indexável (só stopwords ou termos de 1 letra).
+     */
+    public List<Long> buscar(Campo campo, String consulta) {
+        List<String> termos = IndiceCatalogo.termos(campo, consulta);
+        if (termos.isEmpty()) {
+            return null;
+        }
+        long[] ids = indice.get().buscar(campo, termos);
+        List<Long> resultado = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            resultado.add(id);
+        }
+        return resultado;
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        indice.aplicar(alvo -> alvo.indexar(filme.getId(), filme.getTitulo(), filme.getDiretor(), filme.getGenero()));
+    }
+
+    @Override
+    public void filmeRemovido(Long filmeId) {
+        indice.aplicar(alvo -> alvo.remover(filmeId));
+    }
+}
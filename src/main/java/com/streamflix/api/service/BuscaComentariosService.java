@@ -0,0 +1,128 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.busca.IndiceInvertido;
+import com.streamflix.api.busca.Tokenizador;
+import com.streamflix.api.entity.TipoEventoAvaliacao;
+import com.streamflix.api.outbox.EventoAvaliacao;
+import com.streamflix.api.repository.ComentariosBuscaRepository;
+import com.streamflix.api.util.IndiceRecarregavel;
+import com.streamflix.api.util.Transacoes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Busca nos comentários das avaliações, em um de dois modos (app.busca-comentarios.modo):
+ * "memoria" (padrão) usa um índice invertido em memória, atualizado pelos eventos do outbox de
+ * avaliações e reconstruído periodicamente a partir do banco;
+ * "postgres" usa a busca full-text do banco (tsvector com índice GIN) e não mantém nada em memória.
+ */
+@Service
+public class BuscaComentariosService implements ProjetorAvaliacoes {
+
+    private static final Logger log = LoggerFactory.getLogger(BuscaComentariosService.class);
+
+    private static final String MODO_POSTGRES = "postgres";
+
+    @Autowired
+    private ComentariosBuscaRepository comentariosBuscaRepository;
+
+    @Value("${app.busca-comentarios.modo:memoria}")
+    private String modo;
+
+    private final IndiceRecarregavel<IndiceInvertido> indice = new IndiceRecarregavel<>(new IndiceInvertido());
+
+    /**
+     * Página de resultados (avaliações em ordem de relevância) e o total encontrado
+     */
+    public record PaginaBusca(List<IndiceInvertido.Resultado> resultados, long total) {
+    }
+
+    /**
+     * Montar o índice na subida (modo memória)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        recarregar();
+    }
+
+    /**
+     * Job de reconstrução: incorpora os comentários gravados pelas outras instâncias e descarta os
+     * documentos removidos das listas de postagens
+     */
+    @Scheduled(fixedDelayString = "${app.busca-comentarios.recarga-interval-ms:3600000}",
+            initialDelayString = "${app.busca-comentarios.recarga-interval-ms:3600000}")
+    public void recarregar() {
+        if (usaPostgres()) {
+            return;
+        }
+        IndiceInvertido novo;
+        try {
+            novo = indice.recarregar(() -> {
+                IndiceInvertido montado = new IndiceInvertido();
+                comentariosBuscaRepository.percorrerComentarios(rs ->
+                        montado.indexar(rs.getLong(1), rs.getLong(2), rs.getString(3)));
+                return montado;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Falha ao reconstruir o índice de comentários, mantendo o atual", e);
+            return;
+        }
+        log.info("Índice de comentários reconstruído com {} avaliações", novo.tamanho());
+    }
+
+    /**
+     * Indexar os comentários criados ou alterados e retirar as avaliações removidas (aplicado depois do commit)
+     */
+    @Override
+    public void projetar(List<EventoAvaliacao> eventos) {
+        if (usaPostgres()) {
+            return;
+        }
+        Transacoes.depoisDoCommit(() -> indice.aplicar(alvo -> {
+            for (EventoAvaliacao evento : eventos) {
+                if (evento.tipo() == TipoEventoAvaliacao.REMOVIDA) {
+                    alvo.remover(evento.avaliacaoId());
+                } else {
+                    alvo.indexar(evento.avaliacaoId(), evento.filmeId(), evento.comentario());
+                }
+            }
+        }));
+    }
+
+    /**
+     * Avaliações cujo comentário contém todos os termos da consulta, opcionalmente de um filme,
+     * em ordem de relevância. Página começa em 0.
+     */
+    public PaginaBusca buscar(String consulta, Long filmeId, int pagina, int tamanho) {
+        List<String> termos = Tokenizador.termos(consulta);
+        if (termos.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um termo de busca com 2 ou mais caracteres");
+        }
+        long deslocamento = (long) pagina * tamanho;
+
+        if (usaPostgres()) {
+            long total = comentariosBuscaRepository.contarPostgres(consulta, filmeId);
+            List<IndiceInvertido.Resultado> resultados = deslocamento < total
+                    ? comentariosBuscaRepository.buscarPostgres(consulta, filmeId, tamanho, deslocamento)
+                    : List.of();
+            return new PaginaBusca(resultados, total);
+        }
+
+        List<IndiceInvertido.Resultado> encontrados = indice.get().buscar(termos, filmeId);
+        int inicio = (int) Math.min(deslocamento, encontrados.size());
+        int fim = (int) Math.min(deslocamento + tamanho, encontrados.size());
+        return new PaginaBusca(List.copyOf(encontrados.subList(inicio, fim)), encontrados.size());
+    }
+
+    private boolean usaPostgres() {
+        return MODO_POSTGRES.equalsIgnoreCase(modo);
+    }
+}
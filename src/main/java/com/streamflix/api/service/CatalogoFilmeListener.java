@@ -0,0 +1,26 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.entity.Filme;
+
+/**
+ * Consumidor das mudanças de catálogo feitas pelo FilmeService (criação, edição, ativação, remoção).
+ * Mantém as estruturas em memória (rankings, índices) alinhadas com a tabela filmes.
+ */
+public interface CatalogoFilmeListener {
+
+    /**
+     * Filme criado ou alterado (inclusive ativado/desativado)
+     */
+    void filmeSalvo(Filme filme);
+
+    /**
+     * Filme removido permanentemente
+     */
+    void filmeRemovido(Long filmeId);
+
+    /**
+     * Contador de acessos do filme zerado pelo administrador
+     */
+    default void contadorResetado(Long filmeId) {
+    }
+}
@@ -0,0 +1,157 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.repository.ContadorAcessosRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contador de acessos com escrita adiada (write-behind).
+ * Os acessos são acumulados em memória e gravados em lote por um job em background,
+ * distribuídos entre as fatias de filme_acessos_shard. Outro job consolida as fatias
+ * em filmes.contador_acessos.
+ */
+@Service
+public class ContadorAcessosService implements AcessoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ContadorAcessosService.class);
+
+    @Autowired
+    private ContadorAcessosRepository contadorAcessosRepository;
+
+    @Value("${app.acessos.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.acessos.shards:8}")
+    private int numeroShards;
+
+    @Value("${app.acessos.compactacao-lote:1000}")
+    private int loteCompactacao;
+
+    // Um acumulador por filme; o LongAdder distribui a contenção entre células internas
+    private final ConcurrentHashMap<Long, LongAdder> pendentes = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Registrar acesso ao filme (apenas em memória, gravado no próximo flush)
+     */
+    @Override
+    public void registrarAcesso(Long filmeId, Long usuarioId) {
+        pendentes.computeIfAbsent(filmeId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Acessos ainda não gravados no banco
+     */
+    public long getAcessosPendentes(Long filmeId) {
+        LongAdder acumulador = pendentes.get(filmeId);
+        return acumulador != null ? acumulador.sum() : 0L;
+    }
+
+    /**
+     * Valor atual do contador (consolidado + fatias + pendente em memória)
+     */
+    public Long getContadorAtual(Filme filme) {
+        long consolidado = filme.getContadorAcessos() != null ? filme.getContadorAcessos() : 0L;
+        return consolidado + contadorAcessosRepository.somarShards(filme.getId()) + getAcessosPendentes(filme.getId());
+    }
+
+    /**
+     * Descartar acessos pendentes de um filme (usado no reset do contador)
+     */
+    public void descartarPendentes(Long filmeId) {
+        LongAdder acumulador = pendentes.get(filmeId);
+        if (acumulador != null) {
+            acumulador.reset();
+        }
+    }
+
+    /**
+     * Job de flush: grava os deltas acumulados em lotes de UPDATE atômico
+     */
+    @Scheduled(fixedDelayString = "${app.acessos.flush-interval-ms:5000}")
+    public void flush() {
+        // Se outro flush (ou o shutdown) já está rodando, pula este ciclo
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            drenarPendentes();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Job de compactação: consolida as fatias em filmes.contador_acessos
+     */
+    @Scheduled(fixedDelayString = "${app.acessos.compactacao-interval-ms:60000}")
+    public void compactar() {
+        try {
+            int consolidadas;
+            do {
+                consolidadas = contadorAcessosRepository.compactarShards(loteCompactacao);
+            } while (consolidadas == loteCompactacao);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao compactar fatias do contador de acessos", e);
+        }
+    }
+
+    /**
+     * Drenar tudo que estiver pendente antes de desligar a aplicação
+     */
+    @PreDestroy
+    public void drenarNoShutdown() {
+        flushLock.lock();
+        try {
+            drenarPendentes();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void drenarPendentes() {
+        Map<Long, Long> lote = new HashMap<>();
+
+        for (Map.Entry<Long, LongAdder> entrada : pendentes.entrySet()) {
+            // sumThenReset não perde incrementos concorrentes: eles ficam para o próximo ciclo
+            long delta = entrada.getValue().sumThenReset();
+            if (delta == 0) {
+                continue;
+            }
+
+            lote.put(entrada.getKey(), delta);
+            if (lote.size() >= batchSize) {
+                gravarLote(lote);
+                lote = new HashMap<>();
+            }
+        }
+
+        if (!lote.isEmpty()) {
+            gravarLote(lote);
+        }
+    }
+
+    private void gravarLote(Map<Long, Long> lote) {
+        try {
+            contadorAcessosRepository.incrementarAcessos(lote, numeroShards);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar lote de {} contadores de acesso, nova tentativa no próximo ciclo", lote.size(), e);
+            // Devolver os deltas para o acumulador
+            lote.forEach((filmeId, delta) ->
+                    pendentes.computeIfAbsent(filmeId, id -> new LongAdder()).add(delta));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.sketch.HeavyHittersJanela;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * "Em alta agora": filmes mais abertos nos últimos minutos, estimados por
+ * Count-Min Sketch + Space-Saving em fatias de tempo (HeavyHittersJanela).
+ * A memória depende só de epsilon, delta, top-k e número de fatias, não do tamanho do catálogo.
+ * Cada instância estima os acessos que ela mesma recebeu.
+ */
+@Service
+public class EmAltaService implements AcessoFilmeListener {
+
+    @Value("${app.em-alta.janela-minutos:10}")
+    private int janelaMinutos;
+
+    @Value("${app.em-alta.fatias:10}")
+    private int fatias;
+
+    @Value("${app.em-alta.top-k:100}")
+    private int topK;
+
+    @Value("${app.em-alta.epsilon:0.001}")
+    private double epsilon;
+
+    @Value("${app.em-alta.delta:0.01}")
+    private double delta;
+
+    private HeavyHittersJanela heavyHitters;
+
+    @PostConstruct
+    void configurar() {
+        long duracaoFatiaMs = Math.max(1L, janelaMinutos * 60_000L / Math.max(1, fatias));
+        heavyHitters = new HeavyHittersJanela(fatias, duracaoFatiaMs, topK, epsilon, delta,
+                System.currentTimeMillis());
+    }
+
+    @Override
+    public void registrarAcesso(Long filmeId, Long usuarioId) {
+        // Só aberturas de detalhes por usuários autenticados (leituras administrativas não contam)
+        if (usuarioId == null) {
+            return;
+        }
+        heavyHitters.adicionar(filmeId, System.currentTimeMillis());
+    }
+
+    /**
+     * Top N filmes da janela, do mais para o menos acessado
+     */
+    public List<HeavyHittersJanela.ItemFrequente> getEmAlta(int limite) {
+        return heavyHitters.top(limite, System.currentTimeMillis());
+    }
+
+    public int getJanelaMinutos() {
+        return janelaMinutos;
+    }
+}
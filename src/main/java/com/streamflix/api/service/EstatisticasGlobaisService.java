@@ -0,0 +1,68 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.repository.ListaFavoritosRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Totais globais do dashboard lidos em O(1), sem consultas: as avaliações vêm da soma dos
+ * agregados por filme (AvaliacoesAgregadoService) e as listas de favoritos de um contador
+ * atualizado pelo ListaFavoritosService. Um job reconcilia o contador com o banco
+ * (remoções em cascata e listas criadas por outras instâncias).
+ */
+@Service
+public class EstatisticasGlobaisService {
+
+    private static final Logger log = LoggerFactory.getLogger(EstatisticasGlobaisService.class);
+
+    @Autowired
+    private AvaliacoesAgregadoService avaliacoesAgregadoService;
+
+    @Autowired
+    private ListaFavoritosRepository listaFavoritosRepository;
+
+    private final AtomicLong totalListas = new AtomicLong();
+
+    /**
+     * Totais globais de avaliações (com a distribuição das notas) e de listas de favoritos
+     */
+    public record EstatisticasGlobais(AvaliacoesAgregadoService.AgregadoAvaliacoes avaliacoes, long totalListas) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconciliar();
+    }
+
+    /**
+     * Job de reconciliação: recontar as listas de favoritos no banco
+     */
+    @Scheduled(fixedDelayString = "${app.estatisticas.reconciliacao-interval-ms:600000}",
+            initialDelayString = "${app.estatisticas.reconciliacao-interval-ms:600000}")
+    public void reconciliar() {
+        try {
+            totalListas.set(listaFavoritosRepository.count());
+        } catch (RuntimeException e) {
+            log.warn("Falha ao reconciliar o total de listas de favoritos", e);
+        }
+    }
+
+    public EstatisticasGlobais getEstatisticas() {
+        return new EstatisticasGlobais(avaliacoesAgregadoService.getGlobal(), totalListas.get());
+    }
+
+    public void listaCriada() {
+        totalListas.incrementAndGet();
+    }
+
+    public void listaRemovida() {
+        totalListas.updateAndGet(total -> Math.max(0, total - 1));
+    }
+}
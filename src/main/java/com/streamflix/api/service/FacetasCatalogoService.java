@@ -0,0 +1,97 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.busca.IndiceFacetas;
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.repository.FilmeRepository;
+import com.streamflix.api.util.IndiceRecarregavel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Filtros, facetas e ordenação do catálogo (gênero, ano, década, duração, ativo) em bitmaps por valor (IndiceFacetas),
+ * montados na subida, atualizados pelo FilmeService a cada filme salvo ou removido e reconstruídos
+ * periodicamente para incorporar as alterações feitas pelas outras instâncias.
+ */
+@Service
+public class FacetasCatalogoService implements CatalogoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetasCatalogoService.class);
+
+    @Autowired
+    private FilmeRepository filmeRepository;
+
+    private final IndiceRecarregavel<IndiceFacetas> indice = new IndiceRecarregavel<>(new IndiceFacetas());
+
+    /**
+     * Montar o índice na subida
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        recarregar();
+    }
+
+    /**
+     * Job de reconstrução a partir da tabela de filmes
+     */
+    @Scheduled(fixedDelayString = "${app.facetas.recarga-interval-ms:600000}",
+            initialDelayString = "${app.facetas.recarga-interval-ms:600000}")
+    public void recarregar() {
+        IndiceFacetas novo;
+        try {
+            novo = indice.recarregar(() -> {
+                IndiceFacetas montado = new IndiceFacetas();
+                for (Object[] linha : filmeRepository.findAtributosFacetas()) {
+                    montado.indexar(((Number) linha[0]).longValue(), (String) linha[1], (String) linha[2], (String) linha[3],
+                            (Integer) linha[4], (Integer) linha[5], (LocalDateTime) linha[6], Boolean.TRUE.equals(linha[7]));
+                }
+                return montado;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Falha ao reconstruir o índice de facetas, mantendo o atual", e);
+            return;
+        }
+        log.info("Índice de facetas reconstruído com {} filmes", novo.tamanho());
+    }
+
+    /**
+     * Filmes que passam no filtro (opcionalmente só entre restricaoFilmes) e as facetas do resultado se pedidas
+     */
+    public IndiceFacetas.Resultado filtrar(IndiceFacetas.Filtro filtro, Collection<Long> restricaoFilmes,
+                                           boolean comFacetas) {
+        return indice.get().filtrar(filtro, restricaoFilmes, comFacetas);
+    }
+
+    /**
+     * Chave de ordenação de cada filme informado, na mesma posição (null = sem valor)
+     */
+    public Comparable<?>[] chavesOrdenacao(long[] filmeIds, IndiceFacetas.ChaveOrdenacao chave) {
+        return indice.get().chavesOrdenacao(filmeIds, chave);
+    }
+
+    /**
+     * Quantidade de filmes ativos por gênero, do maior para o menor
+     */
+    public List<IndiceFacetas.Contagem> contarAtivosPorGenero() {
+        return indice.get().contarPorGenero(true);
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        indice.aplicar(alvo -> alvo.indexar(filme.getId(), filme.getTitulo(), filme.getDiretor(), filme.getGenero(),
+                filme.getAnoLancamento(), filme.getDuracao(), filme.getDataCriacao(), Boolean.TRUE.equals(filme.getAtivo())));
+    }
+
+    @Override
+    public void filmeRemovido(Long filmeId) {
+        indice.aplicar(alvo -> alvo.remover(filmeId));
+    }
+}
@@ -1,23 +1,105 @@
 package com.streamflix.api.service;
 
+import com.streamflix.api.busca.IndiceCatalogo.Campo;
+import com.streamflix.api.busca.IndiceFacetas;
+import com.streamflix.api.busca.IndiceFacetas.ChaveOrdenacao;
 import com.streamflix.api.entity.Filme;
 import com.streamflix.api.entity.Usuario;
+import com.streamflix.api.ranking.CriterioRanking;
+import com.streamflix.api.ranking.FilmeResumoRanking;
+import com.streamflix.api.ranking.SnapshotRanking;
+import com.streamflix.api.repository.ContadorAcessosRepository;
 import com.streamflix.api.repository.FilmeRepository;
+import com.streamflix.api.repository.FilmeSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 
 @Service
 public class FilmeService {
 
+    // Chaves de ordenação aceitas na busca -> atributo de Filme (sem filtros, o banco ordena pela coluna;
+    // com filtros, a ordenação é feita em memória pelas mesmas chaves). Popularidade é sempre em memória:
+    // a coluna contadorAcessos só muda na compactação e não tem as fatias nem os acessos ainda não gravados
+    private static final Map<String, String> CAMPOS_ORDENACAO = Map.of(
+            "titulo", "titulo",
+            "genero", "genero",
+            "diretor", "diretor",
+            "ano", "anoLancamento",
+            "duracao", "duracao",
+            "popularidade", "contadorAcessos",
+            "dataCriacao", "dataCriacao",
+            "id", "id");
+
     @Autowired
     private FilmeRepository filmeRepository;
 
+    @Autowired
+    private ContadorAcessosService contadorAcessosService;
+
+    // Contador de acessos, tendências, etc.
+    @Autowired
+    private List<AcessoFilmeListener> acessoListeners;
+
+    // Ranking de popularidade em memória, índices, etc.
+    @Autowired
+    private List<CatalogoFilmeListener> catalogoListeners;
+
+    @Autowired
+    private RankingPopularidadeService rankingPopularidadeService;
+
+    @Autowired
+    private VisualizadoresService visualizadoresService;
+
+    @Autowired
+    private ContadorAcessosRepository contadorAcessosRepository;
+
+    @Autowired
+    private BuscaCatalogoService buscaCatalogoService;
+
+    @Autowired
+    private FacetasCatalogoService facetasCatalogoService;
+
+    @Value("${app.filmes.pagina-tamanho-max:100}")
+    private int tamanhoMaximoPagina;
+
+    /**
+     * Filtros da busca de filmes, todos opcionais e combinados (E); listas combinam os valores com OU.
+     * Texto de título e diretor casa por prefixo de palavra e gênero pelo valor inteiro, sem diferenciar
+     * acentos e maiúsculas; faixas de ano e duração com limites inclusivos; décadas pelo ano inicial (1990).
+     * ordenarPor é uma chave de CAMPOS_ORDENACAO (padrão: título); direcao "asc" ou "desc" (padrão: desc
+     * para popularidade, asc para os demais). comFacetas pede as contagens do resultado. Página começa em 0.
+     */
+    public record FiltroBusca(String titulo, String diretor, List<String> generos,
+                              Integer anoMinimo, Integer anoMaximo, List<Integer> decadas,
+                              Integer duracaoMinima, Integer duracaoMaxima, List<IndiceFacetas.FaixaDuracao> faixasDuracao,
+                              String ordenarPor, String direcao, boolean comFacetas, int pagina, int tamanho) {
+    }
+
+    /**
+     * Página da busca e as facetas de todo o resultado (null se não pedidas)
+     */
+    public record ResultadoBusca(Page<Filme> pagina, IndiceFacetas.Facetas facetas) {
+    }
+
     // MÉTODOS CRUD OBRIGATÓRIOS
 
     /**
@@ -27,28 +109,61 @@ public class FilmeService {
         Optional<Filme> filme = filmeRepository.findById(id);
 
         // REQUISITO OBRIGATÓRIO: Incrementar contador de acessos a cada GET
-        if (filme.isPresent()) {
-            Filme filmeEncontrado = filme.get();
-            filmeEncontrado.incrementarAcessos(); // Método implementado na entidade
-            filmeRepository.save(filmeEncontrado);
-        }
+        // (acumulado em memória e gravado em lote pelo ContadorAcessosService)
+        filme.ifPresent(f -> registrarAcesso(f.getId(), null));
 
         return filme;
     }
 
+    /**
+     * Buscar filme por ID sem contar acesso (leituras administrativas e de apoio, que não são visualizações)
+     */
+    public Optional<Filme> getOneSemAcesso(Long id) {
+        return filmeRepository.findById(id);
+    }
+
+    /**
+     * Verificar se o filme existe (sem carregar nem contar acesso)
+     */
+    public boolean existe(Long id) {
+        return filmeRepository.existsById(id);
+    }
+
     /**
      * GET ONE para usuários comuns (apenas filmes ativos + incrementa acessos)
      */
     public Optional<Filme> getOneAtivo(Long id) {
+        return getOneAtivo(id, null);
+    }
+
+    /**
+     * GET ONE de detalhes para usuários comuns: incrementa acessos e registra o usuário como visualizador
+     */
+    public Optional<Filme> getOneAtivo(Long id, Long usuarioId) {
         Optional<Filme> filme = filmeRepository.findByIdAndAtivoTrue(id);
 
         // REQUISITO OBRIGATÓRIO: Incrementar contador de acessos a cada GET
-        if (filme.isPresent()) {
-            Filme filmeEncontrado = filme.get();
-            filmeEncontrado.incrementarAcessos();
-            filmeRepository.save(filmeEncontrado);
+        filme.ifPresent(f -> registrarAcesso(f.getId(), usuarioId));
+
+        return filme;
+    }
+
+    /**
+     * Repassar o acesso para todos os consumidores (contador, tendências, visualizadores...)
+     */
+    private void registrarAcesso(Long filmeId, Long usuarioId) {
+        for (AcessoFilmeListener listener : acessoListeners) {
+            listener.registrarAcesso(filmeId, usuarioId);
         }
+    }
 
+    /**
+     * Avisar os consumidores de catálogo que o filme foi criado/alterado
+     */
+    private Filme notificarFilmeSalvo(Filme filme) {
+        for (CatalogoFilmeListener listener : catalogoListeners) {
+            listener.filmeSalvo(filme);
+        }
         return filme;
     }
 
@@ -65,7 +180,7 @@ public class FilmeService {
     public List<Filme> getAll(boolean orderByPopularidade) {
         if (orderByPopularidade) {
             // REQUISITO OBRIGATÓRIO: Permitir ordenação por popularidade
-            return filmeRepository.findByAtivoTrueOrderByContadorAcessosDesc();
+            return getAllAtivosByPopularidade();
         } else {
             return filmeRepository.findByAtivoTrue();
         }
@@ -82,7 +197,47 @@ public class FilmeService {
      * GET ALL filmes ativos ordenados por popularidade (REQUISITO OBRIGATÓRIO)
      */
     public List<Filme> getAllAtivosByPopularidade() {
-        return filmeRepository.findByAtivoTrueOrderByContadorAcessosDesc();
+        // Ordem pelo total de acessos do ranking em memória (consolidado + fatias + pendentes):
+        // o banco só lê os ativos, sem ORDER BY nem soma das fatias por filme
+        List<Filme> filmes = new ArrayList<>(filmeRepository.findByAtivoTrue());
+        Map<Long, Long> acessos = new HashMap<>();
+        for (Filme filme : filmes) {
+            acessos.put(filme.getId(), rankingPopularidadeService.getAcessos(filme.getId()));
+        }
+        filmes.sort(Comparator.comparing((Filme filme) -> acessos.get(filme.getId())).reversed()
+                .thenComparing(Filme::getId));
+        return filmes;
+    }
+
+    /**
+     * Busca de filmes ativos com todos os filtros informados, paginada e ordenada.
+     * Título e diretor são resolvidos no índice do catálogo (BuscaCatalogoService); gênero, ano, década e
+     * duração são operações de bitmap no índice de facetas (FacetasCatalogoService), que também conta as
+     * facetas. Com algum filtro, o resultado do bitmap é ordenado e paginado em memória e o banco só carrega
+     * os filmes da página; sem filtro, a página de ativos sai direto do banco, exceto por popularidade, que
+     * usa os acessos do ranking nos dois casos (a mesma ordem com ou sem filtro).
+     */
+    public ResultadoBusca buscar(FiltroBusca filtro) {
+        validarFaixa(filtro.anoMinimo(), filtro.anoMaximo(), "ano");
+        validarFaixa(filtro.duracaoMinima(), filtro.duracaoMaxima(), "duração");
+        Pageable pagina = PageRequest.of(Math.max(0, filtro.pagina()),
+                Math.max(1, Math.min(filtro.tamanho(), tamanhoMaximoPagina)), ordenacao(filtro));
+
+        List<Long> idsPorTexto = null;
+        idsPorTexto = restringirPorTexto(idsPorTexto, Campo.TITULO, filtro.titulo(), "título");
+        idsPorTexto = restringirPorTexto(idsPorTexto, Campo.DIRETOR, filtro.diretor(), "diretor");
+
+        IndiceFacetas.Filtro atributos = new IndiceFacetas.Filtro(filtro.generos(), filtro.anoMinimo(),
+                filtro.anoMaximo(), filtro.decadas(), filtro.duracaoMinima(), filtro.duracaoMaxima(),
+                filtro.faixasDuracao(), true);
+        IndiceFacetas.Resultado encontrados = facetasCatalogoService.filtrar(atributos, idsPorTexto, filtro.comFacetas());
+
+        // Sem nenhum filtro o resultado são todos os ativos: o banco pagina pelos índices de ativos
+        if (idsPorTexto == null && !temFiltroDeAtributo(filtro) && !ordenaPorPopularidade(pagina)) {
+            return new ResultadoBusca(filmeRepository.findAll(FilmeSpecifications.ativos(), pagina),
+                    encontrados.facetas());
+        }
+        return new ResultadoBusca(paginarEmMemoria(encontrados.filmeIds(), pagina), encontrados.facetas());
     }
 
     /**
@@ -102,7 +257,7 @@ public class FilmeService {
             filme.setContadorAcessos(0L);
         }
 
-        return filmeRepository.save(filme);
+        return notificarFilmeSalvo(filmeRepository.save(filme));
     }
 
     /**
@@ -125,7 +280,7 @@ public class FilmeService {
             filmeExistente.setAtivo(filmeAtualizado.getAtivo());
         }
 
-        return filmeRepository.save(filmeExistente);
+        return notificarFilmeSalvo(filmeRepository.save(filmeExistente));
     }
 
     /**
@@ -137,7 +292,7 @@ public class FilmeService {
 
         // Soft delete - apenas marcar como inativo
         filme.setAtivo(false);
-        filmeRepository.save(filme);
+        notificarFilmeSalvo(filmeRepository.save(filme));
     }
 
     /**
@@ -148,22 +303,27 @@ public class FilmeService {
             throw new RuntimeException("Filme não encontrado com ID: " + id);
         }
         filmeRepository.deleteById(id);
+        for (CatalogoFilmeListener listener : catalogoListeners) {
+            listener.filmeRemovido(id);
+        }
     }
 
     // MÉTODOS AUXILIARES E DE BUSCA
 
     /**
-     * Buscar filmes por título
+     * Buscar filmes por título (palavras do título começando com os termos, pelo índice do catálogo)
      */
     public List<Filme> getByTitulo(String titulo) {
-        return filmeRepository.findByTituloContainingIgnoreCase(titulo);
+        List<Long> ids = buscaCatalogoService.buscar(Campo.TITULO, titulo);
+        return ids != null ? carregarEmOrdem(ids) : filmeRepository.findByTituloContainingIgnoreCase(titulo);
     }
 
     /**
-     * Buscar filmes por gênero
+     * Buscar filmes por gênero (sem diferenciar acentos e maiúsculas, pelo índice do catálogo)
      */
     public List<Filme> getByGenero(String genero) {
-        return filmeRepository.findByGeneroIgnoreCase(genero);
+        List<Long> ids = buscaCatalogoService.buscar(Campo.GENERO, genero);
+        return ids != null ? carregarEmOrdem(ids) : filmeRepository.findByGeneroIgnoreCase(genero);
     }
 
     /**
@@ -174,10 +334,156 @@ public class FilmeService {
     }
 
     /**
-     * Buscar filmes por diretor
+     * Buscar filmes por diretor (palavras do nome começando com os termos, pelo índice do catálogo)
      */
     public List<Filme> getByDiretor(String diretor) {
-        return filmeRepository.findByDiretorContainingIgnoreCase(diretor);
+        List<Long> ids = buscaCatalogoService.buscar(Campo.DIRETOR, diretor);
+        return ids != null ? carregarEmOrdem(ids) : filmeRepository.findByDiretorContainingIgnoreCase(diretor);
+    }
+
+    /**
+     * IDs do índice do catálogo para o texto do campo, intersectados com os já encontrados
+     * (null = campo sem filtro e nenhum filtro de texto anterior)
+     */
+    private List<Long> restringirPorTexto(List<Long> atuais, Campo campo, String texto, String nomeCampo) {
+        if (texto == null || texto.isBlank()) {
+            return atuais;
+        }
+        List<Long> encontrados = buscaCatalogoService.buscar(campo, texto);
+        if (encontrados == null) {
+            throw new IllegalArgumentException("Informe no filtro de " + nomeCampo
+                    + " ao menos um termo com 2 ou mais caracteres");
+        }
+        if (atuais == null) {
+            return encontrados;
+        }
+        Set<Long> emAmbos = new HashSet<>(encontrados);
+        return atuais.stream().filter(emAmbos::contains).toList();
+    }
+
+    /**
+     * Ordenação pedida, com o ID como desempate (páginas estáveis)
+     */
+    private Sort ordenacao(FiltroBusca filtro) {
+        String chave = filtro.ordenarPor() != null && !filtro.ordenarPor().isBlank() ? filtro.ordenarPor() : "titulo";
+        String campo = CAMPOS_ORDENACAO.get(chave);
+        if (campo == null) {
+            throw new IllegalArgumentException("Ordenação inválida: " + chave
+                    + ". Use uma de " + CAMPOS_ORDENACAO.keySet().stream().sorted().toList());
+        }
+
+        Sort.Direction direcao;
+        if (filtro.direcao() == null || filtro.direcao().isBlank()) {
+            direcao = "popularidade".equals(chave) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        } else {
+            direcao = Sort.Direction.fromOptionalString(filtro.direcao())
+                    .orElseThrow(() -> new IllegalArgumentException("Direção inválida: use asc ou desc"));
+        }
+        Sort ordenacao = Sort.by(direcao, campo);
+        return "id".equals(campo) ? ordenacao : ordenacao.and(Sort.by(direcao, "id"));
+    }
+
+    /**
+     * Página dos filmes encontrados nos índices: ordenados em memória (chaves do índice de facetas, acessos do
+     * ranking para popularidade) com o ID como desempate e nulos por último na ordem crescente, como no banco.
+     * Só os IDs da página são carregados; um filme desativado por outra instância e ainda não refletido no
+     * índice sai da página.
+     */
+    private Page<Filme> paginarEmMemoria(long[] filmeIds, Pageable pagina) {
+        if (pagina.getOffset() >= filmeIds.length) {
+            return new PageImpl<>(List.of(), pagina, filmeIds.length);
+        }
+        Sort.Order ordem = pagina.getSort().iterator().next();
+        Comparable<?>[] chaves = chavesOrdenacao(ordem.getProperty(), filmeIds);
+        Comparator<Integer> comparador = (a, b) -> compararChaves(chaves[a], chaves[b]);
+        comparador = comparador.thenComparingLong(posicao -> filmeIds[posicao]);
+        if (ordem.isDescending()) {
+            comparador = comparador.reversed();
+        }
+
+        Integer[] posicoes = new Integer[filmeIds.length];
+        for (int i = 0; i < posicoes.length; i++) {
+            posicoes[i] = i;
+        }
+        Arrays.sort(posicoes, comparador);
+
+        int fim = (int) Math.min(filmeIds.length, pagina.getOffset() + pagina.getPageSize());
+        List<Long> idsPagina = new ArrayList<>(fim - (int) pagina.getOffset());
+        for (int i = (int) pagina.getOffset(); i < fim; i++) {
+            idsPagina.add(filmeIds[posicoes[i]]);
+        }
+        Map<Long, Filme> carregados = new HashMap<>();
+        for (Filme filme : filmeRepository.findAllById(idsPagina)) {
+            if (Boolean.TRUE.equals(filme.getAtivo())) {
+                carregados.put(filme.getId(), filme);
+            }
+        }
+        List<Filme> filmes = idsPagina.stream().map(carregados::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(filmes, pagina, filmeIds.length);
+    }
+
+    /**
+     * Chave de ordenação de cada filme, pelo atributo de Filme escolhido em CAMPOS_ORDENACAO (null para id)
+     */
+    private Comparable<?>[] chavesOrdenacao(String campo, long[] filmeIds) {
+        return switch (campo) {
+            case "titulo" -> facetasCatalogoService.chavesOrdenacao(filmeIds, ChaveOrdenacao.TITULO);
+            case "genero" -> facetasCatalogoService.chavesOrdenacao(filmeIds, ChaveOrdenacao.GENERO);
+            case "diretor" -> facetasCatalogoService.chavesOrdenacao(filmeIds, ChaveOrdenacao.DIRETOR);
+            case "anoLancamento" -> facetasCatalogoService.chavesOrdenacao(filmeIds, ChaveOrdenacao.ANO);
+            case "duracao" -> facetasCatalogoService.chavesOrdenacao(filmeIds, ChaveOrdenacao.DURACAO);
+            case "dataCriacao" -> facetasCatalogoService.chavesOrdenacao(filmeIds, ChaveOrdenacao.DATA_CRIACAO);
+            case "contadorAcessos" -> Arrays.stream(filmeIds)
+                    .mapToObj(rankingPopularidadeService::getAcessos)
+                    .toArray(Comparable<?>[]::new);
+            default -> new Comparable<?>[filmeIds.length];
+        };
+    }
+
+    // Nulos depois de qualquer valor
+    @SuppressWarnings("unchecked")
+    private static int compararChaves(Comparable<?> a, Comparable<?> b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : a == null ? 1 : -1;
+        }
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+
+    private static boolean ordenaPorPopularidade(Pageable pagina) {
+        return pagina.getSort().getOrderFor("contadorAcessos") != null;
+    }
+
+    private boolean temFiltroDeAtributo(FiltroBusca filtro) {
+        return (filtro.generos() != null && !filtro.generos().isEmpty())
+                || filtro.anoMinimo() != null || filtro.anoMaximo() != null
+                || (filtro.decadas() != null && !filtro.decadas().isEmpty())
+                || filtro.duracaoMinima() != null || filtro.duracaoMaxima() != null
+                || (filtro.faixasDuracao() != null && !filtro.faixasDuracao().isEmpty());
+    }
+
+    private void validarFaixa(Integer minimo, Integer maximo, String nomeCampo) {
+        if (minimo != null && maximo != null && minimo > maximo) {
+            throw new IllegalArgumentException("Faixa de " + nomeCampo + " inválida: mínimo maior que o máximo");
+        }
+    }
+
+    /**
+     * Filmes dos IDs encontrados no índice, em ordem de ID
+     */
+    private List<Filme> carregarEmOrdem(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Filme> filmes = filmeRepository.findAllById(ids);
+        filmes.sort(Comparator.comparing(Filme::getId));
+        return filmes;
+    }
+
+    /**
+     * Dados dos filmes ativos informados (lidos do ranking em memória), indexados por ID
+     */
+    public Map<Long, FilmeResumoRanking> getResumosAtivos(Collection<Long> ids) {
+        return rankingPopularidadeService.getResumos(ids);
     }
 
     /**
@@ -188,18 +494,25 @@ public class FilmeService {
     }
 
     /**
-     * REQUISITO OBRIGATÓRIO: Top N filmes mais populares
+     * REQUISITO OBRIGATÓRIO: ranking de popularidade (geral e partições por gênero/ano).
+     * Snapshot imutável em memória, lido sem locks e sem consulta ao banco.
      */
-    public List<Filme> getTopFilmesByPopularidade(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return filmeRepository.findTopFilmesByPopularidade(pageable);
+    public SnapshotRanking getSnapshotRanking() {
+        return rankingPopularidadeService.getSnapshot();
     }
 
     /**
-     * REQUISITO OBRIGATÓRIO: Buscar filmes com filtros ordenados por popularidade
+     * Total de filmes ativos (leaderboard em memória)
      */
-    public List<Filme> getFilmesComFiltrosByPopularidade(String genero, Integer ano) {
-        return filmeRepository.findFilmesComFiltrosOrderByPopularidade(genero, ano);
+    public int contarFilmesAtivos() {
+        return rankingPopularidadeService.getTotalFilmesAtivos();
+    }
+
+    /**
+     * Posições do filme no ranking geral, do gênero e do ano (vazio se o filme não está ativo)
+     */
+    public Optional<RankingPopularidadeService.PosicoesFilme> getPosicoesRanking(Long id, CriterioRanking criterio) {
+        return Optional.ofNullable(rankingPopularidadeService.getPosicoes(id, criterio));
     }
 
     /**
@@ -210,7 +523,7 @@ public class FilmeService {
                 .orElseThrow(() -> new RuntimeException("Filme não encontrado com ID: " + id));
 
         filme.setAtivo(true);
-        return filmeRepository.save(filme);
+        return notificarFilmeSalvo(filmeRepository.save(filme));
     }
 
     /**
@@ -221,7 +534,7 @@ public class FilmeService {
                 .orElseThrow(() -> new RuntimeException("Filme não encontrado com ID: " + id));
 
         filme.setAtivo(false);
-        return filmeRepository.save(filme);
+        return notificarFilmeSalvo(filmeRepository.save(filme));
     }
 
     /**
@@ -231,14 +544,38 @@ public class FilmeService {
         Filme filme = filmeRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Filme não encontrado com ID: " + id));
 
+        // Contador não é gravado pela entidade: zerar direto no banco e descartar o que está pendente
+        contadorAcessosRepository.resetarAcessos(id);
+        contadorAcessosService.descartarPendentes(id);
+        for (CatalogoFilmeListener listener : catalogoListeners) {
+            listener.contadorResetado(id);
+        }
         filme.setContadorAcessos(0L);
-        return filmeRepository.save(filme);
+        return filme;
+    }
+
+    /**
+     * Contador de acessos atual do filme: total ao vivo do ranking em memória para filmes ativos;
+     * para os demais, persistido + fatias + acessos ainda não gravados
+     */
+    public Long getContadorAcessosAtual(Filme filme) {
+        OptionalLong acessos = rankingPopularidadeService.getAcessosAoVivo(filme.getId());
+        return acessos.isPresent() ? acessos.getAsLong() : contadorAcessosService.getContadorAtual(filme);
+    }
+
+    /**
+     * Estimativa de usuários distintos que abriram os detalhes do filme
+     */
+    public long getVisualizadoresUnicos(Long id) {
+        return visualizadoresService.getVisualizadoresUnicos(id);
     }
 
     /**
-     * Obter estatísticas de gêneros
+     * Obter estatísticas de gêneros: {gênero, total de filmes ativos}, contados nos bitmaps do índice de facetas
      */
     public List<Object[]> getEstatisticasPorGenero() {
-        return filmeRepository.countFilmesByGenero();
+        return facetasCatalogoService.contarAtivosPorGenero().stream()
+                .map(contagem -> new Object[]{contagem.valor(), contagem.total()})
+                .toList();
     }
 }
\ No newline at end of file
@@ -15,6 +15,9 @@ public class ListaFavoritosService {
     @Autowired
     private ListaFavoritosRepository listaFavoritosRepository;
 
+    @Autowired
+    private EstatisticasGlobaisService estatisticasGlobaisService;
+
     // MÉTODOS CRUD OBRIGATÓRIOS
 
     /**
@@ -40,7 +43,9 @@ public class ListaFavoritosService {
             listaFavoritos.setPublica(true);
         }
 
-        return listaFavoritosRepository.save(listaFavoritos);
+        ListaFavoritos criada = listaFavoritosRepository.save(listaFavoritos);
+        estatisticasGlobaisService.listaCriada();
+        return criada;
     }
 
     /**
@@ -77,6 +82,7 @@ public class ListaFavoritosService {
             throw new RuntimeException("Lista de favoritos não encontrada com ID: " + id);
         }
         listaFavoritosRepository.deleteById(id);
+        estatisticasGlobaisService.listaRemovida();
     }
 
     // MÉTODOS AUXILIARES
@@ -0,0 +1,274 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.eventlog.EventoAcesso;
+import com.streamflix.api.eventlog.RingBufferEventos;
+import com.streamflix.api.eventlog.SegmentoLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Log append-only dos acessos a filmes (filmeId, usuarioId, timestamp) em segmentos mapeados em memória.
+ *
+ * A requisição só publica o evento em uma fila circular sem locks; uma única thread de escrita
+ * consome a fila e acrescenta os registros no segmento atual. Os segmentos rolam por tamanho e
+ * por idade, e os mais antigos que a retenção são apagados. A reprodução lê os segmentos em ordem
+ * para recalcular contadores, tendências ou consolidados diários a partir dos eventos brutos.
+ */
+@Service
+public class LogAcessosService implements AcessoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LogAcessosService.class);
+
+    private static final int LOTE_CONSUMO = 4096;
+
+    // Eventos chegam à fila fora de ordem por alguns milissegundos: folga ao escolher segmentos pelo horário
+    private static final long TOLERANCIA_ORDEM_MS = 1000;
+
+    @Value("${app.eventlog.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${app.eventlog.diretorio:data/eventos}")
+    private String diretorio;
+
+    @Value("${app.eventlog.segmento-bytes:16777216}")
+    private int tamanhoSegmento;
+
+    @Value("${app.eventlog.segmento-max-ms:3600000}")
+    private long idadeMaximaSegmentoMs;
+
+    @Value("${app.eventlog.ring-capacidade:65536}")
+    private int capacidadeFila;
+
+    @Value("${app.eventlog.sync-interval-ms:1000}")
+    private long intervaloSincronizacaoMs;
+
+    @Value("${app.eventlog.retencao-dias:30}")
+    private int retencaoDias;
+
+    private Path pasta;
+    private RingBufferEventos fila;
+    private Thread escritor;
+    private volatile boolean executando;
+
+    // Estado abaixo é acessado só pela thread de escrita
+    private SegmentoLog segmento;
+    private long proximaSequencia;
+    private long ultimaSincronizacaoMs;
+    private boolean alteradoDesdeSincronizacao;
+
+    /**
+     * Consolidado de uma reprodução do log
+     */
+    public record AgregadoAcessos(long totalEventos, Map<Long, Long> acessosPorFilme, TreeMap<LocalDate, Long> acessosPorDia) {
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        if (!habilitado) {
+            return;
+        }
+        pasta = Paths.get(diretorio).toAbsolutePath();
+        Files.createDirectories(pasta);
+        proximaSequencia = listarSegmentos().stream()
+                .mapToLong(SegmentoLog::sequenciaDoNome)
+                .max()
+                .orElse(-1L) + 1;
+
+        fila = new RingBufferEventos(capacidadeFila);
+        executando = true;
+        escritor = new Thread(this::loopEscrita, "log-acessos-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+        log.info("Log de acessos em {} (próximo segmento: {})", pasta, proximaSequencia);
+    }
+
+    @Override
+    public void registrarAcesso(Long filmeId, Long usuarioId) {
+        if (fila != null) {
+            fila.publicar(filmeId, usuarioId != null ? usuarioId : 0L, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Eventos descartados por fila cheia desde a subida
+     */
+    public long getEventosDescartados() {
+        return fila != null ? fila.getDescartados() : 0L;
+    }
+
+    /**
+     * Reproduzir os eventos com timestamp em [desdeMs, ateMs), em ordem de gravação.
+     * Inclui o segmento em escrita (até o último registro completo). Retorna quantos eventos foram lidos.
+     */
+    public long reproduzir(long desdeMs, long ateMs, Consumer<EventoAcesso> consumidor) {
+        if (pasta == null) {
+            throw new IllegalStateException("Log de acessos desabilitado");
+        }
+
+        List<Path> segmentos = listarSegmentos();
+        long[] total = {0};
+        for (int i = 0; i < segmentos.size(); i++) {
+            // O segmento cobre do seu instante de criação até a criação do próximo
+            long inicio = SegmentoLog.criadoEmDoNome(segmentos.get(i));
+            boolean ultimo = i + 1 == segmentos.size();
+            long fim = ultimo ? Long.MAX_VALUE : SegmentoLog.criadoEmDoNome(segmentos.get(i + 1));
+            if ((!ultimo && fim + TOLERANCIA_ORDEM_MS < desdeMs) || inicio - TOLERANCIA_ORDEM_MS >= ateMs) {
+                continue;
+            }
+            try {
+                SegmentoLog.ler(segmentos.get(i), evento -> {
+                    if (evento.timestampMs() >= desdeMs && evento.timestampMs() < ateMs) {
+                        total[0]++;
+                        consumidor.accept(evento);
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao ler segmento " + segmentos.get(i), e);
+            }
+        }
+        return total[0];
+    }
+
+    /**
+     * Recalcular a partir do log os acessos por filme e por dia no período
+     */
+    public AgregadoAcessos agregar(Instant desde, Instant ate, ZoneId fuso) {
+        Map<Long, Long> porFilme = new HashMap<>();
+        Map<Long, Long> porDiaEpoch = new HashMap<>();
+        long total = reproduzir(desde.toEpochMilli(), ate.toEpochMilli(), evento -> {
+            porFilme.merge(evento.filmeId(), 1L, Long::sum);
+            long dia = LocalDate.ofInstant(Instant.ofEpochMilli(evento.timestampMs()), fuso).toEpochDay();
+            porDiaEpoch.merge(dia, 1L, Long::sum);
+        });
+
+        TreeMap<LocalDate, Long> porDia = new TreeMap<>();
+        porDiaEpoch.forEach((dia, acessos) -> porDia.put(LocalDate.ofEpochDay(dia), acessos));
+        return new AgregadoAcessos(total, porFilme, porDia);
+    }
+
+    @PreDestroy
+    void parar() throws InterruptedException {
+        if (escritor == null) {
+            return;
+        }
+        executando = false;
+        LockSupport.unpark(escritor);
+        escritor.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void loopEscrita() {
+        while (executando || fila.getPendentes() > 0) {
+            int consumidos = 0;
+            try {
+                consumidos = fila.consumir(this::gravar, LOTE_CONSUMO);
+                manutencao(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                log.error("Falha no escritor do log de acessos", e);
+            }
+            if (consumidos == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+        fecharSegmento();
+    }
+
+    private void gravar(long filmeId, long usuarioId, long timestampMs) {
+        try {
+            if (segmento == null) {
+                abrirSegmento(timestampMs);
+            }
+            if (!segmento.acrescentar(filmeId, usuarioId, timestampMs)) {
+                // Segmento cheio: rola por tamanho
+                fecharSegmento();
+                abrirSegmento(timestampMs);
+                segmento.acrescentar(filmeId, usuarioId, timestampMs);
+            }
+            alteradoDesdeSincronizacao = true;
+        } catch (IOException e) {
+            log.error("Evento de acesso ao filme {} perdido: falha no segmento do log", filmeId, e);
+        }
+    }
+
+    /**
+     * Sincronização periódica com o disco e rolagem por idade
+     */
+    private void manutencao(long agoraMs) {
+        if (alteradoDesdeSincronizacao && agoraMs - ultimaSincronizacaoMs >= intervaloSincronizacaoMs) {
+            segmento.sincronizar();
+            alteradoDesdeSincronizacao = false;
+            ultimaSincronizacaoMs = agoraMs;
+        }
+        if (segmento != null && !segmento.isVazio() && agoraMs - segmento.getCriadoEmMs() >= idadeMaximaSegmentoMs) {
+            fecharSegmento();
+        }
+    }
+
+    private void abrirSegmento(long agoraMs) throws IOException {
+        segmento = SegmentoLog.criar(pasta, proximaSequencia++, agoraMs, tamanhoSegmento);
+        removerSegmentosExpirados(agoraMs);
+    }
+
+    private void fecharSegmento() {
+        if (segmento == null) {
+            return;
+        }
+        try {
+            segmento.close();
+        } catch (IOException e) {
+            log.warn("Falha ao fechar segmento {} do log de acessos", segmento.getArquivo(), e);
+        }
+        segmento = null;
+        alteradoDesdeSincronizacao = false;
+    }
+
+    private void removerSegmentosExpirados(long agoraMs) {
+        long limite = agoraMs - TimeUnit.DAYS.toMillis(retencaoDias);
+        List<Path> segmentos = listarSegmentos();
+        // Um segmento expira quando o seguinte foi criado antes do limite (todos os seus eventos são mais antigos)
+        for (int i = 0; i + 1 < segmentos.size(); i++) {
+            if (SegmentoLog.criadoEmDoNome(segmentos.get(i + 1)) >= limite) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segmentos.get(i));
+            } catch (IOException e) {
+                log.warn("Falha ao remover segmento expirado {}", segmentos.get(i), e);
+            }
+        }
+    }
+
+    private List<Path> listarSegmentos() {
+        try (Stream<Path> arquivos = Files.list(pasta)) {
+            List<Path> segmentos = new ArrayList<>(arquivos
+                    .filter(arquivo -> SegmentoLog.sequenciaDoNome(arquivo) >= 0)
+                    .toList());
+            segmentos.sort(Comparator.comparingLong(SegmentoLog::sequenciaDoNome));
+            return segmentos;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao listar segmentos do log de acessos", e);
+        }
+    }
+}
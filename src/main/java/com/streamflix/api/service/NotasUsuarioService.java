@@ -0,0 +1,175 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.outbox.EventoAvaliacao;
+import com.streamflix.api.repository.AvaliacaoRepository;
+import com.streamflix.api.util.LongByteHashMap;
+import com.streamflix.api.util.Transacoes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notas que cada usuário deu aos filmes (filmeId -> nota), para marcar "já avaliado" nas listagens.
+ * O mapa de um usuário é carregado com uma consulta no primeiro uso e fica em um cache LRU limitado
+ * a app.notas-usuario.max-usuarios. As escritas feitas nesta instância e os eventos do outbox despachados
+ * por ela o atualizam depois do commit; os eventos despachados por outras instâncias não chegam aqui, então
+ * o mapa é recarregado quando tem mais de app.notas-usuario.ttl-ms.
+ */
+@Service
+public class NotasUsuarioService implements CatalogoFilmeListener, ProjetorAvaliacoes {
+
+    // Valor do mapa para "filme não avaliado"
+    private static final byte SEM_NOTA = 0;
+
+    @Autowired
+    private AvaliacaoRepository avaliacaoRepository;
+
+    @Value("${app.notas-usuario.max-usuarios:10000}")
+    private int maxUsuarios;
+
+    @Value("${app.notas-usuario.ttl-ms:300000}")
+    private long ttlMs;
+
+    // Usuário -> notas, em ordem de acesso (o menos usado é descartado). Protegido pelo lock do próprio service.
+    private final LinkedHashMap<Long, NotasCarregadas> notasPorUsuario = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, NotasCarregadas> maisAntigo) {
+            return size() > maxUsuarios;
+        }
+    };
+
+    // Notas de um usuário e quando foram lidas do banco
+    private record NotasCarregadas(LongByteHashMap notas, long carregadasEmMs) {
+    }
+
+    // Cargas em andamento: mudanças {filmeId, nota} recebidas enquanto a consulta roda, aplicadas no fim
+    private final Map<Long, Carga> cargas = new HashMap<>();
+
+    private static final class Carga {
+        int leitores;
+        final List<long[]> mudancas = new ArrayList<>();
+    }
+
+    /**
+     * Notas do usuário nos filmes pedidos (só os avaliados)
+     */
+    public Map<Long, Integer> getNotas(Long usuarioId, Collection<Long> filmeIds) {
+        LongByteHashMap notas = null;
+        synchronized (this) {
+            NotasCarregadas carregadas = notasPorUsuario.get(usuarioId);
+            if (carregadas != null && System.currentTimeMillis() - carregadas.carregadasEmMs() < ttlMs) {
+                notas = carregadas.notas();
+            }
+        }
+        if (notas == null) {
+            notas = carregar(usuarioId);
+        }
+
+        Map<Long, Integer> resultado = new LinkedHashMap<>();
+        synchronized (this) {
+            for (Long filmeId : filmeIds) {
+                byte nota = notas.get(filmeId);
+                if (nota != SEM_NOTA) {
+                    resultado.put(filmeId, (int) nota);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Registrar a nota atual de cada evento (0 = avaliação removida), aplicada depois do commit
+     */
+    @Override
+    public void projetar(List<EventoAvaliacao> eventos) {
+        Transacoes.depoisDoCommit(() -> eventos.forEach(evento ->
+                aplicar(evento.usuarioId(), evento.filmeId(), evento.notaNova())));
+    }
+
+    /**
+     * Escrita feita nesta instância (na transação que gravou os eventos no outbox): aplicada depois do commit,
+     * sem esperar o despacho, que pode acontecer em outra instância
+     */
+    public void registrarEscrita(List<EventoAvaliacao> eventos) {
+        projetar(eventos);
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        // As notas não dependem dos dados do filme
+    }
+
+    @Override
+    public synchronized void filmeRemovido(Long filmeId) {
+        // As avaliações do filme são removidas em cascata
+        for (NotasCarregadas carregadas : notasPorUsuario.values()) {
+            carregadas.notas().remove(filmeId);
+        }
+        for (Carga carga : cargas.values()) {
+            carga.mudancas.add(new long[]{filmeId, SEM_NOTA});
+        }
+    }
+
+    private LongByteHashMap carregar(Long usuarioId) {
+        synchronized (this) {
+            cargas.computeIfAbsent(usuarioId, id -> new Carga()).leitores++;
+        }
+
+        LongByteHashMap notas = null;
+        long inicio = System.currentTimeMillis();
+        try {
+            List<Object[]> linhas = avaliacaoRepository.findNotasByUsuarioId(usuarioId);
+            notas = new LongByteHashMap(linhas.size(), SEM_NOTA);
+            for (Object[] linha : linhas) {
+                notas.put(((Number) linha[0]).longValue(), ((Number) linha[1]).byteValue());
+            }
+        } finally {
+            synchronized (this) {
+                Carga carga = cargas.get(usuarioId);
+                if (notas != null) {
+                    for (long[] mudanca : carga.mudancas) {
+                        atualizar(notas, mudanca[0], (int) mudanca[1]);
+                    }
+                    // Outra carga concorrente pode ter terminado antes: fica a mais recente no cache
+                    NotasCarregadas existente = notasPorUsuario.get(usuarioId);
+                    if (existente != null && existente.carregadasEmMs() >= inicio) {
+                        notas = existente.notas();
+                    } else {
+                        notasPorUsuario.put(usuarioId, new NotasCarregadas(notas, inicio));
+                    }
+                }
+                if (--carga.leitores == 0) {
+                    cargas.remove(usuarioId);
+                }
+            }
+        }
+        return notas;
+    }
+
+    private synchronized void aplicar(Long usuarioId, Long filmeId, int nota) {
+        NotasCarregadas carregadas = notasPorUsuario.get(usuarioId);
+        if (carregadas != null) {
+            atualizar(carregadas.notas(), filmeId, nota);
+        }
+        Carga carga = cargas.get(usuarioId);
+        if (carga != null) {
+            carga.mudancas.add(new long[]{filmeId, nota});
+        }
+    }
+
+    private static void atualizar(LongByteHashMap notas, long filmeId, int nota) {
+        if (nota == SEM_NOTA) {
+            notas.remove(filmeId);
+        } else {
+            notas.put(filmeId, (byte) nota);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.outbox.EventoAvaliacao;
+import com.streamflix.api.repository.OutboxRepository;
+import com.streamflix.api.util.Transacoes;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox transacional das avaliações: o AvaliacaoService grava um evento por mudança na mesma
+ * transação e um job despacha os eventos em lotes, em ordem de ID, para os ProjetorAvaliacoes
+ * (agregados, busca nos comentários, notas por usuário). Cada lote é travado com SKIP LOCKED,
+ * projetado e removido em uma transação; em falha o lote volta e é reprocessado (pelo menos uma vez).
+ * Métricas: outbox.avaliacoes.pendentes, outbox.avaliacoes.atraso (idade do mais antigo, segundos),
+ * outbox.avaliacoes.despachados, outbox.avaliacoes.falhas e outbox.avaliacoes.latencia (criação até o despacho).
+ */
+@Service
+public class OutboxAvaliacoesService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxAvaliacoesService.class);
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private List<ProjetorAvaliacoes> projetores;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.outbox.lote:500}")
+    private int tamanhoLote;
+
+    // Lidos pelos gauges; atualizados pelo job de métricas
+    private final AtomicLong pendentes = new AtomicLong();
+    private final AtomicLong atrasoMs = new AtomicLong();
+
+    private Counter despachados;
+    private Counter falhas;
+    private Timer latencia;
+
+    @PostConstruct
+    public void registrarMetricas() {
+        Gauge.builder("outbox.avaliacoes.pendentes", pendentes, AtomicLong::get)
+                .description("Eventos de avaliação ainda não despachados")
+                .register(meterRegistry);
+        Gauge.builder("outbox.avaliacoes.atraso", atrasoMs, valor -> valor.get() / 1000.0)
+                .description("Idade do evento pendente mais antigo")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        despachados = Counter.builder("outbox.avaliacoes.despachados").register(meterRegistry);
+        falhas = Counter.builder("outbox.avaliacoes.falhas").register(meterRegistry);
+        latencia = Timer.builder("outbox.avaliacoes.latencia")
+                .description("Tempo entre a gravação do evento e o seu despacho")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gravar eventos na transação atual (chamado pelo AvaliacaoService junto com a escrita)
+     */
+    public void registrar(List<EventoAvaliacao> eventos) {
+        outboxRepository.registrar(eventos);
+    }
+
+    public void registrar(EventoAvaliacao evento) {
+        outboxRepository.registrar(List.of(evento));
+    }
+
+    /**
+     * Job de despacho: processa lotes até esvaziar o outbox (ou até a primeira falha)
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.intervalo-ms:200}",
+            initialDelayString = "${app.outbox.intervalo-ms:200}")
+    public void despachar() {
+        try {
+            Integer processados;
+            do {
+                processados = transactionTemplate.execute(status -> despacharLote());
+            } while (processados != null && processados == tamanhoLote);
+        } catch (RuntimeException e) {
+            falhas.increment();
+            log.warn("Falha ao despachar eventos de avaliação, o lote será reprocessado", e);
+        }
+    }
+
+    /**
+     * Job de métricas: quantidade de pendentes e idade do mais antigo
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.metricas-interval-ms:10000}",
+            initialDelayString = "${app.outbox.metricas-interval-ms:10000}")
+    public void atualizarMetricas() {
+        try {
+            OutboxRepository.Pendentes atuais = outboxRepository.pendentes();
+            pendentes.set(atuais.total());
+            atrasoMs.set(atuais.maisAntigo() != null
+                    ? Math.max(0, Duration.between(atuais.maisAntigo(), LocalDateTime.now()).toMillis())
+                    : 0);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao ler os eventos pendentes do outbox", e);
+        }
+    }
+
+    private int despacharLote() {
+        List<EventoAvaliacao> eventos = outboxRepository.travarPendentes(tamanhoLote);
+        if (eventos.isEmpty()) {
+            return 0;
+        }
+
+        // Removidos antes de projetar: dentro desta transação o lote já não conta como pendente
+        // (o AvaliacoesAgregadoRepository desconta os pendentes ao recalcular um agregado)
+        outboxRepository.remover(eventos);
+        for (ProjetorAvaliacoes projetor : projetores) {
+            projetor.projetar(eventos);
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        Transacoes.depoisDoCommit(() -> {
+            despachados.increment(eventos.size());
+            for (EventoAvaliacao evento : eventos) {
+                latencia.record(Duration.between(evento.dataCriacao(), agora));
+            }
+        });
+        return eventos.size();
+    }
+}
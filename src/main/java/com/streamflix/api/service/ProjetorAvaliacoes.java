@@ -0,0 +1,20 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.outbox.EventoAvaliacao;
+
+import java.util.List;
+
+/**
+ * Consumidor dos eventos de avaliação despachados do outbox pelo OutboxAvaliacoesService.
+ * Mantém os dados derivados das avaliações (agregados, índices, caches) fora da transação da escrita.
+ */
+public interface ProjetorAvaliacoes {
+
+    /**
+     * Aplicar um lote de eventos, em ordem de ID, dentro da transação que os retira do outbox.
+     * A entrega é pelo menos uma vez: se qualquer projetor falhar o lote inteiro volta e é
+     * reprocessado, então gravações no banco devem rodar nesta transação e mudanças em memória
+     * depois do commit (Transacoes.depoisDoCommit).
+     */
+    void projetar(List<EventoAvaliacao> eventos);
+}
@@ -0,0 +1,156 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.ranking.FilmeResumoRanking;
+import com.streamflix.api.service.AvaliacoesAgregadoService.AgregadoAvaliacoes;
+import com.streamflix.api.util.Textos;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranking das melhores avaliações por média bayesiana (estilo IMDb):
+ * nota = (soma + m * C) / (votos + m), com m = peso do prior e C = média geral.
+ * Soma e total de notas por filme vêm do AvaliacoesAgregadoService (memória);
+ * um job reordena o ranking quando algo mudou, então a leitura custa O(K).
+ */
+@Service
+public class RankingAvaliacoesService implements CatalogoFilmeListener {
+
+    @Autowired
+    private AvaliacoesAgregadoService avaliacoesAgregadoService;
+
+    @Autowired
+    private RankingPopularidadeService rankingPopularidadeService;
+
+    @Value("${app.avaliacoes.peso-prior:10}")
+    private double pesoPrior;
+
+    // Versão dos agregados usada no ranking atual (-1 = recalcular)
+    private volatile long versaoCalculada = -1;
+
+    // Ranking geral e por gênero (normalizado), publicado pelo job de recálculo
+    private volatile Ranking ranking = new Ranking(List.of(), Map.of());
+
+    private record Ranking(List<Classificacao> geral, Map<String, List<Classificacao>> porGenero) {
+    }
+
+    /**
+     * Filme no ranking de avaliações
+     */
+    public record Classificacao(FilmeResumoRanking filme, double mediaNotas, long totalAvaliacoes,
+                                double notaPonderada) {
+    }
+
+    /**
+     * Classificação e posição (começando em 1) no ranking filtrado
+     */
+    public record PosicaoAvaliacoes(Classificacao classificacao, int posicao) {
+    }
+
+    /**
+     * Montar o ranking na subida, depois dos agregados (@Order 15) e do ranking de popularidade (dados dos filmes)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(20)
+    public void inicializar() {
+        recalcular();
+    }
+
+    /**
+     * Job de recálculo: reordena o ranking se algum agregado ou o catálogo mudou
+     */
+    @Scheduled(fixedDelayString = "${app.avaliacoes.ranking-interval-ms:5000}",
+            initialDelayString = "${app.avaliacoes.ranking-interval-ms:5000}")
+    public synchronized void recalcular() {
+        long versao = avaliacoesAgregadoService.getVersao();
+        if (versao == versaoCalculada) {
+            return;
+        }
+        versaoCalculada = versao;
+
+        Map<Long, AgregadoAvaliacoes> atuais = avaliacoesAgregadoService.getAgregados();
+        Map<Long, FilmeResumoRanking> filmes = rankingPopularidadeService.getResumos(atuais.keySet());
+
+        long somaGeral = 0;
+        long totalGeral = 0;
+        for (Map.Entry<Long, AgregadoAvaliacoes> entrada : atuais.entrySet()) {
+            if (filmes.containsKey(entrada.getKey())) {
+                somaGeral += entrada.getValue().somaNotas();
+                totalGeral += entrada.getValue().totalAvaliacoes();
+            }
+        }
+        double mediaGeral = totalGeral > 0 ? (double) somaGeral / totalGeral : 0.0;
+
+        List<Classificacao> geral = new ArrayList<>(filmes.size());
+        for (Map.Entry<Long, AgregadoAvaliacoes> entrada : atuais.entrySet()) {
+            FilmeResumoRanking filme = filmes.get(entrada.getKey());
+            long soma = entrada.getValue().somaNotas();
+            long total = entrada.getValue().totalAvaliacoes();
+            if (filme == null || total <= 0) {
+                continue;
+            }
+            double notaPonderada = (soma + pesoPrior * mediaGeral) / (total + pesoPrior);
+            geral.add(new Classificacao(filme, (double) soma / total, total, notaPonderada));
+        }
+        geral.sort(Comparator.comparingDouble(Classificacao::notaPonderada).reversed()
+                .thenComparing(Comparator.comparingLong(Classificacao::totalAvaliacoes).reversed())
+                .thenComparing(c -> c.filme().id()));
+
+        // Partições por gênero: filtros da lista geral (já ordenada)
+        Map<String, List<Classificacao>> porGenero = new HashMap<>();
+        for (Classificacao classificacao : geral) {
+            String genero = Textos.normalizar(classificacao.filme().genero());
+            if (genero != null) {
+                porGenero.computeIfAbsent(genero, g -> new ArrayList<>()).add(classificacao);
+            }
+        }
+        porGenero.replaceAll((genero, lista) -> List.copyOf(lista));
+
+        ranking = new Ranking(List.copyOf(geral), porGenero);
+    }
+
+    /**
+     * Top N por nota ponderada, opcionalmente no gênero e só com filmes com pelo menos minVotos avaliações.
+     * Percorre a lista já ordenada: O(N + filmes pulados pelo mínimo de votos).
+     */
+    public List<PosicaoAvaliacoes> getTop(String genero, int minVotos, int limite) {
+        Ranking atual = ranking;
+        String generoNormalizado = Textos.normalizar(genero);
+        List<Classificacao> lista = generoNormalizado == null
+                ? atual.geral()
+                : atual.porGenero().getOrDefault(generoNormalizado, List.of());
+
+        List<PosicaoAvaliacoes> resultado = new ArrayList<>(Math.max(0, Math.min(limite, lista.size())));
+        for (Classificacao classificacao : lista) {
+            if (resultado.size() >= limite) {
+                break;
+            }
+            if (classificacao.totalAvaliacoes() >= minVotos) {
+                resultado.add(new PosicaoAvaliacoes(classificacao, resultado.size() + 1));
+            }
+        }
+        return resultado;
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        // Título, gênero ou ativo podem ter mudado
+        versaoCalculada = -1;
+    }
+
+    @Override
+    public void filmeRemovido(Long filmeId) {
+        versaoCalculada = -1;
+    }
+}
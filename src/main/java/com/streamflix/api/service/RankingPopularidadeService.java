@@ -0,0 +1,348 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.ranking.CriterioRanking;
+import com.streamflix.api.ranking.FilmeResumoRanking;
+import com.streamflix.api.ranking.RankingParticionado;
+import com.streamflix.api.ranking.SnapshotRanking;
+import com.streamflix.api.repository.FilmeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rankings de popularidade dos filmes ativos mantidos em memória, um por critério
+ * (acessos e visualizadores únicos), cada um com leaderboard geral e partições por
+ * gênero (normalizado), por ano de lançamento e por gênero + ano.
+ * Cada acesso registrado sobe o filme em todos os seus leaderboards; as mudanças de catálogo chegam pelo
+ * CatalogoFilmeListener. O ranking é montado a partir do banco na subida e remontado
+ * periodicamente, o que incorpora os acessos registrados pelas outras instâncias.
+ * Os endpoints de ranking leem um SnapshotRanking imutável, republicado a cada intervalo
+ * ou depois de um número de mudanças. A republicação roda em uma thread própria (uma por vez):
+ * quem lê só pega a referência atual, nunca paga a cópia dos rankings.
+ */
+@Service
+public class RankingPopularidadeService implements AcessoFilmeListener, CatalogoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RankingPopularidadeService.class);
+
+    @Autowired
+    private FilmeRepository filmeRepository;
+
+    @Autowired
+    private ContadorAcessosService contadorAcessosService;
+
+    @Autowired
+    private VisualizadoresService visualizadoresService;
+
+    @Value("${app.ranking.snapshot-mudancas:1000}")
+    private long mudancasPorSnapshot;
+
+    // Rankings + dados dos filmes, trocados juntos a cada remontagem
+    private volatile Estado estado = new Estado(new ConcurrentHashMap<>(), new RankingParticionado(),
+            new RankingParticionado());
+
+    // Remontagem e mudanças de catálogo não podem se intercalar (a mudança se perderia na troca)
+    private final Object catalogoLock = new Object();
+
+    // Cópia imutável servida aos endpoints de ranking
+    private volatile SnapshotRanking snapshot = SnapshotRanking.vazio();
+
+    private final AtomicLong versaoSnapshot = new AtomicLong();
+
+    // Acessos registrados desde a subida e quantos deles o snapshot atual já inclui
+    private final AtomicLong mudancas = new AtomicLong();
+    private volatile long mudancasNoSnapshot;
+
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    // Republicação fora do caminho da requisição; no máximo uma pendente na fila
+    private final ExecutorService publicador = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "ranking-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean publicacaoAgendada = new AtomicBoolean();
+
+    private record Estado(ConcurrentHashMap<Long, FilmeResumoRanking> filmes,
+                          RankingParticionado acessos,
+                          RankingParticionado visualizadores) {
+
+        RankingParticionado ranking(CriterioRanking criterio) {
+            return criterio == CriterioRanking.VISUALIZADORES ? visualizadores : acessos;
+        }
+    }
+
+    /**
+     * Posições de um filme no ranking geral e nas suas partições (0 = fora da partição)
+     */
+    public record PosicoesFilme(FilmeResumoRanking filme, long acessos, long visualizadoresUnicos,
+                                int posicaoGeral, int posicaoNoGenero, int posicaoNoAno, int posicaoNoGeneroAno) {
+    }
+
+    /**
+     * Montar o ranking na subida, depois que os sketches de visualizadores foram carregados
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(10)
+    public void inicializar() {
+        ressincronizar();
+    }
+
+    /**
+     * Job de publicação do snapshot dos rankings
+     */
+    @Scheduled(fixedDelayString = "${app.ranking.snapshot-interval-ms:5000}",
+            initialDelayString = "${app.ranking.snapshot-interval-ms:5000}")
+    public void publicarSnapshot() {
+        // Uma remontagem por vez (job, remontagem ou thread de republicação); os leitores não esperam
+        snapshotLock.lock();
+        try {
+            long incluidas = mudancas.get();
+            Estado atual = estado;
+            SnapshotRanking novo = SnapshotRanking.construir(versaoSnapshot.incrementAndGet(), atual.filmes(),
+                    atual.acessos(), atual.visualizadores());
+            mudancasNoSnapshot = incluidas;
+            snapshot = novo;
+        } catch (RuntimeException e) {
+            log.warn("Falha ao publicar o snapshot do ranking, mantendo o snapshot atual", e);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Snapshot atual dos rankings (sem locks e sem remontagem no caminho da leitura)
+     */
+    public SnapshotRanking getSnapshot() {
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        publicador.shutdownNow();
+    }
+
+    /**
+     * Job de ressincronização com o banco
+     */
+    @Scheduled(fixedDelayString = "${app.ranking.resync-interval-ms:300000}",
+            initialDelayString = "${app.ranking.resync-interval-ms:300000}")
+    public void ressincronizar() {
+        try {
+            remontar();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao remontar o ranking de popularidade, mantendo o ranking atual", e);
+        }
+        publicarSnapshot();
+    }
+
+    @Override
+    public void registrarAcesso(Long filmeId, Long usuarioId) {
+        Estado atual = estado;
+        FilmeResumoRanking filme = atual.filmes().get(filmeId);
+        // Filmes inativos não estão no ranking: o acesso é ignorado
+        if (filme == null) {
+            return;
+        }
+        atual.acessos().incrementar(filme, 1);
+        if (mudancas.incrementAndGet() - mudancasNoSnapshot >= mudancasPorSnapshot) {
+            agendarPublicacao();
+        }
+
+        // O VisualizadoresService roda antes (@Order) e já registrou o usuário no sketch
+        if (usuarioId != null) {
+            long visualizadores = visualizadoresService.getVisualizadoresUnicos(filmeId);
+            if (visualizadores != atual.visualizadores().pontuacao(filmeId)) {
+                atual.visualizadores().atualizar(filme, visualizadores);
+            }
+        }
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        synchronized (catalogoLock) {
+            Estado atual = estado;
+            if (!Boolean.TRUE.equals(filme.getAtivo())) {
+                removerDoEstado(atual, filme.getId());
+                agendarPublicacao();
+                return;
+            }
+
+            FilmeResumoRanking novo = toResumo(filme);
+            FilmeResumoRanking anterior = atual.filmes().put(filme.getId(), novo);
+
+            // Filme já ranqueado mantém a pontuação em memória (pode estar à frente do banco)
+            // e só troca de partição se gênero ou ano mudou
+            if (anterior != null && atual.acessos().contem(filme.getId())) {
+                atual.acessos().mover(anterior, novo);
+                atual.visualizadores().mover(anterior, novo);
+            } else {
+                atual.acessos().definir(novo, contadorAcessosService.getContadorAtual(filme));
+                atual.visualizadores().definir(novo, visualizadoresService.getVisualizadoresUnicos(filme.getId()));
+            }
+            agendarPublicacao();
+        }
+    }
+
+    @Override
+    public void filmeRemovido(Long filmeId) {
+        synchronized (catalogoLock) {
+            removerDoEstado(estado, filmeId);
+            agendarPublicacao();
+        }
+    }
+
+    @Override
+    public void contadorResetado(Long filmeId) {
+        synchronized (catalogoLock) {
+            Estado atual = estado;
+            FilmeResumoRanking filme = atual.filmes().get(filmeId);
+            if (filme != null) {
+                atual.acessos().definir(filme, 0);
+                agendarPublicacao();
+            }
+        }
+    }
+
+    /**
+     * Posições do filme no ranking geral e nas partições do seu gênero e ano (null se o filme não está ativo)
+     */
+    public PosicoesFilme getPosicoes(Long filmeId, CriterioRanking criterio) {
+        Estado atual = estado;
+        FilmeResumoRanking filme = atual.filmes().get(filmeId);
+        if (filme == null) {
+            return null;
+        }
+        int[] posicoes = atual.ranking(criterio).posicoes(filme);
+        return new PosicoesFilme(
+                filme,
+                Math.max(0, atual.acessos().pontuacao(filmeId)),
+                Math.max(0, atual.visualizadores().pontuacao(filmeId)),
+                posicoes[0], posicoes[1], posicoes[2], posicoes[3]);
+    }
+
+    /**
+     * Total de filmes ativos no ranking
+     */
+    public int getTotalFilmesAtivos() {
+        return estado.acessos().tamanho();
+    }
+
+    /**
+     * Dados em memória de todos os filmes ativos
+     */
+    public List<FilmeResumoRanking> getFilmesAtivos() {
+        return new ArrayList<>(estado.filmes().values());
+    }
+
+    /**
+     * Acessos do filme no ranking em memória (0 se o filme não está ativo)
+     */
+    public long getAcessos(Long filmeId) {
+        return Math.max(0, estado.acessos().pontuacao(filmeId));
+    }
+
+    /**
+     * Acessos ao vivo do filme (carregados do banco com as fatias e somados aos acessos desta instância),
+     * vazio se o filme não está no ranking
+     */
+    public OptionalLong getAcessosAoVivo(Long filmeId) {
+        long acessos = estado.acessos().pontuacao(filmeId);
+        return acessos >= 0 ? OptionalLong.of(acessos) : OptionalLong.empty();
+    }
+
+    /**
+     * Dados em memória dos filmes ativos informados, indexados por ID (inativos ficam de fora)
+     */
+    public Map<Long, FilmeResumoRanking> getResumos(Collection<Long> filmeIds) {
+        Map<Long, FilmeResumoRanking> filmes = estado.filmes();
+        Map<Long, FilmeResumoRanking> resultado = new HashMap<>();
+        for (Long filmeId : filmeIds) {
+            FilmeResumoRanking filme = filmes.get(filmeId);
+            if (filme != null) {
+                resultado.put(filmeId, filme);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Monta novos rankings a partir do banco (+ acessos ainda não gravados) e troca os atuais
+     */
+    private void remontar() {
+        synchronized (catalogoLock) {
+            List<Object[]> linhas = filmeRepository.findResumoRankingAtivos();
+
+            ConcurrentHashMap<Long, FilmeResumoRanking> filmes = new ConcurrentHashMap<>(linhas.size() * 2);
+            List<FilmeResumoRanking> ordem = new ArrayList<>(linhas.size());
+            long[] acessos = new long[linhas.size()];
+            long[] visualizadores = new long[linhas.size()];
+            for (Object[] linha : linhas) {
+                Long id = (Long) linha[0];
+                FilmeResumoRanking filme = new FilmeResumoRanking(id, (String) linha[1], (String) linha[2],
+                        (Integer) linha[3], (String) linha[4], (String) linha[5]);
+                filmes.put(id, filme);
+
+                long persistidos = linha[6] != null ? ((Number) linha[6]).longValue() : 0L;
+                acessos[ordem.size()] = persistidos + contadorAcessosService.getAcessosPendentes(id);
+                visualizadores[ordem.size()] = visualizadoresService.getVisualizadoresUnicos(id);
+                ordem.add(filme);
+            }
+
+            RankingParticionado rankingAcessos = RankingParticionado.construir(ordem, acessos);
+            estado = new Estado(filmes, rankingAcessos, RankingParticionado.construir(ordem, visualizadores));
+            log.debug("Ranking de popularidade remontado com {} filmes e {} partições",
+                    filmes.size(), rankingAcessos.totalParticoes());
+        }
+    }
+
+    // Pede uma republicação em background; se já há uma na fila, ela incluirá esta mudança
+    private void agendarPublicacao() {
+        if (publicacaoAgendada.compareAndSet(false, true)) {
+            try {
+                publicador.execute(() -> {
+                    publicacaoAgendada.set(false);
+                    publicarSnapshot();
+                });
+            } catch (RejectedExecutionException e) {
+                // Encerrando: o snapshot atual continua valendo
+                publicacaoAgendada.set(false);
+            }
+        }
+    }
+
+    private void removerDoEstado(Estado atual, Long filmeId) {
+        FilmeResumoRanking anterior = atual.filmes().remove(filmeId);
+        if (anterior != null) {
+            atual.acessos().remover(anterior);
+            atual.visualizadores().remover(anterior);
+        }
+    }
+
+    private FilmeResumoRanking toResumo(Filme filme) {
+        return new FilmeResumoRanking(filme.getId(), filme.getTitulo(), filme.getGenero(),
+                filme.getAnoLancamento(), filme.getDiretor(), filme.getUrlPoster());
+    }
+}
@@ -0,0 +1,198 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.busca.TrieSugestoes;
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.ranking.FilmeResumoRanking;
+import com.streamflix.api.util.Transacoes;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Autocompletar da caixa de busca: títulos e diretores dos filmes ativos que começam com o prefixo
+ * (no início ou em qualquer palavra), dos mais acessados para os menos.
+ * As sugestões ficam em uma TrieSugestoes imutável montada a partir dos dados em memória do ranking de
+ * popularidade, sem ir ao banco. Uma mudança no catálogo agenda a montagem de uma nova trie em background
+ * (depois do commit) e as consultas seguem na atual até a troca da referência; o job de recarga refaz a trie
+ * com os acessos atuais.
+ */
+@Service
+public class SugestoesService implements CatalogoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SugestoesService.class);
+
+    @Autowired
+    private RankingPopularidadeService rankingPopularidadeService;
+
+    @Value("${app.sugestoes.limite-max:20}")
+    private int limiteMaximo;
+
+    public enum TipoSugestao {
+        TITULO, DIRETOR
+    }
+
+    /**
+     * Sugestão de texto para a busca: título (com o filme) ou diretor (acessos somados dos seus filmes)
+     */
+    public record Sugestao(String texto, TipoSugestao tipo, Long filmeId, long acessos) {
+    }
+
+    // Trie + sugestões apontadas por ela, trocadas juntas
+    private record Indice(TrieSugestoes trie, List<Sugestao> sugestoes) {
+    }
+
+    private volatile Indice indice;
+
+    private final ReentrantLock reconstrucaoLock = new ReentrantLock();
+
+    // Reconstrução fora do caminho da requisição; no máximo uma pendente na fila
+    private final ExecutorService reconstrutor = Executors.newSingleThreadExecutor(tarefa -> {
+        Thread thread = new Thread(tarefa, "sugestoes-trie");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean reconstrucaoAgendada = new AtomicBoolean();
+
+    @PostConstruct
+    void configurar() {
+        limiteMaximo = Math.max(1, limiteMaximo);
+        indice = new Indice(TrieSugestoes.construir(List.of(), limiteMaximo), List.of());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        reconstrutor.shutdownNow();
+    }
+
+    /**
+     * Montar a trie na subida, depois do ranking de popularidade (dados dos filmes)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(20)
+    public void inicializar() {
+        reconstruir();
+    }
+
+    /**
+     * Job de recarga: refaz a trie com os acessos atuais
+     */
+    @Scheduled(fixedDelayString = "${app.sugestoes.recarga-interval-ms:60000}",
+            initialDelayString = "${app.sugestoes.recarga-interval-ms:60000}")
+    public void reconstruir() {
+        // Uma reconstrução por vez; quem espera o lock monta depois e vê as mudanças feitas durante a anterior
+        reconstrucaoLock.lock();
+        try {
+            indice = montar(rankingPopularidadeService.getFilmesAtivos());
+        } catch (RuntimeException e) {
+            log.warn("Falha ao montar a trie de sugestões, mantendo a atual", e);
+        } finally {
+            reconstrucaoLock.unlock();
+        }
+    }
+
+    /**
+     * Até "limite" sugestões com alguma palavra começando pelo prefixo, das mais acessadas para as menos
+     */
+    public List<Sugestao> getSugestoes(String prefixo, int limite) {
+        if (limite < 1 || limite > limiteMaximo) {
+            throw new IllegalArgumentException("O limite deve ser entre 1 e " + limiteMaximo);
+        }
+        String chave = TrieSugestoes.normalizar(prefixo);
+        if (chave == null) {
+            throw new IllegalArgumentException("Informe um prefixo com letras ou números");
+        }
+
+        Indice atual = indice;
+        int[] valores = atual.trie().completar(chave, limite);
+        List<Sugestao> resultado = new ArrayList<>(valores.length);
+        for (int valor : valores) {
+            resultado.add(atual.sugestoes().get(valor));
+        }
+        return resultado;
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        agendarReconstrucaoDepoisDoCommit();
+    }
+
+    @Override
+    public void filmeRemovido(Long filmeId) {
+        agendarReconstrucaoDepoisDoCommit();
+    }
+
+    @Override
+    public void contadorResetado(Long filmeId) {
+        agendarReconstrucaoDepoisDoCommit();
+    }
+
+    // Depois do commit todos os listeners do catálogo já rodaram, inclusive o ranking de onde a trie lê os filmes
+    private void agendarReconstrucaoDepoisDoCommit() {
+        Transacoes.depoisDoCommit(this::agendarReconstrucao);
+    }
+
+    // Pede uma reconstrução em background; se já há uma na fila, ela incluirá esta mudança
+    private void agendarReconstrucao() {
+        if (reconstrucaoAgendada.compareAndSet(false, true)) {
+            try {
+                reconstrutor.execute(() -> {
+                    reconstrucaoAgendada.set(false);
+                    reconstruir();
+                });
+            } catch (RejectedExecutionException e) {
+                // Encerrando: a trie atual continua valendo
+                reconstrucaoAgendada.set(false);
+            }
+        }
+    }
+
+    private Indice montar(List<FilmeResumoRanking> filmes) {
+        List<Sugestao> sugestoes = new ArrayList<>(filmes.size());
+        // Diretor normalizado -> sugestão com a grafia do primeiro filme e os acessos somados
+        Map<String, Sugestao> diretores = new LinkedHashMap<>();
+        for (FilmeResumoRanking filme : filmes) {
+            long acessos = rankingPopularidadeService.getAcessos(filme.id());
+            if (TrieSugestoes.normalizar(filme.titulo()) != null) {
+                sugestoes.add(new Sugestao(filme.titulo(), TipoSugestao.TITULO, filme.id(), acessos));
+            }
+            String diretor = TrieSugestoes.normalizar(filme.diretor());
+            if (diretor != null) {
+                diretores.merge(diretor, new Sugestao(filme.diretor().trim(), TipoSugestao.DIRETOR, null, acessos),
+                        (atual, novo) -> new Sugestao(atual.texto(), atual.tipo(), null, atual.acessos() + novo.acessos()));
+            }
+        }
+        sugestoes.addAll(diretores.values());
+
+        // Empate de acessos na trie sai pela posição na lista: ordem alfabética
+        sugestoes.sort(Comparator.comparing((Sugestao s) -> TrieSugestoes.normalizar(s.texto()))
+                .thenComparing(Sugestao::tipo));
+
+        List<TrieSugestoes.Entrada> entradas = new ArrayList<>();
+        for (int i = 0; i < sugestoes.size(); i++) {
+            Sugestao sugestao = sugestoes.get(i);
+            for (String chave : TrieSugestoes.chaves(sugestao.texto())) {
+                entradas.add(new TrieSugestoes.Entrada(chave, i, sugestao.acessos()));
+            }
+        }
+        return new Indice(TrieSugestoes.construir(entradas, limiteMaximo), List.copyOf(sugestoes));
+    }
+}
@@ -0,0 +1,305 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.repository.TendenciasRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ranking de tendências ("em alta"): acessos por hora em memória, com peso
+ * decaindo exponencialmente conforme a idade do acesso.
+ * Um job recalcula o top-K de cada janela; a leitura só copia os K primeiros.
+ * Os acessos horários são gravados periodicamente em filme_tendencias_horarias.
+ */
+@Service
+public class TendenciasService implements AcessoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TendenciasService.class);
+
+    private static final long MILIS_POR_HORA = 3_600_000L;
+
+    @Autowired
+    private TendenciasRepository tendenciasRepository;
+
+    @Value("${app.tendencias.janelas-horas:1,6,24,72,168}")
+    private int[] janelasHoras;
+
+    @Value("${app.tendencias.meia-vida-horas:24}")
+    private double meiaVidaHoras;
+
+    @Value("${app.tendencias.top-k:100}")
+    private int topK;
+
+    // Anel horário: maior janela + 1 posições (a posição da próxima hora é limpa antecipadamente)
+    private int tamanhoAnel;
+
+    // Peso de um acesso com N horas de idade: 2^(-N / meia-vida)
+    private double[] pesosPorIdade;
+
+    // Acessos por filme e hora (posição = hora % tamanhoAnel). Trocado inteiro a cada recarga do checkpoint.
+    private volatile ConcurrentHashMap<Long, AtomicIntegerArray> acessosPorHora = new ConcurrentHashMap<>();
+
+    // Deltas ainda não gravados: hora -> filme -> acessos
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<Long, LongAdder>> pendentes = new ConcurrentHashMap<>();
+
+    // Última hora cuja posição no anel já foi preparada (limpa)
+    private volatile long horaPreparada = -1;
+
+    // Top-K de cada janela, publicado pelo job de recálculo
+    private volatile Map<Integer, List<Tendencia>> rankingsPorJanela = Map.of();
+
+    /**
+     * Posição de um filme no ranking de tendências
+     */
+    public record Tendencia(Long filmeId, double pontuacao, long acessos) {
+    }
+
+    @PostConstruct
+    void configurar() {
+        janelasHoras = Arrays.stream(janelasHoras).filter(j -> j > 0).sorted().distinct().toArray();
+        if (janelasHoras.length == 0) {
+            janelasHoras = new int[]{24};
+        }
+
+        int maiorJanela = janelasHoras[janelasHoras.length - 1];
+        tamanhoAnel = maiorJanela + 1;
+
+        pesosPorIdade = new double[maiorJanela];
+        for (int idade = 0; idade < maiorJanela; idade++) {
+            pesosPorIdade[idade] = Math.pow(0.5, idade / meiaVidaHoras);
+        }
+    }
+
+    /**
+     * Carregar o checkpoint e montar o primeiro ranking na subida da aplicação
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            recarregar();
+        } catch (RuntimeException e) {
+            log.warn("Não foi possível carregar o checkpoint de tendências", e);
+        }
+        recalcular();
+    }
+
+    @Override
+    public void registrarAcesso(Long filmeId, Long usuarioId) {
+        long hora = horaAtual();
+        acessosPorHora.computeIfAbsent(filmeId, id -> new AtomicIntegerArray(tamanhoAnel))
+                .incrementAndGet(posicao(hora));
+        pendentes.computeIfAbsent(hora, h -> new ConcurrentHashMap<>())
+                .computeIfAbsent(filmeId, id -> new LongAdder())
+                .increment();
+    }
+
+    /**
+     * Menor janela configurada que cobre a janela pedida (em horas)
+     */
+    public int resolverJanela(int janelaHoras) {
+        for (int janela : janelasHoras) {
+            if (janela >= janelaHoras) {
+                return janela;
+            }
+        }
+        return janelasHoras[janelasHoras.length - 1];
+    }
+
+    /**
+     * Top N da janela (já calculado pelo job, custo O(N))
+     */
+    public List<Tendencia> getTendencias(int janelaHoras, int limite) {
+        List<Tendencia> ranking = rankingsPorJanela.getOrDefault(resolverJanela(janelaHoras), List.of());
+        return ranking.subList(0, Math.max(0, Math.min(limite, ranking.size())));
+    }
+
+    /**
+     * Job de recálculo do top-K de todas as janelas
+     */
+    @Scheduled(fixedDelayString = "${app.tendencias.recalculo-interval-ms:60000}",
+            initialDelayString = "${app.tendencias.recalculo-interval-ms:60000}")
+    public void recalcular() {
+        long hora = horaAtual();
+        prepararAnel(hora);
+
+        int maiorJanela = janelasHoras[janelasHoras.length - 1];
+        Comparator<Tendencia> porPontuacao = Comparator.comparingDouble(Tendencia::pontuacao);
+
+        List<PriorityQueue<Tendencia>> melhores = new ArrayList<>(janelasHoras.length);
+        for (int i = 0; i < janelasHoras.length; i++) {
+            melhores.add(new PriorityQueue<>(porPontuacao));
+        }
+
+        for (Map.Entry<Long, AtomicIntegerArray> entrada : acessosPorHora.entrySet()) {
+            AtomicIntegerArray acessos = entrada.getValue();
+            double pontuacao = 0;
+            long total = 0;
+            int janela = 0;
+
+            // Uma passada só: cada janela é um prefixo (por idade) da maior janela
+            for (int idade = 0; idade < maiorJanela; idade++) {
+                int quantidade = acessos.get(posicao(hora - idade));
+                if (quantidade != 0) {
+                    pontuacao += quantidade * pesosPorIdade[idade];
+                    total += quantidade;
+                }
+                if (idade + 1 == janelasHoras[janela]) {
+                    if (total > 0) {
+                        manterMelhores(melhores.get(janela), new Tendencia(entrada.getKey(), pontuacao, total));
+                    }
+                    janela++;
+                }
+            }
+        }
+
+        Map<Integer, List<Tendencia>> novosRankings = new HashMap<>();
+        for (int i = 0; i < janelasHoras.length; i++) {
+            List<Tendencia> ranking = new ArrayList<>(melhores.get(i));
+            ranking.sort(porPontuacao.reversed());
+            novosRankings.put(janelasHoras[i], List.copyOf(ranking));
+        }
+        rankingsPorJanela = novosRankings;
+    }
+
+    /**
+     * Job de checkpoint: grava os deltas horários e recarrega a visão do cluster
+     */
+    @Scheduled(fixedDelayString = "${app.tendencias.checkpoint-interval-ms:300000}",
+            initialDelayString = "${app.tendencias.checkpoint-interval-ms:300000}")
+    public void checkpoint() {
+        try {
+            if (gravarPendentes()) {
+                tendenciasRepository.removerAnteriores(horaAtual() - janelasHoras[janelasHoras.length - 1] + 1);
+                recarregar();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha no checkpoint de tendências", e);
+        }
+    }
+
+    @PreDestroy
+    public void gravarNoShutdown() {
+        try {
+            gravarPendentes();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar tendências pendentes no shutdown", e);
+        }
+    }
+
+    /**
+     * Grava os deltas pendentes. Retorna false se a gravação falhou (deltas devolvidos).
+     */
+    private boolean gravarPendentes() {
+        long hora = horaAtual();
+        List<long[]> deltas = new ArrayList<>();
+
+        for (Map.Entry<Long, ConcurrentHashMap<Long, LongAdder>> porHora : pendentes.entrySet()) {
+            for (Map.Entry<Long, LongAdder> porFilme : porHora.getValue().entrySet()) {
+                long delta = porFilme.getValue().sumThenReset();
+                if (delta != 0) {
+                    deltas.add(new long[]{porFilme.getKey(), porHora.getKey(), delta});
+                }
+            }
+            // Horas encerradas há mais de uma hora não recebem mais acessos
+            if (porHora.getKey() < hora - 1) {
+                pendentes.remove(porHora.getKey());
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return true;
+        }
+
+        try {
+            tendenciasRepository.acumular(deltas);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar {} deltas de tendência, nova tentativa no próximo ciclo", deltas.size(), e);
+            for (long[] d : deltas) {
+                pendentes.computeIfAbsent(d[1], h -> new ConcurrentHashMap<>())
+                        .computeIfAbsent(d[0], id -> new LongAdder())
+                        .add(d[2]);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Remonta o anel a partir do checkpoint (total do cluster) + deltas locais ainda não gravados
+     */
+    private void recarregar() {
+        long hora = horaAtual();
+        long inicio = hora - janelasHoras[janelasHoras.length - 1] + 1;
+
+        ConcurrentHashMap<Long, AtomicIntegerArray> novo = new ConcurrentHashMap<>();
+        for (long[] linha : tendenciasRepository.carregarDesde(inicio)) {
+            if (linha[1] <= hora) {
+                novo.computeIfAbsent(linha[0], id -> new AtomicIntegerArray(tamanhoAnel))
+                        .addAndGet(posicao(linha[1]), (int) linha[2]);
+            }
+        }
+
+        pendentes.forEach((horaPendente, porFilme) -> {
+            if (horaPendente >= inicio && horaPendente <= hora) {
+                porFilme.forEach((filmeId, acessos) -> novo
+                        .computeIfAbsent(filmeId, id -> new AtomicIntegerArray(tamanhoAnel))
+                        .addAndGet(posicao(horaPendente), (int) acessos.sum()));
+            }
+        });
+
+        acessosPorHora = novo;
+        // A posição da próxima hora não foi carregada, então já está limpa
+        horaPreparada = hora + 1;
+    }
+
+    /**
+     * Limpa as posições do anel das horas que estão entrando (inclusive a próxima hora)
+     */
+    private void prepararAnel(long hora) {
+        long ultimaPreparada = horaPreparada;
+        long inicio = Math.max(ultimaPreparada + 1, hora - tamanhoAnel + 2);
+
+        for (long h = inicio; h <= hora + 1; h++) {
+            int pos = posicao(h);
+            for (AtomicIntegerArray acessos : acessosPorHora.values()) {
+                acessos.set(pos, 0);
+            }
+        }
+        horaPreparada = Math.max(ultimaPreparada, hora + 1);
+    }
+
+    private void manterMelhores(PriorityQueue<Tendencia> melhores, Tendencia candidata) {
+        if (melhores.size() < topK) {
+            melhores.offer(candidata);
+        } else if (candidata.pontuacao() > melhores.peek().pontuacao()) {
+            melhores.poll();
+            melhores.offer(candidata);
+        }
+    }
+
+    private int posicao(long hora) {
+        return (int) (hora % tamanhoAnel);
+    }
+
+    private long horaAtual() {
+        return System.currentTimeMillis() / MILIS_POR_HORA;
+    }
+}
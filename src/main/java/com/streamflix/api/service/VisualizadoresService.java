@@ -0,0 +1,177 @@
+package com.streamflix.api.service;
+
+import com.streamflix.api.entity.Filme;
+import com.streamflix.api.repository.VisualizadoresRepository;
+import com.streamflix.api.sketch.HyperLogLog;
+import com.streamflix.api.util.Hashing;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Visualizadores únicos por filme: um HyperLogLog por filme com os usuários autenticados
+ * que abriram os detalhes. Memória limitada por filme (esparso com poucos visualizadores, até 2^precisão
+ * bytes quando denso), gravado em filme_visualizadores por um job que mescla com o que os outros nós já gravaram.
+ *
+ * Roda antes dos outros consumidores de acesso (@Order) para que o ranking por
+ * visualizadores já leia a estimativa atualizada.
+ */
+@Service
+@Order(0)
+public class VisualizadoresService implements AcessoFilmeListener, CatalogoFilmeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(VisualizadoresService.class);
+
+    @Autowired
+    private VisualizadoresRepository visualizadoresRepository;
+
+    @Value("${app.visualizadores.precisao:12}")
+    private int precisao;
+
+    @Value("${app.visualizadores.batch-size:200}")
+    private int batchSize;
+
+    private final ConcurrentHashMap<Long, HyperLogLog> sketches = new ConcurrentHashMap<>();
+
+    // Filmes com sketch alterado desde a última gravação
+    private final Set<Long> alterados = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock gravacaoLock = new ReentrantLock();
+
+    /**
+     * Carregar os sketches na subida (antes do ranking, que lê as estimativas)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void inicializar() {
+        recarregar();
+    }
+
+    @Override
+    public void registrarAcesso(Long filmeId, Long usuarioId) {
+        // Só acessos autenticados pelo caminho de detalhes contam como visualizador
+        if (usuarioId == null) {
+            return;
+        }
+        HyperLogLog sketch = sketches.computeIfAbsent(filmeId, id -> new HyperLogLog(precisao));
+        if (sketch.adicionar(Hashing.misturar64(usuarioId))) {
+            alterados.add(filmeId);
+        }
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+    }
+
+    @Override
+    public void filmeRemovido(Long filmeId) {
+        // A linha no banco é removida em cascata com o filme
+        sketches.remove(filmeId);
+        alterados.remove(filmeId);
+    }
+
+    /**
+     * Estimativa de usuários distintos que abriram o filme (O(1))
+     */
+    public long getVisualizadoresUnicos(Long filmeId) {
+        HyperLogLog sketch = sketches.get(filmeId);
+        return sketch != null ? sketch.estimar() : 0L;
+    }
+
+    /**
+     * Job de gravação: mescla os sketches alterados com o banco e traz a união do cluster
+     */
+    @Scheduled(fixedDelayString = "${app.visualizadores.flush-interval-ms:30000}")
+    public void gravar() {
+        if (!gravacaoLock.tryLock()) {
+            return;
+        }
+        try {
+            gravarAlterados();
+        } finally {
+            gravacaoLock.unlock();
+        }
+    }
+
+    /**
+     * Job de recarga: mescla na memória o que os outros nós gravaram (a união é idempotente)
+     */
+    @Scheduled(fixedDelayString = "${app.visualizadores.recarga-interval-ms:300000}",
+            initialDelayString = "${app.visualizadores.recarga-interval-ms:300000}")
+    public void recarregar() {
+        try {
+            visualizadoresRepository.carregarTodos((filmeId, dados) ->
+                    mesclarNaMemoria(filmeId, HyperLogLog.deBytes(dados)));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao carregar sketches de visualizadores únicos", e);
+        }
+    }
+
+    @PreDestroy
+    public void gravarNoShutdown() {
+        gravacaoLock.lock();
+        try {
+            gravarAlterados();
+        } finally {
+            gravacaoLock.unlock();
+        }
+    }
+
+    private void gravarAlterados() {
+        Map<Long, HyperLogLog> lote = new HashMap<>();
+        for (Long filmeId : alterados) {
+            alterados.remove(filmeId);
+            HyperLogLog sketch = sketches.get(filmeId);
+            if (sketch == null) {
+                continue;
+            }
+            lote.put(filmeId, sketch.copia());
+            if (lote.size() >= batchSize) {
+                gravarLote(lote);
+                lote = new HashMap<>();
+            }
+        }
+        if (!lote.isEmpty()) {
+            gravarLote(lote);
+        }
+    }
+
+    private void gravarLote(Map<Long, HyperLogLog> lote) {
+        try {
+            visualizadoresRepository.mesclar(lote).forEach(this::mesclarNaMemoria);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao gravar {} sketches de visualizadores, nova tentativa no próximo ciclo", lote.size(), e);
+            alterados.addAll(lote.keySet());
+        }
+    }
+
+    private void mesclarNaMemoria(Long filmeId, HyperLogLog gravado) {
+        HyperLogLog local = sketches.putIfAbsent(filmeId, gravado.copia());
+        if (local == null) {
+            return;
+        }
+        if (local.getPrecisao() == gravado.getPrecisao()) {
+            local.mesclar(gravado);
+        } else {
+            // Precisão mudou na configuração de algum nó: o sketch gravado prevalece
+            log.warn("Sketch do filme {} gravado com precisão {} (local: {}), adotando o gravado",
+                    filmeId, gravado.getPrecisao(), local.getPrecisao());
+            sketches.put(filmeId, gravado.copia());
+        }
+    }
+}
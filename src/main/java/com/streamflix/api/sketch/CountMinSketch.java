@@ -0,0 +1,97 @@
+package com.streamflix.api.sketch;
+
+import com.streamflix.api.util.Hashing;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min Sketch: contagem aproximada por item em memória fixa (profundidade x largura contadores).
+ * A estimativa nunca fica abaixo do valor real e, com probabilidade 1 - delta,
+ * passa dele por no máximo epsilon * total.
+ * Não é thread-safe: quem usa deve sincronizar.
+ */
+public class CountMinSketch {
+
+    private final int largura;
+    private final int profundidade;
+    private final long[] contadores;
+    private long total;
+
+    public CountMinSketch(int largura, int profundidade) {
+        if (largura < 1 || profundidade < 1) {
+            throw new IllegalArgumentException("Dimensões do Count-Min Sketch devem ser positivas");
+        }
+        this.largura = largura;
+        this.profundidade = profundidade;
+        this.contadores = new long[largura * profundidade];
+    }
+
+    /**
+     * Dimensionar pelos limites de erro: largura = e / epsilon, profundidade = ln(1 / delta)
+     */
+    public static CountMinSketch comErro(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("epsilon e delta devem estar entre 0 e 1");
+        }
+        int largura = (int) Math.ceil(Math.E / epsilon);
+        int profundidade = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinSketch(largura, profundidade);
+    }
+
+    public void adicionar(long item, long quantidade) {
+        long h1 = Hashing.misturar64(item);
+        long h2 = Hashing.misturar64(h1);
+        for (int linha = 0; linha < profundidade; linha++) {
+            contadores[linha * largura + coluna(h1, h2, linha)] += quantidade;
+        }
+        total += quantidade;
+    }
+
+    public long estimar(long item) {
+        long h1 = Hashing.misturar64(item);
+        long h2 = Hashing.misturar64(h1);
+        long minimo = Long.MAX_VALUE;
+        for (int linha = 0; linha < profundidade; linha++) {
+            minimo = Math.min(minimo, contadores[linha * largura + coluna(h1, h2, linha)]);
+        }
+        return minimo;
+    }
+
+    /**
+     * Somar (sinal = 1) ou subtrair (sinal = -1) outro sketch de mesmas dimensões
+     */
+    public void combinar(CountMinSketch outro, int sinal) {
+        if (outro.largura != largura || outro.profundidade != profundidade) {
+            throw new IllegalArgumentException("Count-Min Sketches com dimensões diferentes");
+        }
+        for (int i = 0; i < contadores.length; i++) {
+            contadores[i] += sinal * outro.contadores[i];
+        }
+        total += sinal * outro.total;
+    }
+
+    public void limpar() {
+        Arrays.fill(contadores, 0L);
+        total = 0;
+    }
+
+    /**
+     * Soma de todas as quantidades adicionadas
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public int getLargura() {
+        return largura;
+    }
+
+    public int getProfundidade() {
+        return profundidade;
+    }
+
+    // Hash duplo (Kirsch-Mitzenmacher): h1 + linha * h2 simula funções independentes por linha
+    private int coluna(long h1, long h2, int linha) {
+        return (int) Long.remainderUnsigned(h1 + linha * h2, largura);
+    }
+}
@@ -0,0 +1,117 @@
+package com.streamflix.api.sketch;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Itens mais frequentes em uma janela deslizante, com memória limitada independente
+ * do número de itens distintos.
+ *
+ * A janela é dividida em fatias de tempo; cada fatia tem um Count-Min Sketch e um
+ * Space-Saving. Um sketch agregado guarda a soma das fatias vivas: quando uma fatia
+ * expira, os seus contadores são subtraídos do agregado e ela é reaproveitada.
+ * O top N une os candidatos dos Space-Saving das fatias e os ordena pela estimativa
+ * da janela no sketch agregado.
+ */
+public class HeavyHittersJanela {
+
+    /**
+     * Item com a contagem estimada na janela (nunca abaixo da real; acima em no máximo margemErro
+     * com a probabilidade configurada)
+     */
+    public record ItemFrequente(long item, long estimativa, long margemErro) {
+    }
+
+    private final long duracaoFatiaMs;
+    private final double epsilon;
+    private final CountMinSketch[] sketches;
+    private final SpaceSaving[] candidatos;
+    private final CountMinSketch agregado;
+
+    // Índice absoluto (tempo / duração da fatia) da fatia mais recente
+    private long fatiaAtual;
+
+    public HeavyHittersJanela(int numeroFatias, long duracaoFatiaMs, int capacidadeTopK,
+                              double epsilon, double delta, long agoraMs) {
+        if (numeroFatias < 1 || duracaoFatiaMs < 1) {
+            throw new IllegalArgumentException("Janela deve ter ao menos uma fatia de duração positiva");
+        }
+        this.duracaoFatiaMs = duracaoFatiaMs;
+        this.epsilon = epsilon;
+        this.sketches = new CountMinSketch[numeroFatias];
+        this.candidatos = new SpaceSaving[numeroFatias];
+        for (int i = 0; i < numeroFatias; i++) {
+            sketches[i] = CountMinSketch.comErro(epsilon, delta);
+            candidatos[i] = new SpaceSaving(capacidadeTopK);
+        }
+        this.agregado = CountMinSketch.comErro(epsilon, delta);
+        this.fatiaAtual = agoraMs / duracaoFatiaMs;
+    }
+
+    public synchronized void adicionar(long item, long agoraMs) {
+        avancar(agoraMs);
+        int indice = (int) (fatiaAtual % sketches.length);
+        sketches[indice].adicionar(item, 1);
+        candidatos[indice].adicionar(item);
+        agregado.adicionar(item, 1);
+    }
+
+    /**
+     * Estimativa de ocorrências do item na janela
+     */
+    public synchronized long estimar(long item, long agoraMs) {
+        avancar(agoraMs);
+        return agregado.estimar(item);
+    }
+
+    /**
+     * Total de ocorrências na janela (exato)
+     */
+    public synchronized long total(long agoraMs) {
+        avancar(agoraMs);
+        return agregado.getTotal();
+    }
+
+    /**
+     * N itens mais frequentes na janela, do mais para o menos frequente
+     */
+    public synchronized List<ItemFrequente> top(int limite, long agoraMs) {
+        avancar(agoraMs);
+        long margemErro = (long) Math.ceil(epsilon * agregado.getTotal());
+
+        // Candidatos das fatias: um item pode aparecer em várias, o Set evita estimar duas vezes
+        Set<Long> vistos = new HashSet<>();
+        List<ItemFrequente> itens = new ArrayList<>();
+        for (SpaceSaving fatia : candidatos) {
+            for (long item : fatia.itens()) {
+                if (vistos.add(item)) {
+                    itens.add(new ItemFrequente(item, agregado.estimar(item), margemErro));
+                }
+            }
+        }
+
+        itens.sort((a, b) -> Long.compare(b.estimativa(), a.estimativa()));
+        return itens.subList(0, Math.min(Math.max(0, limite), itens.size()));
+    }
+
+    /**
+     * Expira as fatias que saíram da janela
+     */
+    private void avancar(long agoraMs) {
+        long fatia = agoraMs / duracaoFatiaMs;
+        if (fatia <= fatiaAtual) {
+            return;
+        }
+        // Salto maior que a janela: todas as fatias expiraram
+        long inicio = Math.max(fatiaAtual + 1, fatia - sketches.length + 1);
+        for (long f = inicio; f <= fatia; f++) {
+            int indice = (int) (f % sketches.length);
+            agregado.combinar(sketches[indice], -1);
+            sketches[indice].limpar();
+            candidatos[indice].limpar();
+        }
+        fatiaAtual = fatia;
+    }
+}
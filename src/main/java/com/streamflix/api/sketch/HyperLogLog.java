@@ -0,0 +1,270 @@
+package com.streamflix.api.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog: estimativa de elementos distintos com memória limitada (no máximo 2^precisão registradores de 1 byte).
+ * Erro padrão de ~1,04 / sqrt(2^precisão): 1,6% com precisão 12 (4 KB).
+ *
+ * Com poucos elementos o sketch é esparso: só os registradores diferentes de zero, em um int[] ordenado
+ * (índice << 8 | valor). Passa para o array denso quando eles ocupariam mais de 1/4 dele, então um filme com
+ * poucos visualizadores custa algumas dezenas de bytes em vez de 2^precisão. A estimativa é a mesma nas duas formas.
+ *
+ * A união de dois sketches é o máximo registrador a registrador, então mesclar é idempotente
+ * e pode ser repetido entre nós sem contar o mesmo usuário duas vezes.
+ * A soma dos 2^-registrador é mantida a cada mudança para a estimativa sair em O(1).
+ * Os métodos são sincronizados: o sketch é atualizado no caminho da requisição e lido pelos jobs.
+ */
+public class HyperLogLog {
+
+    public static final int PRECISAO_MINIMA = 4;
+    public static final int PRECISAO_MAXIMA = 16;
+
+    // Forma serializada esparsa: índice (2 bytes) + valor (1 byte) por registrador diferente de zero
+    private static final int BYTES_POR_ENTRADA_SERIALIZADA = 3;
+
+    private final int precisao;
+    private final int limiteEsparso;
+
+    // Só uma das formas está em uso: registradores == null enquanto o sketch é esparso
+    private byte[] registradores;
+    private int[] esparso;
+    private int totalEsparso;
+
+    private double soma;
+    private int zeros;
+
+    public HyperLogLog(int precisao) {
+        if (precisao < PRECISAO_MINIMA || precisao > PRECISAO_MAXIMA) {
+            throw new IllegalArgumentException("Precisão do HyperLogLog deve estar entre "
+                    + PRECISAO_MINIMA + " e " + PRECISAO_MAXIMA + ": " + precisao);
+        }
+        this.precisao = precisao;
+        // Até m/16 entradas de 4 bytes o esparso ocupa no máximo 1/4 do array denso
+        this.limiteEsparso = (1 << precisao) / 16;
+        this.esparso = new int[4];
+        this.soma = 1 << precisao;
+        this.zeros = 1 << precisao;
+    }
+
+    /**
+     * Ler um sketch serializado por {@link #toBytes()} (forma densa ou esparsa)
+     */
+    public static HyperLogLog deBytes(byte[] dados) {
+        if (dados == null || dados.length < 1) {
+            throw new IllegalArgumentException("Sketch HyperLogLog vazio");
+        }
+        if (dados[0] < 0) {
+            HyperLogLog sketch = new HyperLogLog(-dados[0]);
+            if ((dados.length - 1) % BYTES_POR_ENTRADA_SERIALIZADA != 0) {
+                throw new IllegalArgumentException("Sketch HyperLogLog com tamanho inválido: " + dados.length);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(dados, 1, dados.length - 1);
+            while (buffer.hasRemaining()) {
+                int indice = buffer.getChar();
+                int valor = buffer.get();
+                if (indice >= sketch.totalRegistradores() || valor <= 0) {
+                    throw new IllegalArgumentException("Registrador inválido no sketch HyperLogLog: " + indice);
+                }
+                sketch.atualizar(indice, valor);
+            }
+            return sketch;
+        }
+
+        HyperLogLog sketch = new HyperLogLog(dados[0]);
+        if (dados.length != sketch.totalRegistradores() + 1) {
+            throw new IllegalArgumentException("Sketch HyperLogLog com tamanho inválido: " + dados.length);
+        }
+        for (int i = 1; i < dados.length; i++) {
+            if (dados[i] != 0) {
+                sketch.atualizar(i - 1, dados[i]);
+            }
+        }
+        return sketch;
+    }
+
+    /**
+     * Registrar um elemento pelo seu hash de 64 bits. Retorna true se algum registrador mudou
+     * (só então a estimativa pode ter mudado).
+     */
+    public synchronized boolean adicionar(long hash) {
+        int indice = (int) (hash >>> (64 - precisao));
+        // Posição do primeiro bit 1 nos bits restantes (limitada quando todos são zero)
+        int rho = Math.min(Long.numberOfLeadingZeros(hash << precisao), 64 - precisao) + 1;
+        return atualizar(indice, rho);
+    }
+
+    /**
+     * Unir outro sketch a este (máximo por registrador)
+     */
+    public boolean mesclar(HyperLogLog outro) {
+        if (outro.precisao != precisao) {
+            throw new IllegalArgumentException("Sketches com precisões diferentes: " + precisao + " e " + outro.precisao);
+        }
+        int[] entradas = outro.copiarNaoZero();
+        synchronized (this) {
+            boolean mudou = false;
+            for (int entrada : entradas) {
+                mudou |= atualizar(entrada >>> 8, entrada & 0xFF);
+            }
+            return mudou;
+        }
+    }
+
+    /**
+     * Número estimado de elementos distintos
+     */
+    public synchronized long estimar() {
+        int m = totalRegistradores();
+        double estimativa = alfa(m) * m * (double) m / soma;
+        // Correção para cardinalidades pequenas: contagem linear pelos registradores vazios
+        if (estimativa <= 2.5 * m && zeros > 0) {
+            estimativa = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimativa);
+    }
+
+    public int getPrecisao() {
+        return precisao;
+    }
+
+    public synchronized HyperLogLog copia() {
+        HyperLogLog copia = new HyperLogLog(precisao);
+        if (registradores != null) {
+            copia.registradores = Arrays.copyOf(registradores, registradores.length);
+            copia.esparso = null;
+        } else {
+            copia.esparso = Arrays.copyOf(esparso, Math.max(4, totalEsparso));
+            copia.totalEsparso = totalEsparso;
+        }
+        copia.soma = soma;
+        copia.zeros = zeros;
+        return copia;
+    }
+
+    /**
+     * Serializar. Densa: 1 byte de precisão + 1 byte por registrador.
+     * Esparsa: 1 byte com -precisão + (índice em 2 bytes, valor em 1 byte) por registrador diferente de zero.
+     */
+    public synchronized byte[] toBytes() {
+        if (registradores != null) {
+            byte[] dados = new byte[registradores.length + 1];
+            dados[0] = (byte) precisao;
+            System.arraycopy(registradores, 0, dados, 1, registradores.length);
+            return dados;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 + totalEsparso * BYTES_POR_ENTRADA_SERIALIZADA);
+        buffer.put((byte) -precisao);
+        for (int i = 0; i < totalEsparso; i++) {
+            buffer.putChar((char) (esparso[i] >>> 8));
+            buffer.put((byte) esparso[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Se o sketch ainda está na forma esparsa
+     */
+    synchronized boolean isEsparso() {
+        return registradores == null;
+    }
+
+    private int totalRegistradores() {
+        return 1 << precisao;
+    }
+
+    // Registradores diferentes de zero como (índice << 8 | valor), em ordem de índice
+    private synchronized int[] copiarNaoZero() {
+        if (registradores == null) {
+            return Arrays.copyOf(esparso, totalEsparso);
+        }
+        int[] entradas = new int[registradores.length - zeros];
+        int total = 0;
+        for (int i = 0; i < registradores.length; i++) {
+            if (registradores[i] != 0) {
+                entradas[total++] = (i << 8) | registradores[i];
+            }
+        }
+        return entradas;
+    }
+
+    private boolean atualizar(int indice, int valor) {
+        int atual;
+        if (registradores != null) {
+            atual = registradores[indice];
+            if (valor <= atual) {
+                return false;
+            }
+            registradores[indice] = (byte) valor;
+        } else {
+            int posicao = buscarEsparso(indice);
+            if (posicao >= 0) {
+                atual = esparso[posicao] & 0xFF;
+                if (valor <= atual) {
+                    return false;
+                }
+                esparso[posicao] = (indice << 8) | valor;
+            } else {
+                atual = 0;
+                inserirEsparso(-posicao - 1, (indice << 8) | valor);
+            }
+        }
+        soma += Math.scalb(1.0, -valor) - Math.scalb(1.0, -atual);
+        if (atual == 0) {
+            zeros--;
+        }
+        return true;
+    }
+
+    // Busca binária pelo índice; negativo = -(posição de inserção) - 1
+    private int buscarEsparso(int indice) {
+        int baixo = 0;
+        int alto = totalEsparso - 1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            int atual = esparso[meio] >>> 8;
+            if (atual < indice) {
+                baixo = meio + 1;
+            } else if (atual > indice) {
+                alto = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -baixo - 1;
+    }
+
+    private void inserirEsparso(int posicao, int entrada) {
+        if (totalEsparso == limiteEsparso) {
+            // O valor novo entra depois da conversão (atualizar já contou soma e zeros)
+            converterParaDenso();
+            registradores[entrada >>> 8] = (byte) (entrada & 0xFF);
+            return;
+        }
+        if (totalEsparso == esparso.length) {
+            esparso = Arrays.copyOf(esparso, Math.min(limiteEsparso, esparso.length * 2));
+        }
+        System.arraycopy(esparso, posicao, esparso, posicao + 1, totalEsparso - posicao);
+        esparso[posicao] = entrada;
+        totalEsparso++;
+    }
+
+    private void converterParaDenso() {
+        registradores = new byte[totalRegistradores()];
+        for (int i = 0; i < totalEsparso; i++) {
+            registradores[esparso[i] >>> 8] = (byte) (esparso[i] & 0xFF);
+        }
+        esparso = null;
+        totalEsparso = 0;
+    }
+
+    private static double alfa(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+}
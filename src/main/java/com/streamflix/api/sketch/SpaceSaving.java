@@ -0,0 +1,136 @@
+package com.streamflix.api.sketch;
+
+import com.streamflix.api.util.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Space-Saving: os itens mais frequentes de um fluxo com no máximo {@code capacidade} contadores.
+ * Item novo com a tabela cheia substitui o de menor contagem e herda essa contagem como erro,
+ * então qualquer item com frequência acima de total / capacidade é garantidamente monitorado.
+ *
+ * Os contadores formam um min-heap em arrays paralelos (raiz = menor contagem) e um índice
+ * item -> posição no heap, então cada ocorrência custa O(log capacidade).
+ * Não é thread-safe: quem usa deve sincronizar.
+ */
+public class SpaceSaving {
+
+    private final int capacidade;
+    private final long[] itens;
+    private final long[] contagens;
+    private final long[] erros;
+    private final LongIntHashMap posicoes;
+    private int tamanho;
+
+    public SpaceSaving(int capacidade) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("Capacidade do Space-Saving deve ser positiva");
+        }
+        this.capacidade = capacidade;
+        this.itens = new long[capacidade];
+        this.contagens = new long[capacidade];
+        this.erros = new long[capacidade];
+        this.posicoes = new LongIntHashMap(capacidade, -1);
+    }
+
+    public void adicionar(long item) {
+        int posicao = posicoes.get(item);
+        if (posicao >= 0) {
+            contagens[posicao]++;
+            descer(posicao);
+            return;
+        }
+
+        if (tamanho < capacidade) {
+            posicao = tamanho++;
+            itens[posicao] = item;
+            contagens[posicao] = 1;
+            erros[posicao] = 0;
+            posicoes.put(item, posicao);
+            subir(posicao);
+            return;
+        }
+
+        // Substitui o menor: o novo item herda a contagem mínima como erro máximo
+        posicoes.remove(itens[0]);
+        long minimo = contagens[0];
+        itens[0] = item;
+        contagens[0] = minimo + 1;
+        erros[0] = minimo;
+        posicoes.put(item, 0);
+        descer(0);
+    }
+
+    /**
+     * Itens monitorados (em qualquer ordem)
+     */
+    public long[] itens() {
+        return Arrays.copyOf(itens, tamanho);
+    }
+
+    /**
+     * Contagem do item (limite superior), ou 0 se não monitorado
+     */
+    public long contagem(long item) {
+        int posicao = posicoes.get(item);
+        return posicao >= 0 ? contagens[posicao] : 0L;
+    }
+
+    /**
+     * Quanto da contagem do item pode ter sido herdado de itens substituídos
+     */
+    public long erro(long item) {
+        int posicao = posicoes.get(item);
+        return posicao >= 0 ? erros[posicao] : 0L;
+    }
+
+    public void limpar() {
+        posicoes.clear();
+        tamanho = 0;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    private void subir(int posicao) {
+        while (posicao > 0) {
+            int pai = (posicao - 1) >>> 1;
+            if (contagens[pai] <= contagens[posicao]) {
+                return;
+            }
+            trocar(posicao, pai);
+            posicao = pai;
+        }
+    }
+
+    private void descer(int posicao) {
+        while (true) {
+            int esquerda = 2 * posicao + 1;
+            if (esquerda >= tamanho) {
+                return;
+            }
+            int menor = esquerda + 1 < tamanho && contagens[esquerda + 1] < contagens[esquerda]
+                    ? esquerda + 1 : esquerda;
+            if (contagens[posicao] <= contagens[menor]) {
+                return;
+            }
+            trocar(posicao, menor);
+            posicao = menor;
+        }
+    }
+
+    private void trocar(int a, int b) {
+        long item = itens[a];
+        long contagem = contagens[a];
+        long erro = erros[a];
+        itens[a] = itens[b];
+        contagens[a] = contagens[b];
+        erros[a] = erros[b];
+        itens[b] = item;
+        contagens[b] = contagem;
+        erros[b] = erro;
+        posicoes.put(itens[a], a);
+        posicoes.put(itens[b], b);
+    }
+}
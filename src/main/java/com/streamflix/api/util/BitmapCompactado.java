@@ -0,0 +1,386 @@
+package com.streamflix.api.util;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto de inteiros não negativos compactado no estilo Roaring.
+ *
+ * Os valores são agrupados pelos 16 bits altos; cada grupo (contêiner) guarda os 16 bits baixos em
+ * um array ordenado de char enquanto tem até 4096 valores e, acima disso, em um bitmap de 65536 bits
+ * (1024 longs, 8 KB). Interseção, união e contagem da interseção trabalham contêiner a contêiner.
+ * Não é thread-safe: quem usa deve sincronizar.
+ */
+public final class BitmapCompactado {
+
+    private static final int LIMITE_ARRAY = 4096;
+    private static final int PALAVRAS_BITMAP = 1024;
+
+    // Contêineres ordenados pela chave (16 bits altos); cada um é char[] (array) ou long[] (bitmap)
+    private char[] chaves = new char[4];
+    private Object[] conteineres = new Object[4];
+    private int[] cardinalidades = new int[4];
+    private int tamanho;
+
+    public void adicionar(int valor) {
+        char chave = (char) (valor >>> 16);
+        char baixo = (char) valor;
+        int i = Arrays.binarySearch(chaves, 0, tamanho, chave);
+        if (i < 0) {
+            i = -i - 1;
+            inserirConteiner(i, chave, new char[4], 0);
+        }
+
+        if (conteineres[i] instanceof long[] palavras) {
+            long bit = 1L << baixo;
+            if ((palavras[baixo >>> 6] & bit) == 0) {
+                palavras[baixo >>> 6] |= bit;
+                cardinalidades[i]++;
+            }
+            return;
+        }
+
+        char[] valores = (char[]) conteineres[i];
+        int n = cardinalidades[i];
+        int posicao = Arrays.binarySearch(valores, 0, n, baixo);
+        if (posicao >= 0) {
+            return;
+        }
+        posicao = -posicao - 1;
+        if (n == LIMITE_ARRAY) {
+            long[] palavras = paraBitmap(valores, n);
+            palavras[baixo >>> 6] |= 1L << baixo;
+            conteineres[i] = palavras;
+            cardinalidades[i] = n + 1;
+            return;
+        }
+        if (n == valores.length) {
+            valores = Arrays.copyOf(valores, Math.min(LIMITE_ARRAY, n * 2));
+            conteineres[i] = valores;
+        }
+        System.arraycopy(valores, posicao, valores, posicao + 1, n - posicao);
+        valores[posicao] = baixo;
+        cardinalidades[i] = n + 1;
+    }
+
+    public void remover(int valor) {
+        int i = Arrays.binarySearch(chaves, 0, tamanho, (char) (valor >>> 16));
+        if (i < 0) {
+            return;
+        }
+        char baixo = (char) valor;
+
+        if (conteineres[i] instanceof long[] palavras) {
+            long bit = 1L << baixo;
+            if ((palavras[baixo >>> 6] & bit) == 0) {
+                return;
+            }
+            palavras[baixo >>> 6] &= ~bit;
+            if (--cardinalidades[i] <= LIMITE_ARRAY) {
+                conteineres[i] = paraArray(palavras, cardinalidades[i]);
+            }
+        } else {
+            char[] valores = (char[]) conteineres[i];
+            int n = cardinalidades[i];
+            int posicao = Arrays.binarySearch(valores, 0, n, baixo);
+            if (posicao < 0) {
+                return;
+            }
+            System.arraycopy(valores, posicao + 1, valores, posicao, n - posicao - 1);
+            cardinalidades[i] = n - 1;
+        }
+
+        if (cardinalidades[i] == 0) {
+            removerConteiner(i);
+        }
+    }
+
+    public boolean contem(int valor) {
+        int i = Arrays.binarySearch(chaves, 0, tamanho, (char) (valor >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        char baixo = (char) valor;
+        if (conteineres[i] instanceof long[] palavras) {
+            return (palavras[baixo >>> 6] & (1L << baixo)) != 0;
+        }
+        return Arrays.binarySearch((char[]) conteineres[i], 0, cardinalidades[i], baixo) >= 0;
+    }
+
+    public long cardinalidade() {
+        long total = 0;
+        for (int i = 0; i < tamanho; i++) {
+            total += cardinalidades[i];
+        }
+        return total;
+    }
+
+    public boolean vazio() {
+        return tamanho == 0;
+    }
+
+    /**
+     * Valores em ordem crescente
+     */
+    public int[] valores() {
+        int[] resultado = new int[(int) cardinalidade()];
+        int n = 0;
+        for (int i = 0; i < tamanho; i++) {
+            int alto = chaves[i] << 16;
+            if (conteineres[i] instanceof long[] palavras) {
+                for (int p = 0; p < PALAVRAS_BITMAP; p++) {
+                    long palavra = palavras[p];
+                    while (palavra != 0) {
+                        resultado[n++] = alto | (p << 6) | Long.numberOfTrailingZeros(palavra);
+                        palavra &= palavra - 1;
+                    }
+                }
+            } else {
+                char[] valores = (char[]) conteineres[i];
+                for (int j = 0; j < cardinalidades[i]; j++) {
+                    resultado[n++] = alto | valores[j];
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Interseção (novo bitmap)
+     */
+    public static BitmapCompactado e(BitmapCompactado a, BitmapCompactado b) {
+        BitmapCompactado resultado = new BitmapCompactado();
+        int i = 0;
+        int j = 0;
+        while (i < a.tamanho && j < b.tamanho) {
+            if (a.chaves[i] < b.chaves[j]) {
+                i++;
+            } else if (a.chaves[i] > b.chaves[j]) {
+                j++;
+            } else {
+                resultado.acrescentarInterseccao(a.chaves[i], a.conteineres[i], a.cardinalidades[i],
+                        b.conteineres[j], b.cardinalidades[j]);
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * União (novo bitmap)
+     */
+    public static BitmapCompactado ou(BitmapCompactado a, BitmapCompactado b) {
+        BitmapCompactado resultado = new BitmapCompactado();
+        int i = 0;
+        int j = 0;
+        while (i < a.tamanho || j < b.tamanho) {
+            if (j == b.tamanho || (i < a.tamanho && a.chaves[i] < b.chaves[j])) {
+                resultado.acrescentarCopia(a.chaves[i], a.conteineres[i], a.cardinalidades[i]);
+                i++;
+            } else if (i == a.tamanho || a.chaves[i] > b.chaves[j]) {
+                resultado.acrescentarCopia(b.chaves[j], b.conteineres[j], b.cardinalidades[j]);
+                j++;
+            } else {
+                resultado.acrescentarUniao(a.chaves[i], a.conteineres[i], a.cardinalidades[i],
+                        b.conteineres[j], b.cardinalidades[j]);
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Tamanho da interseção, sem montá-la (contagem de facetas)
+     */
+    public static long cardinalidadeE(BitmapCompactado a, BitmapCompactado b) {
+        long total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.tamanho && j < b.tamanho) {
+            if (a.chaves[i] < b.chaves[j]) {
+                i++;
+            } else if (a.chaves[i] > b.chaves[j]) {
+                j++;
+            } else {
+                total += contarInterseccao(a.conteineres[i], a.cardinalidades[i], b.conteineres[j], b.cardinalidades[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    private void acrescentarInterseccao(char chave, Object x, int nx, Object y, int ny) {
+        if (x instanceof long[] px && y instanceof long[] py) {
+            long[] palavras = new long[PALAVRAS_BITMAP];
+            int cardinalidade = 0;
+            for (int p = 0; p < PALAVRAS_BITMAP; p++) {
+                palavras[p] = px[p] & py[p];
+                cardinalidade += Long.bitCount(palavras[p]);
+            }
+            if (cardinalidade > 0) {
+                acrescentar(chave, cardinalidade > LIMITE_ARRAY ? palavras : paraArray(palavras, cardinalidade), cardinalidade);
+            }
+            return;
+        }
+
+        // Pelo menos um é array: o resultado também é (cabe no menor)
+        char[] valores;
+        int n = 0;
+        if (x instanceof char[] ax && y instanceof char[] ay) {
+            valores = new char[Math.min(nx, ny)];
+            int i = 0;
+            int j = 0;
+            while (i < nx && j < ny) {
+                if (ax[i] < ay[j]) {
+                    i++;
+                } else if (ax[i] > ay[j]) {
+                    j++;
+                } else {
+                    valores[n++] = ax[i];
+                    i++;
+                    j++;
+                }
+            }
+        } else {
+            char[] array = x instanceof char[] ax ? ax : (char[]) y;
+            int tamanhoArray = x instanceof char[] ? nx : ny;
+            long[] palavras = x instanceof long[] px ? px : (long[]) y;
+            valores = new char[tamanhoArray];
+            for (int i = 0; i < tamanhoArray; i++) {
+                if ((palavras[array[i] >>> 6] & (1L << array[i])) != 0) {
+                    valores[n++] = array[i];
+                }
+            }
+        }
+        if (n > 0) {
+            acrescentar(chave, valores, n);
+        }
+    }
+
+    private void acrescentarUniao(char chave, Object x, int nx, Object y, int ny) {
+        if (x instanceof char[] ax && y instanceof char[] ay && nx + ny <= LIMITE_ARRAY) {
+            char[] valores = new char[nx + ny];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < nx || j < ny) {
+                if (j == ny || (i < nx && ax[i] < ay[j])) {
+                    valores[n++] = ax[i++];
+                } else if (i == nx || ax[i] > ay[j]) {
+                    valores[n++] = ay[j++];
+                } else {
+                    valores[n++] = ax[i++];
+                    j++;
+                }
+            }
+            acrescentar(chave, valores, n);
+            return;
+        }
+
+        long[] palavras = x instanceof long[] px ? px.clone() : paraBitmap((char[]) x, nx);
+        if (y instanceof long[] py) {
+            for (int p = 0; p < PALAVRAS_BITMAP; p++) {
+                palavras[p] |= py[p];
+            }
+        } else {
+            char[] ay = (char[]) y;
+            for (int j = 0; j < ny; j++) {
+                palavras[ay[j] >>> 6] |= 1L << ay[j];
+            }
+        }
+        int cardinalidade = 0;
+        for (long palavra : palavras) {
+            cardinalidade += Long.bitCount(palavra);
+        }
+        acrescentar(chave, cardinalidade > LIMITE_ARRAY ? palavras : paraArray(palavras, cardinalidade), cardinalidade);
+    }
+
+    private static long contarInterseccao(Object x, int nx, Object y, int ny) {
+        long total = 0;
+        if (x instanceof long[] px && y instanceof long[] py) {
+            for (int p = 0; p < PALAVRAS_BITMAP; p++) {
+                total += Long.bitCount(px[p] & py[p]);
+            }
+        } else if (x instanceof char[] ax && y instanceof char[] ay) {
+            int i = 0;
+            int j = 0;
+            while (i < nx && j < ny) {
+                if (ax[i] < ay[j]) {
+                    i++;
+                } else if (ax[i] > ay[j]) {
+                    j++;
+                } else {
+                    total++;
+                    i++;
+                    j++;
+                }
+            }
+        } else {
+            char[] array = x instanceof char[] ax ? ax : (char[]) y;
+            int tamanhoArray = x instanceof char[] ? nx : ny;
+            long[] palavras = x instanceof long[] px ? px : (long[]) y;
+            for (int i = 0; i < tamanhoArray; i++) {
+                if ((palavras[array[i] >>> 6] & (1L << array[i])) != 0) {
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    private void acrescentarCopia(char chave, Object conteiner, int cardinalidade) {
+        acrescentar(chave, conteiner instanceof long[] palavras ? palavras.clone()
+                : Arrays.copyOf((char[]) conteiner, cardinalidade), cardinalidade);
+    }
+
+    // Contêiner com chave maior que todas as atuais (montagem em ordem)
+    private void acrescentar(char chave, Object conteiner, int cardinalidade) {
+        inserirConteiner(tamanho, chave, conteiner, cardinalidade);
+    }
+
+    private void inserirConteiner(int posicao, char chave, Object conteiner, int cardinalidade) {
+        if (tamanho == chaves.length) {
+            chaves = Arrays.copyOf(chaves, tamanho * 2);
+            conteineres = Arrays.copyOf(conteineres, tamanho * 2);
+            cardinalidades = Arrays.copyOf(cardinalidades, tamanho * 2);
+        }
+        System.arraycopy(chaves, posicao, chaves, posicao + 1, tamanho - posicao);
+        System.arraycopy(conteineres, posicao, conteineres, posicao + 1, tamanho - posicao);
+        System.arraycopy(cardinalidades, posicao, cardinalidades, posicao + 1, tamanho - posicao);
+        chaves[posicao] = chave;
+        conteineres[posicao] = conteiner;
+        cardinalidades[posicao] = cardinalidade;
+        tamanho++;
+    }
+
+    private void removerConteiner(int posicao) {
+        System.arraycopy(chaves, posicao + 1, chaves, posicao, tamanho - posicao - 1);
+        System.arraycopy(conteineres, posicao + 1, conteineres, posicao, tamanho - posicao - 1);
+        System.arraycopy(cardinalidades, posicao + 1, cardinalidades, posicao, tamanho - posicao - 1);
+        tamanho--;
+        conteineres[tamanho] = null;
+    }
+
+    private static long[] paraBitmap(char[] valores, int n) {
+        long[] palavras = new long[PALAVRAS_BITMAP];
+        for (int i = 0; i < n; i++) {
+            palavras[valores[i] >>> 6] |= 1L << valores[i];
+        }
+        return palavras;
+    }
+
+    private static char[] paraArray(long[] palavras, int cardinalidade) {
+        char[] valores = new char[Math.max(1, cardinalidade)];
+        int n = 0;
+        for (int p = 0; p < PALAVRAS_BITMAP; p++) {
+            long palavra = palavras[p];
+            while (palavra != 0) {
+                valores[n++] = (char) ((p << 6) | Long.numberOfTrailingZeros(palavra));
+                palavra &= palavra - 1;
+            }
+        }
+        return valores;
+    }
+}
@@ -0,0 +1,46 @@
+package com.streamflix.api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco de paginação keyset sobre (data, id): Base64 URL de "data|id".
+ * O cliente só devolve o valor recebido; o formato pode mudar sem quebrar a API.
+ */
+public final class CursorKeyset {
+
+    private static final char SEPARADOR = '|';
+
+    private CursorKeyset() {}
+
+    /**
+     * Última linha entregue: a próxima página começa depois dela
+     */
+    public record Posicao(LocalDateTime data, long id) {
+    }
+
+    public static String codificar(LocalDateTime data, long id) {
+        String texto = data.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Posição do cursor (IllegalArgumentException se não foi gerado por codificar)
+     */
+    public static Posicao decodificar(String cursor) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor de paginação inválido");
+            }
+            return new Posicao(LocalDateTime.parse(texto.substring(0, separador)),
+                    Long.parseLong(texto.substring(separador + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException e erros de Base64 também são IllegalArgumentException
+            throw new IllegalArgumentException("Cursor de paginação inválido");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.streamflix.api.util;
+
+/**
+ * Funções de hash para as estruturas em memória
+ */
+public final class Hashing {
+
+    private Hashing() {}
+
+    /**
+     * Espalhar os bits de um long (finalizador do MurmurHash3) e reduzir para int
+     */
+    public static int misturar(long valor) {
+        return (int) misturar64(valor);
+    }
+
+    /**
+     * Finalizador de 64 bits do MurmurHash3
+     */
+    public static long misturar64(long valor) {
+        long h = valor;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,73 @@
+package com.streamflix.api.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Índice em memória que recebe mudanças incrementais e é reconstruído periodicamente a partir do banco.
+ *
+ * As mudanças aplicadas durante uma reconstrução também são guardadas e reaplicadas no índice novo antes da
+ * troca, então nada feito por esta instância enquanto o banco era lido se perde. Leitores usam {@link #get()}
+ * sem lock; a estrutura do índice é quem garante leituras seguras concorrentes com as mudanças.
+ */
+public final class IndiceRecarregavel<T> {
+
+    private volatile T atual;
+
+    // Mudanças recebidas durante uma reconstrução, reaplicadas no índice novo (null = sem reconstrução)
+    private List<Consumer<T>> mudancasDuranteRecarga;
+
+    // Uma reconstrução por vez
+    private final ReentrantLock recargaLock = new ReentrantLock();
+
+    public IndiceRecarregavel(T inicial) {
+        this.atual = inicial;
+    }
+
+    public T get() {
+        return atual;
+    }
+
+    /**
+     * Aplicar uma mudança no índice atual (e no que está sendo montado, se houver)
+     */
+    public synchronized void aplicar(Consumer<T> mudanca) {
+        mudanca.accept(atual);
+        if (mudancasDuranteRecarga != null) {
+            mudancasDuranteRecarga.add(mudanca);
+        }
+    }
+
+    /**
+     * Montar um índice novo, reaplicar nele as mudanças recebidas durante a montagem e trocar o atual.
+     * Retorna o índice novo; se a montagem falhar a exceção é repassada e o índice atual continua valendo.
+     */
+    public T recarregar(Supplier<T> montagem) {
+        recargaLock.lock();
+        try {
+            synchronized (this) {
+                mudancasDuranteRecarga = new ArrayList<>();
+            }
+            T novo;
+            try {
+                novo = montagem.get();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    mudancasDuranteRecarga = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                mudancasDuranteRecarga.forEach(mudanca -> mudanca.accept(novo));
+                mudancasDuranteRecarga = null;
+                atual = novo;
+            }
+            return novo;
+        } finally {
+            recargaLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.streamflix.api.util;
+
+import java.util.Arrays;
+
+/**
+ * Mapa long -> byte com endereçamento aberto (sondagem linear), sem boxing.
+ * Não é thread-safe: quem usa deve sincronizar.
+ */
+public class LongByteHashMap {
+
+    private static final float FATOR_CARGA = 0.6f;
+
+    private long[] chaves;
+    private byte[] valores;
+    private boolean[] ocupados;
+    private int tamanho;
+    private int limite;
+    private final byte ausente;
+
+    public LongByteHashMap(int capacidadeInicial, byte valorAusente) {
+        int capacidade = Integer.highestOneBit(Math.max(4, (int) (capacidadeInicial / FATOR_CARGA)) - 1) << 1;
+        alocar(capacidade);
+        this.ausente = valorAusente;
+    }
+
+    public byte get(long chave) {
+        int i = indice(chave);
+        while (ocupados[i]) {
+            if (chaves[i] == chave) {
+                return valores[i];
+            }
+            i = (i + 1) & (chaves.length - 1);
+        }
+        return ausente;
+    }
+
+    public boolean containsKey(long chave) {
+        int i = indice(chave);
+        while (ocupados[i]) {
+            if (chaves[i] == chave) {
+                return true;
+            }
+            i = (i + 1) & (chaves.length - 1);
+        }
+        return false;
+    }
+
+    public void put(long chave, byte valor) {
+        int i = indice(chave);
+        while (ocupados[i]) {
+            if (chaves[i] == chave) {
+                valores[i] = valor;
+                return;
+            }
+            i = (i + 1) & (chaves.length - 1);
+        }
+        chaves[i] = chave;
+        valores[i] = valor;
+        ocupados[i] = true;
+        if (++tamanho > limite) {
+            redimensionar();
+        }
+    }
+
+    /**
+     * Remove a chave e retorna o valor anterior (ou o valor de ausência)
+     */
+    public byte remove(long chave) {
+        int mascara = chaves.length - 1;
+        int i = indice(chave);
+        while (ocupados[i]) {
+            if (chaves[i] == chave) {
+                byte anterior = valores[i];
+                apagar(i, mascara);
+                tamanho--;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        return ausente;
+    }
+
+    public int size() {
+        return tamanho;
+    }
+
+    public void clear() {
+        Arrays.fill(ocupados, false);
+        tamanho = 0;
+    }
+
+    // Remoção com deslocamento para trás: mantém as sequências de sondagem sem lápides
+    private void apagar(int livre, int mascara) {
+        int i = livre;
+        while (true) {
+            i = (i + 1) & mascara;
+            if (!ocupados[i]) {
+                break;
+            }
+            int ideal = indice(chaves[i]);
+            // Move o elemento se a posição livre está entre a posição ideal e a atual (circularmente)
+            boolean mover = livre <= i
+                    ? (ideal <= livre || ideal > i)
+                    : (ideal <= livre && ideal > i);
+            if (mover) {
+                chaves[livre] = chaves[i];
+                valores[livre] = valores[i];
+                livre = i;
+            }
+        }
+        ocupados[livre] = false;
+    }
+
+    private void redimensionar() {
+        long[] chavesAntigas = chaves;
+        byte[] valoresAntigos = valores;
+        boolean[] ocupadosAntigos = ocupados;
+
+        alocar(chavesAntigas.length << 1);
+        tamanho = 0;
+        for (int i = 0; i < chavesAntigas.length; i++) {
+            if (ocupadosAntigos[i]) {
+                put(chavesAntigas[i], valoresAntigos[i]);
+            }
+        }
+    }
+
+    private void alocar(int capacidade) {
+        chaves = new long[capacidade];
+        valores = new byte[capacidade];
+        ocupados = new boolean[capacidade];
+        limite = (int) (capacidade * FATOR_CARGA);
+    }
+
+    private int indice(long chave) {
+        return Hashing.misturar(chave) & (chaves.length - 1);
+    }
+}
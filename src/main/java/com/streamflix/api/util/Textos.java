@@ -0,0 +1,29 @@
+package com.streamflix.api.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de textos usados como chave (gênero, termos de busca...)
+ */
+public final class Textos {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private Textos() {}
+
+    /**
+     * Minúsculas, sem acentos e com espaços simples: "  Ficção  Científica" -> "ficcao cientifica".
+     * Retorna null para texto nulo ou vazio.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String semAcentos = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        String normalizado = ESPACOS.matcher(semAcentos.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return normalizado.isEmpty() ? null : normalizado;
+    }
+}
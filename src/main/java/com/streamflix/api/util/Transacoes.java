@@ -0,0 +1,29 @@
+package com.streamflix.api.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilitários de transação para manter estado em memória coerente com o banco
+ */
+public final class Transacoes {
+
+    private Transacoes() {}
+
+    /**
+     * Executar a ação depois do commit da transação atual (ou já, se não houver transação).
+     * Em rollback a ação é descartada.
+     */
+    public static void depoisDoCommit(Runnable acao) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            acao.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                acao.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package com.streamflix.api.busca;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrieSugestoesTest {
+
+    @Test
+    void completarDevolveOsDeMaiorPesoEmOrdem() {
+        TrieSugestoes trie = TrieSugestoes.construir(List.of(
+                new TrieSugestoes.Entrada("matrix", 0, 50),
+                new TrieSugestoes.Entrada("matrix reloaded", 1, 80),
+                new TrieSugestoes.Entrada("mad max", 2, 10),
+                new TrieSugestoes.Entrada("memento", 3, 30),
+                new TrieSugestoes.Entrada("alien", 4, 99)), 10);
+
+        assertThat(trie.completar("m", 10)).containsExactly(1, 0, 3, 2);
+        assertThat(trie.completar("ma", 10)).containsExactly(1, 0, 2);
+        assertThat(trie.completar("matrix", 10)).containsExactly(1, 0);
+        assertThat(trie.completar("matrix r", 10)).containsExactly(1);
+        assertThat(trie.completar("m", 2)).containsExactly(1, 0);
+        assertThat(trie.completar("", 2)).containsExactly(4, 1);
+    }
+
+    @Test
+    void empateDePesoSaiPeloMenorValor() {
+        TrieSugestoes trie = TrieSugestoes.construir(List.of(
+                new TrieSugestoes.Entrada("casablanca", 7, 40),
+                new TrieSugestoes.Entrada("cidade de deus", 2, 40),
+                new TrieSugestoes.Entrada("carrie", 5, 40),
+                new TrieSugestoes.Entrada("coringa", 9, 60)), 10);
+
+        assertThat(trie.completar("c", 10)).containsExactly(9, 2, 5, 7);
+        assertThat(trie.completar("ca", 10)).containsExactly(5, 7);
+    }
+
+    @Test
+    void sugestaoComVariasChavesApareceUmaVez() {
+        List<TrieSugestoes.Entrada> entradas = new ArrayList<>();
+        for (String chave : TrieSugestoes.chaves("O Poderoso Chefão")) {
+            entradas.add(new TrieSugestoes.Entrada(chave, 0, 100));
+        }
+        for (String chave : TrieSugestoes.chaves("Poderosa Afrodite")) {
+            entradas.add(new TrieSugestoes.Entrada(chave, 1, 20));
+        }
+        TrieSugestoes trie = TrieSugestoes.construir(entradas, 10);
+
+        assertThat(TrieSugestoes.chaves("O Poderoso Chefão")).containsExactly("o poderoso chefao", "poderoso chefao", "chefao");
+        assertThat(trie.completar("poder", 10)).containsExactly(0, 1);
+        assertThat(trie.completar("chef", 10)).containsExactly(0);
+        assertThat(trie.completar("afro", 10)).containsExactly(1);
+        assertThat(trie.completar("", 10)).containsExactly(0, 1);
+    }
+
+    @Test
+    void guardaSoOsMelhoresPorNo() {
+        List<TrieSugestoes.Entrada> entradas = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            entradas.add(new TrieSugestoes.Entrada("filme " + i, i, i));
+        }
+        TrieSugestoes trie = TrieSugestoes.construir(entradas, 3);
+
+        assertThat(trie.completar("filme", 10)).containsExactly(19, 18, 17);
+        assertThat(trie.completar("filme 1", 10)).containsExactly(19, 18, 17);
+        assertThat(trie.completar("filme 5", 10)).containsExactly(5);
+    }
+
+    @Test
+    void prefixoSemCorrespondencia() {
+        TrieSugestoes trie = TrieSugestoes.construir(List.of(
+                new TrieSugestoes.Entrada("matrix", 0, 50),
+                new TrieSugestoes.Entrada("memento", 1, 30)), 10);
+
+        assertThat(trie.completar("mx", 10)).isEmpty();
+        assertThat(trie.completar("matrixx", 10)).isEmpty();
+        assertThat(trie.completar("z", 10)).isEmpty();
+        assertThat(TrieSugestoes.construir(List.of(), 10).completar("a", 10)).isEmpty();
+    }
+}
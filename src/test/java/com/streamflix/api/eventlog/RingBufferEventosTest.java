@@ -0,0 +1,87 @@
+package com.streamflix.api.eventlog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferEventosTest {
+
+    @Test
+    void filaCheiaDescartaEContaODescarte() {
+        RingBufferEventos fila = new RingBufferEventos(4);
+        for (long filme = 1; filme <= 4; filme++) {
+            assertThat(fila.publicar(filme, 10, 100)).isTrue();
+        }
+
+        assertThat(fila.publicar(5, 10, 100)).isFalse();
+        assertThat(fila.publicar(6, 10, 100)).isFalse();
+        assertThat(fila.getDescartados()).isEqualTo(2);
+        assertThat(fila.getPendentes()).isEqualTo(4);
+        assertThat(filmesConsumidos(fila, 10)).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void voltaAoInicioDoArrayDepoisDeConsumir() {
+        RingBufferEventos fila = new RingBufferEventos(4);
+        for (long filme = 1; filme <= 4; filme++) {
+            fila.publicar(filme, filme * 10, filme * 100);
+        }
+        assertThat(filmesConsumidos(fila, 3)).containsExactly(1L, 2L, 3L);
+
+        // Os slots liberados são reusados: as sequências 4, 5 e 6 caem nos slots 0, 1 e 2
+        assertThat(fila.publicar(5, 50, 500)).isTrue();
+        assertThat(fila.publicar(6, 60, 600)).isTrue();
+        assertThat(fila.publicar(7, 70, 700)).isTrue();
+        assertThat(fila.publicar(8, 80, 800)).isFalse();
+
+        List<long[]> eventos = new ArrayList<>();
+        assertThat(fila.consumir((filme, usuario, timestamp) -> eventos.add(new long[]{filme, usuario, timestamp}), 10))
+                .isEqualTo(4);
+        assertThat(eventos).hasSize(4);
+        for (int i = 0; i < eventos.size(); i++) {
+            long filme = 4 + i;
+            assertThat(eventos.get(i)).containsExactly(filme, filme * 10, filme * 100);
+        }
+        assertThat(fila.getPendentes()).isZero();
+        assertThat(fila.getDescartados()).isEqualTo(1);
+    }
+
+    @Test
+    void variasVoltasMantemAOrdem() {
+        RingBufferEventos fila = new RingBufferEventos(8);
+        List<Long> consumidos = new ArrayList<>();
+        long proximo = 0;
+        for (int volta = 0; volta < 10; volta++) {
+            while (fila.publicar(proximo, 0, 0)) {
+                proximo++;
+            }
+            fila.consumir((filme, usuario, timestamp) -> consumidos.add(filme), 5);
+        }
+        fila.consumir((filme, usuario, timestamp) -> consumidos.add(filme), Integer.MAX_VALUE);
+
+        assertThat(consumidos).hasSize((int) proximo);
+        for (int i = 0; i < consumidos.size(); i++) {
+            assertThat(consumidos.get(i)).isEqualTo((long) i);
+        }
+        assertThat(fila.getDescartados()).isEqualTo(10);
+    }
+
+    @Test
+    void capacidadeArredondadaParaPotenciaDeDois() {
+        RingBufferEventos fila = new RingBufferEventos(5);
+        int aceitos = 0;
+        while (fila.publicar(aceitos, 0, 0)) {
+            aceitos++;
+        }
+        assertThat(aceitos).isEqualTo(8);
+    }
+
+    private static List<Long> filmesConsumidos(RingBufferEventos fila, int maximo) {
+        List<Long> filmes = new ArrayList<>();
+        fila.consumir((filme, usuario, timestamp) -> filmes.add(filme), maximo);
+        return filmes;
+    }
+}
@@ -0,0 +1,122 @@
+package com.streamflix.api.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeaderboardPopularidadeTest {
+
+    @Test
+    void incrementoAtravessaOBlocoDeEmpate() {
+        LeaderboardPopularidade leaderboard = LeaderboardPopularidade.construir(List.of(
+                new long[]{1, 10}, new long[]{2, 5}, new long[]{3, 5}, new long[]{4, 5}, new long[]{5, 1}));
+
+        // O último do bloco de 5 troca com o primeiro e passa à frente dos outros dois
+        leaderboard.incrementar(4, 1);
+
+        long[] ids = leaderboard.ids();
+        assertThat(ids[0]).isEqualTo(1L);
+        assertThat(ids[1]).isEqualTo(4L);
+        assertThat(ids[4]).isEqualTo(5L);
+        assertThat(leaderboard.posicao(2) + leaderboard.posicao(3)).isEqualTo(3 + 4);
+        assertThat(leaderboard.posicao(4)).isEqualTo(2);
+        assertThat(leaderboard.pontuacao(4)).isEqualTo(6);
+        conferirOrdemEPosicoes(leaderboard);
+    }
+
+    @Test
+    void decrementoVaiParaDepoisDoBlocoDeEmpate() {
+        LeaderboardPopularidade leaderboard = LeaderboardPopularidade.construir(List.of(
+                new long[]{1, 10}, new long[]{2, 7}, new long[]{3, 7}, new long[]{4, 7}, new long[]{5, 1}));
+
+        leaderboard.atualizar(1, 7);
+        assertThat(leaderboard.top(5)[1]).containsExactly(7L, 7L, 7L, 7L, 1L);
+        assertThat(leaderboard.posicao(5)).isEqualTo(5);
+
+        leaderboard.atualizar(1, 6);
+        assertThat(leaderboard.ids()[3]).isEqualTo(1L);
+        assertThat(leaderboard.posicao(1)).isEqualTo(4);
+        conferirOrdemEPosicoes(leaderboard);
+    }
+
+    @Test
+    void empatarComOBlocoNaoMudaAOrdemDosOutros() {
+        LeaderboardPopularidade leaderboard = LeaderboardPopularidade.construir(List.of(
+                new long[]{1, 9}, new long[]{2, 8}, new long[]{3, 8}, new long[]{4, 3}));
+
+        leaderboard.atualizar(4, 8);
+
+        long[][] top = leaderboard.top(4);
+        assertThat(top[1]).containsExactly(9L, 8L, 8L, 8L);
+        assertThat(top[0][0]).isEqualTo(1L);
+        conferirOrdemEPosicoes(leaderboard);
+    }
+
+    @Test
+    void definirInsereEntreEmpatados() {
+        LeaderboardPopularidade leaderboard = new LeaderboardPopularidade();
+        leaderboard.definir(1, 4);
+        leaderboard.definir(2, 4);
+        leaderboard.definir(3, 4);
+        leaderboard.definir(4, 4);
+
+        assertThat(leaderboard.tamanho()).isEqualTo(4);
+        assertThat(leaderboard.top(4)[1]).containsExactly(4L, 4L, 4L, 4L);
+        conferirOrdemEPosicoes(leaderboard);
+
+        leaderboard.definir(5, 0);
+        leaderboard.incrementar(5, 4);
+        assertThat(leaderboard.pontuacao(5)).isEqualTo(4);
+        conferirOrdemEPosicoes(leaderboard);
+    }
+
+    @Test
+    void muitosMovimentosComEmpatesMantemOrdemEPosicoes() {
+        Random aleatorio = new Random(42);
+        List<long[]> entradas = new ArrayList<>();
+        long[] esperadas = new long[200];
+        for (int id = 0; id < esperadas.length; id++) {
+            esperadas[id] = aleatorio.nextInt(5);
+            entradas.add(new long[]{id, esperadas[id]});
+        }
+        LeaderboardPopularidade leaderboard = LeaderboardPopularidade.construir(entradas);
+
+        for (int i = 0; i < 5_000; i++) {
+            int id = aleatorio.nextInt(esperadas.length);
+            long delta = aleatorio.nextInt(5) - 2;
+            esperadas[id] += delta;
+            leaderboard.incrementar(id, delta);
+        }
+
+        for (int id = 0; id < esperadas.length; id++) {
+            assertThat(leaderboard.pontuacao(id)).isEqualTo(esperadas[id]);
+        }
+        List<Long> ordenadas = new ArrayList<>();
+        for (long pontuacao : esperadas) {
+            ordenadas.add(pontuacao);
+        }
+        ordenadas.sort(Comparator.reverseOrder());
+        long[] pontuacoes = leaderboard.top(esperadas.length)[1];
+        for (int i = 0; i < pontuacoes.length; i++) {
+            assertThat(pontuacoes[i]).isEqualTo(ordenadas.get(i));
+        }
+        conferirOrdemEPosicoes(leaderboard);
+    }
+
+    // Pontuações em ordem decrescente e posicao() coerente com a ordem dos IDs
+    private static void conferirOrdemEPosicoes(LeaderboardPopularidade leaderboard) {
+        long[][] top = leaderboard.top(leaderboard.tamanho());
+        for (int i = 0; i < top[0].length; i++) {
+            if (i > 0) {
+                assertThat(top[1][i]).isLessThanOrEqualTo(top[1][i - 1]);
+            }
+            assertThat(leaderboard.posicao(top[0][i])).isEqualTo(i + 1);
+            assertThat(leaderboard.pontuacao(top[0][i])).isEqualTo(top[1][i]);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.streamflix.api.sketch;
+
+import com.streamflix.api.util.Hashing;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HyperLogLogTest {
+
+    private static final int PRECISAO = 12;
+
+    // 1,04 / sqrt(4096) = 1,6%; três erros padrão
+    private static final double ERRO_MAXIMO = 3 * 1.04 / Math.sqrt(1 << PRECISAO);
+
+    @Test
+    void comecaEsparsoEPassaParaDensoAoCrescer() {
+        HyperLogLog sketch = new HyperLogLog(PRECISAO);
+        assertThat(sketch.isEsparso()).isTrue();
+
+        // Limite do esparso: 2^12 / 16 = 256 registradores diferentes de zero
+        for (long usuario = 1; usuario <= 100; usuario++) {
+            sketch.adicionar(Hashing.misturar64(usuario));
+        }
+        assertThat(sketch.isEsparso()).isTrue();
+
+        for (long usuario = 101; usuario <= 1000; usuario++) {
+            sketch.adicionar(Hashing.misturar64(usuario));
+        }
+        assertThat(sketch.isEsparso()).isFalse();
+        assertThat(sketch.toBytes()).hasSize((1 << PRECISAO) + 1);
+    }
+
+    @Test
+    void conversaoParaDensoMantemOsRegistradores() {
+        HyperLogLog direto = new HyperLogLog(PRECISAO);
+        HyperLogLog parte1 = new HyperLogLog(PRECISAO);
+        HyperLogLog parte2 = new HyperLogLog(PRECISAO);
+        for (long usuario = 1; usuario <= 600; usuario++) {
+            long hash = Hashing.misturar64(usuario);
+            direto.adicionar(hash);
+            (usuario % 2 == 0 ? parte1 : parte2).adicionar(hash);
+        }
+        assertThat(direto.isEsparso()).isFalse();
+        assertThat(parte1.isEsparso()).isFalse();
+
+        // Pequeno o bastante para continuar esparso; a mescla no denso deve dar o mesmo sketch
+        HyperLogLog pequeno = new HyperLogLog(PRECISAO);
+        for (long usuario = 1; usuario <= 50; usuario++) {
+            pequeno.adicionar(Hashing.misturar64(usuario * 2));
+        }
+        assertThat(pequeno.isEsparso()).isTrue();
+
+        HyperLogLog unido = pequeno.copia();
+        unido.mesclar(parte2);
+        unido.mesclar(parte1);
+        assertThat(unido.isEsparso()).isFalse();
+        assertThat(unido.toBytes()).isEqualTo(direto.toBytes());
+        assertThat(unido.estimar()).isEqualTo(direto.estimar());
+    }
+
+    @Test
+    void leituraDaFormaDensaDevolveOMesmoSketch() {
+        HyperLogLog esparso = new HyperLogLog(PRECISAO);
+        for (long usuario = 1; usuario <= 200; usuario++) {
+            esparso.adicionar(Hashing.misturar64(usuario));
+        }
+        assertThat(esparso.isEsparso()).isTrue();
+
+        // Serialização densa dos mesmos registradores (como gravada por um nó cujo sketch já era denso)
+        byte[] esparsoSerializado = esparso.toBytes();
+        byte[] denso = new byte[(1 << PRECISAO) + 1];
+        denso[0] = PRECISAO;
+        for (int i = 1; i < esparsoSerializado.length; i += 3) {
+            int indice = ((esparsoSerializado[i] & 0xFF) << 8) | (esparsoSerializado[i + 1] & 0xFF);
+            denso[indice + 1] = esparsoSerializado[i + 2];
+        }
+        HyperLogLog lido = HyperLogLog.deBytes(denso);
+
+        assertThat(lido.estimar()).isEqualTo(esparso.estimar());
+        assertThat(lido.toBytes()).isEqualTo(esparsoSerializado);
+    }
+
+    @Test
+    void erroDentroDoLimite() {
+        for (int distintos : new int[]{100, 1_000, 10_000, 200_000}) {
+            HyperLogLog sketch = new HyperLogLog(PRECISAO);
+            for (long usuario = 1; usuario <= distintos; usuario++) {
+                sketch.adicionar(Hashing.misturar64(usuario));
+            }
+            assertThat((double) sketch.estimar())
+                    .as("estimativa de %d distintos", distintos)
+                    .isCloseTo(distintos, within(distintos * ERRO_MAXIMO));
+        }
+    }
+
+    @Test
+    void repetidosNaoMudamOSketch() {
+        HyperLogLog sketch = new HyperLogLog(PRECISAO);
+        for (long usuario = 1; usuario <= 5_000; usuario++) {
+            sketch.adicionar(Hashing.misturar64(usuario));
+        }
+        long estimativa = sketch.estimar();
+        byte[] registradores = sketch.toBytes();
+
+        for (long usuario = 1; usuario <= 5_000; usuario++) {
+            assertThat(sketch.adicionar(Hashing.misturar64(usuario))).isFalse();
+        }
+        assertThat(sketch.estimar()).isEqualTo(estimativa);
+        assertThat(sketch.toBytes()).isEqualTo(registradores);
+    }
+}
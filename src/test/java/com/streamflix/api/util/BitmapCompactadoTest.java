@@ -0,0 +1,108 @@
+package com.streamflix.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BitmapCompactadoTest {
+
+    // Acima de 4096 valores o contêiner passa de array para bitmap
+    private static final int LIMITE_ARRAY = 4096;
+
+    @Test
+    void interseccaoEUniaoEntreArrays() {
+        BitmapCompactado a = bitmap(1, 5, 9, 70_000);
+        BitmapCompactado b = bitmap(5, 9, 12, 140_000);
+
+        assertThat(BitmapCompactado.e(a, b).valores()).containsExactly(5, 9);
+        assertThat(BitmapCompactado.ou(a, b).valores()).containsExactly(1, 5, 9, 12, 70_000, 140_000);
+        assertThat(BitmapCompactado.cardinalidadeE(a, b)).isEqualTo(2);
+    }
+
+    @Test
+    void interseccaoEUniaoEntreBitmaps() {
+        // Pares e múltiplos de 3 em [0, 30000): os dois contêineres da chave 0 são bitmaps
+        BitmapCompactado pares = bitmap(IntStream.range(0, 30_000).filter(v -> v % 2 == 0).toArray());
+        BitmapCompactado multiplos3 = bitmap(IntStream.range(0, 30_000).filter(v -> v % 3 == 0).toArray());
+
+        conferir(pares, multiplos3);
+        assertThat(BitmapCompactado.cardinalidadeE(pares, multiplos3)).isEqualTo(5_000);
+        assertThat(BitmapCompactado.ou(pares, multiplos3).cardinalidade()).isEqualTo(20_000);
+    }
+
+    @Test
+    void interseccaoEUniaoEntreArrayEBitmap() {
+        BitmapCompactado denso = bitmap(IntStream.range(0, 10_000).toArray());
+        BitmapCompactado esparso = bitmap(3, 9_999, 10_000, 65_535, 65_536);
+
+        conferir(denso, esparso);
+        conferir(esparso, denso);
+        assertThat(BitmapCompactado.e(denso, esparso).valores()).containsExactly(3, 9_999);
+        assertThat(BitmapCompactado.cardinalidadeE(esparso, denso)).isEqualTo(2);
+    }
+
+    @Test
+    void uniaoDeArraysQuePassaDoLimiteViraBitmap() {
+        BitmapCompactado a = bitmap(IntStream.range(0, LIMITE_ARRAY).map(v -> v * 2).toArray());
+        BitmapCompactado b = bitmap(IntStream.range(0, LIMITE_ARRAY).map(v -> v * 2 + 1).toArray());
+
+        BitmapCompactado uniao = BitmapCompactado.ou(a, b);
+        assertThat(uniao.cardinalidade()).isEqualTo(2L * LIMITE_ARRAY);
+        assertThat(uniao.valores()).isEqualTo(IntStream.range(0, 2 * LIMITE_ARRAY).toArray());
+        assertThat(BitmapCompactado.e(uniao, a).valores()).isEqualTo(a.valores());
+    }
+
+    @Test
+    void remocaoVoltaParaArraySemPerderValores() {
+        BitmapCompactado bitmap = bitmap(IntStream.range(0, LIMITE_ARRAY + 10).toArray());
+        for (int valor = 0; valor < 20; valor++) {
+            bitmap.remover(valor);
+        }
+
+        assertThat(bitmap.cardinalidade()).isEqualTo(LIMITE_ARRAY - 10);
+        assertThat(bitmap.contem(19)).isFalse();
+        assertThat(bitmap.contem(20)).isTrue();
+        assertThat(bitmap.valores()).isEqualTo(IntStream.range(20, LIMITE_ARRAY + 10).toArray());
+        conferir(bitmap, bitmap(IntStream.range(0, 100).toArray()));
+    }
+
+    private static BitmapCompactado bitmap(int... valores) {
+        BitmapCompactado bitmap = new BitmapCompactado();
+        for (int valor : valores) {
+            bitmap.adicionar(valor);
+        }
+        return bitmap;
+    }
+
+    // Interseção, união e contagem conferidas contra TreeSet
+    private static void conferir(BitmapCompactado a, BitmapCompactado b) {
+        TreeSet<Integer> conjuntoA = conjunto(a);
+        TreeSet<Integer> conjuntoB = conjunto(b);
+
+        TreeSet<Integer> interseccao = new TreeSet<>(conjuntoA);
+        interseccao.retainAll(conjuntoB);
+        TreeSet<Integer> uniao = new TreeSet<>(conjuntoA);
+        uniao.addAll(conjuntoB);
+
+        assertThat(BitmapCompactado.e(a, b).valores()).isEqualTo(paraArray(interseccao));
+        assertThat(BitmapCompactado.ou(a, b).valores()).isEqualTo(paraArray(uniao));
+        assertThat(BitmapCompactado.cardinalidadeE(a, b)).isEqualTo(interseccao.size());
+        assertThat(BitmapCompactado.e(a, b).cardinalidade()).isEqualTo(interseccao.size());
+        assertThat(BitmapCompactado.ou(a, b).cardinalidade()).isEqualTo(uniao.size());
+    }
+
+    private static TreeSet<Integer> conjunto(BitmapCompactado bitmap) {
+        TreeSet<Integer> conjunto = new TreeSet<>();
+        for (int valor : bitmap.valores()) {
+            conjunto.add(valor);
+        }
+        return conjunto;
+    }
+
+    private static int[] paraArray(TreeSet<Integer> conjunto) {
+        return conjunto.stream().mapToInt(Integer::intValue).toArray();
+    }
+}